@@ -53,6 +53,7 @@ import org.apache.geode.management.internal.cli.functions.GatewaySenderCreateFun
 import org.apache.geode.management.internal.cli.functions.GatewaySenderDestroyFunction;
 import org.apache.geode.management.internal.cli.functions.GetMemberConfigInformationFunction;
 import org.apache.geode.management.internal.cli.functions.GetMemberInformationFunction;
+import org.apache.geode.management.internal.cli.functions.GetOffHeapMemoryDetailsFunction;
 import org.apache.geode.management.internal.cli.functions.GetRegionDescriptionFunction;
 import org.apache.geode.management.internal.cli.functions.GetRegionsFunction;
 import org.apache.geode.management.internal.cli.functions.GetStackTracesFunction;
@@ -127,6 +128,7 @@ public class CoreFunctionSecurityTest {
     functionStringMap.put(new GetClusterConfigurationFunction(), "*");
     functionStringMap.put(new GetMemberConfigInformationFunction(), "*");
     functionStringMap.put(new GetMemberInformationFunction(), "*");
+    functionStringMap.put(new GetOffHeapMemoryDetailsFunction(), "*");
     functionStringMap.put(new GetRegionDescriptionFunction(), "*");
     functionStringMap.put(new GetRegionsFunction(), "*");
     functionStringMap.put(new GetStackTracesFunction(), "*");
@@ -15,6 +15,7 @@
 package org.apache.geode.internal.cache;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -31,6 +32,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import org.apache.geode.StatisticsFactory;
+import org.apache.geode.compression.SnappyCompressor;
 import org.apache.geode.internal.cache.persistence.DiskRegionView;
 
 public class DiskInitFileJUnitTest {
@@ -175,4 +177,62 @@ public class DiskInitFileJUnitTest {
     dif.destroy();
   }
 
+  @Test
+  public void testCompressedValues() {
+    final StatisticsFactory sf = context.mock(StatisticsFactory.class);
+    context.checking(new Expectations() {
+      {
+        ignoring(sf);
+      }
+    });
+    final DiskRegionView drv = context.mock(DiskRegionView.class);
+    context.checking(new Expectations() {
+      {
+        ignoring(drv);
+      }
+    });
+    final DirectoryHolder dir = new DirectoryHolder(sf, testDirectory, 0, 0);
+    final DiskStoreImpl uncompressed = context.mock(DiskStoreImpl.class, "uncompressed");
+    context.checking(new Expectations() {
+      {
+        allowing(uncompressed).getInfoFileDir();
+        will(returnValue(dir));
+        allowing(uncompressed).getValueCompressor();
+        will(returnValue(null));
+        ignoring(uncompressed);
+      }
+    });
+    final DiskStoreImpl compressed = context.mock(DiskStoreImpl.class, "compressed");
+    context.checking(new Expectations() {
+      {
+        allowing(compressed).getInfoFileDir();
+        will(returnValue(dir));
+        allowing(compressed).getValueCompressor();
+        will(returnValue(new OplogValueCompressor(new SnappyCompressor(), null)));
+        ignoring(compressed);
+      }
+    });
+
+    DiskInitFile dif =
+        new DiskInitFile("testCompressedValues", uncompressed, false, Collections.emptySet());
+    assertFalse(dif.hasCompressedValues());
+    dif.createRegion(drv);
+    dif.close();
+
+    dif = new DiskInitFile("testCompressedValues", compressed, true, Collections.emptySet());
+    assertTrue(dif.hasCompressedValues());
+    dif.createRegion(drv);
+    dif.close();
+
+    // the record survives without a compressor and across init file compaction
+    dif = new DiskInitFile("testCompressedValues", uncompressed, true, Collections.emptySet());
+    assertTrue(dif.hasCompressedValues());
+    dif.createRegion(drv);
+    dif.forceCompaction();
+    dif.close();
+
+    dif = new DiskInitFile("testCompressedValues", uncompressed, true, Collections.emptySet());
+    assertTrue(dif.hasCompressedValues());
+    dif.destroy();
+  }
 }
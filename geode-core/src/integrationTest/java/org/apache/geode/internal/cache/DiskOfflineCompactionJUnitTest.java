@@ -21,9 +21,13 @@ import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
 import static org.apache.geode.distributed.ConfigurationProperties.STATISTIC_ARCHIVE_FILE;
 import static org.apache.geode.distributed.ConfigurationProperties.STATISTIC_SAMPLING_ENABLED;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.junit.After;
@@ -682,6 +686,58 @@ public class DiskOfflineCompactionJUnitTest {
     diskStore.destroy();
   }
 
+  @Test
+  public void testValidateAndCompactSeveralDiskStoresInParallel() throws Exception {
+    Map<String, File[]> diskStores = new LinkedHashMap<>();
+    for (int i = 1; i <= 2; i++) {
+      DiskStoreFactory dsf = cache.createDiskStoreFactory();
+      dsf.setAutoCompact(false);
+      String name = "testValidateAndCompactSeveralDiskStoresInParallel" + i;
+      File dir = new File(name);
+      dir.mkdir();
+      dsf.setDiskDirs(new File[] {dir});
+      DiskStore diskStore = dsf.create(name);
+      AttributesFactory af = new AttributesFactory();
+      af.setDiskStoreName(name);
+      af.setDataPolicy(DataPolicy.PERSISTENT_REPLICATE);
+      Region r = cache.createRegion("r" + i, af.create());
+      r.put("key0", "value0");
+      r.put("key1", "value1");
+      r.put("key2", "value2");
+      diskStore.forceRoll();
+      r.put("key1", "update1");
+      r.put("key2", "update2");
+      r.remove("key2");
+      diskStores.put(name, diskStore.getDiskDirs());
+    }
+    cache.close();
+    ds.disconnect();
+
+    List<OfflineDiskStoreReport> reports = DiskStoreImpl.validate(diskStores, 2);
+    assertEquals(2, reports.size());
+    for (OfflineDiskStoreReport report : reports) {
+      assertTrue(report.getError(), report.isSuccessful());
+      assertEquals(OfflineDiskStoreReport.Operation.VALIDATE, report.getOperation());
+      assertEquals(2, report.getOplogs().size());
+      OfflineDiskStoreReport.OplogReport oplog1 = report.getOplogs().get(0);
+      assertEquals(1, oplog1.getOplogId());
+      assertTrue(oplog1.getCrfBytes() > 0);
+      assertTrue(oplog1.getGarbageRecords() > 0);
+      assertTrue(oplog1.getLiveRatio() < 1);
+    }
+
+    reports = DiskStoreImpl.offlineCompact(diskStores, false, -1, 2);
+    assertEquals(2, reports.size());
+    for (OfflineDiskStoreReport report : reports) {
+      assertTrue(report.getError(), report.isSuccessful());
+      assertEquals(OfflineDiskStoreReport.Operation.COMPACT, report.getOperation());
+      assertEquals(3, report.getDeadRecordCount());
+      assertEquals(3, report.getLiveEntryCount());
+    }
+
+    connectDSandCache();
+  }
+
   @Test
   public void testForceRollTwoEntriesWithUpdateAndDestroy() throws Exception {
     DiskStoreFactory dsf = cache.createDiskStoreFactory();
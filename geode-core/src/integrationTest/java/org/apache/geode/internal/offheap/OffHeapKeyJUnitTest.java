@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.ConfigurationProperties;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.entries.OffHeapKeyRegionEntry;
+import org.apache.geode.internal.cache.entries.VMThinRegionEntryOffHeapStoredKey;
+import org.apache.geode.internal.cache.entries.VersionedThinRegionEntryOffHeapStoredKey;
+import org.apache.geode.internal.cache.versions.VersionStamp;
+import org.apache.geode.test.junit.categories.OffHeapTest;
+
+@Category({OffHeapTest.class})
+public class OffHeapKeyJUnitTest {
+  private static final String KEY = "a key that is too long to be inlined in its entry";
+
+  private GemFireCacheImpl cache;
+
+  private LocalRegion region;
+
+  @Before
+  public void setUp() {
+    OffHeapKeyHelper.OFF_HEAP_REGION_KEYS = true;
+    Properties props = new Properties();
+    props.setProperty(LOCATORS, "");
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(ConfigurationProperties.OFF_HEAP_MEMORY_SIZE, "1m");
+    cache = (GemFireCacheImpl) new CacheFactory(props).create();
+    Region<Object, Object> r = cache.createRegionFactory(RegionShortcut.LOCAL)
+        .setConcurrencyChecksEnabled(false).setOffHeap(true).create("offHeapKeyRegion");
+    region = (LocalRegion) r;
+  }
+
+  @After
+  public void tearDown() {
+    OffHeapKeyHelper.OFF_HEAP_REGION_KEYS = false;
+    cache.close();
+  }
+
+  @Test
+  public void keyIsStoredOffHeapWithValue() {
+    region.put(KEY, new byte[100]);
+
+    RegionEntry entry = region.getRegionEntry(KEY);
+    assertThat(entry).isInstanceOf(VMThinRegionEntryOffHeapStoredKey.class);
+    OffHeapKeyRegionEntry keyEntry = (OffHeapKeyRegionEntry) entry;
+    assertThat(OffHeapRegionEntryHelper.isOffHeap(keyEntry.getHeaderAddress())).isTrue();
+    assertThat(OffHeapKeyHelper.getKeyForSizing(keyEntry)).isNull();
+    assertThat(entry.getKey()).isEqualTo(KEY);
+    assertThat(entry.getLastModified()).isPositive();
+    assertThat(region.containsKey(KEY)).isTrue();
+    assertThat((byte[]) region.get(KEY)).hasSize(100);
+    assertThat(region.keySet()).containsExactly(KEY);
+    assertThat(getOffHeapObjects()).isEqualTo(2);
+  }
+
+  @Test
+  public void keyStaysOnHeapWithoutOffHeapValue() {
+    region.create(KEY, null);
+
+    OffHeapKeyRegionEntry entry = (OffHeapKeyRegionEntry) region.getRegionEntry(KEY);
+    assertThat(entry.getHeaderAddress()).isEqualTo(OffHeapKeyHelper.HEAP_HEADER_ADDRESS);
+    assertThat(OffHeapKeyHelper.getKeyForSizing(entry)).isEqualTo(KEY);
+    assertThat(getOffHeapObjects()).isZero();
+  }
+
+  @Test
+  public void destroyMovesKeyBackToHeapAndFreesIt() {
+    region.put(KEY, new byte[100]);
+    RegionEntry entry = region.getRegionEntry(KEY);
+    long lastModified = entry.getLastModified();
+
+    region.destroy(KEY);
+
+    assertThat(region.containsKey(KEY)).isFalse();
+    assertThat(((OffHeapKeyRegionEntry) entry).getHeaderAddress())
+        .isEqualTo(OffHeapKeyHelper.RELEASED_HEADER_ADDRESS);
+    assertThat(entry.getKey()).isEqualTo(KEY);
+    assertThat(entry.getLastModified()).isEqualTo(lastModified);
+    assertThat(getOffHeapObjects()).isZero();
+  }
+
+  @Test
+  public void storedKeyIsComparedSerialized() {
+    region.put(KEY, new byte[100]);
+    OffHeapKeyRegionEntry entry = (OffHeapKeyRegionEntry) region.getRegionEntry(KEY);
+
+    assertThat(OffHeapKeyHelper.isKeyEqual(entry, new String(KEY))).isTrue();
+    assertThat(OffHeapKeyHelper.isKeyEqual(entry, KEY + "x")).isFalse();
+    assertThat(OffHeapKeyHelper.isKeyEqual(entry, 1L)).isFalse();
+  }
+
+  @Test
+  public void versionStampIsStoredInHeader() {
+    LocalRegion versioned = (LocalRegion) cache.createRegionFactory(RegionShortcut.LOCAL)
+        .setConcurrencyChecksEnabled(true).setOffHeap(true).create("versionedOffHeapKeyRegion");
+    versioned.put(KEY, new byte[100]);
+    versioned.put(KEY, new byte[100]);
+
+    RegionEntry entry = versioned.getRegionEntry(KEY);
+    assertThat(entry).isInstanceOf(VersionedThinRegionEntryOffHeapStoredKey.class);
+    assertThat(OffHeapRegionEntryHelper
+        .isOffHeap(((OffHeapKeyRegionEntry) entry).getHeaderAddress())).isTrue();
+    VersionStamp stamp = entry.getVersionStamp();
+    assertThat(stamp.getEntryVersion()).isEqualTo(2);
+    assertThat(stamp.getRegionVersion()).isEqualTo(2);
+    assertThat(stamp.getVersionTimeStamp()).isPositive();
+    assertThat(stamp.getDistributedSystemId()).isEqualTo(-1);
+  }
+
+  @Test
+  public void closingRegionFreesStoredKeys() {
+    for (int i = 0; i < 10; i++) {
+      region.put(KEY + i, new byte[100]);
+    }
+    assertThat(getOffHeapObjects()).isEqualTo(20);
+
+    region.close();
+
+    assertThat(getOffHeapObjects()).isZero();
+  }
+
+  private int getOffHeapObjects() {
+    return MemoryAllocatorImpl.getAllocator().getStats().getObjects();
+  }
+}
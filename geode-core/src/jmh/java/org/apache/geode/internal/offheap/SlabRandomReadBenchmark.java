@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures the latency of random reads from a slab allocated with
+ * {@link SlabImpl} compared to a slab mapped by {@link MappedSlabFactory}. Set directory to a
+ * hugetlbfs mount, or to a mount bound to a remote NUMA node, to measure what huge pages or node
+ * placement save.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class SlabRandomReadBenchmark {
+
+  @Param({"1073741824"})
+  int slabSize;
+
+  @Param({"unsafe", "mapped"})
+  String slabType;
+
+  @Param({"/dev/hugepages"})
+  String directory;
+
+  @Param({"2097152"})
+  long pageSize;
+
+  Slab slab;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    if (slabType.equals("mapped")) {
+      slab = new MappedSlabFactory(new File[] {new File(directory)}, pageSize, true)
+          .create(slabSize);
+    } else {
+      slab = new SlabImpl(slabSize);
+      AddressableMemoryManager.fill(slab.getMemoryAddress(), slabSize, (byte) 0);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    slab.free();
+  }
+
+  @State(Scope.Thread)
+  public static class ReadState {
+    long seed = System.nanoTime() | 1;
+  }
+
+  @Benchmark
+  @Measurement(iterations = 10)
+  @Warmup(iterations = 3)
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public long randomRead(ReadState state) {
+    long x = state.seed;
+    x ^= x << 13;
+    x ^= x >>> 7;
+    x ^= x << 17;
+    state.seed = x;
+    long offset = ((x >>> 1) % (slabSize - 8)) & ~7L;
+    return AddressableMemoryManager.readLong(slab.getMemoryAddress() + offset);
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.geode.cache.Region;
+
+/**
+ * Operations of a client {@link Region} that return without waiting for the server. Regions
+ * created by a {@link ClientCache} implement this interface; use {@link #of(Region)} to get it.
+ * <p>
+ * On a region that keeps no entries locally ({@link ClientRegionShortcut#PROXY}) and has no cache
+ * loader, writer or listener, requests that can be pipelined are sent on connections shared with
+ * other operations and no thread waits for their responses. Failed requests are retried like the
+ * blocking operations retry them. Any other operation is done by a thread of the cache, except in a
+ * transaction, which is bound to the calling thread and so does the operation in it.
+ * <p>
+ * The returned futures may be completed by a thread that reads responses from the server, so
+ * dependent actions that may block should be run with one of the async methods of
+ * {@link CompletableFuture}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ * @since Geode 1.8
+ */
+public interface AsyncRegion<K, V> {
+
+  /**
+   * Returns the asynchronous operations of the given region.
+   *
+   * @throws UnsupportedOperationException if the region does not support them, like the regions
+   *         of an authenticated view of the cache
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> AsyncRegion<K, V> of(Region<K, V> region) {
+    if (!(region instanceof AsyncRegion)) {
+      throw new UnsupportedOperationException(
+          "Asynchronous operations are not supported by " + region.getFullPath());
+    }
+    return (AsyncRegion<K, V>) region;
+  }
+
+  /**
+   * Asynchronous variant of {@link Region#get(Object)}.
+   *
+   * @return a future completing with the value of the key, or null if there is none
+   */
+  default CompletableFuture<V> getAsync(K key) {
+    return getAsync(key, null);
+  }
+
+  /**
+   * Asynchronous variant of {@link Region#get(Object, Object)}.
+   *
+   * @return a future completing with the value of the key, or null if there is none
+   */
+  CompletableFuture<V> getAsync(K key, Object aCallbackArgument);
+
+  /**
+   * Asynchronous variant of {@link Region#put(Object, Object)}.
+   *
+   * @return a future completing once the server has done the put. Its value is the old value if
+   *         one was returned, which the server normally does not do.
+   */
+  default CompletableFuture<V> putAsync(K key, V value) {
+    return putAsync(key, value, null);
+  }
+
+  /**
+   * Asynchronous variant of {@link Region#put(Object, Object, Object)}.
+   *
+   * @return a future completing once the server has done the put. Its value is the old value if
+   *         one was returned, which the server normally does not do.
+   */
+  CompletableFuture<V> putAsync(K key, V value, Object aCallbackArgument);
+
+  /**
+   * Asynchronous variant of {@link Region#getAll(Collection)}. One getAll is sent to each server
+   * hosting some of the keys if the pool does single hop, or a single getAll otherwise.
+   *
+   * @return a future completing with the values of the keys
+   */
+  CompletableFuture<Map<K, V>> getAllAsync(Collection<?> keys);
+
+  /**
+   * Asynchronous variant of {@link Region#getAll(Collection, Object)}.
+   *
+   * @return a future completing with the values of the keys
+   * @see #getAllAsync(Collection)
+   */
+  <T extends K> CompletableFuture<Map<T, V>> getAllAsync(Collection<T> keys,
+      Object aCallbackArgument);
+}
@@ -17,6 +17,7 @@ package org.apache.geode.cache.client.internal;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 
 import org.apache.logging.log4j.Logger;
 
@@ -80,13 +81,25 @@ public abstract class AbstractOp implements Op {
    * @throws Exception if the send fails
    */
   protected void attemptSend(Connection cnx) throws Exception {
+    attemptSend(cnx, cnx.getCommBuffer());
+  }
+
+  /**
+   * Attempts to send this operation's message out on the given connection, using the given comm
+   * buffer instead of the one of the connection
+   *
+   * @param cnx the connection to use when sending
+   * @param commBuffer the buffer to write the message through
+   * @throws Exception if the send fails
+   */
+  void attemptSend(Connection cnx, ByteBuffer commBuffer) throws Exception {
     setMsgTransactionId();
     if (logger.isTraceEnabled(LogMarker.DISTRIBUTION_BRIDGE_SERVER_VERBOSE)) {
       logger.trace(LogMarker.DISTRIBUTION_BRIDGE_SERVER_VERBOSE, "Sending op={} using {}",
           getShortClassName(), cnx);
     }
     getMessage().setComms(cnx.getSocket(), cnx.getInputStream(), cnx.getOutputStream(),
-        cnx.getCommBuffer(), cnx.getStats());
+        commBuffer, cnx.getStats());
     try {
       sendMessage(cnx);
     } finally {
@@ -428,4 +441,16 @@ public abstract class AbstractOp implements Op {
   public boolean isGatewaySenderOp() {
     return false;
   }
+
+  /**
+   * Subclasses should override this method to return true if this op may share a connection with
+   * other in flight ops. This requires that the response is a single, not chunked, message and
+   * that neither sending nor processing the response depends on state of the connection other
+   * than its endpoint.
+   *
+   * @see PipelinedConnection
+   */
+  protected boolean isPipelinable() {
+    return false;
+  }
 }
@@ -435,6 +435,9 @@ public class ConnectionStats implements MessageStats {
   private static final int addPdxTypeId;
   private static final int addPdxTypeDurationId;
 
+  private static final int coalescedGetAllsId;
+  private static final int coalescedGetsId;
+
 
   // An array of all of the ids that represent operation statistics. This
   // is used by the getOps method to aggregate the individual stats
@@ -926,7 +929,13 @@ public class ConnectionStats implements MessageStats {
                   "addPdxType"),
               f.createLongCounter("addPdxTypeTime",
                   "Total amount of time, in nanoseconds spent doing addPdxType successfully/unsuccessfully.",
-                  "nanoseconds"),});
+                  "nanoseconds"),
+
+              f.createIntCounter("coalescedGetAlls",
+                  "Total number of getAlls sent to combine the gets of concurrent threads",
+                  "getAlls"),
+              f.createIntCounter("coalescedGets",
+                  "Total number of gets that were sent as part of a coalesced getAll", "gets"),});
 
       sendType = f.createType("ClientSendStats", "Statistics about client to server communication",
           new StatisticDescriptor[] {
@@ -1689,6 +1698,9 @@ public class ConnectionStats implements MessageStats {
       addPdxTypeId = type.nameToId("addPdxTypeSuccessful");
       addPdxTypeDurationId = type.nameToId("addPdxTypeTime");
 
+      coalescedGetAllsId = type.nameToId("coalescedGetAlls");
+      coalescedGetsId = type.nameToId("coalescedGets");
+
 
       opIds = new int[] {getId, putId, destroyId, destroyRegionId, clearId, containsKeyId, keySetId,
           registerInterestId, unregisterInterestId, queryId, createCQId, stopCQId, closeCQId,
@@ -3748,6 +3760,16 @@ public class ConnectionStats implements MessageStats {
   }
 
 
+  /**
+   * Records that the given number of gets were combined into one getAll
+   *
+   * @param gets the number of gets sent in the getAll
+   */
+  public void incCoalescedGets(int gets) {
+    this.stats.incInt(coalescedGetAllsId, 1);
+    this.stats.incInt(coalescedGetsId, gets);
+  }
+
   public long startTxSynchronization() {
     this.stats.incInt(txSynchronizationInProgressId, 1);
     this.sendStats.incInt(txSynchronizationSendInProgressId, 1);
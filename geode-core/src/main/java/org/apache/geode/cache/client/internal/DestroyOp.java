@@ -256,6 +256,11 @@ public class DestroyOp {
       stats.endDestroy(start, hasTimedOut(), hasFailed());
     }
 
+    @Override
+    protected boolean isPipelinable() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "DestroyOp:" + key;
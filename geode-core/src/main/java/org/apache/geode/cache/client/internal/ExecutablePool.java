@@ -14,6 +14,8 @@
  */
 package org.apache.geode.cache.client.internal;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.geode.cache.NoSubscriptionServersAvailableException;
 import org.apache.geode.cache.client.SubscriptionNotEnabledException;
 import org.apache.geode.distributed.internal.ServerLocation;
@@ -89,6 +91,41 @@ public interface ExecutablePool {
    */
   Object executeOn(ServerLocation server, Op op, boolean accessed, boolean onlyUseExistingCnx);
 
+  /**
+   * Execute the given op like {@link #execute(Op)}, without waiting for its response if the pool
+   * supports it. By default the op is executed synchronously.
+   *
+   * @param op the operation to execute
+   * @return a future completing with the result of execution, or with the exception it failed with
+   */
+  default CompletableFuture<Object> executeAsync(Op op) {
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    try {
+      future.complete(execute(op));
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Execute the given op on the given server like
+   * {@link #executeOn(ServerLocation, Op, boolean, boolean)}, without waiting for its response if
+   * the pool supports it. By default the op is executed synchronously.
+   *
+   * @return a future completing with the result of execution, or with the exception it failed with
+   */
+  default CompletableFuture<Object> executeOnAsync(ServerLocation server, Op op, boolean accessed,
+      boolean onlyUseExistingCnx) {
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    try {
+      future.complete(executeOn(server, op, accessed, onlyUseExistingCnx));
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
   /**
    * Execute the given op on the given connection.
    *
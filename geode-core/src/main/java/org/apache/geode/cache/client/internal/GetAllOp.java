@@ -19,10 +19,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.cache.Region;
+import org.apache.geode.cache.client.AllConnectionsInUseException;
 import org.apache.geode.cache.client.ServerConnectivityException;
 import org.apache.geode.cache.client.ServerOperationException;
 import org.apache.geode.distributed.internal.ServerLocation;
@@ -110,6 +113,96 @@ public class GetAllOp {
     }
   }
 
+  /**
+   * Does a region getAll like {@link #execute(ExecutablePool, String, List, Object)} without
+   * waiting for the response.
+   *
+   * @return a future completing with the values found by the getAll if any
+   * @see ExecutablePool#executeAsync(Op)
+   */
+  public static CompletableFuture<VersionedObjectList> executeAsync(ExecutablePool pool,
+      String region, List keys, Object callback) {
+    AbstractOp op = new GetAllOpImpl(region, keys, callback);
+    op.initMessagePart();
+    return pool.executeAsync(op).thenApply(result -> ((VersionedObjectList) result).setKeys(keys));
+  }
+
+  /**
+   * Does a region getAll like {@link #execute(ExecutablePool, Region, List, int, Object)} without
+   * waiting for the responses. One getAll is sent to each server hosting some of the keys; if a
+   * server can not be reached its keys are fetched from any server instead, unless retries are
+   * disabled.
+   *
+   * @return a future completing with the values found by the getAll if any
+   */
+  public static CompletableFuture<VersionedObjectList> executeAsync(ExecutablePool pool,
+      Region region, List keys, int retryAttempts, Object callback) {
+    ClientMetadataService cms = ((LocalRegion) region).getCache().getClientMetadataService();
+    Map<ServerLocation, HashSet> serverToFilterMap = cms.getServerToFilterMap(keys, region, true);
+    if (serverToFilterMap == null || serverToFilterMap.isEmpty()) {
+      return executeAsync(pool, region.getFullPath(), keys, callback);
+    }
+    PoolImpl poolImpl = (PoolImpl) pool;
+    boolean onlyUseExistingCnx = poolImpl.getMaxConnections() != -1
+        && poolImpl.getConnectionCount() >= poolImpl.getMaxConnections();
+    List<CompletableFuture<VersionedObjectList>> serverResults = new ArrayList<>();
+    for (Map.Entry<ServerLocation, HashSet> entry : serverToFilterMap.entrySet()) {
+      ServerLocation server = entry.getKey();
+      List serverKeys = new ArrayList(entry.getValue());
+      AbstractOp op = new GetAllOpImpl(region.getFullPath(), serverKeys, callback);
+      op.initMessagePart();
+      op.setAllowDuplicateMetadataRefresh(!onlyUseExistingCnx);
+      CompletableFuture<VersionedObjectList> serverResult = new CompletableFuture<>();
+      pool.executeOnAsync(new ServerLocation(server.getHostName(), server.getPort()), op, true,
+          onlyUseExistingCnx).whenComplete((value, exception) -> {
+            if (exception == null) {
+              serverResult.complete(((VersionedObjectList) value).setKeys(serverKeys));
+              return;
+            }
+            Throwable cause = exception;
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+              cause = cause.getCause();
+            }
+            CompletableFuture<VersionedObjectList> retry;
+            if (cause instanceof AllConnectionsInUseException) {
+              // use a connection to any server
+              retry = pool.executeAsync(op)
+                  .thenApply(result -> ((VersionedObjectList) result).setKeys(serverKeys));
+            } else if (cause instanceof ServerConnectivityException && retryAttempts != 0) {
+              if (logger.isDebugEnabled()) {
+                logger.debug("GetAllOp#executeAsync failed on server {}", server, cause);
+              }
+              cms.removeBucketServerLocation(server);
+              retry = executeAsync(pool, region.getFullPath(), serverKeys, callback);
+            } else {
+              serverResult.completeExceptionally(cause);
+              return;
+            }
+            retry.whenComplete((retryValue, retryException) -> {
+              if (retryException == null) {
+                serverResult.complete(retryValue);
+              } else {
+                serverResult.completeExceptionally(retryException);
+              }
+            });
+          });
+      serverResults.add(serverResult);
+    }
+    return CompletableFuture
+        .allOf(serverResults.toArray(new CompletableFuture[serverResults.size()]))
+        .thenApply(ignore -> {
+          VersionedObjectList result = null;
+          for (CompletableFuture<VersionedObjectList> serverResult : serverResults) {
+            if (result == null) {
+              result = serverResult.join();
+            } else {
+              result.addAll(serverResult.join());
+            }
+          }
+          return result;
+        });
+  }
+
   private GetAllOp() {
     // no instances allowed
   }
@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.geode.cache.client.internal.GetAllOp.GetAllOpImpl;
+import org.apache.geode.cache.client.internal.GetOp.GetOpImpl;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.TXManagerImpl;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.cache.tier.sockets.VersionedObjectList;
+import org.apache.geode.internal.cache.versions.VersionTag;
+
+/**
+ * Coalesces the single hop gets that threads do concurrently on the same region of the same
+ * server into one getAll.
+ * <p>
+ * The gets for a region of a server line up in a lane. A thread whose get arrives while the lane
+ * has no batch being gathered and fewer batches in flight than the pool has connections leads the
+ * next batch: it optionally waits for the coalescing window to pass, takes its own get and up to
+ * {@link #MAX_COALESCED_GETS} - 1 of the gets waiting behind it and sends them as one getAll. Gets
+ * that arrive while every batch the lane may send is on its way wait, and when a batch finishes the
+ * thread of the first of them leads the next one. With a window of 0 a lone get is therefore sent
+ * right away, and gets are only coalesced when they would otherwise queue up for connections
+ * anyway. A lane is dropped as soon as it has no gets.
+ * <p>
+ * The values of the getAll are handed out to the gets as a get would have returned them. A get
+ * whose key failed on the server, for example because its loader threw, is redone on its own so
+ * that its thread sees the exception a get would have thrown.
+ */
+class GetCoalescer {
+
+  /**
+   * How long in microseconds the first get of a batch waits for other gets to join it. 0 only
+   * coalesces gets that wait for the previous batch of the lane. A negative value disables
+   * coalescing.
+   */
+  static final long WINDOW_MICROS =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.GET_COALESCING_WINDOW_MICROS", -1);
+
+  /** the maximum number of gets sent in one getAll */
+  static final int MAX_COALESCED_GETS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.MAX_COALESCED_GETS", 128);
+
+  private final ExecutablePool pool;
+
+  private final EndpointManager endpointManager;
+
+  private final long windowNanos;
+
+  private final int maxGets;
+
+  private final int maxBatchesInFlight;
+
+  private final ConcurrentMap<LaneKey, Lane> lanes = new ConcurrentHashMap<>();
+
+  /**
+   * @param maxBatchesInFlight the maximum number of batches of a lane sent at the same time, which
+   *        is bounded by the connections of the pool
+   */
+  GetCoalescer(ExecutablePool pool, EndpointManager endpointManager, long windowMicros,
+      int maxGets, int maxBatchesInFlight) {
+    this.pool = pool;
+    this.endpointManager = endpointManager;
+    this.windowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, windowMicros));
+    this.maxGets = Math.max(1, maxGets);
+    this.maxBatchesInFlight = Math.max(1, maxBatchesInFlight);
+  }
+
+  /**
+   * Returns true if the given get may share a message with other gets. Gets with a callback
+   * argument or done in a transaction are sent on their own.
+   */
+  boolean canCoalesce(GetOpImpl op) {
+    return op.getCallbackArg() == null
+        && TXManagerImpl.getCurrentTXUniqueId() == TXManagerImpl.NOTX;
+  }
+
+  /**
+   * Executes the given get on the given server, together with the gets other threads are doing on
+   * the same region of that server.
+   *
+   * @return the value of the entry like {@link ExecutablePool#executeOn} would return it for the
+   *         get
+   */
+  Object execute(ServerLocation server, GetOpImpl op, boolean onlyUseExistingCnx) {
+    LaneKey laneKey = new LaneKey(server, op.getRegion().getFullPath());
+    PendingGet get = new PendingGet(op);
+    Lane lane;
+    boolean leader;
+    while (true) {
+      lane = this.lanes.computeIfAbsent(laneKey, k -> new Lane());
+      synchronized (lane) {
+        if (lane.removed) {
+          continue; // dropped while it was being looked up
+        }
+        lane.waiting.add(get);
+        leader = lane.gathering == null && lane.inFlight < this.maxBatchesInFlight;
+        if (leader) {
+          lane.gathering = get;
+        }
+      }
+      break;
+    }
+    if (leader) {
+      if (this.windowNanos > 0) {
+        LockSupport.parkNanos(this.windowNanos);
+      }
+      lead(lane, laneKey, get, onlyUseExistingCnx);
+    } else if (get.await()) {
+      lead(lane, laneKey, get, onlyUseExistingCnx);
+    }
+    if (get.needsOwnGet()) {
+      return this.pool.executeOn(server, op, true, onlyUseExistingCnx);
+    }
+    return get.getResult();
+  }
+
+  /**
+   * Returns the number of lanes that currently have gets.
+   */
+  int getLaneCount() {
+    return this.lanes.size();
+  }
+
+  /**
+   * Sends the given get and the gets waiting behind it. Hands the lane to the thread of the next
+   * waiting get when the lane may send another batch, or drops the lane if it has no more gets.
+   */
+  private void lead(Lane lane, LaneKey laneKey, PendingGet own, boolean onlyUseExistingCnx) {
+    List<PendingGet> batch = new ArrayList<>();
+    PendingGet next;
+    synchronized (lane) {
+      lane.gathering = null;
+      lane.waiting.remove(own);
+      batch.add(own);
+      while (batch.size() < this.maxGets && !lane.waiting.isEmpty()) {
+        batch.add(lane.waiting.poll());
+      }
+      lane.inFlight++;
+      next = nextLeader(lane);
+    }
+    if (next != null) {
+      next.promote();
+    }
+    try {
+      if (batch.size() == 1) {
+        executeOne(laneKey.server, own, onlyUseExistingCnx);
+      } else {
+        executeBatch(laneKey, batch, onlyUseExistingCnx);
+      }
+    } finally {
+      for (PendingGet get : batch) {
+        get.redoOnOwn();
+      }
+      synchronized (lane) {
+        lane.inFlight--;
+        next = nextLeader(lane);
+        if (next == null && lane.gathering == null && lane.inFlight == 0
+            && lane.waiting.isEmpty()) {
+          lane.removed = true;
+          this.lanes.remove(laneKey, lane);
+        }
+      }
+      if (next != null) {
+        next.promote();
+      }
+    }
+  }
+
+  /**
+   * Returns the waiting get whose thread is to lead the next batch of the given lane, or null if
+   * the lane is gathering a batch already, may not send another one or has no waiting gets.
+   * Guarded by the lane.
+   */
+  private PendingGet nextLeader(Lane lane) {
+    if (lane.gathering != null || lane.inFlight >= this.maxBatchesInFlight
+        || lane.waiting.isEmpty()) {
+      return null;
+    }
+    lane.gathering = lane.waiting.peek();
+    return lane.gathering;
+  }
+
+  private void executeOne(ServerLocation server, PendingGet get, boolean onlyUseExistingCnx) {
+    try {
+      get.complete(this.pool.executeOn(server, get.op, true, onlyUseExistingCnx), null);
+    } catch (RuntimeException e) {
+      get.complete(null, e);
+    }
+  }
+
+  private void executeBatch(LaneKey laneKey, List<PendingGet> batch, boolean onlyUseExistingCnx) {
+    List<Object> keys = new ArrayList<>(batch.size());
+    for (PendingGet get : batch) {
+      keys.add(get.op.getKey());
+    }
+    GetAllOpImpl getAll = new GetAllOpImpl(laneKey.regionPath, keys, null);
+    getAll.initMessagePart();
+    VersionedObjectList values;
+    try {
+      values = ((VersionedObjectList) this.pool.executeOn(laneKey.server, getAll, true,
+          onlyUseExistingCnx)).setKeys(keys);
+    } catch (RuntimeException e) {
+      for (PendingGet get : batch) {
+        get.complete(null, e);
+      }
+      return;
+    }
+    int i = 0;
+    for (VersionedObjectList.Iterator it = values.iterator(); it.hasNext()
+        && i < batch.size(); i++) {
+      VersionedObjectList.Entry entry = it.next();
+      Object value = entry.getObject();
+      if (value instanceof Throwable) {
+        continue; // redone on its own
+      }
+      VersionTag tag = entry.getVersionTag();
+      PendingGet get = batch.get(i);
+      get.op.setVersionTag(tag);
+      if (entry.isKeyNotOnServer()) {
+        value = tag != null ? Token.TOMBSTONE : null;
+      } else if (value == null) {
+        value = Token.INVALID;
+      }
+      get.complete(value, null);
+    }
+    Endpoint endpoint = this.endpointManager.getEndpointMap().get(laneKey.server);
+    if (endpoint != null) {
+      endpoint.getStats().incCoalescedGets(batch.size());
+    }
+  }
+
+  /** the gets waiting for a region of a server */
+  private static class Lane {
+    /** guarded by this lane */
+    final ArrayDeque<PendingGet> waiting = new ArrayDeque<>();
+
+    /** guarded by this lane; the get whose thread gathers the next batch, if any */
+    PendingGet gathering;
+
+    /** guarded by this lane; the number of batches of this lane being sent */
+    int inFlight;
+
+    /** guarded by this lane; true once this lane has been dropped from the coalescer */
+    boolean removed;
+  }
+
+  private static class LaneKey {
+    final ServerLocation server;
+
+    final String regionPath;
+
+    LaneKey(ServerLocation server, String regionPath) {
+      this.server = server;
+      this.regionPath = regionPath;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof LaneKey)) {
+        return false;
+      }
+      LaneKey other = (LaneKey) o;
+      return this.server.equals(other.server) && this.regionPath.equals(other.regionPath);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * this.server.hashCode() + this.regionPath.hashCode();
+    }
+  }
+
+  private static class PendingGet {
+    final GetOpImpl op;
+
+    private boolean done;
+
+    private boolean promoted;
+
+    private boolean ownGet;
+
+    private Object result;
+
+    private RuntimeException exception;
+
+    PendingGet(GetOpImpl op) {
+      this.op = op;
+    }
+
+    synchronized void complete(Object result, RuntimeException exception) {
+      if (this.done) {
+        return;
+      }
+      this.result = result;
+      this.exception = exception;
+      this.done = true;
+      notifyAll();
+    }
+
+    /** lets the thread of this get do it on its own unless it already has a result */
+    synchronized void redoOnOwn() {
+      if (this.done) {
+        return;
+      }
+      this.ownGet = true;
+      this.done = true;
+      notifyAll();
+    }
+
+    /** tells the thread of this get to lead the next batch of its lane */
+    synchronized void promote() {
+      this.promoted = true;
+      notifyAll();
+    }
+
+    /**
+     * Waits until this get is done or its thread has to lead the next batch. An interrupt does not
+     * end the wait, since some other thread is already sending the get, but it is kept.
+     *
+     * @return true if the thread has to lead the next batch
+     */
+    synchronized boolean await() {
+      boolean interrupted = false;
+      try {
+        while (!this.done && !this.promoted) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return !this.done;
+    }
+
+    synchronized boolean needsOwnGet() {
+      return this.ownGet;
+    }
+
+    synchronized Object getResult() {
+      if (this.exception != null) {
+        throw this.exception;
+      }
+      return this.result;
+    }
+  }
+}
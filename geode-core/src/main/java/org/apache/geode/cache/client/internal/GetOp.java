@@ -14,6 +14,8 @@
  */
 package org.apache.geode.cache.client.internal;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.cache.CacheClosedException;
@@ -74,8 +76,12 @@ public class GetOp {
           boolean onlyUseExistingCnx = ((poolImpl.getMaxConnections() != -1
               && poolImpl.getConnectionCount() >= poolImpl.getMaxConnections()) ? true : false);
           op.setAllowDuplicateMetadataRefresh(!onlyUseExistingCnx);
-          return pool.executeOn(new ServerLocation(server.getHostName(), server.getPort()), op,
-              true, onlyUseExistingCnx);
+          ServerLocation location = new ServerLocation(server.getHostName(), server.getPort());
+          GetCoalescer coalescer = poolImpl.getGetCoalescer();
+          if (coalescer != null && coalescer.canCoalesce(op)) {
+            return coalescer.execute(location, op, onlyUseExistingCnx);
+          }
+          return pool.executeOn(location, op, true, onlyUseExistingCnx);
         } catch (AllConnectionsInUseException e) {
         } catch (ServerConnectivityException e) {
           if (e instanceof ServerOperationException) {
@@ -91,6 +97,27 @@ public class GetOp {
     return pool.execute(op);
   }
 
+  /**
+   * Does a region get on a server like
+   * {@link #execute(ExecutablePool, LocalRegion, Object, Object, boolean, EntryEventImpl)} without
+   * waiting for the response if the pool can pipeline it.
+   *
+   * @return a future completing with the entry value found by the get if any
+   * @see ExecutablePool#executeAsync(Op)
+   */
+  public static CompletableFuture<Object> executeAsync(ExecutablePool pool, LocalRegion region,
+      Object key, Object callbackArg, boolean prSingleHopEnabled, EntryEventImpl clientEvent) {
+    GetOpImpl op = new GetOpImpl(region, key, callbackArg, prSingleHopEnabled, clientEvent);
+    if (prSingleHopEnabled) {
+      ClientMetadataService cms = region.getCache().getClientMetadataService();
+      ServerLocation server =
+          cms.getBucketServerLocation(region, Operation.GET, key, null, callbackArg);
+      if (server != null) {
+        return OpExecutorImpl.executeOnBucketServerAsync(pool, cms, server, op);
+      }
+    }
+    return pool.executeAsync(op);
+  }
 
   private GetOp() {
     // no instances allowed
@@ -133,6 +160,28 @@ public class GetOp {
       }
     }
 
+    LocalRegion getRegion() {
+      return this.region;
+    }
+
+    Object getKey() {
+      return this.key;
+    }
+
+    Object getCallbackArg() {
+      return this.callbackArg;
+    }
+
+    /**
+     * Hands the version tag of a value that was fetched for this op by some other op to the event
+     * of this op.
+     */
+    void setVersionTag(VersionTag tag) {
+      if (tag != null && this.clientEvent != null) {
+        this.clientEvent.setVersionTag(tag);
+      }
+    }
+
     @Override
     protected Object processResponse(Message msg) throws Exception {
       throw new UnsupportedOperationException(); // version tag processing requires the connection
@@ -230,5 +279,10 @@ public class GetOp {
     protected void endAttempt(ConnectionStats stats, long start) {
       stats.endGet(start, hasTimedOut(), hasFailed());
     }
+
+    @Override
+    protected boolean isPipelinable() {
+      return true;
+    }
   }
 }
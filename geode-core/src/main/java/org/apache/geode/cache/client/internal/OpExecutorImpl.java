@@ -26,6 +26,15 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.Logger;
 
@@ -35,10 +44,12 @@ import org.apache.geode.CopyException;
 import org.apache.geode.GemFireException;
 import org.apache.geode.GemFireIOException;
 import org.apache.geode.SerializationException;
+import org.apache.geode.cache.CacheLoaderException;
 import org.apache.geode.cache.CacheRuntimeException;
 import org.apache.geode.cache.RegionDestroyedException;
 import org.apache.geode.cache.SynchronizationCommitConflictException;
 import org.apache.geode.cache.TransactionException;
+import org.apache.geode.cache.client.AllConnectionsInUseException;
 import org.apache.geode.cache.client.NoAvailableServersException;
 import org.apache.geode.cache.client.ServerConnectivityException;
 import org.apache.geode.cache.client.ServerOperationException;
@@ -55,11 +66,13 @@ import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.ServerLocation;
 import org.apache.geode.internal.cache.PoolManagerImpl;
 import org.apache.geode.internal.cache.PutAllPartialResultException;
+import org.apache.geode.internal.cache.TXManagerImpl;
 import org.apache.geode.internal.cache.execute.InternalFunctionInvocationTargetException;
 import org.apache.geode.internal.cache.tier.BatchException;
 import org.apache.geode.internal.cache.tier.sockets.MessageTooLargeException;
 import org.apache.geode.internal.cache.wan.BatchException70;
 import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
 import org.apache.geode.internal.logging.log4j.LogMarker;
 import org.apache.geode.security.AuthenticationRequiredException;
 import org.apache.geode.security.GemFireSecurityException;
@@ -78,6 +91,14 @@ public class OpExecutorImpl implements ExecutablePool {
   static final int TX_RETRY_ATTEMPT =
       Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "txRetryAttempt", 500);
 
+  /**
+   * The maximum number of threads executing the asynchronous ops that are not pipelined, and
+   * retrying the ones that failed. Ops waiting for a thread are queued.
+   */
+  static final int ASYNC_OP_THREADS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.ASYNC_OP_THREADS",
+          Math.max(2, Runtime.getRuntime().availableProcessors()));
+
   private final ConnectionManager connectionManager;
   private final int retryAttempts;
   private final long serverTimeout;
@@ -109,6 +130,16 @@ public class OpExecutorImpl implements ExecutablePool {
     };
   };
 
+  /**
+   * Connections shared by pipelinable ops, or null if thread local connections are used.
+   */
+  private final PipelinedConnectionManager pipelinedConnections;
+
+  /**
+   * Executes asynchronous ops that are not pipelined, and retries failed asynchronous ops.
+   */
+  private final ExecutorService asyncExecutor = createAsyncExecutor();
+
   public OpExecutorImpl(ConnectionManager manager, QueueManager queueManager,
       EndpointManager endpointManager, RegisterInterestTracker riTracker, int retryAttempts,
       long serverTimeout, boolean threadLocalConnections, CancelCriterion cancelCriterion,
@@ -122,6 +153,12 @@ public class OpExecutorImpl implements ExecutablePool {
     this.threadLocalConnections = threadLocalConnections;
     this.cancelCriterion = cancelCriterion;
     this.pool = pool;
+    if (!threadLocalConnections) {
+      this.pipelinedConnections =
+          new PipelinedConnectionManager(manager, endpointManager, serverTimeout);
+    } else {
+      this.pipelinedConnections = null;
+    }
   }
 
   public Object execute(Op op) {
@@ -140,9 +177,244 @@ public class OpExecutorImpl implements ExecutablePool {
       }
       return executeWithServerAffinity(loc, op);
     }
-    boolean success = false;
-
     Set attemptedServers = new HashSet();
+    PipelinedConnection pipelined = acquirePipelinedConnection(null, op, false, false);
+    if (pipelined == null) {
+      return executeWithRetries(op, retries, 0, attemptedServers);
+    }
+    try {
+      return pipelined.execute((AbstractOp) op);
+    } catch (Exception e) {
+      handlePipelinedException(e, pipelined, 0, retries, attemptedServers);
+    } finally {
+      this.pipelinedConnections.release(pipelined);
+    }
+    return executeWithRetries(op, retries, 1, attemptedServers);
+  }
+
+  /**
+   * Executes the given op like {@link #execute(Op)}. If the op can be pipelined its message is
+   * sent on a shared connection and the returned future is completed by the thread that reads the
+   * response, so dependent actions that may block should be run with one of the async methods of
+   * {@link CompletableFuture}. If the op fails it is sent again on another pipelined connection, as
+   * often as {@link #execute(Op)} would retry it. Ops that can not be pipelined, or that find all
+   * pipelined connections full, are executed by a thread of the async executor.
+   */
+  @Override
+  public CompletableFuture<Object> executeAsync(Op op) {
+    PipelinedConnection pipelined = acquirePipelinedConnection(null, op, false, true);
+    if (pipelined == null) {
+      return executeInBackground(() -> execute(op));
+    }
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    executeAsync(op, pipelined, 0, new HashSet(), result);
+    return result;
+  }
+
+  /**
+   * Sends the given op on the given pipelined connection and completes the result with its
+   * response. A failed attempt is handled by a thread of the bounded async executor, which sends
+   * the op again without waiting for the response, so ops failing together do not each tie up a
+   * thread. The op is only retried synchronously if no other pipelined connection can be had, or
+   * the one there is goes to a server that already failed it.
+   */
+  private void executeAsync(Op op, PipelinedConnection pipelined, int attempt,
+      Set attemptedServers, CompletableFuture<Object> result) {
+    pipelined.executeAsync((AbstractOp) op).whenComplete((value, exception) -> {
+      this.pipelinedConnections.release(pipelined);
+      if (exception == null) {
+        result.complete(value);
+        return;
+      }
+      // the response reader of the connection must not block, so retry on another thread
+      retryAsync(result, exception, () -> {
+        handlePipelinedException(exception, pipelined, attempt, this.retryAttempts,
+            attemptedServers);
+        ((AbstractOp) op).getMessage().setIsRetry();
+        PipelinedConnection next = acquirePipelinedConnection(null, op, false, true);
+        if (next != null && attemptedServers.contains(next.getServer())) {
+          this.pipelinedConnections.release(next);
+          next = null;
+        }
+        if (next == null) {
+          result.complete(
+              executeWithRetries(op, this.retryAttempts, attempt + 1, attemptedServers));
+        } else {
+          executeAsync(op, next, attempt + 1, attemptedServers, result);
+        }
+      });
+    });
+  }
+
+  /**
+   * Runs the given retry of a failed asynchronous op on the async executor. The result fails with
+   * whatever the retry throws, or with the original failure if the pool is being destroyed.
+   */
+  private void retryAsync(CompletableFuture<Object> result, Throwable failure, Runnable retry) {
+    try {
+      this.asyncExecutor.execute(() -> {
+        try {
+          retry.run();
+        } catch (Throwable t) {
+          result.completeExceptionally(t);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(failure);
+    }
+  }
+
+  /**
+   * Executes an op that is not pipelined on a thread of the async executor, so that the caller
+   * waits neither for a connection nor for the response. Ops with server affinity or in a
+   * transaction depend on state of the calling thread, so they are executed by it.
+   */
+  private CompletableFuture<Object> executeInBackground(Supplier<Object> execution) {
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    if (this.serverAffinity.get()
+        || TXManagerImpl.getCurrentTXUniqueId() != TXManagerImpl.NOTX) {
+      try {
+        result.complete(execution.get());
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+      return result;
+    }
+    final UserAttributes securityAttributes = UserAttributes.userAttributes.get();
+    try {
+      this.asyncExecutor.execute(() -> {
+        UserAttributes.userAttributes.set(securityAttributes);
+        try {
+          result.complete(execution.get());
+        } catch (Throwable t) {
+          result.completeExceptionally(t);
+        } finally {
+          UserAttributes.userAttributes.set(null);
+          if (this.threadLocalConnections) {
+            releaseThreadLocalConnection();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  /**
+   * Creates the executor of asynchronous ops that are not pipelined. It has at most
+   * {@link #ASYNC_OP_THREADS} threads, so that many such ops, or a server going away with many ops
+   * in flight, queue up instead of starting a thread each.
+   */
+  private static ExecutorService createAsyncExecutor() {
+    final ThreadGroup group = LoggingThreadGroup.createThreadGroup("Async Op Threads", logger);
+    final AtomicInteger threadNum = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(ASYNC_OP_THREADS, ASYNC_OP_THREADS, 60,
+        TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+          Thread thread = new Thread(group, r, "Async Op Thread-" + threadNum.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Executes the given op on the given server like
+   * {@link #executeOn(ServerLocation, Op, boolean, boolean)}, without waiting for the response if
+   * the op can be pipelined.
+   *
+   * @see #executeAsync(Op)
+   */
+  @Override
+  public CompletableFuture<Object> executeOnAsync(ServerLocation server, Op op, boolean accessed,
+      boolean onlyUseExistingCnx) {
+    PipelinedConnection pipelined =
+        acquirePipelinedConnection(server, op, onlyUseExistingCnx, true);
+    if (pipelined == null) {
+      return executeInBackground(() -> executeOn(server, op, accessed, onlyUseExistingCnx));
+    }
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    pipelined.executeAsync((AbstractOp) op).whenComplete((value, exception) -> {
+      this.pipelinedConnections.release(pipelined);
+      if (exception == null) {
+        result.complete(value);
+        return;
+      }
+      retryAsync(result, exception, () -> {
+        handleException(exception, pipelined.getConnection(), 0, true);
+        // this shouldn't actually be reached, handle exception will throw something
+        throw new ServerConnectivityException("Received error connecting to server", exception);
+      });
+    });
+    return result;
+  }
+
+  /**
+   * Executes a single hop op on the server hosting the bucket of its key without waiting for the
+   * response. If that server can not be used the op is executed on any server, like
+   * {@link GetOp} and {@link PutOp} do when executing synchronously.
+   */
+  static CompletableFuture<Object> executeOnBucketServerAsync(ExecutablePool pool,
+      ClientMetadataService cms, ServerLocation server, AbstractOp op) {
+    PoolImpl poolImpl = (PoolImpl) pool;
+    boolean onlyUseExistingCnx = poolImpl.getMaxConnections() != -1
+        && poolImpl.getConnectionCount() >= poolImpl.getMaxConnections();
+    op.setAllowDuplicateMetadataRefresh(!onlyUseExistingCnx);
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    pool.executeOnAsync(new ServerLocation(server.getHostName(), server.getPort()), op, true,
+        onlyUseExistingCnx).whenComplete((value, exception) -> {
+          if (exception == null) {
+            result.complete(value);
+            return;
+          }
+          Throwable cause = exception;
+          if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+          }
+          if (cause instanceof AllConnectionsInUseException) {
+            // use a connection to any server
+          } else if (cause instanceof ServerOperationException) {
+            result.completeExceptionally(cause);
+            return;
+          } else if (cause instanceof ServerConnectivityException) {
+            cms.removeBucketServerLocation(server);
+          } else if (cause instanceof CacheLoaderException) {
+            if (cause.getCause() instanceof ServerConnectivityException) {
+              cms.removeBucketServerLocation(server);
+            }
+          } else {
+            result.completeExceptionally(cause);
+            return;
+          }
+          pool.executeAsync(op).whenComplete((retryValue, retryException) -> {
+            if (retryException == null) {
+              result.complete(retryValue);
+            } else {
+              result.completeExceptionally(retryException);
+            }
+          });
+        });
+    return result;
+  }
+
+  /**
+   * Handles the failure of an attempt to execute an op on a pipelined connection. Throws if the op
+   * must not be retried.
+   */
+  private void handlePipelinedException(Throwable e, PipelinedConnection pipelined, int attempt,
+      int retries, Set attemptedServers) {
+    if (e instanceof MessageTooLargeException) {
+      throw new GemFireIOException("unable to transmit message to server", e);
+    } else if (e instanceof Error) {
+      throw (Error) e;
+    }
+    handleException(e, pipelined.getConnection(), attempt, attempt >= retries && retries != -1);
+    attemptedServers.add(pipelined.getServer());
+  }
+
+  private Object executeWithRetries(Op op, int retries, int firstAttempt, Set attemptedServers) {
+    boolean success = false;
 
     Connection conn = (Connection) (threadLocalConnections ? localConnection.get() : null);
     if (conn == null || conn.isDestroyed()) {
@@ -159,7 +431,7 @@ public class OpExecutorImpl implements ExecutablePool {
       }
     }
     try {
-      for (int attempt = 0; true; attempt++) {
+      for (int attempt = firstAttempt; true; attempt++) {
         // when an op is retried we may need to try to recover the previous
         // attempt's version stamp
         if (attempt == 1 && (op instanceof AbstractOp)) {
@@ -354,6 +626,19 @@ public class OpExecutorImpl implements ExecutablePool {
     ServerLocation server = p_server;
     boolean returnCnx = true;
     boolean pingOp = (op instanceof PingOp.PingOpImpl);
+    PipelinedConnection pipelined =
+        acquirePipelinedConnection(server, op, onlyUseExistingCnx, false);
+    if (pipelined != null) {
+      try {
+        return pipelined.execute((AbstractOp) op);
+      } catch (Exception e) {
+        handleException(e, pipelined.getConnection(), 0, true);
+        // this shouldn't actually be reached, handle exception will throw something
+        throw new ServerConnectivityException("Received error connecting to server", e);
+      } finally {
+        this.pipelinedConnections.release(pipelined);
+      }
+    }
     Connection conn = null;
     if (pingOp) {
       // currently for pings we prefer to queue clientToServer cnx so that we will
@@ -411,6 +696,23 @@ public class OpExecutorImpl implements ExecutablePool {
     }
   }
 
+  /**
+   * Returns a reserved pipelined connection if the op can share one with other ops, otherwise
+   * null. Synchronously executed ops are only pipelined if
+   * {@link PipelinedConnectionManager#CONNECTIONS_PER_SERVER} is set.
+   */
+  private PipelinedConnection acquirePipelinedConnection(ServerLocation server, Op op,
+      boolean onlyUseExistingCnx, boolean async) {
+    if (this.pipelinedConnections == null
+        || (!async && PipelinedConnectionManager.CONNECTIONS_PER_SERVER == 0)
+        || !(op instanceof AbstractOp)
+        || !((AbstractOp) op).isPipelinable() || this.serverAffinity.get()
+        || TXManagerImpl.getCurrentTXUniqueId() != TXManagerImpl.NOTX) {
+      return null;
+    }
+    return this.pipelinedConnections.acquire(server, onlyUseExistingCnx);
+  }
+
   private boolean useThreadLocalConnection(Op op, boolean pingOp) {
     return threadLocalConnections && !pingOp && op.useThreadLocalConnection();
   }
@@ -584,6 +886,16 @@ public class OpExecutorImpl implements ExecutablePool {
     }
   }
 
+  /**
+   * Stops the threads used by asynchronously executed ops. Called when the pool is destroyed.
+   */
+  void close() {
+    this.asyncExecutor.shutdown();
+    if (this.pipelinedConnections != null) {
+      this.pipelinedConnections.close();
+    }
+  }
+
   public void releaseThreadLocalConnection() {
     Connection conn = localConnection.get();
     localConnection.set(null);
@@ -0,0 +1,514 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.cache.client.internal.pooling.ConnectionDestroyedException;
+import org.apache.geode.cache.client.internal.pooling.PooledConnection;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.tier.sockets.ChunkedMessage;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * A pooled connection that is shared by several concurrently executing ops. An op is sent while
+ * the ops sent before it are still waiting for their responses. A server processes the messages
+ * of a connection one at a time, so responses arrive in the order the requests were sent and are
+ * matched to their ops by position.
+ * <p>
+ * There is no dedicated reader thread. The waiting thread that gets hold of the read lock reads
+ * responses and completes the ops they belong to until its own op is done, and then wakes the
+ * thread of the next op to take over. Ops executed with {@link #executeAsync(AbstractOp)} have no
+ * waiting thread, so while one of them is next in line a task of the reader executor reads
+ * responses until no op is pending. If a send or a receive fails the connection is destroyed and
+ * every op still waiting on it fails, so that {@link OpExecutorImpl} retries them like any other
+ * op whose connection went away.
+ *
+ * @see AbstractOp#isPipelinable()
+ * @see PipelinedConnectionManager
+ */
+class PipelinedConnection {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * How long a waiting thread sleeps before checking whether it has to read responses itself. It
+   * is normally woken before that.
+   */
+  private static final long WAIT_MILLIS = 100;
+
+  private final Connection connection;
+
+  /**
+   * The comm buffer requests are sent through, so that a send does not clobber a response being
+   * read through the buffer of the connection at the same time. Null once it has been released.
+   */
+  private volatile ByteBuffer sendBuffer;
+
+  /** runs the tasks reading responses to ops executed asynchronously */
+  private final Executor readerExecutor;
+
+  private final long checkoutTime;
+
+  private final Object sendLock = new Object();
+
+  private final ReentrantLock readLock = new ReentrantLock();
+
+  /** ops that have been sent, or are being sent, in the order of their requests */
+  private final ConcurrentLinkedQueue<PendingOp> pending = new ConcurrentLinkedQueue<>();
+
+  private volatile Throwable failure;
+
+  /** guarded by this */
+  private int inFlight;
+
+  /** guarded by this */
+  private boolean retired;
+
+  PipelinedConnection(Connection connection, Executor readerExecutor) throws SocketException {
+    this.connection = connection;
+    this.readerExecutor = readerExecutor;
+    this.sendBuffer = ServerConnection
+        .allocateCommBuffer(connection.getCommBuffer().capacity(), connection.getSocket());
+    this.checkoutTime = System.currentTimeMillis();
+  }
+
+  Connection getConnection() {
+    return this.connection;
+  }
+
+  ServerLocation getServer() {
+    return this.connection.getServer();
+  }
+
+  long getCheckoutTime() {
+    return this.checkoutTime;
+  }
+
+  synchronized int getInFlight() {
+    return this.inFlight;
+  }
+
+  /**
+   * Returns false if the connection failed or was destroyed, in which case it must not take any
+   * more ops.
+   */
+  boolean isUsable() {
+    if (this.failure != null || this.connection.isDestroyed()) {
+      return false;
+    }
+    return !(this.connection instanceof PooledConnection)
+        || !((PooledConnection) this.connection).shouldDestroy();
+  }
+
+  /**
+   * Reserves the connection for one more op. Every successful reservation must be followed by a
+   * call to {@link #release()}.
+   *
+   * @return false if the connection no longer takes new ops
+   */
+  synchronized boolean reserve() {
+    if (this.retired || this.failure != null) {
+      return false;
+    }
+    this.inFlight++;
+    return true;
+  }
+
+  /**
+   * Ends a reservation made with {@link #reserve()}.
+   *
+   * @return true if the connection has been retired and this was its last op, in which case the
+   *         caller has to give the connection back to its pool
+   */
+  synchronized boolean release() {
+    this.inFlight--;
+    if (this.retired && this.inFlight == 0) {
+      releaseSendBuffer();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Stops the connection from taking new ops.
+   *
+   * @return true if no op is in flight, in which case the caller has to give the connection back
+   *         to its pool. Otherwise this is left to the {@link #release()} of the last op.
+   */
+  synchronized boolean retire() {
+    if (this.retired) {
+      return false;
+    }
+    this.retired = true;
+    if (this.inFlight == 0) {
+      releaseSendBuffer();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Sends the message of the given op and waits for its response. The caller must have reserved
+   * the connection.
+   *
+   * @return the result of the op
+   * @throws Exception if the op or the connection failed
+   */
+  Object execute(AbstractOp op) throws Exception {
+    ConnectionStats stats = this.connection.getStats();
+    op.failed = true;
+    op.timedOut = false;
+    long start = op.startAttempt(stats);
+    PendingOp pendingOp = new PendingOp(op, null, stats, start);
+    try {
+      send(pendingOp);
+      return awaitResponse(pendingOp);
+    } finally {
+      op.endAttempt(stats, start);
+    }
+  }
+
+  /**
+   * Sends the message of the given op and returns without waiting for its response. The caller
+   * must have reserved the connection.
+   * <p>
+   * The returned future is completed by the thread that reads the response, so dependent actions
+   * that may block should be run with one of the async methods of {@link CompletableFuture}.
+   *
+   * @return a future that completes with the result of the op, or with the exception the op or the
+   *         connection failed with
+   */
+  CompletableFuture<Object> executeAsync(AbstractOp op) {
+    ConnectionStats stats = this.connection.getStats();
+    op.failed = true;
+    op.timedOut = false;
+    long start = op.startAttempt(stats);
+    PendingOp pendingOp = new PendingOp(op, new CompletableFuture<>(), stats, start);
+    try {
+      send(pendingOp);
+    } catch (Exception e) {
+      pendingOp.complete(null, e);
+      return pendingOp.future;
+    }
+    if (!this.readLock.isLocked()) {
+      // if the lock is held its owner checks for pending ops after unlocking it
+      startReader();
+    }
+    return pendingOp.future;
+  }
+
+  private void send(PendingOp pendingOp) throws Exception {
+    AbstractOp op = pendingOp.op;
+    synchronized (this.sendLock) {
+      try {
+        checkFailure();
+        this.pending.add(pendingOp);
+        if (this.failure != null) {
+          // the connection failed after the check above and may have missed this op
+          this.pending.remove(pendingOp);
+          checkFailure();
+        }
+        try {
+          ByteBuffer buffer = this.sendBuffer;
+          if (buffer == null) {
+            throw new SocketException("Pipelined connection has been released");
+          }
+          op.attemptSend(this.connection, buffer);
+          op.failed = false;
+        } catch (Exception e) {
+          // part of the message may have been written, so later requests can not be sent
+          fail(pendingOp, e);
+          throw e;
+        }
+      } finally {
+        op.endSendAttempt(pendingOp.stats, pendingOp.start);
+      }
+    }
+  }
+
+  /** called while holding the lock of this connection */
+  private void releaseSendBuffer() {
+    ByteBuffer bb = this.sendBuffer;
+    if (bb != null) {
+      this.sendBuffer = null;
+      ServerConnection.releaseCommBuffer(bb);
+    }
+  }
+
+  private void checkFailure() {
+    Throwable cause = this.failure;
+    if (cause != null) {
+      throw new ConnectionDestroyedException("pipelined connection failed", cause);
+    }
+  }
+
+  private Object awaitResponse(PendingOp pendingOp) throws Exception {
+    boolean interrupted = false;
+    try {
+      while (!pendingOp.isDone()) {
+        if (this.readLock.tryLock()) {
+          try {
+            readResponses(pendingOp);
+          } finally {
+            this.readLock.unlock();
+          }
+          handOver();
+        } else {
+          interrupted |= pendingOp.await(WAIT_MILLIS);
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return pendingOp.getResult();
+  }
+
+  /**
+   * Hands reading over to the thread of the oldest op still waiting, or to a task of the reader
+   * executor if that op has been executed asynchronously.
+   */
+  private void handOver() {
+    PendingOp next = this.pending.peek();
+    if (next == null) {
+      return;
+    }
+    if (next.future != null) {
+      startReader();
+    } else {
+      next.wakeUp();
+    }
+  }
+
+  /**
+   * Starts a task of the reader executor reading responses. If the executor takes no more tasks
+   * because the pool is being destroyed, the connection fails so that no op waits for a response
+   * that nobody reads.
+   */
+  private void startReader() {
+    try {
+      this.readerExecutor.execute(this::readPending);
+    } catch (RejectedExecutionException e) {
+      PendingOp head = this.pending.peek();
+      if (head != null) {
+        fail(head, e);
+      }
+    }
+  }
+
+  /**
+   * Reads responses until no op is pending, unless another thread is already reading them.
+   */
+  private void readPending() {
+    while (this.readLock.tryLock()) {
+      try {
+        PendingOp head;
+        while ((head = this.pending.peek()) != null) {
+          readResponse(head);
+        }
+      } finally {
+        this.readLock.unlock();
+      }
+      if (this.pending.isEmpty()) {
+        return;
+      }
+      // an op was sent while the lock was released
+    }
+  }
+
+  /**
+   * Reads responses until the given op is done. The caller must hold the read lock.
+   */
+  private void readResponses(PendingOp pendingOp) {
+    while (!pendingOp.isDone()) {
+      PendingOp head = this.pending.peek();
+      if (head == null) {
+        // the connection failed and the op is about to be completed
+        return;
+      }
+      readResponse(head);
+    }
+  }
+
+  private void readResponse(PendingOp pendingOp) {
+    AbstractOp op = pendingOp.op;
+    Message msg = op.createResponseMessage();
+    assert msg != null && !(msg instanceof ChunkedMessage) : op;
+    op.failed = true;
+    try {
+      msg.setComms(this.connection.getSocket(), this.connection.getInputStream(),
+          this.connection.getOutputStream(), this.connection.getCommBuffer(),
+          this.connection.getStats());
+      try {
+        msg.receive();
+      } finally {
+        msg.unsetComms();
+      }
+      op.processSecureBytes(this.connection, msg);
+    } catch (SocketTimeoutException e) {
+      op.failed = false;
+      op.timedOut = true;
+      fail(pendingOp, e);
+      return;
+    } catch (Exception | Error e) {
+      fail(pendingOp, e);
+      return;
+    }
+    // the whole response has been read, so a failure to process it only concerns this op
+    this.pending.remove(pendingOp);
+    try {
+      Object result = op.processResponse(msg, this.connection);
+      op.failed = false;
+      pendingOp.complete(result, null);
+    } catch (Exception | Error e) {
+      pendingOp.complete(null, e);
+    } finally {
+      this.connection.getEndpoint().updateLastExecute();
+    }
+  }
+
+  /**
+   * Destroys the connection and fails all ops waiting on it. The op that ran into the failure gets
+   * its cause, all others get a {@link ConnectionDestroyedException} so that they are retried.
+   */
+  private void fail(PendingOp failedOp, Throwable cause) {
+    if (this.failure == null) {
+      this.failure = cause;
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Pipelined connection to {} failed with {} ops pending", getServer(),
+          this.pending.size(), cause);
+    }
+    this.connection.destroy();
+    try {
+      // a pooled connection is only marked for destruction, so close the socket now to fail the
+      // read or send another thread may be blocked in
+      this.connection.getSocket().close();
+    } catch (IOException | RuntimeException ignore) {
+      // the connection is already closed
+    }
+    this.pending.remove(failedOp);
+    failedOp.complete(null, cause);
+    PendingOp op;
+    while ((op = this.pending.poll()) != null) {
+      op.complete(null, new ConnectionDestroyedException("pipelined connection failed", cause));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PipelinedConnection[" + this.connection + "]";
+  }
+
+  /**
+   * An op that has been sent, or is being sent, and waits for its response.
+   */
+  private static class PendingOp {
+    final AbstractOp op;
+
+    /** completed with the result if the op is executed asynchronously, otherwise null */
+    final CompletableFuture<Object> future;
+
+    final ConnectionStats stats;
+
+    final long start;
+
+    private boolean done;
+
+    private boolean wokenUp;
+
+    private Object result;
+
+    private Throwable exception;
+
+    PendingOp(AbstractOp op, CompletableFuture<Object> future, ConnectionStats stats,
+        long start) {
+      this.op = op;
+      this.future = future;
+      this.stats = stats;
+      this.start = start;
+    }
+
+    void complete(Object result, Throwable exception) {
+      synchronized (this) {
+        if (this.done) {
+          return;
+        }
+        this.result = result;
+        this.exception = exception;
+        this.done = true;
+        notifyAll();
+      }
+      if (this.future != null) {
+        this.op.endAttempt(this.stats, this.start);
+        if (exception == null) {
+          this.future.complete(result);
+        } else {
+          this.future.completeExceptionally(exception);
+        }
+      }
+    }
+
+    synchronized boolean isDone() {
+      return this.done;
+    }
+
+    synchronized void wakeUp() {
+      this.wokenUp = true;
+      notifyAll();
+    }
+
+    /**
+     * Waits until the op is done, the waiting thread is asked to read responses, or the given
+     * time has passed.
+     *
+     * @return true if the thread was interrupted
+     */
+    synchronized boolean await(long millis) {
+      boolean interrupted = false;
+      if (!this.done && !this.wokenUp) {
+        try {
+          wait(millis);
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      this.wokenUp = false;
+      return interrupted;
+    }
+
+    synchronized Object getResult() throws Exception {
+      if (this.exception instanceof Exception) {
+        throw (Exception) this.exception;
+      } else if (this.exception instanceof Error) {
+        throw (Error) this.exception;
+      }
+      return this.result;
+    }
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.cache.client.internal.pooling.ConnectionManager;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * Keeps the {@link PipelinedConnection}s of a pool. Up to {@link #CONNECTIONS_PER_SERVER}
+ * connections per server are borrowed from the {@link ConnectionManager} and shared by all
+ * pipelinable ops sent to that server. A connection takes new ops for at most
+ * {@link #MAX_CHECKOUT_MILLIS} and is given back to the pool once its last op is done, so that
+ * idle expiration and load conditioning still get to see it.
+ * <p>
+ * Pipelinable ops executed asynchronously are always pipelined, with at least one connection per
+ * server. Their responses are read by threads of {@link #getExecutor()}.
+ *
+ * @see AbstractOp#isPipelinable()
+ */
+class PipelinedConnectionManager {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of connections to each server that are shared by pipelined ops. Zero, the default,
+   * disables pipelining of synchronously executed ops.
+   */
+  static final int CONNECTIONS_PER_SERVER = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.PIPELINED_CONNECTIONS_PER_SERVER", 0);
+
+  /**
+   * The number of ops that may be in flight on one pipelined connection. Further ops use a
+   * connection of their own.
+   */
+  static final int MAX_OPS_PER_CONNECTION =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.MAX_PIPELINED_OPS", 128);
+
+  /**
+   * How long a connection, once borrowed from the pool, takes new ops.
+   */
+  static final long MAX_CHECKOUT_MILLIS = 1000;
+
+  private final ConnectionManager connectionManager;
+
+  private final EndpointManager endpointManager;
+
+  private final long acquireTimeout;
+
+  private final int connectionsPerServer;
+
+  private final int maxOpsPerConnection;
+
+  private final Executor executor;
+
+  private final List<PipelinedConnection> connections = new CopyOnWriteArrayList<>();
+
+  /** guarded by this */
+  private boolean creating;
+
+  /**
+   * Set once a server requires credentials. Messages to such servers carry a secure part that
+   * depends on the state of the connection, so they are never pipelined.
+   */
+  private volatile boolean disabled;
+
+  PipelinedConnectionManager(ConnectionManager connectionManager, EndpointManager endpointManager,
+      long acquireTimeout) {
+    this(connectionManager, endpointManager, acquireTimeout, Math.max(1, CONNECTIONS_PER_SERVER),
+        MAX_OPS_PER_CONNECTION, createExecutor());
+  }
+
+  PipelinedConnectionManager(ConnectionManager connectionManager, EndpointManager endpointManager,
+      long acquireTimeout, int connectionsPerServer, int maxOpsPerConnection, Executor executor) {
+    this.connectionManager = connectionManager;
+    this.endpointManager = endpointManager;
+    this.acquireTimeout = acquireTimeout;
+    this.connectionsPerServer = connectionsPerServer;
+    this.maxOpsPerConnection = maxOpsPerConnection;
+    this.executor = executor;
+  }
+
+  /**
+   * Threads are only needed while asynchronous ops are in flight, so they are created on demand
+   * and go away when idle. A connection has at most one task reading its responses, so there are
+   * no more threads than pipelined connections.
+   */
+  private static ExecutorService createExecutor() {
+    final ThreadGroup group =
+        LoggingThreadGroup.createThreadGroup("Pipelined Connection Threads", logger);
+    final AtomicInteger threadNum = new AtomicInteger();
+    return Executors.newCachedThreadPool(r -> {
+      Thread thread =
+          new Thread(group, r, "Pipelined Connection Thread-" + threadNum.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Returns the executor that reads responses to asynchronous ops.
+   */
+  Executor getExecutor() {
+    return this.executor;
+  }
+
+  /**
+   * Stops the threads of this manager. Called when the pool is destroyed.
+   */
+  void close() {
+    if (this.executor instanceof ExecutorService) {
+      ((ExecutorService) this.executor).shutdown();
+    }
+  }
+
+  /**
+   * Returns a reserved connection to run a pipelinable op on. The caller must pass it to
+   * {@link #release(PipelinedConnection)} once the op is done.
+   *
+   * @param server the server the op has to go to, or null for any server
+   * @param onlyUseExistingCnx true if no connection may be borrowed from the pool
+   * @return the connection, or null if the op has to use a connection of its own
+   */
+  PipelinedConnection acquire(ServerLocation server, boolean onlyUseExistingCnx) {
+    if (this.disabled) {
+      return null;
+    }
+    PipelinedConnection best = findLeastLoaded(server);
+    if ((best == null || best.getInFlight() > 0) && !onlyUseExistingCnx) {
+      PipelinedConnection created = create(server);
+      if (created != null) {
+        best = created;
+      }
+    }
+    if (best == null || best.getInFlight() >= this.maxOpsPerConnection || !best.reserve()) {
+      return null;
+    }
+    return best;
+  }
+
+  /**
+   * Ends the reservation of a connection returned by {@link #acquire(ServerLocation, boolean)}.
+   */
+  void release(PipelinedConnection connection) {
+    if (connection.release()) {
+      this.connectionManager.returnConnection(connection.getConnection());
+    } else if (!connection.isUsable()) {
+      retire(connection);
+    }
+  }
+
+  int getConnectionCount() {
+    return this.connections.size();
+  }
+
+  private PipelinedConnection findLeastLoaded(ServerLocation server) {
+    long now = System.currentTimeMillis();
+    PipelinedConnection best = null;
+    for (PipelinedConnection connection : this.connections) {
+      if (!connection.isUsable() || now - connection.getCheckoutTime() > MAX_CHECKOUT_MILLIS) {
+        retire(connection);
+      } else if (server == null || server.equals(connection.getServer())) {
+        if (best == null || connection.getInFlight() < best.getInFlight()) {
+          best = connection;
+        }
+      }
+    }
+    return best;
+  }
+
+  private void retire(PipelinedConnection connection) {
+    if (this.connections.remove(connection) && connection.retire()) {
+      this.connectionManager.returnConnection(connection.getConnection());
+    }
+  }
+
+  private PipelinedConnection create(ServerLocation server) {
+    synchronized (this) {
+      // do not wait for another thread borrowing a connection, the op can use a busy one
+      if (this.creating || getConnectionCount(server) >= getMaxConnections(server)) {
+        return null;
+      }
+      this.creating = true;
+    }
+    try {
+      Connection conn;
+      try {
+        if (server == null) {
+          conn = this.connectionManager.borrowConnection(this.acquireTimeout);
+        } else {
+          conn = this.connectionManager.borrowConnection(server, this.acquireTimeout, false);
+        }
+      } catch (ServerConnectivityException e) {
+        // the op will run into this again on its own connection and handle it there
+        return null;
+      }
+      if (conn.getServer().getRequiresCredentials()) {
+        this.disabled = true;
+        this.connectionManager.returnConnection(conn);
+        return null;
+      }
+      PipelinedConnection connection;
+      try {
+        connection = new PipelinedConnection(conn, this.executor);
+      } catch (Exception e) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Unable to pipeline ops on {}", conn, e);
+        }
+        conn.destroy();
+        this.connectionManager.returnConnection(conn);
+        return null;
+      }
+      this.connections.add(connection);
+      return connection;
+    } finally {
+      synchronized (this) {
+        this.creating = false;
+      }
+    }
+  }
+
+  private int getConnectionCount(ServerLocation server) {
+    if (server == null) {
+      return this.connections.size();
+    }
+    int count = 0;
+    for (PipelinedConnection connection : this.connections) {
+      if (server.equals(connection.getServer())) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private int getMaxConnections(ServerLocation server) {
+    if (server == null) {
+      return this.connectionsPerServer
+          * Math.max(1, this.endpointManager.getEndpointMap().size());
+    }
+    return this.connectionsPerServer;
+  }
+}
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
@@ -133,6 +134,9 @@ public class PoolImpl implements InternalPool {
   private final PoolStats stats;
   private ScheduledExecutorService backgroundProcessor;
   private final OpExecutorImpl executor;
+
+  /** coalesces single hop gets, or null if that is disabled */
+  private final GetCoalescer getCoalescer;
   private final RegisterInterestTracker riTracker = new RegisterInterestTracker();
   private final InternalDistributedSystem dsys;
   private InternalCache cache;
@@ -273,6 +277,14 @@ public class PoolImpl implements InternalPool {
     } else {
       this.proxyCacheList = null;
     }
+    // the gets of different users cannot share a message
+    if (GetCoalescer.WINDOW_MICROS >= 0 && !this.multiuserSecureModeEnabled) {
+      this.getCoalescer = new GetCoalescer(this, endpointManager, GetCoalescer.WINDOW_MICROS,
+          GetCoalescer.MAX_COALESCED_GETS,
+          this.maxConnections == -1 ? Integer.MAX_VALUE : this.maxConnections);
+    } else {
+      this.getCoalescer = null;
+    }
   }
 
   /**
@@ -623,6 +635,8 @@ public class PoolImpl implements InternalPool {
             e);
       }
 
+      executor.close();
+
       try {
         if (this.manager != null) {
           manager.close(keepAlive);
@@ -827,6 +841,37 @@ public class PoolImpl implements InternalPool {
     return executor.executeOn(server, op, accessed, onlyUseExistingCnx);
   }
 
+  /**
+   * Execute the given op on the servers that this pool connects to without waiting for its
+   * response if the op can be pipelined.
+   *
+   * @param op the operation to execute
+   * @return a future completing with the result of execution
+   * @see OpExecutorImpl#executeAsync(Op)
+   */
+  @Override
+  public CompletableFuture<Object> executeAsync(Op op) {
+    authenticateIfRequired(op);
+    return executor.executeAsync(op);
+  }
+
+  /**
+   * Execute the given op on the given server without waiting for its response if the op can be
+   * pipelined.
+   *
+   * @param server the server to do the execution on
+   * @param op the operation to execute
+   * @param accessed true if the connection is accessed by this execute
+   * @return a future completing with the result of execution
+   * @see OpExecutorImpl#executeOnAsync(ServerLocation, Op, boolean, boolean)
+   */
+  @Override
+  public CompletableFuture<Object> executeOnAsync(ServerLocation server, Op op, boolean accessed,
+      boolean onlyUseExistingCnx) {
+    authenticateIfRequired(server, op);
+    return executor.executeOnAsync(server, op, accessed, onlyUseExistingCnx);
+  }
+
   /**
    * Execute the given op on the given connection.
    *
@@ -1203,6 +1248,13 @@ public class PoolImpl implements InternalPool {
     return endpointManager;
   }
 
+  /**
+   * Returns the coalescer that single hop gets go through, or null if gets are not coalesced.
+   */
+  GetCoalescer getGetCoalescer() {
+    return getCoalescer;
+  }
+
   /**
    * Fetch the connection source for this pool
    *
@@ -16,6 +16,7 @@ package org.apache.geode.cache.client.internal;
 
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -89,6 +90,32 @@ public class PutOp {
     return pool.execute(op);
   }
 
+  /**
+   * Does a region put on a server like {@link #execute(ExecutablePool, LocalRegion, Object,
+   * Object, byte[], EntryEventImpl, Operation, boolean, Object, Object, boolean)} without waiting
+   * for the response if the pool can pipeline it.
+   *
+   * @return a future completing with the result of the put
+   * @see ExecutablePool#executeAsync(Op)
+   */
+  public static CompletableFuture<Object> executeAsync(ExecutablePool pool, LocalRegion region,
+      Object key, Object value, byte[] deltaBytes, EntryEventImpl event, Operation operation,
+      boolean requireOldValue, Object expectedOldValue, Object callbackArg,
+      boolean prSingleHopEnabled) {
+    PutOpImpl op = new PutOpImpl(region, key, value, deltaBytes, event, operation, requireOldValue,
+        expectedOldValue, callbackArg, false/* donot send full obj; send delta */,
+        prSingleHopEnabled);
+    if (prSingleHopEnabled) {
+      ClientMetadataService cms = region.getCache().getClientMetadataService();
+      ServerLocation server =
+          cms.getBucketServerLocation(region, Operation.UPDATE, key, value, callbackArg);
+      if (server != null) {
+        return OpExecutorImpl.executeOnBucketServerAsync(pool, cms, server, op);
+      }
+    }
+    return pool.executeAsync(op);
+  }
+
   public static Object execute(ExecutablePool pool, String regionName, Object key, Object value,
       byte[] deltaBytes, EntryEventImpl event, Operation operation, boolean requireOldValue,
       Object expectedOldValue, Object callbackArg, boolean prSingleHopEnabled,
@@ -432,6 +459,11 @@ public class PutOp {
       stats.endPut(start, hasTimedOut(), hasFailed());
     }
 
+    @Override
+    protected boolean isPipelinable() {
+      return !this.isMetaRegionPutOp;
+    }
+
     @Override
     public String toString() {
       return "PutOp:" + key;
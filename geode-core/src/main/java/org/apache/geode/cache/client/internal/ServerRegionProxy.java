@@ -20,6 +20,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -114,6 +115,20 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
         this.pool.getPRSingleHopEnabled(), clientEvent);
   }
 
+  /**
+   * Does a get on the server like {@link #get(Object, Object, EntryEventImpl)} without waiting for
+   * the response if the pool can pipeline it.
+   *
+   * @return a future completing with the value found by the get if any
+   * @see ExecutablePool#executeAsync(Op)
+   */
+  public CompletableFuture<Object> getAsync(Object key, Object callbackArg,
+      EntryEventImpl clientEvent) {
+    recordTXOperation(ServerRegionOperation.GET, key, callbackArg);
+    return GetOp.executeAsync(this.pool, this.region, key, callbackArg,
+        this.pool.getPRSingleHopEnabled(), clientEvent);
+  }
+
 
 
   public int size() {
@@ -157,6 +172,28 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
     }
   }
 
+  /**
+   * Does a put on the server like
+   * {@link #put(Object, Object, byte[], EntryEventImpl, Operation, boolean, Object, Object, boolean)}
+   * without waiting for the response if the pool can pipeline it.
+   *
+   * @return a future completing with the result of the put
+   * @see ExecutablePool#executeAsync(Op)
+   */
+  public CompletableFuture<Object> putAsync(Object key, Object value, byte[] deltaBytes,
+      EntryEventImpl event, Operation op, boolean requireOldValue, Object expectedOldValue,
+      Object callbackArg, boolean isCreate) {
+    recordTXOperation(ServerRegionOperation.PUT, key, value, deltaBytes, event.getEventId(), op,
+        Boolean.valueOf(requireOldValue), expectedOldValue, callbackArg, Boolean.valueOf(isCreate));
+    Operation operation = op;
+    if (!isCreate && this.region.getDataPolicy() == DataPolicy.EMPTY && op.isCreate()
+        && op != Operation.PUT_IF_ABSENT) {
+      operation = Operation.UPDATE;
+    }
+    return PutOp.executeAsync(this.pool, this.region, key, value, deltaBytes, event, operation,
+        requireOldValue, expectedOldValue, callbackArg, this.pool.getPRSingleHopEnabled());
+  }
+
 
   /**
    * Does a region put on the server using the given connection.
@@ -630,6 +667,34 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
     } else {
       result = GetAllOp.execute(this.pool, this.regionName, keys, callback);
     }
+    logGetAllExceptions(result);
+    return result;
+  }
+
+  /**
+   * Does a getAll on the servers like {@link #getAll(List, Object)} without waiting for the
+   * responses. With single hop one getAll is sent to each server hosting some of the keys.
+   *
+   * @return a future completing with the values found by the getAll if any
+   * @see ExecutablePool#executeAsync(Op)
+   */
+  public CompletableFuture<VersionedObjectList> getAllAsync(List keys, Object callback) {
+    recordTXOperation(ServerRegionOperation.GET_ALL, null, keys);
+    int txID = TXManagerImpl.getCurrentTXUniqueId();
+    CompletableFuture<VersionedObjectList> result;
+    if (this.pool.getPRSingleHopEnabled() && (txID == TXManagerImpl.NOTX)) {
+      result = GetAllOp.executeAsync(this.pool, this.region, keys, this.pool.getRetryAttempts(),
+          callback);
+    } else {
+      result = GetAllOp.executeAsync(this.pool, this.regionName, keys, callback);
+    }
+    return result.thenApply(values -> {
+      logGetAllExceptions(values);
+      return values;
+    });
+  }
+
+  private void logGetAllExceptions(VersionedObjectList result) {
     if (result != null) {
       for (Iterator it = result.iterator(); it.hasNext();) {
         VersionedObjectList.Entry entry = it.next();
@@ -645,7 +710,6 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
         }
       }
     }
-    return result;
   }
 
   /**
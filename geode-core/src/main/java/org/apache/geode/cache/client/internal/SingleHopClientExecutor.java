@@ -14,17 +14,22 @@
  */
 package org.apache.geode.cache.client.internal;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.Logger;
@@ -38,6 +43,7 @@ import org.apache.geode.cache.client.internal.GetAllOp.GetAllOpImpl;
 import org.apache.geode.cache.execute.FunctionException;
 import org.apache.geode.cache.execute.FunctionInvocationTargetException;
 import org.apache.geode.cache.execute.ResultCollector;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.distributed.internal.ServerLocation;
 import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.PutAllPartialResultException;
@@ -53,23 +59,64 @@ public class SingleHopClientExecutor {
 
   private static final Logger logger = LogService.getLogger();
 
-  static final ExecutorService execService = Executors.newCachedThreadPool(new ThreadFactory() {
-    AtomicInteger threadNum = new AtomicInteger();
+  /**
+   * The maximum number of threads running single hop tasks. A client doing many concurrent bulk
+   * ops otherwise ends up with a thread for every op on every server.
+   */
+  static final int MAX_THREADS = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "SingleHopClientExecutor.MAX_THREADS",
+      Math.max(16, 4 * Runtime.getRuntime().availableProcessors()));
+
+  /** true for the threads of {@link #execService} */
+  private static final ThreadLocal<Boolean> isExecutorThread = new ThreadLocal<>();
+
+  static final ExecutorService execService = createExecutor();
+
+  private static ExecutorService createExecutor() {
+    ThreadFactory threadFactory = new ThreadFactory() {
+      AtomicInteger threadNum = new AtomicInteger();
+
+      public Thread newThread(final Runnable r) {
+        Runnable command = () -> {
+          isExecutorThread.set(Boolean.TRUE);
+          r.run();
+        };
+        Thread result =
+            new Thread(LoggingThreadGroup.createThreadGroup("FunctionExecutionThreadGroup", logger),
+                command, "Function Execution Thread-" + threadNum.incrementAndGet());
+        result.setDaemon(true);
+        return result;
+      }
+    };
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60,
+        TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
 
-    public Thread newThread(final Runnable r) {
-      Thread result =
-          new Thread(LoggingThreadGroup.createThreadGroup("FunctionExecutionThreadGroup", logger),
-              r, "Function Execution Thread-" + threadNum.incrementAndGet());
-      result.setDaemon(true);
-      return result;
+  /**
+   * Runs the given tasks on the executor and waits for them. A task submitted by a thread of the
+   * executor itself runs in that thread, since it could otherwise wait for a task queued behind
+   * all the busy threads.
+   */
+  private static List invokeAll(List callableTasks) throws InterruptedException {
+    if (!Boolean.TRUE.equals(isExecutorThread.get())) {
+      return execService.invokeAll(callableTasks);
+    }
+    List<Future> futures = new ArrayList<>(callableTasks.size());
+    for (Object task : callableTasks) {
+      FutureTask future = new FutureTask((Callable) task);
+      future.run();
+      futures.add(future);
     }
-  });
+    return futures;
+  }
 
   static void submitAll(List callableTasks) {
     if (callableTasks != null && !callableTasks.isEmpty()) {
       List futures = null;
       try {
-        futures = execService.invokeAll(callableTasks);
+        futures = invokeAll(callableTasks);
       } catch (InterruptedException e) {
         throw new InternalGemFireException(e.getMessage());
       }
@@ -106,7 +153,7 @@ public class SingleHopClientExecutor {
     if (callableTasks != null && !callableTasks.isEmpty()) {
       List futures = null;
       try {
-        futures = execService.invokeAll(callableTasks);
+        futures = invokeAll(callableTasks);
       } catch (InterruptedException e) {
         throw new InternalGemFireException(e.getMessage());
       }
@@ -227,7 +274,7 @@ public class SingleHopClientExecutor {
       boolean anyPartialResults = false;
       List futures = null;
       try {
-        futures = execService.invokeAll(callableTasks);
+        futures = invokeAll(callableTasks);
       } catch (InterruptedException e) {
         throw new InternalGemFireException(e.getMessage());
       }
@@ -306,7 +353,7 @@ public class SingleHopClientExecutor {
       Map<ServerLocation, Object> resultMap = new HashMap<ServerLocation, Object>();
       List futures = null;
       try {
-        futures = execService.invokeAll(callableTasks);
+        futures = invokeAll(callableTasks);
       } catch (InterruptedException e) {
         throw new InternalGemFireException(e.getMessage());
       }
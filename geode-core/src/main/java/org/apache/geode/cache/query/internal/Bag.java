@@ -216,9 +216,7 @@ public abstract class Bag<E> extends AbstractCollection<E> implements CqResults<
     if (element == null) {
       numNulls++;
     } else {
-      int count = this.mapGet(element); // 0 if not
-                                        // found
-      this.mapPut(element, count + 1);
+      this.mapIncrement(element);
     }
     this.size++;
     assert this.size >= 0 : this.size;
@@ -227,6 +225,17 @@ public abstract class Bag<E> extends AbstractCollection<E> implements CqResults<
 
   protected abstract void mapPut(Object element, int count);
 
+  /**
+   * Adds one occurrence of a non null element to the map.
+   *
+   * @return the number of occurrences of the element, which is at least 1
+   */
+  protected int mapIncrement(Object element) {
+    int count = this.mapGet(element) + 1; // 0 if not found
+    this.mapPut(element, count);
+    return count;
+  }
+
   // Internal usage method
   // Asif :In case of StructBag , we will ensure that it
   // gets an Object [] indicating field values as parameter
@@ -237,9 +246,7 @@ public abstract class Bag<E> extends AbstractCollection<E> implements CqResults<
       numNulls++;
       occurrence = numNulls;
     } else {
-      occurrence = this.mapGet(element); // 0 if not
-                                         // found
-      this.mapPut(element, ++occurrence);
+      occurrence = this.mapIncrement(element);
     }
     this.size++;
     assert this.size >= 0 : this.size;
@@ -46,7 +46,12 @@ import org.apache.geode.cache.query.internal.types.TypeUtils;
 import org.apache.geode.cache.query.types.CollectionType;
 import org.apache.geode.cache.query.types.ObjectType;
 import org.apache.geode.cache.query.types.StructType;
+import org.apache.geode.internal.cache.BucketRegion;
 import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.PdxColumnStore;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.Token;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.pdx.PdxInstance;
 import org.apache.geode.pdx.internal.PdxString;
@@ -694,6 +699,19 @@ public class CompiledSelect extends AbstractCompiledValue {
         }
         return results;
       }
+
+      // check for columnar scan optimization
+      PdxColumnStore.ScanResult scan = optimizeColumnarScan(context);
+      if (scan != null) {
+        try {
+          applyColumnarScan(scan, results, context);
+        } catch (CompiledSelect.NullIteratorException ignore) {
+          return null;
+        } finally {
+          scan.release();
+        }
+        return results;
+      }
     }
     int numElementsInResult = 0;
     try {
@@ -760,6 +778,148 @@ public class CompiledSelect extends AbstractCompiledValue {
     return cIn.optimizeBulkGet(rgn, context);
   }
 
+  /**
+   * Check for the columnar scan pattern and if it applies compare the field on the column store of
+   * the bucket being queried. The pattern is: SELECT ?? FROM <Region> r WHERE r.field <op>
+   * <constant>, where the constant is a literal or a bind argument and the buckets of the region
+   * keep a {@link PdxColumnStore}.
+   *
+   * @return the result of the scan, or null if the optimization pattern didn't match
+   */
+  private PdxColumnStore.ScanResult optimizeColumnarScan(ExecutionContext context)
+      throws TypeMismatchException, FunctionDomainException, NameResolutionException,
+      QueryInvocationTargetException {
+    List iterList = context.getCurrentIterators();
+    BucketRegion bucket = context.getBucketRegion();
+    if (iterList.size() != 1 || bucket == null || bucket.getColumnStore() == null
+        || context.isCqQueryContext() || !(this.whereClause instanceof CompiledComparison)) {
+      return null;
+    }
+
+    // the iterator must be over the values of the partitioned region
+    RuntimeIterator rIter = (RuntimeIterator) iterList.get(0);
+    CompiledValue colnExpr = rIter.getCmpIteratorDefn().getCollectionExpr();
+    if (!(colnExpr instanceof CompiledRegion) || !context.getPartitionedRegion().getFullPath()
+        .equals(((CompiledRegion) colnExpr).getRegionPath())) {
+      return null;
+    }
+
+    CompiledComparison comparison = (CompiledComparison) this.whereClause;
+    int operator = comparison.getOperator();
+    CompiledValue constantExpr = comparison._right;
+    String fieldName = getColumnarFieldName(comparison._left, rIter, context);
+    if (fieldName == null) {
+      fieldName = getColumnarFieldName(comparison._right, rIter, context);
+      constantExpr = comparison._left;
+      operator = reflectOperator(operator);
+    }
+    if (fieldName == null
+        || (constantExpr.getType() != LITERAL && constantExpr.getType() != QUERY_PARAM)) {
+      return null;
+    }
+
+    PdxColumnStore.ScanResult scan =
+        bucket.getColumnStore().scan(fieldName, operator, constantExpr.evaluate(context));
+    // entries that were never handed to the store are not scanned, so don't use it if it is
+    // missing any
+    if (scan != null && scan.getEntryCount() != bucket.getRegionSize()) {
+      scan.release();
+      return null;
+    }
+    return scan;
+  }
+
+  /**
+   * Returns the name of the attribute if the operand is an attribute of the given iterator, or
+   * null.
+   */
+  private String getColumnarFieldName(CompiledValue operand, RuntimeIterator rIter,
+      ExecutionContext context) throws TypeMismatchException, AmbiguousNameException {
+    if (operand instanceof CompiledID) {
+      operand = context.resolve(((CompiledID) operand).getId());
+    }
+    if (!(operand instanceof CompiledPath)) {
+      return null;
+    }
+    CompiledValue rcvr = ((CompiledPath) operand).getReceiver();
+    if (rcvr instanceof CompiledID) {
+      rcvr = context.resolve(((CompiledID) rcvr).getId());
+    }
+    return rcvr == rIter ? ((CompiledPath) operand).getTailID() : null;
+  }
+
+  /**
+   * Adds the entries found by a columnar scan to the results. The entries the scan could not
+   * check, and the matching entries whose value changed since it was decomposed, go through the
+   * where clause.
+   */
+  private void applyColumnarScan(PdxColumnStore.ScanResult scan, SelectResults results,
+      ExecutionContext context) throws TypeMismatchException, FunctionDomainException,
+      NameResolutionException, QueryInvocationTargetException,
+      CompiledSelect.NullIteratorException {
+    BucketRegion bucket = context.getBucketRegion();
+    RuntimeIterator rIter = (RuntimeIterator) context.getCurrentIterators().get(0);
+    boolean keepSerialized =
+        context.getQuery() != null && ((DefaultQuery) context.getQuery()).isKeepSerialized();
+    PdxColumnStore store = bucket.getColumnStore();
+    List<Object> matchingKeys = scan.getMatchingKeys();
+    List<Object> uncheckedKeys = scan.getUncheckedKeys();
+    int numMatching = matchingKeys.size();
+    Integer limitValue = evaluateLimitValue(context, this.limit);
+    int numElementsInResult = 0;
+    for (int i = 0; i < numMatching + uncheckedKeys.size(); i++) {
+      // Check if query execution on this thread is canceled.
+      QueryMonitor.isQueryExecutionCanceled();
+
+      boolean matching = i < numMatching;
+      Object key = matching ? matchingKeys.get(i) : uncheckedKeys.get(i - numMatching);
+      RegionEntry re = bucket.getRegionMap().getEntry(key);
+      if (re == null) {
+        continue;
+      }
+      Object currObj;
+      boolean unchanged;
+      // writers set the value and tell the store about it with the entry synchronized
+      synchronized (re) {
+        currObj = getColumnarScanValue(bucket, re, keepSerialized);
+        unchanged = matching && !store.hasChanged(key);
+      }
+      if (currObj == null) {
+        continue;
+      }
+      rIter.setCurrent(currObj);
+      QueryObserver observer = QueryObserverHolder.getInstance();
+      observer.beforeIterationEvaluation(rIter, currObj);
+      numElementsInResult =
+          doNestedIterations(1, results, context, !unchanged, numElementsInResult);
+      if (this.orderByAttrs == null && limitValue > -1 && numElementsInResult == limitValue) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Returns the value of an entry the way iterating over the region would, or null if the entry
+   * has no value.
+   */
+  private Object getColumnarScanValue(BucketRegion bucket, RegionEntry re,
+      boolean keepSerialized) {
+    LocalRegion.NonTXEntry entry = bucket.new NonTXEntry(re);
+    try {
+      Object value;
+      if (keepSerialized) {
+        value = entry.getRawValue();
+      } else if (!DefaultQueryService.COPY_ON_READ_AT_ENTRY_LEVEL) {
+        value = entry.getValue(true);
+      } else {
+        value = entry.getValue();
+      }
+      return value == null || Token.isInvalidOrRemoved(value) ? null : value;
+    } catch (EntryDestroyedException ignore) {
+      return null;
+    }
+  }
+
   // returns the number of elements added in the return ResultSet
   private int doNestedIterations(int level, SelectResults results, ExecutionContext context,
       boolean evaluateWhereClause, int numElementsInResult)
@@ -999,12 +1159,17 @@ public class CompiledSelect extends AbstractCompiledValue {
         comparator = this.hasUnmappedOrderByCols
             ? new OrderByComparatorMapped(this.orderByAttrs, elementType, context)
             : new OrderByComparator(this.orderByAttrs, elementType, context);
-        return new SortedStructSet(comparator, (StructTypeImpl) elementType);
+        SortedStructSet structSet = new SortedStructSet(comparator, (StructTypeImpl) elementType);
+        allowSpilling(structSet);
+        return structSet;
       case ORDERED_INDISTINCT_STRUCT_UNIGNORED:
         comparator = this.hasUnmappedOrderByCols
             ? new OrderByComparatorMapped(this.orderByAttrs, elementType, context)
             : new OrderByComparator(this.orderByAttrs, elementType, context);
-        return new SortedStructBag(comparator, (StructType) elementType, nullValuesAtStart);
+        SortedStructBag structBag =
+            new SortedStructBag(comparator, (StructType) elementType, nullValuesAtStart);
+        allowSpilling(structBag);
+        return structBag;
       case ORDERED_DISTINCT_RESULTS_IGNORED:
         results = new LinkedResultSet();
         results.setElementType(elementType);
@@ -1019,6 +1184,7 @@ public class CompiledSelect extends AbstractCompiledValue {
             : new OrderByComparator(this.orderByAttrs, elementType, context);
         results = new SortedResultSet(comparator);
         results.setElementType(elementType);
+        allowSpilling((SortedResultSet) results);
         return results;
       case ORDERED_INDISTINCT_RESULTS_UNIGNORED:
         comparator = this.hasUnmappedOrderByCols
@@ -1026,11 +1192,33 @@ public class CompiledSelect extends AbstractCompiledValue {
             : new OrderByComparator(this.orderByAttrs, elementType, context);
         results = new SortedResultsBag(comparator, nullValuesAtStart);
         results.setElementType(elementType);
+        allowSpilling((SortedResultsBag) results);
         return results;
     }
     throw new TypeMismatchException("Logical inconsistency in CompiledSelect");
   }
 
+  /**
+   * Lets a large ORDER BY result spill to disk if {@link SortedResultsBag#SPILL_THRESHOLD} is set.
+   * A mapped comparator looks up the sort values of each row in a map filled as rows are added, so
+   * it cannot compare rows read back from disk and such results are always kept on the heap.
+   */
+  private void allowSpilling(SortedResultsBag results) {
+    if (SortedResultsBag.SPILL_THRESHOLD > 0 && !this.hasUnmappedOrderByCols) {
+      results.spillAbove(SortedResultsBag.SPILL_THRESHOLD);
+    }
+  }
+
+  /**
+   * Lets a large DISTINCT ORDER BY result spill to disk under the same conditions as
+   * {@link #allowSpilling(SortedResultsBag)}.
+   */
+  private void allowSpilling(SpillingTreeSet results) {
+    if (SortedResultsBag.SPILL_THRESHOLD > 0 && !this.hasUnmappedOrderByCols) {
+      results.spillAbove(SortedResultsBag.SPILL_THRESHOLD);
+    }
+  }
+
   protected ObjectType prepareResultType(ExecutionContext context)
       throws TypeMismatchException, AmbiguousNameException {
     // if no projection attributes or '*'as projection attribute
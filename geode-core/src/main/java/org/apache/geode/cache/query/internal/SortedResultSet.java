@@ -24,7 +24,6 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.apache.geode.DataSerializer;
 import org.apache.geode.cache.query.SelectResults;
@@ -42,7 +41,7 @@ import org.apache.geode.internal.i18n.LocalizedStrings;
  *
  * @since GemFire 4.0
  */
-public class SortedResultSet extends TreeSet
+public class SortedResultSet extends SpillingTreeSet
     implements SelectResults, Ordered, DataSerializableFixedID {
   private static final long serialVersionUID = 5184711453750319224L;
 
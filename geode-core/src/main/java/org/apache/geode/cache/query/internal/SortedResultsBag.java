@@ -14,17 +14,24 @@
  */
 package org.apache.geode.cache.query.internal;
 
+import java.util.AbstractMap;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
 import org.apache.geode.cache.query.internal.types.CollectionTypeImpl;
 import org.apache.geode.cache.query.types.CollectionType;
 import org.apache.geode.cache.query.types.ObjectType;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.cache.CachePerfStats;
+import org.apache.geode.internal.cache.CachedDeserializable;
+import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
+import org.apache.geode.internal.cache.persistence.query.ResultBag;
+import org.apache.geode.internal.cache.persistence.query.TemporaryResultSetFactory;
 
 /**
  * This results set is used to sort the data allowing duplicates. If the data being added is already
@@ -32,15 +39,37 @@ import org.apache.geode.internal.cache.CachePerfStats;
  * expecting duplicates, the constructor used is the one which creates LinkedHashMap This class is
  * used to store ordered data of Structs too, obtained from index lookup
  *
+ * A bag for unordered input may be allowed to spill to disk with {@link #spillAbove}. Once the
+ * TreeMap holds that many distinct elements they are moved to a temporary {@link ResultBag} and
+ * the TreeMap starts over. Iteration merges the two. Occurrences of an element are counted with a
+ * range read of the spilled runs, which only reads the blocks that may hold the element.
  *
  * @param <E>
  */
 public class SortedResultsBag<E> extends Bag implements Ordered {
 
+  /**
+   * The number of distinct elements an ORDER BY result holds on the heap before moving them to
+   * disk. Zero, the default, keeps every result on the heap.
+   */
+  public static final int SPILL_THRESHOLD =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.SORT_SPILL_THRESHOLD", 0);
+
   private final Map<E, Integer> sortedMap;
   private final boolean orderedDataAddition;
   private final boolean emitNullAtStart;
 
+  /** The number of distinct elements held before spilling, or zero to never spill */
+  private int spillThreshold;
+
+  /** The elements that have been spilled, or null if this bag has not spilled */
+  private ResultBag spilled;
+
+  /**
+   * The number of distinct spilled elements, or -1 if it has not been counted since the last spill
+   */
+  private int spilledDistinct = -1;
+
   /**
    * Constructor for unordered input
    *
@@ -143,6 +172,9 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
   @Override
   protected int mapGet(Object element) {
     Integer count = this.sortedMap.get(element);
+    if (this.spilled != null) {
+      return this.spilled.occurrences(element) + (count == null ? 0 : count);
+    }
     if (count == null) {
       return 0;
     } else {
@@ -152,32 +184,74 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
 
   @Override
   protected boolean mapContainsKey(Object element) {
+    if (this.spilled != null) {
+      return mapGet(element) > 0;
+    }
     return this.sortedMap.containsKey(element);
   }
 
+  /**
+   * Once this bag has spilled the element is removed from disk and its new count is kept on the
+   * heap.
+   */
   @Override
   protected void mapPut(Object element, int count) {
+    removeSpilled(element);
     this.sortedMap.put((E) element, count);
   }
 
+  /**
+   * Once this bag has spilled only the occurrences still on the heap are counted, which is enough
+   * for the caller to know the element was added.
+   */
+  @Override
+  protected int mapIncrement(Object element) {
+    Integer count = this.sortedMap.get(element);
+    int newCount = count == null ? 1 : count + 1;
+    this.sortedMap.put((E) element, newCount);
+    if (this.spillThreshold > 0 && this.sortedMap.size() >= this.spillThreshold) {
+      spill();
+    }
+    return newCount;
+  }
+
   @Override
   protected int mapSize() {
+    if (this.spilled != null) {
+      if (!this.sortedMap.isEmpty()) {
+        spill();
+      }
+      if (this.spilledDistinct < 0) {
+        int size = 0;
+        for (Iterator itr = spilledEntryIterator(); itr.hasNext(); itr.next()) {
+          size++;
+        }
+        this.spilledDistinct = size;
+      }
+      return this.spilledDistinct;
+    }
     return this.sortedMap.size();
   }
 
   @Override
   protected int mapRemove(Object element) {
+    int spilledCount = removeSpilled(element);
     Integer count = this.sortedMap.remove(element);
     if (count == null) {
-      return 0;
+      return spilledCount;
     } else {
-      return count;
+      return count + spilledCount;
     }
   }
 
   @Override
   protected void mapClear() {
     this.sortedMap.clear();
+    if (this.spilled != null) {
+      this.spilled.close();
+      this.spilled = null;
+      this.spilledDistinct = -1;
+    }
   }
 
   @Override
@@ -192,16 +266,36 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
 
   @Override
   protected boolean mapEmpty() {
+    if (this.spilled != null) {
+      return mapSize() == 0;
+    }
     return this.sortedMap.isEmpty();
   }
 
   @Override
   protected Iterator mapEntryIterator() {
+    if (this.spilled != null) {
+      return spilledEntryIterator();
+    }
     return this.sortedMap.entrySet().iterator();
   }
 
   @Override
   protected Iterator mapKeyIterator() {
+    if (this.spilled != null) {
+      final Iterator<Map.Entry<E, Integer>> entries = spilledEntryIterator();
+      return new Iterator<E>() {
+        @Override
+        public boolean hasNext() {
+          return entries.hasNext();
+        }
+
+        @Override
+        public E next() {
+          return entries.next().getKey();
+        }
+      };
+    }
     return this.sortedMap.keySet().iterator();
   }
 
@@ -243,4 +337,106 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
     return this.emitNullAtStart;
   }
 
+  /**
+   * Allows this bag to move its elements to disk once it holds the given number of distinct
+   * elements. Has no effect on a bag for ordered input. Spilled elements are read back as copies,
+   * so the comparator must order elements by value.
+   */
+  void spillAbove(int threshold) {
+    if (!this.orderedDataAddition) {
+      this.spillThreshold = threshold;
+    }
+  }
+
+  boolean isSpilled() {
+    return this.spilled != null;
+  }
+
+  /**
+   * Moves the elements held in the TreeMap to the spilled bag.
+   */
+  private void spill() {
+    if (this.spilled == null) {
+      this.spilled = new TemporaryResultSetFactory().getSortedResultBag(null, comparator());
+    }
+    for (Map.Entry<E, Integer> entry : this.sortedMap.entrySet()) {
+      for (int i = 0; i < entry.getValue(); i++) {
+        this.spilled.add(entry.getKey());
+      }
+    }
+    this.sortedMap.clear();
+    this.spilledDistinct = -1;
+  }
+
+  /**
+   * Removes every spilled occurrence of the element and returns how many there were.
+   */
+  private int removeSpilled(Object element) {
+    if (this.spilled == null) {
+      return 0;
+    }
+    int count = this.spilled.removeAll(element);
+    if (count > 0 && this.spilledDistinct > 0) {
+      this.spilledDistinct--;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the distinct elements of a spilled bag, in order, with their number of occurrences.
+   */
+  private Iterator<Map.Entry<E, Integer>> spilledEntryIterator() {
+    if (!this.sortedMap.isEmpty()) {
+      spill();
+    }
+    return new SpilledEntryIterator<>(this.spilled.iterator(), comparator());
+  }
+
+  /**
+   * Collapses runs of equal elements from the spilled bag into one entry with a count.
+   */
+  private static class SpilledEntryIterator<E> implements Iterator<Map.Entry<E, Integer>> {
+    private final CloseableIterator<CachedDeserializable> elements;
+    private final Comparator<Object> comparator;
+    private E pending;
+
+    SpilledEntryIterator(CloseableIterator<CachedDeserializable> elements,
+        Comparator<Object> comparator) {
+      this.elements = elements;
+      this.comparator = comparator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.pending != null || this.elements.hasNext();
+    }
+
+    @Override
+    public Map.Entry<E, Integer> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      E element = this.pending != null ? this.pending : read();
+      this.pending = null;
+      int count = 1;
+      while (this.elements.hasNext()) {
+        E next = read();
+        if (this.comparator.compare(element, next) == 0) {
+          count++;
+        } else {
+          this.pending = next;
+          break;
+        }
+      }
+      if (this.pending == null) {
+        this.elements.close();
+      }
+      return new AbstractMap.SimpleImmutableEntry<>(element, count);
+    }
+
+    private E read() {
+      return (E) this.elements.next().getDeserializedForReading();
+    }
+  }
+
 }
@@ -23,7 +23,6 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.apache.geode.DataSerializer;
 import org.apache.geode.cache.query.SelectResults;
@@ -44,7 +43,7 @@ import org.apache.geode.internal.i18n.LocalizedStrings;
  *
  * @since GemFire 4.0
  */
-public class SortedStructSet extends TreeSet
+public class SortedStructSet extends SpillingTreeSet
     implements SelectResults, DataSerializableFixedID, Ordered, StructFields {
   private static final long serialVersionUID = -1687142950781718159L;
 
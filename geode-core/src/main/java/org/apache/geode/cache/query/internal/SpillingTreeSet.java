@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+import org.apache.geode.internal.cache.CachedDeserializable;
+import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
+import org.apache.geode.internal.cache.persistence.query.ResultSet;
+import org.apache.geode.internal.cache.persistence.query.TemporaryResultSetFactory;
+
+/**
+ * A TreeSet of sorted DISTINCT results that may be allowed to spill to disk with
+ * {@link #spillAbove}. Once the TreeSet holds that many elements they are moved to a temporary
+ * {@link ResultSet} and the TreeSet starts over. Adds, removes, lookups, size and iteration cover
+ * both. Iteration first moves the elements still on the heap to disk. The navigation methods of
+ * TreeSet, such as first or headSet, only see the elements on the heap.
+ */
+abstract class SpillingTreeSet extends TreeSet {
+  private static final long serialVersionUID = -5137466427391802416L;
+
+  /** The number of elements held before spilling, or zero to never spill */
+  private transient int spillThreshold;
+
+  /** The elements that have been spilled, or null if this set has not spilled */
+  private transient ResultSet spilled;
+
+  /** The number of elements in {@link #spilled} */
+  private transient int spilledSize;
+
+  SpillingTreeSet() {}
+
+  SpillingTreeSet(Collection c) {
+    super(c);
+  }
+
+  SpillingTreeSet(Comparator c) {
+    super(c);
+  }
+
+  /**
+   * Allows this set to move its elements to disk once it holds the given number of them. Has no
+   * effect on a set without a comparator. Spilled elements are read back as copies, so the
+   * comparator must order elements by value.
+   */
+  void spillAbove(int threshold) {
+    if (comparator() != null) {
+      this.spillThreshold = threshold;
+    }
+  }
+
+  boolean isSpilled() {
+    return this.spilled != null;
+  }
+
+  @Override
+  public boolean add(Object o) {
+    if (this.spilled != null && this.spilled.contains(o)) {
+      return false;
+    }
+    if (!super.add(o)) {
+      return false;
+    }
+    if (this.spillThreshold > 0 && super.size() >= this.spillThreshold) {
+      spill();
+    }
+    return true;
+  }
+
+  /**
+   * Adds the elements one at a time when this set may spill, since TreeSet may otherwise add a
+   * sorted collection without going through {@link #add}.
+   */
+  @Override
+  public boolean addAll(Collection c) {
+    if (this.spillThreshold == 0) {
+      return super.addAll(c);
+    }
+    boolean modified = false;
+    for (Object o : c) {
+      if (add(o)) {
+        modified = true;
+      }
+    }
+    return modified;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return super.contains(o) || this.spilled != null && this.spilled.contains(o);
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    return removeElement(o);
+  }
+
+  @Override
+  public int size() {
+    return super.size() + this.spilledSize;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    if (this.spilled != null) {
+      this.spilled.close();
+      this.spilled = null;
+      this.spilledSize = 0;
+    }
+  }
+
+  @Override
+  public Iterator iterator() {
+    if (this.spilled == null) {
+      return super.iterator();
+    }
+    if (!super.isEmpty()) {
+      spill();
+    }
+    return new SpilledIterator(this.spilled.iterator());
+  }
+
+  private boolean removeElement(Object o) {
+    if (super.remove(o)) {
+      return true;
+    }
+    if (this.spilled != null && this.spilled.remove(o)) {
+      this.spilledSize--;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Moves the elements held in the TreeSet to the spilled set.
+   */
+  private void spill() {
+    if (this.spilled == null) {
+      this.spilled = new TemporaryResultSetFactory().getSortedResultSet(null, comparator());
+    }
+    for (Iterator itr = super.iterator(); itr.hasNext();) {
+      this.spilled.add(itr.next());
+      this.spilledSize++;
+    }
+    super.clear();
+  }
+
+  /**
+   * Iterates over the spilled elements, which hold every element of this set.
+   */
+  private class SpilledIterator implements Iterator {
+    private final CloseableIterator<CachedDeserializable> elements;
+    private Object last;
+    private boolean canRemove;
+
+    SpilledIterator(CloseableIterator<CachedDeserializable> elements) {
+      this.elements = elements;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.elements.hasNext();
+    }
+
+    @Override
+    public Object next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      this.last = this.elements.next().getDeserializedForReading();
+      this.canRemove = true;
+      return this.last;
+    }
+
+    @Override
+    public void remove() {
+      if (!this.canRemove) {
+        throw new IllegalStateException();
+      }
+      this.canRemove = false;
+      removeElement(this.last);
+    }
+  }
+}
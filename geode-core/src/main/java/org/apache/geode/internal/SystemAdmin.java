@@ -48,6 +48,7 @@ import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -76,6 +77,7 @@ import org.apache.geode.distributed.internal.membership.InternalDistributedMembe
 import org.apache.geode.distributed.internal.tcpserver.TcpClient;
 import org.apache.geode.internal.admin.remote.TailLogResponse;
 import org.apache.geode.internal.cache.DiskStoreImpl;
+import org.apache.geode.internal.cache.OfflineDiskStoreReport;
 import org.apache.geode.internal.cache.backup.BackupOperation;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.DateFormatter;
@@ -440,6 +442,10 @@ public class SystemAdmin {
   }
 
   public static void compactDiskStore(List args) {
+    if (isParallelOffline(args)) {
+      finishParallelOffline(runParallelOffline(args, false));
+      return;
+    }
     String diskStoreName = (String) args.get(0);
     List dirList = args.subList(1, args.size());
     File[] dirs = new File[dirList.size()];
@@ -457,6 +463,10 @@ public class SystemAdmin {
   }
 
   public static void upgradeDiskStore(List args) {
+    if (isParallelOffline(args)) {
+      finishParallelOffline(runParallelOffline(args, true));
+      return;
+    }
     String diskStoreName = (String) args.get(0);
     List dirList = args.subList(1, args.size());
     File[] dirs = new File[dirList.size()];
@@ -492,6 +502,15 @@ public class SystemAdmin {
   }
 
   public static void validateDiskStore(List args) {
+    if (isParallelOffline(args)) {
+      try {
+        finishParallelOffline(DiskStoreImpl.validate(getDiskStores(args), threadsOption));
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new GemFireIOException("Interrupted while validating disk stores", ex);
+      }
+      return;
+    }
     String diskStoreName = (String) args.get(0);
     List dirList = args.subList(1, args.size());
     File[] dirs = new File[dirList.size()];
@@ -508,6 +527,86 @@ public class SystemAdmin {
     }
   }
 
+  /**
+   * Returns true if the disk stores are named in the {@code <diskStoreName>=<directories>} form or
+   * a report is requested, in which case they are processed by
+   * {@link #runParallelOffline(List, boolean)}.
+   */
+  private static boolean isParallelOffline(List args) {
+    return reportOption != null || ((String) args.get(0)).indexOf('=') > 0;
+  }
+
+  /**
+   * Returns the directories of each disk store named on the command line. The arguments are either
+   * the name of a disk store followed by its directories, or any number of disk stores in the
+   * form {@code <diskStoreName>=<directory>[<path separator><directory>]*}.
+   */
+  static Map<String, File[]> getDiskStores(List args) {
+    Map<String, File[]> diskStores = new LinkedHashMap<>();
+    if (((String) args.get(0)).indexOf('=') <= 0) {
+      List dirList = args.subList(1, args.size());
+      File[] dirs = new File[dirList.size()];
+      for (int i = 0; i < dirs.length; i++) {
+        dirs[i] = new File((String) dirList.get(i));
+      }
+      diskStores.put((String) args.get(0), dirs);
+      return diskStores;
+    }
+    for (Object arg : args) {
+      String diskStore = (String) arg;
+      int idx = diskStore.indexOf('=');
+      if (idx <= 0 || idx == diskStore.length() - 1) {
+        throw new IllegalArgumentException(
+            "Expected <diskStoreName>=<directory>[" + File.pathSeparator + "<directory>]* but found "
+                + diskStore);
+      }
+      String[] dirList = diskStore.substring(idx + 1).split(Pattern.quote(File.pathSeparator));
+      File[] dirs = new File[dirList.length];
+      for (int i = 0; i < dirs.length; i++) {
+        dirs[i] = new File(dirList[i]);
+      }
+      diskStores.put(diskStore.substring(0, idx), dirs);
+    }
+    return diskStores;
+  }
+
+  private static List<OfflineDiskStoreReport> runParallelOffline(List args,
+      boolean upgradeVersionOnly) {
+    try {
+      return DiskStoreImpl.offlineCompact(getDiskStores(args), upgradeVersionOnly, maxOplogSize,
+          threadsOption);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new GemFireIOException("Interrupted while compacting disk stores", ex);
+    }
+  }
+
+  /**
+   * Writes the report, if requested, and fails if any of the disk stores failed.
+   */
+  private static void finishParallelOffline(List<OfflineDiskStoreReport> reports) {
+    if (reportOption != null) {
+      try {
+        OfflineDiskStoreReport.write(new File(reportOption), reports);
+      } catch (IOException ex) {
+        throw new GemFireIOException("Could not write report " + reportOption + ": " + ex, ex);
+      }
+    }
+    StringBuilder failures = new StringBuilder();
+    for (OfflineDiskStoreReport report : reports) {
+      System.out.println(report.getDiskStoreName() + ": " + report.getOperation().name()
+          .toLowerCase() + (report.isSuccessful() ? " completed" : " failed") + " in "
+          + report.getElapsedMillis() + " ms");
+      if (!report.isSuccessful()) {
+        failures.append(" disk-store=").append(report.getDiskStoreName()).append(": ")
+            .append(report.getError());
+      }
+    }
+    if (failures.length() > 0) {
+      throw new GemFireIOException(failures.toString());
+    }
+  }
+
   private static InternalDistributedSystem getAdminCnx() {
     InternalDistributedSystem.setCommandLineAdmin(true);
     Properties props = propertyOption;
@@ -1439,7 +1538,8 @@ public class SystemAdmin {
           "-dir=", "-endtime=", "-h", "-help", "-initialCapacity=", "-loadFactor=", "-lru=",
           "-lruAction=", "-lruLimit=", "-maxOplogSize=", "-properties=", "-monitor", "-nofilter",
           "-persample", "-persec", "-out=", "-port=", "-prunezeros", "-region=", "-starttime=",
-          "-statisticsEnabled=", "-peer=", "-server=", "-q", "-D", "-X", "-outputDir="};
+          "-statisticsEnabled=", "-peer=", "-server=", "-q", "-D", "-X", "-outputDir=",
+          "-report=", "-threads="};
 
   protected String checkCmd(String theCmd) {
     String cmd = theCmd;
@@ -1535,12 +1635,15 @@ public class SystemAdmin {
         LocalizedStrings.SystemAdmin_TAIL_LOCATOR_HELP.toLocalizedString("-dir="));
     helpMap.put("merge-logs", LocalizedStrings.SystemAdmin_MERGE_LOGS.toLocalizedString("-out"));
     helpMap.put("validate-disk-store",
-        LocalizedStrings.SystemAdmin_VALIDATE_DISK_STORE.toLocalizedString());
+        LocalizedStrings.SystemAdmin_VALIDATE_DISK_STORE.toLocalizedString() + "\n"
+            + OFFLINE_DISK_STORES_HELP);
     helpMap.put("upgrade-disk-store", "Upgrade an offline disk store with new version format. \n"
-        + "  -maxOplogSize=<long> causes the oplogs created by compaction to be no larger than the specified size in megabytes.");
+        + "  -maxOplogSize=<long> causes the oplogs created by compaction to be no larger than the specified size in megabytes.\n"
+        + OFFLINE_DISK_STORES_HELP);
     helpMap.put("compact-disk-store",
         "Compacts an offline disk store. Compaction removes all unneeded records from the persistent files.\n"
-            + "  -maxOplogSize=<long> causes the oplogs created by compaction to be no larger than the specified size in megabytes.");
+            + "  -maxOplogSize=<long> causes the oplogs created by compaction to be no larger than the specified size in megabytes.\n"
+            + OFFLINE_DISK_STORES_HELP);
     helpMap.put("compact-all-disk-stores",
         "Connects to a running system and tells its members to compact their disk stores. "
             + "This command uses the compaction threshold that each member has "
@@ -1663,8 +1766,17 @@ public class SystemAdmin {
     helpMap.put("-server=",
         "-server=<true|false> True, the default, causes the locator to find servers for clients. False will cause the locator to not locate servers for clients.");
     helpMap.put("-outputDir=", "The directory where the disk store should be exported.");
+    helpMap.put("-report=",
+        "Writes what was found in each oplog, with its live and garbage records and timings, to the specified file as JSON.");
+    helpMap.put("-threads=",
+        "The number of disk stores that are processed at a time. Defaults to the number of processors.");
   }
 
+  private static final String OFFLINE_DISK_STORES_HELP =
+      "  Several disk stores can be processed at once by naming each of them as <diskStoreName>=<directories>, with the directories separated by the path separator.\n"
+          + "  -threads=<int> the number of disk stores processed at a time. Defaults to the number of processors.\n"
+          + "  -report=<file> writes what was found in each oplog, with its live and garbage records and timings, to the file as JSON.";
+
   protected final Map usageMap = new HashMap();
 
   protected void initUsageMap() {
@@ -1681,11 +1793,12 @@ public class SystemAdmin {
     usageMap.put("info-locator", "info-locator [-dir=<locatorDir>]");
     usageMap.put("tail-locator-log", "tail-locator-log [-dir=<locatorDir>]");
     usageMap.put("merge-logs", "merge-logs <logFile>+ [-out=<outFile>]");
-    usageMap.put("validate-disk-store", "validate-disk-store <diskStoreName> <directory>+");
+    usageMap.put("validate-disk-store",
+        "validate-disk-store (<diskStoreName> <directory>+|(<diskStoreName>=<directories>)+) [-threads=<int>] [-report=<file>]");
     usageMap.put("upgrade-disk-store",
-        "upgrade-disk-store <diskStoreName> <directory>+ [-maxOplogSize=<int>]");
+        "upgrade-disk-store (<diskStoreName> <directory>+|(<diskStoreName>=<directories>)+) [-maxOplogSize=<int>] [-threads=<int>] [-report=<file>]");
     usageMap.put("compact-disk-store",
-        "compact-disk-store <diskStoreName> <directory>+ [-maxOplogSize=<int>]");
+        "compact-disk-store (<diskStoreName> <directory>+|(<diskStoreName>=<directories>)+) [-maxOplogSize=<int>] [-threads=<int>] [-report=<file>]");
     usageMap.put("compact-all-disk-stores", "compact-all-disk-stores");
     usageMap.put("modify-disk-store",
         "modify-disk-store <diskStoreName> <directory>+ [-region=<regionName> [-remove|(-lru=<none|lru-entry-count|lru-heap-percentage|lru-memory-size>|-lruAction=<none|overflow-to-disk|local-destroy>|-lruLimit=<int>|-concurrencyLevel=<int>|-initialCapacity=<int>|-loadFactor=<float>|-statisticsEnabled=<boolean>)*]]");
@@ -1736,6 +1849,8 @@ public class SystemAdmin {
   private static String hostnameForClientsOption = null;
   private static String baselineDir = null; // Baseline directory option value for backup command
   private static String outputDir = null;
+  private static String reportOption = null;
+  private static int threadsOption = Runtime.getRuntime().availableProcessors();
 
   private static Map cmdOptionsMap = new HashMap();
   static {
@@ -1751,9 +1866,11 @@ public class SystemAdmin {
     cmdOptionsMap.put("status-locator", new String[] {"-dir=", "-D"});
     cmdOptionsMap.put("info-locator", new String[] {"-dir=", "-D"});
     cmdOptionsMap.put("tail-locator-log", new String[] {"-dir=", "-D"});
-    cmdOptionsMap.put("validate-disk-store", new String[] {});
-    cmdOptionsMap.put("upgrade-disk-store", new String[] {"-maxOplogSize="});
-    cmdOptionsMap.put("compact-disk-store", new String[] {"-maxOplogSize="});
+    cmdOptionsMap.put("validate-disk-store", new String[] {"-threads=", "-report="});
+    cmdOptionsMap.put("upgrade-disk-store",
+        new String[] {"-maxOplogSize=", "-threads=", "-report="});
+    cmdOptionsMap.put("compact-disk-store",
+        new String[] {"-maxOplogSize=", "-threads=", "-report="});
     cmdOptionsMap.put("modify-disk-store",
         new String[] {"-region=", "-remove", "-lru=", "-lruAction=", "-lruLimit=",
             "-concurrencyLevel=", "-initialCapacity=", "-loadFactor=", "-statisticsEnabled="});
@@ -1776,6 +1893,15 @@ public class SystemAdmin {
     }
   }
 
+  private static int parseInt(String arg) {
+    try {
+      return Integer.parseInt(arg);
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException(
+          "Could not parse -threads=" + arg + " because: " + ex.getMessage());
+    }
+  }
+
   private static long parseTime(String arg) {
     DateFormat fmt = DateFormatter.createDateFormat();
     try {
@@ -1847,6 +1973,10 @@ public class SystemAdmin {
             baselineDir = argValue;
           } else if (validArgs[i].equals("-outputDir=")) {
             outputDir = argValue;
+          } else if (validArgs[i].equals("-report=")) {
+            reportOption = argValue;
+          } else if (validArgs[i].equals("-threads=")) {
+            threadsOption = parseInt(argValue);
           } else {
             throw new InternalGemFireException(
                 LocalizedStrings.SystemAdmin_UNEXPECTED_VALID_OPTION_0
@@ -2146,7 +2276,7 @@ public class SystemAdmin {
         if (cmdLine.size() == 0) {
           System.err.println("Expected disk store name and at least one directory");
           usage(cmd);
-        } else if (cmdLine.size() == 1) {
+        } else if (cmdLine.size() == 1 && ((String) cmdLine.get(0)).indexOf('=') <= 0) {
           System.err.println("Expected at least one directory");
           usage(cmd);
         }
@@ -2155,7 +2285,7 @@ public class SystemAdmin {
         if (cmdLine.size() == 0) {
           System.err.println("Expected disk store name and at least one directory");
           usage(cmd);
-        } else if (cmdLine.size() == 1) {
+        } else if (cmdLine.size() == 1 && ((String) cmdLine.get(0)).indexOf('=') <= 0) {
           System.err.println("Expected at least one directory");
           usage(cmd);
         }
@@ -2164,7 +2294,7 @@ public class SystemAdmin {
         if (cmdLine.size() == 0) {
           System.err.println("Expected disk store name and at least one directory");
           usage(cmd);
-        } else if (cmdLine.size() == 1) {
+        } else if (cmdLine.size() == 1 && ((String) cmdLine.get(0)).indexOf('=') <= 0) {
           System.err.println("Expected at least one directory");
           usage(cmd);
         }
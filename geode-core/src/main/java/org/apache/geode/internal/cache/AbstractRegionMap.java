@@ -2649,6 +2649,11 @@ public abstract class AbstractRegionMap
     return 0;
   }
 
+  @Override
+  public long demoteColdValues() {
+    return 0;
+  }
+
   @Override
   public void updateEvictionCounter() {}
 
@@ -209,6 +209,10 @@ public class BucketRegion extends DistributedRegion implements Bucket {
 
   /** the partitioned region to which this bucket belongs */
   private final PartitionedRegion partitionedRegion;
+
+  /** the values of this bucket decomposed into columns, or null if not enabled for the region */
+  private final PdxColumnStore columnStore;
+
   private final Map<Object, ExpiryTask> pendingSecondaryExpires = new HashMap<Object, ExpiryTask>();
 
   /* one map per bucket region */
@@ -239,6 +243,8 @@ public class BucketRegion extends DistributedRegion implements Bucket {
     Assert.assertTrue(internalRegionArgs.getPartitionedRegion() != null);
     this.redundancy = internalRegionArgs.getPartitionedRegionBucketRedundancy();
     this.partitionedRegion = internalRegionArgs.getPartitionedRegion();
+    this.columnStore = PdxColumnStore.isEnabledFor(this.partitionedRegion)
+        ? new PdxColumnStore(cache.getPdxRegistry(), this::getColumnStoreValue) : null;
     setEventSeqNum();
   }
 
@@ -2131,6 +2137,9 @@ public class BucketRegion extends DistributedRegion implements Bucket {
       this.partitionedRegion.getPrStats().incDataStoreEntryCount(-sizeBeforeClear);
       prDs.updateMemoryStats(-oldMemValue);
     }
+    if (this.columnStore != null) {
+      this.columnStore.clear();
+    }
   }
 
   @Override
@@ -2147,18 +2156,21 @@ public class BucketRegion extends DistributedRegion implements Bucket {
   @Override
   public void updateSizeOnPut(Object key, int oldSize, int newSize) {
     updateBucket2Size(oldSize, newSize, SizeOp.UPDATE);
+    updateColumnStore(key);
   }
 
   @Override
   public void updateSizeOnCreate(Object key, int newSize) {
     this.partitionedRegion.getPrStats().incDataStoreEntryCount(1);
     updateBucket2Size(0, newSize, SizeOp.CREATE);
+    updateColumnStore(key);
   }
 
   @Override
   public void updateSizeOnRemove(Object key, int oldSize) {
     this.partitionedRegion.getPrStats().incDataStoreEntryCount(-1);
     updateBucket2Size(oldSize, 0, SizeOp.DESTROY);
+    updateColumnStore(key);
   }
 
   @Override
@@ -2171,6 +2183,38 @@ public class BucketRegion extends DistributedRegion implements Bucket {
   @Override
   public void updateSizeOnFaultIn(Object key, int newMemSize, int oldDiskSize) {
     updateBucket2Size(oldDiskSize, newMemSize, SizeOp.FAULT_IN);
+    updateColumnStore(key);
+  }
+
+  /**
+   * Tells the column store that the value of an entry changed. Called with the entry
+   * synchronized, after its new value has been set.
+   */
+  private void updateColumnStore(Object key) {
+    if (this.columnStore != null) {
+      this.columnStore.changed(key);
+    }
+  }
+
+  /**
+   * Returns the value of an entry as the column store reads it: null if the entry does not exist
+   * and {@link Token#NOT_AVAILABLE} if its value is not in memory.
+   */
+  private Object getColumnStoreValue(Object key) {
+    RegionEntry entry = getRegionMap().getEntry(key);
+    if (entry == null) {
+      return null;
+    }
+    Object value = entry.getValue(); // OFFHEAP _getValue ok
+    return value == null ? Token.NOT_AVAILABLE : value;
+  }
+
+  /**
+   * Returns the store that keeps the values of this bucket decomposed into columns, or null if the
+   * partitioned region does not keep one.
+   */
+  public PdxColumnStore getColumnStore() {
+    return this.columnStore;
   }
 
   @Override
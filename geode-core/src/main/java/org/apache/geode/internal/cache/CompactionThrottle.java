@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Paces the compactor so that copying live entries forward does not starve foreground oplog
+ * writes of disk bandwidth. The compactor reports every value it copies and is paused once it gets
+ * ahead of its budget.
+ * <p>
+ * The budget starts at the configured number of bytes per second, which may be unlimited. Every
+ * {@link #SAMPLE_INTERVAL_NANOS} the average foreground write time recorded by {@link
+ * DiskStoreStats} is compared with its long term average. If it has risen by more than the
+ * configured factor the budget is halved, otherwise it grows back by a quarter until it reaches
+ * the configured limit again. Write times are only recorded when time statistics are enabled, so
+ * without them only the fixed budget applies.
+ * <p>
+ * Only used by the single compactor thread of a disk store, so it is not thread safe.
+ *
+ * @see DiskStoreImpl#COMPACTION_BYTES_PER_SECOND_PROPERTY_NAME
+ * @see DiskStoreImpl#COMPACTION_BACKOFF_LATENCY_FACTOR_PROPERTY_NAME
+ */
+class CompactionThrottle {
+
+  static final long SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /** The longest the compactor sleeps before checking whether it should stop waiting */
+  static final long MAX_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /** The fewest foreground writes a sample needs before its write time is trusted */
+  static final long MIN_SAMPLE_WRITES = 10;
+
+  /** Backing off never slows the compactor below this many bytes per second */
+  static final long MIN_BYTES_PER_SECOND = 64 * 1024;
+
+  /** How much of the running average write time comes from each new sample */
+  private static final double AVERAGE_WEIGHT = 0.1;
+
+  private final long maxBytesPerSecond;
+
+  private final double backoffLatencyFactor;
+
+  private final DiskStoreStats stats;
+
+  private final LongSupplier clock;
+
+  /** The current budget; zero means unlimited */
+  private long bytesPerSecond;
+
+  /** The time at which everything copied so far has been paid for */
+  private long paidUntil;
+
+  private long sampleStart;
+
+  private long sampleWrites;
+
+  private long sampleWriteTime;
+
+  private long sampleBytes;
+
+  /** The running average time of a foreground write, in nanoseconds; zero until measured */
+  private double averageWriteNanos;
+
+  /**
+   * @param maxBytesPerSecond the most bytes the compactor may copy each second; zero for no limit
+   * @param backoffLatencyFactor how many times the average foreground write time a sample must
+   *        reach for the compactor to back off; zero to never back off
+   */
+  CompactionThrottle(long maxBytesPerSecond, double backoffLatencyFactor, DiskStoreStats stats) {
+    this(maxBytesPerSecond, backoffLatencyFactor, stats, System::nanoTime);
+  }
+
+  CompactionThrottle(long maxBytesPerSecond, double backoffLatencyFactor, DiskStoreStats stats,
+      LongSupplier clock) {
+    this.maxBytesPerSecond = Math.max(0, maxBytesPerSecond);
+    this.backoffLatencyFactor = backoffLatencyFactor;
+    this.stats = stats;
+    this.clock = clock;
+    this.bytesPerSecond = this.maxBytesPerSecond;
+    this.stats.setCompactionBytesPerSecond(this.bytesPerSecond);
+  }
+
+  /**
+   * Returns true if this throttle can ever pause the compactor.
+   */
+  boolean isEnabled() {
+    return this.maxBytesPerSecond > 0 || this.backoffLatencyFactor > 0;
+  }
+
+  long getBytesPerSecond() {
+    return this.bytesPerSecond;
+  }
+
+  /**
+   * Accounts for {@code bytes} copied forward by the compactor and pauses the calling thread until
+   * they fit in the budget. The pause is cut short as soon as {@code stopWaiting} returns true, for
+   * example because another thread wants a lock the compactor is holding; the bytes not yet paid
+   * for are then carried over to the next call.
+   */
+  void throttle(long bytes, BooleanSupplier stopWaiting) {
+    if (!isEnabled()) {
+      return;
+    }
+    long now = this.clock.getAsLong();
+    if (this.sampleStart == 0) {
+      startSample(now);
+    }
+    this.sampleBytes += bytes;
+    if (now - this.sampleStart >= SAMPLE_INTERVAL_NANOS) {
+      adjust(now);
+    }
+    if (this.bytesPerSecond == 0) {
+      this.paidUntil = now;
+      return;
+    }
+    // do not let an idle period be saved up and spent as a burst
+    this.paidUntil = Math.max(this.paidUntil, now - SAMPLE_INTERVAL_NANOS)
+        + TimeUnit.SECONDS.toNanos(bytes) / this.bytesPerSecond;
+    if (this.paidUntil <= now) {
+      return;
+    }
+    long pauseStart = now;
+    try {
+      while (now < this.paidUntil && !stopWaiting.getAsBoolean()) {
+        pause(Math.min(this.paidUntil - now, MAX_PAUSE_NANOS));
+        now = this.clock.getAsLong();
+      }
+    } catch (InterruptedException ignore) {
+      Thread.currentThread().interrupt();
+      now = this.clock.getAsLong();
+    }
+    this.stats.incCompactionThrottleTime(now - pauseStart);
+  }
+
+  void pause(long nanos) throws InterruptedException {
+    TimeUnit.NANOSECONDS.sleep(nanos);
+  }
+
+  private void startSample(long now) {
+    this.sampleStart = now;
+    this.sampleWrites = this.stats.getWrites();
+    this.sampleWriteTime = this.stats.getWriteTime();
+    this.sampleBytes = 0;
+  }
+
+  private void adjust(long now) {
+    long elapsed = now - this.sampleStart;
+    long writes = this.stats.getWrites() - this.sampleWrites;
+    long writeTime = this.stats.getWriteTime() - this.sampleWriteTime;
+    long copiedPerSecond = this.sampleBytes * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    startSample(now);
+    if (this.backoffLatencyFactor <= 0 || writes < MIN_SAMPLE_WRITES || writeTime <= 0) {
+      // nothing to learn about the foreground writes from this sample
+      recover(copiedPerSecond);
+      return;
+    }
+    double writeNanos = (double) writeTime / writes;
+    if (this.averageWriteNanos == 0) {
+      this.averageWriteNanos = writeNanos;
+      return;
+    }
+    if (writeNanos > this.averageWriteNanos * this.backoffLatencyFactor) {
+      backOff(copiedPerSecond);
+    } else {
+      this.averageWriteNanos =
+          this.averageWriteNanos + AVERAGE_WEIGHT * (writeNanos - this.averageWriteNanos);
+      recover(copiedPerSecond);
+    }
+  }
+
+  private void backOff(long copiedPerSecond) {
+    long current = this.bytesPerSecond == 0 ? copiedPerSecond : this.bytesPerSecond;
+    this.bytesPerSecond = Math.max(MIN_BYTES_PER_SECOND, current / 2);
+    this.stats.incCompactionBackoffs();
+    this.stats.setCompactionBytesPerSecond(this.bytesPerSecond);
+  }
+
+  private void recover(long copiedPerSecond) {
+    if (this.bytesPerSecond == this.maxBytesPerSecond) {
+      return;
+    }
+    long next = this.bytesPerSecond + this.bytesPerSecond / 4;
+    if (this.maxBytesPerSecond > 0) {
+      next = Math.min(next, this.maxBytesPerSecond);
+    } else if (copiedPerSecond < this.bytesPerSecond / 2) {
+      // the budget is no longer what limits the compactor
+      next = 0;
+    }
+    this.bytesPerSecond = next;
+    this.stats.setCompactionBytesPerSecond(next);
+  }
+}
@@ -325,6 +325,15 @@ public class DiskInitFile implements DiskInitFileInterpreter {
    */
   public static final byte IFREC_REGION_CONFIG_ID_90 = 90;
 
+  /**
+   * Written to IF once the disk store may write compressed values to its oplogs. Byte Format: 1:
+   * EndOfRecordMarker. It is never removed, so versions that can not decompress oplog values fail
+   * on this unknown record instead of recovering compressed values as if they were uncompressed.
+   *
+   * @see OplogValueCompressor
+   */
+  public static final byte IFREC_COMPRESSED_VALUES = 91;
+
   private final DiskStoreImpl parent;
 
   private final File ifFile;
@@ -362,6 +371,9 @@ public class DiskInitFile implements DiskInitFileInterpreter {
   // the recovered version
   private Version gfversion;
 
+  /** True if the oplogs of the disk store may contain compressed values */
+  private boolean compressedValues;
+
 
   /**
    * Used to calculate the highest oplog entry id we have seen in a clear entry.
@@ -423,6 +435,13 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     return this.gfversion;
   }
 
+  /**
+   * Returns true if the oplogs of the disk store may contain compressed values.
+   */
+  boolean hasCompressedValues() {
+    return this.compressedValues;
+  }
+
   DiskStoreID recover() {
     recoverFromFailedCompaction();
     if (!this.ifFile.exists()) {
@@ -611,6 +630,11 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     this.gfversion = version;
   }
 
+  @Override
+  public void cmnCompressedValues() {
+    this.compressedValues = true;
+  }
+
   @Override
   public boolean cmnPRDestroy(String name) {
     if (this.prMap.remove(name) != null) {
@@ -1598,6 +1622,9 @@ public class DiskInitFile implements DiskInitFileInterpreter {
       this.ifTotalRecordCount = 0;
       writeDiskStoreId();
       saveGemfireVersion();
+      if (this.compressedValues) {
+        saveCompressedValues();
+      }
       saveInstantiators();
       saveDataSerializers();
       saveCrfIds();
@@ -1938,6 +1965,13 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     } else {
       this.regListener = null;
     }
+    if (this.parent.getValueCompressor() != null && !this.compressedValues
+        && (!this.parent.isOffline() || this.parent.isOfflineCompacting()
+            || this.parent.isOfflineModify())) {
+      // must be recorded before the first compressed value is written to an oplog
+      this.compressedValues = true;
+      saveCompressedValues();
+    }
   }
 
   void closeRegion(DiskRegionView dr) {
@@ -2789,6 +2823,26 @@ public class DiskInitFile implements DiskInitFileInterpreter {
     return message;
   }
 
+  private void saveCompressedValues() {
+    lock(true);
+    try {
+      ByteBuffer bb = getIFWriteBuffer(1 + 1);
+      bb.put(IFREC_COMPRESSED_VALUES);
+      bb.put(END_OF_RECORD_ID);
+      writeIFRecord(bb, false); // don't do stats for these small records
+    } catch (IOException ex) {
+      DiskAccessException dae = new DiskAccessException(
+          LocalizedStrings.DiskInitFile_FAILED_INIT_FILE_WRITE_BECAUSE_0.toLocalizedString(ex),
+          this.parent);
+      if (!this.compactInProgress) {
+        this.parent.handleDiskAccessException(dae);
+      }
+      throw dae;
+    } finally {
+      unlock(true);
+    }
+  }
+
   private void writeGemfireVersion(Version version) {
     lock(true);
     try {
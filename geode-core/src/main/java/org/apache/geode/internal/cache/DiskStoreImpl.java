@@ -47,6 +47,9 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -60,6 +63,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.function.BooleanSupplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -72,6 +76,7 @@ import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.CancelCriterion;
 import org.apache.geode.CancelException;
+import org.apache.geode.InternalGemFireException;
 import org.apache.geode.StatisticsFactory;
 import org.apache.geode.SystemFailure;
 import org.apache.geode.cache.Cache;
@@ -257,6 +262,89 @@ public class DiskStoreImpl implements DiskStore {
   static final boolean SYNC_IF_WRITES =
       Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "syncMetaDataWrites");
 
+  /**
+   * The number of microseconds a synchronous oplog write may wait for other writes to join its
+   * group commit. If greater than zero, synchronous writes to persistent oplogs are made durable by
+   * a single channel force per group instead of being written with "rwd" and forced individually.
+   * Defaults to 0 which disables group commit.
+   */
+  public static final String GROUP_COMMIT_WINDOW_MICROS_PROPERTY_NAME =
+      DistributionConfig.GEMFIRE_PREFIX + "disk.groupCommitWindowMicros";
+
+  /**
+   * The number of pending bytes at which a group commit is forced without waiting out the rest of
+   * its window. Only used if {@link #GROUP_COMMIT_WINDOW_MICROS_PROPERTY_NAME} is set.
+   */
+  public static final String GROUP_COMMIT_MAX_BYTES_PROPERTY_NAME =
+      DistributionConfig.GEMFIRE_PREFIX + "disk.groupCommitMaxBytes";
+
+  static final long GROUP_COMMIT_WINDOW_MICROS =
+      Long.getLong(GROUP_COMMIT_WINDOW_MICROS_PROPERTY_NAME, 0);
+
+  static final long GROUP_COMMIT_MAX_BYTES =
+      Long.getLong(GROUP_COMMIT_MAX_BYTES_PROPERTY_NAME, 1024 * 1024);
+
+  /**
+   * If true, values are read from crf files that are no longer being appended to through a read
+   * only memory mapping instead of a positioned read into a new byte array. Applies to both
+   * persistent and overflow oplogs.
+   */
+  public static final String MAPPED_READS_PROPERTY_NAME =
+      DistributionConfig.GEMFIRE_PREFIX + "disk.mappedReads";
+
+  static final boolean MAPPED_READS = Boolean.getBoolean(MAPPED_READS_PROPERTY_NAME);
+
+  /**
+   * The number of threads used to read and decode krf files ahead of the recovery thread. The
+   * decoded records are still applied one oplog at a time in oplog order. Set to 1 to read each
+   * krf on the recovery thread.
+   */
+  public static final String RECOVERY_THREADS_PROPERTY_NAME =
+      DistributionConfig.GEMFIRE_PREFIX + "disk.recoveryThreads";
+
+  static final int RECOVERY_THREADS = Integer.getInteger(RECOVERY_THREADS_PROPERTY_NAME,
+      Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  /**
+   * The number of bytes on disk of the krf files that may be held in memory after being decoded
+   * ahead of the recovery thread. Larger krfs are streamed from disk by the recovery thread.
+   */
+  public static final String KRF_PREFETCH_MAX_BYTES_PROPERTY_NAME =
+      DistributionConfig.GEMFIRE_PREFIX + "disk.krfPrefetchMaxBytes";
+
+  static final long KRF_PREFETCH_MAX_BYTES =
+      Long.getLong(KRF_PREFETCH_MAX_BYTES_PROPERTY_NAME, 256L * 1024 * 1024);
+
+  /**
+   * The number of bytes per second the compactor may copy forward from the oplogs it is compacting.
+   * Defaults to 0 which does not limit the compactor.
+   */
+  public static final String COMPACTION_BYTES_PER_SECOND_PROPERTY_NAME =
+      DistributionConfig.GEMFIRE_PREFIX + "disk.compactionBytesPerSecond";
+
+  /**
+   * How many times its running average the foreground write time must reach for the compactor to
+   * halve its I/O budget. Needs time statistics to be enabled. Set to 0 to never back off.
+   */
+  public static final String COMPACTION_BACKOFF_LATENCY_FACTOR_PROPERTY_NAME =
+      DistributionConfig.GEMFIRE_PREFIX + "disk.compactionBackoffLatencyFactor";
+
+  static final long COMPACTION_BYTES_PER_SECOND =
+      Long.getLong(COMPACTION_BYTES_PER_SECOND_PROPERTY_NAME, 0);
+
+  static final double COMPACTION_BACKOFF_LATENCY_FACTOR =
+      Double.parseDouble(System.getProperty(COMPACTION_BACKOFF_LATENCY_FACTOR_PROPERTY_NAME, "2"));
+
+  /**
+   * The name of a {@link org.apache.geode.compression.Compressor} class used to compress the values
+   * written to persistent oplogs, for example org.apache.geode.compression.SnappyCompressor. The
+   * property can be suffixed with "." and a disk store name to configure one disk store. Values
+   * are decompressed when read from disk so this is independent of region compression. Once a
+   * disk store has written compressed values the same compressor must be configured to recover it.
+   */
+  public static final String VALUE_COMPRESSOR_PROPERTY_NAME =
+      DistributionConfig.GEMFIRE_PREFIX + "disk.valueCompressor";
+
   /**
    * For testing - to keep track of files for which fallocate happened
    */
@@ -268,6 +356,12 @@ public class DiskStoreImpl implements DiskStore {
   /** The stats for this store */
   private final DiskStoreStats stats;
 
+  /** Groups the forces of synchronous oplog writes. Null if group commit is disabled. */
+  private final OplogGroupCommitter groupCommitter;
+
+  /** Compresses the values written to persistent oplogs. Null if they are not compressed. */
+  private final OplogValueCompressor valueCompressor;
+
   /**
    * Added as stop gap arrangement to fix bug 39380. It is not a clean fix as keeping track of the
    * threads acquiring read lock, etc is not a good idea to solve the issue
@@ -420,6 +514,13 @@ public class DiskStoreImpl implements DiskStore {
     this.cache = cache;
     StatisticsFactory factory = cache.getDistributedSystem();
     this.stats = new DiskStoreStats(factory, getName());
+    if (GROUP_COMMIT_WINDOW_MICROS > 0 && !offline) {
+      this.groupCommitter =
+          new OplogGroupCommitter(GROUP_COMMIT_WINDOW_MICROS, GROUP_COMMIT_MAX_BYTES, this.stats);
+    } else {
+      this.groupCommitter = null;
+    }
+    this.valueCompressor = OplogValueCompressor.create(getName(), this.stats);
 
     // start simple init
 
@@ -579,6 +680,32 @@ public class DiskStoreImpl implements DiskStore {
     return this.stats;
   }
 
+  /**
+   * Returns the group committer used to make synchronous oplog writes durable, or null if group
+   * commit is disabled.
+   */
+  OplogGroupCommitter getGroupCommitter() {
+    return this.groupCommitter;
+  }
+
+  /**
+   * Returns the compressor of values written to persistent oplogs, or null if they are not
+   * compressed.
+   */
+  OplogValueCompressor getValueCompressor() {
+    return this.valueCompressor;
+  }
+
+  /**
+   * If group commit is enabled and the region is persistent, waits until all synchronous oplog
+   * writes done by this thread are durable. Overflow only regions are never forced.
+   */
+  private void awaitGroupCommit(DiskRegion dr) {
+    if (this.groupCommitter != null && dr.isBackup()) {
+      this.groupCommitter.awaitDurable();
+    }
+  }
+
   public Map<Long, AbstractDiskRegion> getAllDiskRegions() {
     Map<Long, AbstractDiskRegion> results = new HashMap<Long, AbstractDiskRegion>();
     results.putAll(drMap);
@@ -751,6 +878,9 @@ public class DiskStoreImpl implements DiskStore {
           releaseReadLock(dr);
         }
       }
+      if (!async) {
+        awaitGroupCommit(dr);
+      }
     } finally {
       if (async) {
         getStats().endFlush(start);
@@ -792,6 +922,9 @@ public class DiskStoreImpl implements DiskStore {
         releaseReadLock(dr);
       }
     }
+    if (!async) {
+      awaitGroupCommit(dr);
+    }
   }
 
   /**
@@ -883,18 +1016,23 @@ public class DiskStoreImpl implements DiskStore {
    * @return the converted object
    */
   static Object convertBytesAndBitsIntoObject(BytesAndBits bb, InternalCache cache) {
-    byte[] bytes = bb.getBytes();
     Object value;
     if (EntryBits.isInvalid(bb.getBits())) {
       value = Token.INVALID;
     } else if (EntryBits.isSerialized(bb.getBits())) {
-      value = DiskEntry.Helper.readSerializedValue(bytes, bb.getVersion(), null, true, cache);
+      if (bb.isBufferBacked()) {
+        // deserialize straight out of the mapped oplog instead of copying it to the heap first
+        value = EntryEventImpl.deserialize(bb.getBuffer(), bb.getVersion());
+      } else {
+        value = DiskEntry.Helper.readSerializedValue(bb.getBytes(), bb.getVersion(), null, true,
+            cache);
+      }
     } else if (EntryBits.isLocalInvalid(bb.getBits())) {
       value = Token.LOCAL_INVALID;
     } else if (EntryBits.isTombstone(bb.getBits())) {
       value = Token.TOMBSTONE;
     } else {
-      value = readRawValue(bytes, bb.getVersion(), null);
+      value = readRawValue(bb.getBytes(), bb.getVersion(), null);
     }
     return value;
   }
@@ -922,7 +1060,7 @@ public class DiskStoreImpl implements DiskStore {
   }
 
   // CLEAR_BB was added in reaction to bug 41306
-  private final BytesAndBits CLEAR_BB = new BytesAndBits(null, (byte) 0);
+  private final BytesAndBits CLEAR_BB = new BytesAndBits((byte[]) null, (byte) 0);
 
   /**
    * Gets the Object from the OpLog . It can be invoked from OpLog , if by the time a get operation
@@ -1095,6 +1233,9 @@ public class DiskStoreImpl implements DiskStore {
         releaseReadLock(dr);
       }
     }
+    if (!async) {
+      awaitGroupCommit(dr);
+    }
   }
 
   private FlushPauser fp = null;
@@ -2288,6 +2429,14 @@ public class DiskStoreImpl implements DiskStore {
     compactorReadLock.lock();
   }
 
+  /**
+   * Returns true if a thread is waiting for the compactor lock. A throttled compactor stops pausing
+   * when this is true so that it does not hold up region creation or a forced compaction.
+   */
+  boolean hasCompactorLockWaiters() {
+    return compactorLock.hasQueuedThreads();
+  }
+
   private volatile boolean closing = false;
   private volatile boolean closed = false;
 
@@ -2807,9 +2956,13 @@ public class DiskStoreImpl implements DiskStore {
 
     private final boolean compactionCompletionRequired;
 
+    private final CompactionThrottle throttle;
+
     OplogCompactor() {
       this.compactionCompletionRequired =
           Boolean.getBoolean(COMPLETE_COMPACTION_BEFORE_TERMINATION_PROPERTY_NAME);
+      this.throttle = new CompactionThrottle(COMPACTION_BYTES_PER_SECOND,
+          COMPACTION_BACKOFF_LATENCY_FACTOR, getStats());
     }
 
     /** Creates a new thread and starts the thread* */
@@ -3006,6 +3159,17 @@ public class DiskStoreImpl implements DiskStore {
     boolean keepCompactorRunning() {
       return this.compactorEnabled || this.compactionCompletionRequired;
     }
+
+    /**
+     * Called by an oplog after it has copied {@code bytes} of live values forward. May pause the
+     * compactor to keep it within its I/O budget. The pause ends early if the compactor is being
+     * stopped or if {@code lockWaiters} reports that another thread is waiting for a lock held by
+     * the compactor.
+     */
+    void throttle(long bytes, BooleanSupplier lockWaiters) {
+      this.throttle.throttle(bytes, () -> !keepCompactorRunning() || lockWaiters.getAsBoolean()
+          || hasCompactorLockWaiters());
+    }
   }
 
   /**
@@ -3577,6 +3741,26 @@ public class DiskStoreImpl implements DiskStore {
     return this.offlineCompacting;
   }
 
+  /** collects what an offline validation or compaction finds in each oplog, if requested */
+  private volatile OfflineDiskStoreReport offlineReport;
+
+  OfflineDiskStoreReport getOfflineReport() {
+    return this.offlineReport;
+  }
+
+  /**
+   * Put in front of what an offline validation or compaction prints, so that the lines of disk
+   * stores processed at the same time can be told apart.
+   */
+  private volatile String offlineOutputPrefix = "";
+
+  /**
+   * Prints a line of the outcome of an offline validation or compaction to the console.
+   */
+  void printOfflineOutput(String line) {
+    System.out.println(this.offlineOutputPrefix + line);
+  }
+
   // Set to true if diskStore will be used by an offline tool that modifies the disk store.
   private final boolean offlineModify;
 
@@ -3931,10 +4115,10 @@ public class DiskStoreImpl implements DiskStore {
     }
     recoverRegionsThatAreReady();
     if (getDeadRecordCount() > 0) {
-      System.out.println("Disk store contains " + getDeadRecordCount() + " compactable records.");
+      printOfflineOutput("Disk store contains " + getDeadRecordCount() + " compactable records.");
     }
-    System.out
-        .println("Total number of region entries in this disk store is: " + getLiveEntryCount());
+    printOfflineOutput(
+        "Total number of region entries in this disk store is: " + getLiveEntryCount());
   }
 
   private int liveEntryCount;
@@ -3973,13 +4157,13 @@ public class DiskStoreImpl implements DiskStore {
 
     getDiskInitFile().forceCompaction();
     if (this.upgradeVersionOnly) {
-      System.out.println("Upgrade disk store " + this.name + " to version "
+      printOfflineOutput("Upgrade disk store " + this.name + " to version "
           + getRecoveredGFVersionName() + " finished.");
     } else {
       if (getDeadRecordCount() == 0) {
-        System.out.println("Offline compaction did not find anything to compact.");
+        printOfflineOutput("Offline compaction did not find anything to compact.");
       } else {
-        System.out.println("Offline compaction removed " + getDeadRecordCount() + " records.");
+        printOfflineOutput("Offline compaction removed " + getDeadRecordCount() + " records.");
       }
       // If we have more than one oplog then the liveEntryCount may not be the
       // total
@@ -4104,7 +4288,7 @@ public class DiskStoreImpl implements DiskStore {
   private static Cache offlineCache = null;
   private static DistributedSystem offlineDS = null;
 
-  private static void cleanupOffline() {
+  private static synchronized void cleanupOffline() {
     if (offlineCache != null) {
       offlineCache.close();
       offlineCache = null;
@@ -4115,21 +4299,27 @@ public class DiskStoreImpl implements DiskStore {
     }
   }
 
-  private static DiskStoreImpl createForOffline(String dsName, File[] dsDirs,
+  /**
+   * Creates a disk store for an offline tool. All of the disk stores an offline tool works on
+   * share one cache, created by the first of them and closed by {@link #cleanupOffline()}.
+   */
+  private static synchronized DiskStoreImpl createForOffline(String dsName, File[] dsDirs,
       boolean offlineCompacting, boolean offlineValidate, boolean upgradeVersionOnly,
       long maxOplogSize, boolean needsOplogs, boolean offlineModify) throws Exception {
     if (dsDirs == null) {
       dsDirs = new File[] {new File("")};
     }
-    // need a cache so create a loner ds
-    Properties props = new Properties();
-    props.setProperty(LOCATORS, "");
-    props.setProperty(MCAST_PORT, "0");
-    props.setProperty(CACHE_XML_FILE, "");
-    DistributedSystem ds = DistributedSystem.connect(props);
-    offlineDS = ds;
-    InternalCache cache = (InternalCache) CacheFactory.create(ds);
-    offlineCache = cache;
+    if (offlineCache == null || offlineCache.isClosed()) {
+      // need a cache so create a loner ds
+      Properties props = new Properties();
+      props.setProperty(LOCATORS, "");
+      props.setProperty(MCAST_PORT, "0");
+      props.setProperty(CACHE_XML_FILE, "");
+      DistributedSystem ds = DistributedSystem.connect(props);
+      offlineDS = ds;
+      offlineCache = CacheFactory.create(ds);
+    }
+    InternalCache cache = (InternalCache) offlineCache;
     DiskStoreFactory dsf = cache.createDiskStoreFactory();
     dsf.setDiskDirs(dsDirs);
     if (offlineCompacting && maxOplogSize != -1L) {
@@ -4263,6 +4453,98 @@ public class DiskStoreImpl implements DiskStore {
     }
   }
 
+  /**
+   * Validates several offline disk stores, up to the given number at a time. A disk store that
+   * fails validation does not stop the validation of the others; its report holds the error.
+   *
+   * @param diskStores the directories of each disk store, by disk store name
+   * @param threads the number of disk stores validated at a time
+   * @return a report for each disk store, in the order of the map
+   */
+  public static List<OfflineDiskStoreReport> validate(Map<String, File[]> diskStores, int threads)
+      throws InterruptedException {
+    return runOffline(diskStores, OfflineDiskStoreReport.Operation.VALIDATE, -1L, threads);
+  }
+
+  /**
+   * Compacts several offline disk stores, up to the given number at a time. A disk store that
+   * fails compaction does not stop the compaction of the others; its report holds the error.
+   *
+   * @param diskStores the directories of each disk store, by disk store name
+   * @param upgradeVersionOnly true to only upgrade the disk stores to the current version
+   * @param maxOplogSize the maximum size of the oplogs created by compaction, or -1 for the
+   *        configured size
+   * @param threads the number of disk stores compacted at a time
+   * @return a report for each disk store, in the order of the map
+   */
+  public static List<OfflineDiskStoreReport> offlineCompact(Map<String, File[]> diskStores,
+      boolean upgradeVersionOnly, long maxOplogSize, int threads) throws InterruptedException {
+    return runOffline(diskStores, upgradeVersionOnly ? OfflineDiskStoreReport.Operation.UPGRADE
+        : OfflineDiskStoreReport.Operation.COMPACT, maxOplogSize, threads);
+  }
+
+  private static List<OfflineDiskStoreReport> runOffline(Map<String, File[]> diskStores,
+      OfflineDiskStoreReport.Operation operation, long maxOplogSize, int threads)
+      throws InterruptedException {
+    final ThreadGroup offlineThreadGroup =
+        LoggingThreadGroup.createThreadGroup("Offline Disk Store Thread Group", logger);
+    final ThreadFactory offlineThreadFactory =
+        GemfireCacheHelper.CreateThreadFactory(offlineThreadGroup, "Offline Disk Store");
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(threads, diskStores.size())), offlineThreadFactory);
+    try {
+      List<Future<OfflineDiskStoreReport>> futures = new ArrayList<>(diskStores.size());
+      for (Map.Entry<String, File[]> diskStore : diskStores.entrySet()) {
+        futures.add(executor.submit(() -> runOffline(diskStore.getKey(), diskStore.getValue(),
+            operation, maxOplogSize)));
+      }
+      List<OfflineDiskStoreReport> reports = new ArrayList<>(diskStores.size());
+      for (Future<OfflineDiskStoreReport> future : futures) {
+        try {
+          reports.add(future.get());
+        } catch (ExecutionException e) {
+          // runOffline reports exceptions, so this is an error
+          throw new InternalGemFireException(e.getCause());
+        }
+      }
+      return reports;
+    } finally {
+      executor.shutdownNow();
+      cleanupOffline();
+    }
+  }
+
+  private static OfflineDiskStoreReport runOffline(String name, File[] dirs,
+      OfflineDiskStoreReport.Operation operation, long maxOplogSize) {
+    OfflineDiskStoreReport report = new OfflineDiskStoreReport(name, operation);
+    long start = System.nanoTime();
+    try {
+      DiskStoreImpl dsi;
+      if (operation == OfflineDiskStoreReport.Operation.VALIDATE) {
+        dsi = createForOfflineValidate(name, dirs);
+      } else {
+        dsi = createForOffline(name, dirs, true, false,
+            operation == OfflineDiskStoreReport.Operation.UPGRADE, maxOplogSize, true, false);
+      }
+      dsi.offlineReport = report;
+      dsi.offlineOutputPrefix = name + ": ";
+      try {
+        if (operation == OfflineDiskStoreReport.Operation.VALIDATE) {
+          dsi.validate();
+        } else {
+          dsi.offlineCompact();
+        }
+      } finally {
+        // release the memory of the recovered entries before the next disk store
+        dsi.close();
+      }
+      report.completed(dsi, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } catch (Exception e) {
+      report.failed(e, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    return report;
+  }
+
   public static void main(String args[]) throws Exception {
     if (args.length == 0) {
       System.out.println("Usage: diskStoreName [dirs]");
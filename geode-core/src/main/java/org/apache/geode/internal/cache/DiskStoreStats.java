@@ -81,6 +81,31 @@ public class DiskStoreStats {
   private static final int backupsInProgress;
   private static final int backupsCompleted;
 
+  private static final int groupCommitsId;
+  private static final int groupCommitWritesId;
+  private static final int groupCommitBytesId;
+  private static final int groupCommitForceTimeId;
+
+  private static final int mappedOplogsId;
+  private static final int mappedBytesId;
+  private static final int mappedReadsId;
+
+  private static final int recoveryOplogsRemainingId;
+  private static final int krfPrefetchesId;
+  private static final int krfPrefetchedBytesId;
+  private static final int krfPrefetchTimeId;
+
+  private static final int compactionThrottleTimeId;
+  private static final int compactionBackoffsId;
+  private static final int compactionBytesPerSecondId;
+
+  private static final int valueCompressionsId;
+  private static final int valueCompressionTimeId;
+  private static final int valueUncompressedBytesId;
+  private static final int valueCompressedBytesId;
+  private static final int valueDecompressionsId;
+  private static final int valueDecompressionTimeId;
+
   static {
     String statName = "DiskStoreStatistics";
     String statDescription = "Statistics about a Region's use of the disk";
@@ -189,7 +214,57 @@ public class DiskStoreStats {
                 "The current number of regions that have been recovered but have not yet been created.",
                 "regions"),
             f.createIntGauge("backupsInProgress", backupsInProgressDesc, "backups"),
-            f.createIntCounter("backupsCompleted", backupsCompletedDesc, "backups"),});
+            f.createIntCounter("backupsCompleted", backupsCompletedDesc, "backups"),
+            f.createLongCounter("groupCommits",
+                "The total number of channel forces done to make a group of synchronous writes durable.",
+                "ops"),
+            f.createLongCounter("groupCommitWrites",
+                "The total number of synchronous writes made durable by group commits. Divide by groupCommits for the average group size.",
+                "ops"),
+            f.createLongCounter("groupCommitBytes",
+                "The total number of bytes made durable by group commits.", "bytes"),
+            f.createLongCounter("groupCommitForceTime",
+                "The total amount of time spent forcing oplogs to disk for group commits.",
+                "nanoseconds"),
+            f.createIntGauge("mappedOplogs",
+                "Current number of oplogs whose crf is memory mapped for reading", "oplogs"),
+            f.createLongGauge("mappedBytes",
+                "Current number of oplog bytes memory mapped for reading", "bytes"),
+            f.createLongCounter("mappedReads",
+                "Total number of values read from memory mapped oplogs instead of with a file read",
+                "reads"),
+            f.createIntGauge("recoveryOplogsRemaining",
+                "Current number of oplogs that still need to be recovered", "oplogs"),
+            f.createLongCounter("krfPrefetches",
+                "Total number of krf files read and decoded ahead of recovery", "ops"),
+            f.createLongCounter("krfPrefetchedBytes",
+                "Total number of bytes of krf files read ahead of recovery", "bytes"),
+            f.createLongCounter("krfPrefetchTime",
+                "Total amount of time spent reading and decoding krf files ahead of recovery",
+                "nanoseconds"),
+            f.createLongCounter("compactionThrottleTime",
+                "Total amount of time the compactor was paused to stay within its I/O budget",
+                "nanoseconds"),
+            f.createLongCounter("compactionBackoffs",
+                "Total number of times the compactor I/O budget was reduced because foreground write time rose",
+                "ops"),
+            f.createLongGauge("compactionBytesPerSecond",
+                "Current number of bytes per second the compactor may copy forward. Zero means unlimited.",
+                "bytes/second"),
+            f.createLongCounter("valueCompressions",
+                "Total number of values compressed before being written to an oplog", "ops"),
+            f.createLongCounter("valueCompressionTime",
+                "Total amount of time spent compressing values written to oplogs", "nanoseconds"),
+            f.createLongCounter("valueUncompressedBytes",
+                "Total number of bytes of the values given to the oplog compressor", "bytes"),
+            f.createLongCounter("valueCompressedBytes",
+                "Total number of bytes the oplog compressor produced. Values that did not get smaller are written uncompressed.",
+                "bytes"),
+            f.createLongCounter("valueDecompressions",
+                "Total number of compressed values decompressed after being read from an oplog",
+                "ops"),
+            f.createLongCounter("valueDecompressionTime",
+                "Total amount of time spent decompressing values read from oplogs", "nanoseconds"),});
 
     // Initialize id fields
     writesId = type.nameToId("writes");
@@ -237,6 +312,26 @@ public class DiskStoreStats {
     uncreatedRecoveredRegionsId = type.nameToId("uncreatedRecoveredRegions");
     backupsInProgress = type.nameToId("backupsInProgress");
     backupsCompleted = type.nameToId("backupsCompleted");
+    groupCommitsId = type.nameToId("groupCommits");
+    groupCommitWritesId = type.nameToId("groupCommitWrites");
+    groupCommitBytesId = type.nameToId("groupCommitBytes");
+    groupCommitForceTimeId = type.nameToId("groupCommitForceTime");
+    mappedOplogsId = type.nameToId("mappedOplogs");
+    mappedBytesId = type.nameToId("mappedBytes");
+    mappedReadsId = type.nameToId("mappedReads");
+    recoveryOplogsRemainingId = type.nameToId("recoveryOplogsRemaining");
+    krfPrefetchesId = type.nameToId("krfPrefetches");
+    krfPrefetchedBytesId = type.nameToId("krfPrefetchedBytes");
+    krfPrefetchTimeId = type.nameToId("krfPrefetchTime");
+    compactionThrottleTimeId = type.nameToId("compactionThrottleTime");
+    compactionBackoffsId = type.nameToId("compactionBackoffs");
+    compactionBytesPerSecondId = type.nameToId("compactionBytesPerSecond");
+    valueCompressionsId = type.nameToId("valueCompressions");
+    valueCompressionTimeId = type.nameToId("valueCompressionTime");
+    valueUncompressedBytesId = type.nameToId("valueUncompressedBytes");
+    valueCompressedBytesId = type.nameToId("valueCompressedBytes");
+    valueDecompressionsId = type.nameToId("valueDecompressions");
+    valueDecompressionTimeId = type.nameToId("valueDecompressionTime");
   }
 
   ////////////////////// Instance Fields //////////////////////
@@ -546,6 +641,117 @@ public class DiskStoreStats {
     this.stats.incInt(backupsCompleted, 1);
   }
 
+  /**
+   * Invoked before a group of synchronous writes is forced to disk.
+   *
+   * @return The timestamp that marks the start of the force
+   */
+  public long startGroupCommit() {
+    return getStatTime();
+  }
+
+  /**
+   * Invoked after a group of synchronous writes has been forced to disk.
+   *
+   * @param start The time at which the force started
+   * @param writes The number of writes in the group
+   * @param bytes The number of bytes in the group
+   */
+  public void endGroupCommit(long start, int writes, long bytes) {
+    this.stats.incLong(groupCommitsId, 1);
+    this.stats.incLong(groupCommitWritesId, writes);
+    this.stats.incLong(groupCommitBytesId, bytes);
+    this.stats.incLong(groupCommitForceTimeId, getStatTime() - start);
+  }
+
+  public long getGroupCommits() {
+    return this.stats.getLong(groupCommitsId);
+  }
+
+  public long getGroupCommitWrites() {
+    return this.stats.getLong(groupCommitWritesId);
+  }
+
+  public void incMappedOplogs(long bytes) {
+    this.stats.incInt(mappedOplogsId, 1);
+    this.stats.incLong(mappedBytesId, bytes);
+  }
+
+  public void decMappedOplogs(long bytes) {
+    this.stats.incInt(mappedOplogsId, -1);
+    this.stats.incLong(mappedBytesId, -bytes);
+  }
+
+  public void incMappedReads() {
+    this.stats.incLong(mappedReadsId, 1);
+  }
+
+  public long getMappedReads() {
+    return this.stats.getLong(mappedReadsId);
+  }
+
+  public void incRecoveryOplogsRemaining(int delta) {
+    this.stats.incInt(recoveryOplogsRemainingId, delta);
+  }
+
+  public int getRecoveryOplogsRemaining() {
+    return this.stats.getInt(recoveryOplogsRemainingId);
+  }
+
+  public long startKrfPrefetch() {
+    return getStatTime();
+  }
+
+  public void endKrfPrefetch(long start, long bytesRead) {
+    this.stats.incLong(krfPrefetchesId, 1);
+    this.stats.incLong(krfPrefetchedBytesId, bytesRead);
+    this.stats.incLong(krfPrefetchTimeId, getStatTime() - start);
+  }
+
+  public long getKrfPrefetches() {
+    return this.stats.getLong(krfPrefetchesId);
+  }
+
+  public void incCompactionThrottleTime(long nanos) {
+    this.stats.incLong(compactionThrottleTimeId, nanos);
+  }
+
+  public long getCompactionThrottleTime() {
+    return this.stats.getLong(compactionThrottleTimeId);
+  }
+
+  public void incCompactionBackoffs() {
+    this.stats.incLong(compactionBackoffsId, 1);
+  }
+
+  public long getCompactionBackoffs() {
+    return this.stats.getLong(compactionBackoffsId);
+  }
+
+  public void setCompactionBytesPerSecond(long bytesPerSecond) {
+    this.stats.setLong(compactionBytesPerSecondId, bytesPerSecond);
+  }
+
+  public void endValueCompression(long start, long uncompressedBytes, long compressedBytes) {
+    this.stats.incLong(valueCompressionsId, 1);
+    this.stats.incLong(valueCompressionTimeId, getStatTime() - start);
+    this.stats.incLong(valueUncompressedBytesId, uncompressedBytes);
+    this.stats.incLong(valueCompressedBytesId, compressedBytes);
+  }
+
+  public long getValueCompressions() {
+    return this.stats.getLong(valueCompressionsId);
+  }
+
+  public void endValueDecompression(long start) {
+    this.stats.incLong(valueDecompressionsId, 1);
+    this.stats.incLong(valueDecompressionTimeId, getStatTime() - start);
+  }
+
+  public long getValueDecompressions() {
+    return this.stats.getLong(valueDecompressionsId);
+  }
+
   public Statistics getStats() {
     return stats;
   }
@@ -22,6 +22,7 @@ import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.function.Function;
 
 import org.apache.logging.log4j.Logger;
@@ -1991,6 +1992,25 @@ public class EntryEventImpl implements InternalEntryEvent, InternalCacheEvent,
     }
   }
 
+  /**
+   * Deserializes the remaining bytes of the given buffer without copying them to the heap.
+   */
+  public static Object deserialize(ByteBuffer buffer, Version version) {
+    try {
+      return BlobHelper.deserializeBlob(buffer, version);
+    } catch (IOException e) {
+      throw new SerializationException(
+          LocalizedStrings.EntryEventImpl_AN_IOEXCEPTION_WAS_THROWN_WHILE_DESERIALIZING
+              .toLocalizedString(),
+          e);
+    } catch (ClassNotFoundException e) {
+      throw new SerializationException(
+          LocalizedStrings.EntryEventImpl_A_CLASSNOTFOUNDEXCEPTION_WAS_THROWN_WHILE_TRYING_TO_DESERIALIZE_CACHED_VALUE
+              .toLocalizedString(),
+          e);
+    }
+  }
+
   /**
    * If a PdxInstance is returned then it will have an unretained reference to the StoredObject's
    * off-heap address.
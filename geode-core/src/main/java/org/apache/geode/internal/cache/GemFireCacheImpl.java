@@ -182,6 +182,7 @@ import org.apache.geode.internal.cache.control.InternalResourceManager;
 import org.apache.geode.internal.cache.control.InternalResourceManager.ResourceType;
 import org.apache.geode.internal.cache.control.ResourceAdvisor;
 import org.apache.geode.internal.cache.event.EventTrackerExpiryTask;
+import org.apache.geode.internal.cache.eviction.ColdValueDemoter;
 import org.apache.geode.internal.cache.eviction.HeapEvictor;
 import org.apache.geode.internal.cache.eviction.OffHeapEvictor;
 import org.apache.geode.internal.cache.execute.util.FindRestEnabledServersFunction;
@@ -521,6 +522,8 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
 
   private final Object offHeapEvictorLock = new Object();
 
+  private ColdValueDemoter coldValueDemoter = null;
+
   private ResourceEventsListener resourceEventsListener;
 
   /**
@@ -938,6 +941,11 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
       if (null != getOffHeapStore()) {
         getInternalResourceManager().addResourceListener(ResourceType.OFFHEAP_MEMORY,
             getOffHeapEvictor());
+
+        if (ColdValueDemoter.isEnabled()) {
+          this.coldValueDemoter = new ColdValueDemoter(this);
+          this.coldValueDemoter.start();
+        }
       }
 
       this.recordedEventSweeper = createEventTrackerExpiryTask();
@@ -2371,6 +2379,7 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
           }
           closeHeapEvictor();
           closeOffHeapEvictor();
+          closeColdValueDemoter();
         } catch (CancelException ignore) {
           // make sure the disk stores get closed
           closeDiskStores();
@@ -2444,6 +2453,13 @@ public class GemFireCacheImpl implements InternalCache, InternalClientCache, Has
     }
   }
 
+  private void closeColdValueDemoter() {
+    ColdValueDemoter demoter = this.coldValueDemoter;
+    if (demoter != null) {
+      demoter.close();
+    }
+  }
+
   private void closeHeapEvictor() {
     HeapEvictor evictor = this.heapEvictor;
     if (evictor != null) {
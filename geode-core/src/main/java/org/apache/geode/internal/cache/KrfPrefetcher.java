@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * Reads and decodes the krf files of the oplogs being recovered on a bounded pool of threads, ahead
+ * of the recovery thread. Recovery still applies the decoded krfs one at a time in oplog order,
+ * which is what keeps the newest record for a key winning, but it no longer waits for the disk or
+ * spends its time parsing records between oplogs.
+ * <p>
+ * At most {@code 2 * threads} krfs past the one being applied, and krfs of at most
+ * {@code maxBytes} bytes on disk, are held in memory. A krf that is larger than that, was not
+ * prefetched or could not be read or decoded is streamed from disk by the recovery thread as
+ * before.
+ *
+ * @param <T> the type of a decoded krf
+ *
+ * @see DiskStoreImpl#RECOVERY_THREADS_PROPERTY_NAME
+ * @see DiskStoreImpl#KRF_PREFETCH_MAX_BYTES_PROPERTY_NAME
+ */
+class KrfPrefetcher<T> {
+  private static final Logger logger = LogService.getLogger();
+
+  /** The largest krf that will be read into a byte array */
+  static final long MAX_PREFETCH_SIZE = Integer.MAX_VALUE - 8;
+
+  /**
+   * Decodes the contents of a krf. Runs on the threads of the prefetcher.
+   */
+  interface Decoder<T> {
+    T decode(File krfFile, byte[] contents) throws IOException;
+  }
+
+  private final List<File> krfFiles;
+
+  private final Map<File, Integer> indexes = new HashMap<>();
+
+  /** The pending reads by krf index; guarded by this */
+  private final List<Future<T>> reads;
+
+  /** The bytes reserved for the pending reads by krf index; guarded by this */
+  private final long[] reservations;
+
+  private final int window;
+
+  private final long maxBytes;
+
+  private final ExecutorService executor;
+
+  private final DiskStoreStats stats;
+
+  private final Decoder<T> decoder;
+
+  /** The index of the next krf to submit; guarded by this */
+  private int nextToSubmit;
+
+  /** Every krf before this index was taken or discarded; guarded by this */
+  private int nextToTake;
+
+  /** The bytes reserved by all pending reads; guarded by this */
+  private long reservedBytes;
+
+  /**
+   * @param krfFiles the krf files in the order they will be taken
+   * @param threads the number of threads reading krfs
+   * @param maxBytes the number of bytes on disk of the prefetched krfs held in memory
+   * @param decoder decodes each krf once it is read
+   */
+  KrfPrefetcher(List<File> krfFiles, int threads, long maxBytes, DiskStoreStats stats,
+      Decoder<T> decoder) {
+    this.krfFiles = new ArrayList<>(krfFiles);
+    this.reads = new ArrayList<>(krfFiles.size());
+    for (int i = 0; i < this.krfFiles.size(); i++) {
+      this.indexes.put(this.krfFiles.get(i), i);
+      this.reads.add(null);
+    }
+    this.reservations = new long[this.krfFiles.size()];
+    this.window = threads * 2;
+    this.maxBytes = Math.min(maxBytes, MAX_PREFETCH_SIZE);
+    this.stats = stats;
+    this.decoder = decoder;
+    final ThreadGroup threadGroup =
+        LoggingThreadGroup.createThreadGroup("Oplog Krf Prefetcher Thread Group", logger);
+    this.executor = Executors.newFixedThreadPool(threads,
+        GemfireCacheHelper.CreateThreadFactory(threadGroup, "Oplog Krf Prefetcher"));
+    synchronized (this) {
+      submitThrough(this.window - 1);
+    }
+  }
+
+  /**
+   * Returns the given krf decoded, waiting for it to be read if needed. Returns null if the krf
+   * was not prefetched, in which case the caller must read it itself. Krfs that precede the given
+   * one and were never taken are discarded.
+   */
+  T take(File krfFile) {
+    Future<T> read;
+    synchronized (this) {
+      Integer index = this.indexes.get(krfFile);
+      if (index == null) {
+        return null;
+      }
+      for (int i = this.nextToTake; i < index; i++) {
+        Future<T> skipped = this.reads.set(i, null);
+        release(i);
+        if (skipped != null) {
+          skipped.cancel(false);
+        }
+      }
+      this.nextToSubmit = Math.max(this.nextToSubmit, index);
+      submitThrough(index + this.window);
+      read = this.reads.set(index, null);
+      // the taken krf is owned by the caller from now on so it no longer counts against maxBytes
+      release(index);
+      this.nextToTake = Math.max(this.nextToTake, index + 1);
+      submitThrough(index + this.window);
+    }
+    if (read == null) {
+      return null;
+    }
+    try {
+      return read.get();
+    } catch (InterruptedException ignore) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException ex) {
+      // let the recovery thread read the file and report any error
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not prefetch {}", krfFile, ex.getCause());
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Stops all reads that have not completed.
+   */
+  void close() {
+    this.executor.shutdownNow();
+  }
+
+  private void release(int index) {
+    this.reservedBytes -= this.reservations[index];
+    this.reservations[index] = 0;
+  }
+
+  /**
+   * Submits reads of the krfs up to lastIndex, stopping early at a krf that does not fit in the
+   * bytes left. Krfs larger than maxBytes are never submitted.
+   */
+  private void submitThrough(int lastIndex) {
+    lastIndex = Math.min(lastIndex, this.krfFiles.size() - 1);
+    while (this.nextToSubmit <= lastIndex) {
+      final File krfFile = this.krfFiles.get(this.nextToSubmit);
+      final long length = krfFile.length();
+      if (length <= this.maxBytes) {
+        if (this.reservedBytes + length > this.maxBytes) {
+          return;
+        }
+        this.reservedBytes += length;
+        this.reservations[this.nextToSubmit] = length;
+        this.reads.set(this.nextToSubmit, this.executor.submit(() -> read(krfFile, length)));
+      }
+      this.nextToSubmit++;
+    }
+  }
+
+  private T read(File krfFile, long reservedLength) throws IOException {
+    if (!krfFile.exists() || krfFile.length() > reservedLength) {
+      return null;
+    }
+    long start = this.stats.startKrfPrefetch();
+    byte[] bytes = Files.readAllBytes(krfFile.toPath());
+    T decoded = this.decoder.decode(krfFile, bytes);
+    this.stats.endKrfPrefetch(start, bytes.length);
+    return decoded;
+  }
+}
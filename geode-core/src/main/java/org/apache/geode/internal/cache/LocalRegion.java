@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
@@ -46,6 +47,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -110,6 +112,7 @@ import org.apache.geode.cache.StatisticsDisabledException;
 import org.apache.geode.cache.TimeoutException;
 import org.apache.geode.cache.TransactionException;
 import org.apache.geode.cache.TransactionId;
+import org.apache.geode.cache.client.AsyncRegion;
 import org.apache.geode.cache.client.PoolManager;
 import org.apache.geode.cache.client.ServerOperationException;
 import org.apache.geode.cache.client.SubscriptionNotEnabledException;
@@ -234,7 +237,7 @@ import org.apache.geode.pdx.PdxInstance;
  */
 @SuppressWarnings("deprecation")
 public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
-    ResourceListener<MemoryEvent>, DiskExceptionHandler, DiskRecoveryStore {
+    ResourceListener<MemoryEvent>, DiskExceptionHandler, DiskRecoveryStore, AsyncRegion {
 
   // package-private to avoid synthetic accessor
   static final Logger logger = LogService.getLogger();
@@ -1608,6 +1611,142 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
     }
   }
 
+  /**
+   * Asynchronous variant of {@link #get(Object, Object)}. On client regions that keep no entries
+   * locally the request is pipelined to the server and the returned future is completed when the
+   * response arrives; on any other region the get is done by a thread of the cache.
+   *
+   * @see AsyncRegion
+   * @since Geode 1.8
+   */
+  @Override
+  public CompletableFuture<Object> getAsync(Object key, Object aCallbackArgument) {
+    validateKey(key);
+    checkReadiness();
+    checkForNoAccess();
+    if (!canExecuteOnServerAsync()) {
+      return supplyAsync(() -> get(key, aCallbackArgument));
+    }
+    final long startGet = getCachePerfStats().startGet();
+    return getServerProxy().getAsync(key, aCallbackArgument, null).thenApply(value -> {
+      if (Token.isInvalidOrRemoved(value)) {
+        value = null;
+      }
+      getCachePerfStats().endGet(startGet, value == null);
+      return value;
+    });
+  }
+
+  /**
+   * Asynchronous variant of {@link #put(Object, Object, Object)}. The future completes with the
+   * old value returned by the server, which is normally null since no old value is requested.
+   *
+   * @see #getAsync(Object, Object)
+   * @since Geode 1.8
+   */
+  @Override
+  public CompletableFuture<Object> putAsync(Object key, Object value, Object aCallbackArgument) {
+    if (!canExecuteOnServerAsync()) {
+      return supplyAsync(() -> put(key, value, aCallbackArgument));
+    }
+    final long startPut = CachePerfStats.getStatTime();
+    @Released
+    final EntryEventImpl event = newUpdateEntryEvent(key, value, aCallbackArgument);
+    CompletableFuture<Object> result;
+    try {
+      if (event.getEventId() == null && generateEventID()) {
+        event.setNewEventId(this.cache.getDistributedSystem());
+      }
+      result = getServerProxy().putAsync(key, value, event.getDeltaBytes(), event,
+          Operation.UPDATE, false, null, aCallbackArgument, false);
+    } catch (RuntimeException e) {
+      event.release();
+      throw e;
+    }
+    return result.whenComplete((oldValue, exception) -> {
+      event.release();
+      if (exception == null) {
+        getCachePerfStats().endPut(startPut, false);
+      }
+    });
+  }
+
+  @Override
+  public CompletableFuture<Map> getAllAsync(Collection keys) {
+    return getAllAsync(keys, null);
+  }
+
+  /**
+   * Asynchronous variant of {@link #getAll(Collection, Object)}. On client regions that keep no
+   * entries locally one getAll is sent to each server hosting some of the keys, and no thread of
+   * the caller waits for the responses.
+   *
+   * @see #getAsync(Object, Object)
+   * @since Geode 1.8
+   */
+  @Override
+  public CompletableFuture<Map> getAllAsync(Collection keys, Object aCallbackArgument) {
+    if (keys == null) {
+      throw new NullPointerException("The collection of keys for getAll cannot be null");
+    }
+    checkReadiness();
+    checkForNoAccess();
+    if (!canExecuteOnServerAsync()) {
+      return supplyAsync(() -> getAll(keys, aCallbackArgument));
+    }
+    if (keys.isEmpty()) {
+      return CompletableFuture.completedFuture(new HashMap());
+    }
+    List keysList = keys instanceof List ? (List) keys : new ArrayList(keys);
+    for (Object key : keysList) {
+      validateKey(key);
+    }
+    return getServerProxy().getAllAsync(keysList, aCallbackArgument).thenApply(remoteResults -> {
+      Map allResults = new HashMap();
+      for (VersionedObjectList.Iterator it = remoteResults.iterator(); it.hasNext();) {
+        VersionedObjectList.Entry entry = it.next();
+        if (entry.isKeyNotOnServer()) {
+          allResults.put(entry.getKey(), null);
+          continue;
+        }
+        Object value = entry.getObject();
+        if (!(value instanceof Throwable)) {
+          allResults.put(entry.getKey(), value);
+        }
+      }
+      return allResults;
+    });
+  }
+
+  /**
+   * Returns true if operations on this region can be pipelined to the server without blocking the
+   * caller: the region must be a client region that keeps no entries locally, has no cache loader,
+   * writer or listener to invoke, and is not being operated on in a transaction.
+   */
+  private boolean canExecuteOnServerAsync() {
+    return hasServerProxy() && getDataPolicy() == DataPolicy.EMPTY && basicGetLoader() == null
+        && basicGetWriter() == null && !hasListener() && !isTX();
+  }
+
+  /**
+   * Does an operation that can not be pipelined to the server on a thread of the waiting thread
+   * pool. In a transaction the operation is done by the calling thread, which the transaction is
+   * bound to.
+   */
+  private <T> CompletableFuture<T> supplyAsync(Supplier<T> operation) {
+    if (!isTX()) {
+      return CompletableFuture.supplyAsync(operation,
+          getDistributionManager().getWaitingThreadPool());
+    }
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      future.complete(operation.get());
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
   Object validatedPut(EntryEventImpl event, long startPut)
       throws TimeoutException, CacheWriterException {
 
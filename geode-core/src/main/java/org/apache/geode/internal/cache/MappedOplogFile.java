@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read only memory mapping of an oplog file that is no longer being appended to. Values are
+ * served as read only slices of the mapping so that faulting a value in does not allocate a heap
+ * copy until the value is actually consumed.
+ * <p>
+ * The mapping is never unmapped explicitly. A slice handed out by {@link #slice} may still be in
+ * use by a reader when the oplog is compacted and deleted, and touching an unmapped region would
+ * crash the JVM. Instead {@link #close} drops this object's references to the mapping and the JVM
+ * unmaps it once the last outstanding slice is garbage collected. The file descriptor is closed as
+ * soon as the mapping is created, so a mapped oplog does not count against open file limits.
+ *
+ * @see DiskStoreImpl#MAPPED_READS_PROPERTY_NAME
+ */
+class MappedOplogFile {
+
+  /**
+   * The largest region mapped by a single buffer. Values that straddle two segments are copied.
+   */
+  static final int SEGMENT_SIZE = 1 << 30;
+
+  private final long length;
+
+  private final int segmentSize;
+
+  private volatile ByteBuffer[] segments;
+
+  private MappedOplogFile(ByteBuffer[] segments, long length, int segmentSize) {
+    this.segments = segments;
+    this.length = length;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Maps the first {@code length} bytes of the given file read only.
+   */
+  static MappedOplogFile map(File file, long length) throws IOException {
+    return map(file, length, SEGMENT_SIZE);
+  }
+
+  static MappedOplogFile map(File file, long length, int segmentSize) throws IOException {
+    int segmentCount = (int) ((length + segmentSize - 1) / segmentSize);
+    ByteBuffer[] segments = new ByteBuffer[segmentCount];
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      FileChannel channel = raf.getChannel();
+      for (int i = 0; i < segmentCount; i++) {
+        long position = (long) i * segmentSize;
+        long size = Math.min(segmentSize, length - position);
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+      }
+    }
+    return new MappedOplogFile(segments, length, segmentSize);
+  }
+
+  /**
+   * Returns the number of bytes mapped.
+   */
+  long getLength() {
+    return this.length;
+  }
+
+  boolean isClosed() {
+    return this.segments == null;
+  }
+
+  /**
+   * Returns a read only buffer containing {@code size} bytes starting at {@code offset}, or null if
+   * this mapping has been closed or does not contain the requested bytes.
+   */
+  ByteBuffer slice(long offset, int size) {
+    final ByteBuffer[] mySegments = this.segments;
+    if (mySegments == null || offset < 0 || offset + size > this.length) {
+      return null;
+    }
+    int segmentIndex = (int) (offset / this.segmentSize);
+    int segmentOffset = (int) (offset % this.segmentSize);
+    ByteBuffer segment = mySegments[segmentIndex].duplicate();
+    if (segmentOffset + size <= segment.capacity()) {
+      segment.position(segmentOffset);
+      segment.limit(segmentOffset + size);
+      return segment.slice().asReadOnlyBuffer();
+    }
+    // the value straddles segments so assemble it on the heap
+    ByteBuffer result = ByteBuffer.allocate(size);
+    while (result.hasRemaining()) {
+      segment.position(segmentOffset);
+      segment.limit(Math.min(segment.capacity(), segmentOffset + result.remaining()));
+      result.put(segment);
+      segmentIndex++;
+      segmentOffset = 0;
+      if (result.hasRemaining()) {
+        segment = mySegments[segmentIndex].duplicate();
+      }
+    }
+    result.flip();
+    return result.asReadOnlyBuffer();
+  }
+
+  /**
+   * Drops the references to the mapping. Slices already handed out remain valid.
+   */
+  void close() {
+    this.segments = null;
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * What an offline validation or compaction of one disk store found, oplog by oplog. Oplogs are
+ * recovered from the newest to the oldest, so a record of an older oplog is garbage if a newer
+ * oplog holds a later version of its entry or its entry was destroyed.
+ * <p>
+ * Reports are written as a JSON array with {@link #write(File, List)} so maintenance scripts can
+ * decide which disk stores to compact without parsing the console output.
+ */
+public class OfflineDiskStoreReport {
+
+  public enum Operation {
+    VALIDATE, COMPACT, UPGRADE
+  }
+
+  private final String diskStoreName;
+
+  private final Operation operation;
+
+  private final Map<Long, OplogReport> oplogs = new TreeMap<>();
+
+  private long elapsedMillis;
+
+  private long liveEntryCount;
+
+  private long deadRecordCount;
+
+  private String error;
+
+  public OfflineDiskStoreReport(String diskStoreName, Operation operation) {
+    this.diskStoreName = diskStoreName;
+    this.operation = operation;
+  }
+
+  public String getDiskStoreName() {
+    return diskStoreName;
+  }
+
+  public Operation getOperation() {
+    return operation;
+  }
+
+  public synchronized List<OplogReport> getOplogs() {
+    return new ArrayList<>(oplogs.values());
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  public long getLiveEntryCount() {
+    return liveEntryCount;
+  }
+
+  public long getDeadRecordCount() {
+    return deadRecordCount;
+  }
+
+  /**
+   * Returns the message of the exception that failed the operation, or null if it succeeded.
+   */
+  public String getError() {
+    return error;
+  }
+
+  public boolean isSuccessful() {
+    return error == null;
+  }
+
+  /**
+   * Records reading the drf of an oplog.
+   */
+  synchronized void drfRecovered(long oplogId, long bytes) {
+    getOplog(oplogId).drfBytes = bytes;
+  }
+
+  /**
+   * Records reading the crf of an oplog, and compacting it when compacting.
+   *
+   * @param records the number of records in the crf
+   * @param garbageRecords the number of those records that were not live
+   */
+  synchronized void crfRecovered(long oplogId, long bytes, long records, long garbageRecords,
+      long millis) {
+    OplogReport oplog = getOplog(oplogId);
+    oplog.crfBytes = bytes;
+    oplog.records = records;
+    oplog.garbageRecords = Math.min(records, garbageRecords);
+    oplog.millis = millis;
+  }
+
+  void completed(DiskStoreImpl diskStore, long elapsedMillis) {
+    this.liveEntryCount = diskStore.getLiveEntryCount();
+    this.deadRecordCount = diskStore.getDeadRecordCount();
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  void failed(Exception exception, long elapsedMillis) {
+    this.error = String.valueOf(exception);
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  private OplogReport getOplog(long oplogId) {
+    return oplogs.computeIfAbsent(oplogId, OplogReport::new);
+  }
+
+  /**
+   * Writes reports to a file as a JSON array.
+   */
+  public static void write(File file, List<OfflineDiskStoreReport> reports) throws IOException {
+    new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, reports);
+  }
+
+  @Override
+  public String toString() {
+    return "OfflineDiskStoreReport[" + diskStoreName + " " + operation + " oplogs=" + oplogs.size()
+        + " elapsedMillis=" + elapsedMillis + " error=" + error + "]";
+  }
+
+  /**
+   * What was found in one oplog.
+   */
+  public static class OplogReport {
+    private final long oplogId;
+
+    private long crfBytes;
+
+    private long drfBytes;
+
+    private long records;
+
+    private long garbageRecords;
+
+    private long millis;
+
+    OplogReport(long oplogId) {
+      this.oplogId = oplogId;
+    }
+
+    public long getOplogId() {
+      return oplogId;
+    }
+
+    public long getCrfBytes() {
+      return crfBytes;
+    }
+
+    public long getDrfBytes() {
+      return drfBytes;
+    }
+
+    public long getRecords() {
+      return records;
+    }
+
+    public long getLiveRecords() {
+      return records - garbageRecords;
+    }
+
+    public long getGarbageRecords() {
+      return garbageRecords;
+    }
+
+    /**
+     * Returns the fraction of the records of the crf that are live, or 1 for an empty crf.
+     */
+    public double getLiveRatio() {
+      return records == 0 ? 1 : (double) getLiveRecords() / records;
+    }
+
+    public double getGarbageRatio() {
+      return 1 - getLiveRatio();
+    }
+
+    /**
+     * Returns the time spent reading the crf, and copying its live records forward when
+     * compacting.
+     */
+    public long getMillis() {
+      return millis;
+    }
+  }
+}
@@ -16,6 +16,7 @@ package org.apache.geode.internal.cache;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
@@ -26,9 +27,11 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -45,7 +48,6 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
@@ -119,7 +121,7 @@ import org.apache.geode.pdx.internal.PdxWriterImpl;
  *
  * @since GemFire 5.1
  */
-public class Oplog implements CompactableOplog, Flushable {
+public class Oplog implements CompactableOplog, Flushable, OplogGroupCommitter.Forceable {
   private static final Logger logger = LogService.getLogger();
 
   /** Extension of the oplog file * */
@@ -1061,6 +1063,16 @@ public class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Returns the RandomAccessFile mode for the crf and drf. When group commit is enabled writes are
+   * made durable by {@link #forceForGroupCommit()} so they must not also be synchronous.
+   * Synchronous writes that nobody waits for, such as the records written when an oplog is
+   * created, are then forced by {@link #flushAndSync} instead.
+   */
+  private String getWriteMode() {
+    return SYNC_WRITES && getParent().getGroupCommitter() == null ? "rwd" : "rw";
+  }
+
   /**
    * Creates the crf oplog file
    */
@@ -1072,7 +1084,7 @@ public class Oplog implements CompactableOplog, Flushable {
     }
     this.crf.f = f;
     preblow(this.crf, getMaxCrfSize());
-    this.crf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES ? "rwd" : "rw");
+    this.crf.raf = new UninterruptibleRandomAccessFile(f, getWriteMode());
     this.crf.RAFClosed = false;
     oplogSet.crfCreate(this.oplogId);
     this.crf.writeBuf = allocateWriteBuf(prevOlf);
@@ -1112,7 +1124,7 @@ public class Oplog implements CompactableOplog, Flushable {
       logger.debug("Creating operation log file {}", f);
     }
     preblow(this.drf, getMaxDrfSize());
-    this.drf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES ? "rwd" : "rw");
+    this.drf.raf = new UninterruptibleRandomAccessFile(f, getWriteMode());
     this.drf.RAFClosed = false;
     this.oplogSet.drfCreate(this.oplogId);
     this.drf.writeBuf = allocateWriteBuf(prevOlf);
@@ -1261,7 +1273,7 @@ public class Oplog implements CompactableOplog, Flushable {
     if (bitOnly) {
       dr.endRead(start, this.stats.endRead(start, 1), 1);
     } else {
-      dr.endRead(start, this.stats.endRead(start, bb.getBytes().length), bb.getBytes().length);
+      dr.endRead(start, this.stats.endRead(start, bb.getLength()), bb.getLength());
     }
     return bb;
 
@@ -1617,10 +1629,15 @@ public class Oplog implements CompactableOplog, Flushable {
       return false;
     }
 
+    // only a complete krf may have been decoded ahead of recovery
+    final DecodedKrf prefetched;
     if (!getParent().getDiskInitFile().hasKrf(this.oplogId)) {
       logger.info(LocalizedMessage.create(LocalizedStrings.Oplog_REMOVING_INCOMPLETE_KRF,
           new Object[] {f.getName(), this.oplogId, getParent().getName()}));
       f.delete();
+      prefetched = null;
+    } else {
+      prefetched = getOplogSet().takePrefetchedKrf(f);
     }
     // Set krfCreated to true since we have a krf.
     this.krfCreated.set(true);
@@ -1631,9 +1648,9 @@ public class Oplog implements CompactableOplog, Flushable {
       return false;
     }
 
-    FileInputStream fis;
+    InputStream fis;
     try {
-      fis = new FileInputStream(f);
+      fis = openKrf(f, prefetched);
     } catch (FileNotFoundException ignore) {
       return false;
     }
@@ -1664,7 +1681,7 @@ public class Oplog implements CompactableOplog, Flushable {
           // beginning or this is not a valid file at all. Try reading it as a
           // file in old format
           fis.close();
-          fis = new FileInputStream(f);
+          fis = openKrf(f, prefetched);
           dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
           readDiskStoreRecord(dis, f);
         } catch (IllegalStateException ignore) {
@@ -1672,7 +1689,7 @@ public class Oplog implements CompactableOplog, Flushable {
           // is in new format which has a magic seq in the beginning or this is
           // not a valid file at all
           fis.close();
-          fis = new FileInputStream(f);
+          fis = openKrf(f, prefetched);
           dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
           readDiskStoreRecord(dis, f);
         }
@@ -1680,19 +1697,29 @@ public class Oplog implements CompactableOplog, Flushable {
         readGemfireVersionRecord(dis, f);
         readTotalCountRecord(dis, f);
         readRVVRecord(dis, f, false, latestOplog);
+        final Iterator<KrfRecord> decodedRecords =
+            prefetched == null ? null : prefetched.records.iterator();
         long lastOffset = 0;
-        byte[] keyBytes = DataSerializer.readByteArray(dis);
-        while (keyBytes != null) {
-          byte userBits = dis.readByte();
-          int valueLength = InternalDataSerializer.readArrayLength(dis);
+        while (true) {
+          final KrfRecord record;
+          if (decodedRecords == null) {
+            record = readKrfRecord(dis, currentRecoveredGFVersion(), lastOffset);
+          } else {
+            record = decodedRecords.hasNext() ? decodedRecords.next() : null;
+          }
+          if (record == null) {
+            break;
+          }
+          byte userBits = record.userBits;
+          int valueLength = record.valueLength;
           byte[] valueBytes = null;
-          long drId = DiskInitFile.readDiskRegionID(dis);
+          long drId = record.drId;
           DiskRecoveryStore drs = getOplogSet().getCurrentlyRecovering(drId);
 
           // read version
           VersionTag tag = null;
           if (EntryBits.isWithVersions(userBits)) {
-            tag = readVersionsFromOplog(dis);
+            tag = record.tag;
             if (drs != null && !drs.getDiskRegionView().getFlags()
                 .contains(DiskRegionFlag.IS_WITH_VERSIONING)) {
               // 50044 Remove version tag from entry if we don't want versioning
@@ -1707,12 +1734,9 @@ public class Oplog implements CompactableOplog, Flushable {
             }
           }
 
-          long oplogKeyId = InternalDataSerializer.readVLOld(dis);
-          long oplogOffset;
-          if (EntryBits.isAnyInvalid(userBits) || EntryBits.isTombstone(userBits)) {
-            oplogOffset = -1;
-          } else {
-            oplogOffset = lastOffset + InternalDataSerializer.readVLOld(dis);
+          long oplogKeyId = record.oplogKeyId;
+          long oplogOffset = record.oplogOffset;
+          if (oplogOffset != -1) {
             lastOffset = oplogOffset;
           }
 
@@ -1737,7 +1761,10 @@ public class Oplog implements CompactableOplog, Flushable {
             } else if (EntryBits.isTombstone(userBits)) {
               valueBytes = DiskEntry.TOMBSTONE_BYTES;
             }
-            Object key = deserializeKey(keyBytes, version, in);
+            Object key = record.key;
+            if (key == null) {
+              key = deserializeKey(record.keyBytes, version, in);
+            }
             {
               Object oldValue = getRecoveryMap().put(oplogKeyId, key);
               if (oldValue != null) {
@@ -1771,7 +1798,6 @@ public class Oplog implements CompactableOplog, Flushable {
               }
             }
           }
-          keyBytes = DataSerializer.readByteArray(dis);
         } // while
         setRecoverNewEntryId(oplogKeyIdHWM);
       } catch (IOException ex) {
@@ -1812,6 +1838,136 @@ public class Oplog implements CompactableOplog, Flushable {
     return true;
   }
 
+  /**
+   * Opens a krf for reading. If its records were decoded ahead of recovery only the records
+   * preceding them are read from the stream.
+   */
+  private static InputStream openKrf(File f, DecodedKrf prefetched) throws FileNotFoundException {
+    if (prefetched != null) {
+      return new ByteArrayInputStream(prefetched.header);
+    }
+    return new FileInputStream(f);
+  }
+
+  /**
+   * Reads the next entry record of a krf, or returns null at the end of the krf.
+   *
+   * @param recoveredGFVersion the product version the krf was written with
+   * @param lastOffset the crf offset of the last record read that has one
+   */
+  private KrfRecord readKrfRecord(DataInput dis, Version recoveredGFVersion, long lastOffset)
+      throws IOException {
+    byte[] keyBytes = DataSerializer.readByteArray(dis);
+    if (keyBytes == null) {
+      return null;
+    }
+    KrfRecord record = new KrfRecord(keyBytes);
+    record.userBits = dis.readByte();
+    record.valueLength = InternalDataSerializer.readArrayLength(dis);
+    record.drId = DiskInitFile.readDiskRegionID(dis);
+    if (EntryBits.isWithVersions(record.userBits)) {
+      record.tag = readVersionsFromOplog(dis, recoveredGFVersion);
+    }
+    record.oplogKeyId = InternalDataSerializer.readVLOld(dis);
+    if (EntryBits.isAnyInvalid(record.userBits) || EntryBits.isTombstone(record.userBits)) {
+      record.oplogOffset = -1;
+    } else {
+      record.oplogOffset = lastOffset + InternalDataSerializer.readVLOld(dis);
+    }
+    return record;
+  }
+
+  /**
+   * Decodes the contents of this oplog's krf ahead of recovery. This runs on a thread of the krf
+   * prefetcher, so nothing read here is applied to this oplog or to the regions being recovered;
+   * {@link #readKrf} applies the decoded records in oplog order. Keys are deserialized here unless
+   * they are PDX, which may need types that are recovered later.
+   *
+   * @throws IOException or a runtime exception if the krf could not be decoded, in which case the
+   *         recovery thread reads it again and reports the problem
+   */
+  DecodedKrf decodeKrf(File f, byte[] contents) throws IOException {
+    ByteArrayInputStream bis = new ByteArrayInputStream(contents);
+    DataInputStream dis = new DataInputStream(bis);
+    try {
+      validateOpcode(dis, OPLOG_MAGIC_SEQ_ID);
+      readOplogMagicSeqRecord(dis, f, OPLOG_TYPE.KRF);
+      validateOpcode(dis, OPLOG_DISK_STORE_ID);
+      readDiskStoreRecord(dis, f);
+    } catch (DiskAccessException | IllegalStateException ignore) {
+      // a krf in the old format without a magic seq, see readKrf
+      bis = new ByteArrayInputStream(contents);
+      dis = new DataInputStream(bis);
+      readDiskStoreRecord(dis, f);
+    }
+    Version recoveredGFVersion = readGemfireVersionRecord(dis, f, false);
+    if (this.gfversion != null) {
+      recoveredGFVersion = this.gfversion;
+    }
+    readTotalCountRecord(dis, f, false);
+    readRVVRecord(dis, f, false, false, false);
+    byte[] header = Arrays.copyOf(contents, contents.length - bis.available());
+
+    final Version version = getProductVersionIfOld();
+    final ByteArrayDataInput in = new ByteArrayDataInput();
+    List<KrfRecord> records = new ArrayList<>();
+    long lastOffset = 0;
+    KrfRecord record = readKrfRecord(dis, recoveredGFVersion, lastOffset);
+    while (record != null) {
+      if (!PdxWriterImpl.isPdx(record.keyBytes)) {
+        record.key = deserializeKey(record.keyBytes, version, in);
+      }
+      if (record.oplogOffset != -1) {
+        lastOffset = record.oplogOffset;
+      }
+      records.add(record);
+      record = readKrfRecord(dis, recoveredGFVersion, lastOffset);
+    }
+    return new DecodedKrf(header, records);
+  }
+
+  /**
+   * The entry records of a krf, decoded ahead of recovery by {@link #decodeKrf(File, byte[])}.
+   */
+  static class DecodedKrf {
+    /** the records of the krf that precede its entry records */
+    final byte[] header;
+
+    final List<KrfRecord> records;
+
+    DecodedKrf(byte[] header, List<KrfRecord> records) {
+      this.header = header;
+      this.records = records;
+    }
+  }
+
+  /**
+   * An entry record of a krf.
+   */
+  static class KrfRecord {
+    final byte[] keyBytes;
+
+    /** the deserialized key, or null if it is deserialized when the record is applied */
+    Object key;
+
+    byte userBits;
+
+    int valueLength;
+
+    long drId;
+
+    VersionTag tag;
+
+    long oplogKeyId;
+
+    /** the offset of the value in the crf, or -1 if the entry has no value there */
+    long oplogOffset;
+
+    KrfRecord(byte[] keyBytes) {
+      this.keyBytes = keyBytes;
+    }
+  }
+
   private void validateOpcode(DataInputStream dis, byte expect) throws IOException {
     byte opCode = dis.readByte();
     if (opCode != expect) {
@@ -2032,6 +2188,15 @@ public class Oplog implements CompactableOplog, Flushable {
    * @throws DiskAccessException if this file does not belong to our parent
    */
   private void readGemfireVersionRecord(DataInput dis, File f) throws IOException {
+    readGemfireVersionRecord(dis, f, true);
+  }
+
+  /**
+   * Reads the product version records of an oplog file and returns the product version it was
+   * written with. Unless apply is true the versions are not recorded in this oplog.
+   */
+  private Version readGemfireVersionRecord(DataInput dis, File f, boolean apply)
+      throws IOException {
     Version recoveredGFVersion = readProductVersionRecord(dis, f);
     final boolean hasDataVersion;
     if ((hasDataVersion = (recoveredGFVersion == Version.TOKEN))) {
@@ -2045,10 +2210,13 @@ public class Oplog implements CompactableOplog, Flushable {
       }
       recoveredGFVersion = readProductVersionRecord(dis, f);
     }
-    if (this.gfversion == null) {
-      this.gfversion = recoveredGFVersion;
-    } else {
-      assert this.gfversion == recoveredGFVersion;
+    final Version productVersion = recoveredGFVersion;
+    if (apply) {
+      if (this.gfversion == null) {
+        this.gfversion = recoveredGFVersion;
+      } else {
+        assert this.gfversion == recoveredGFVersion;
+      }
     }
     if (hasDataVersion) {
       byte opCode = dis.readByte();
@@ -2059,12 +2227,15 @@ public class Oplog implements CompactableOplog, Flushable {
             getParent());
       }
       recoveredGFVersion = readProductVersionRecord(dis, f);
-      if (this.dataVersion == null) {
-        this.dataVersion = recoveredGFVersion;
-      } else {
-        assert this.dataVersion == recoveredGFVersion;
+      if (apply) {
+        if (this.dataVersion == null) {
+          this.dataVersion = recoveredGFVersion;
+        } else {
+          assert this.dataVersion == recoveredGFVersion;
+        }
       }
     }
+    return productVersion;
   }
 
   private Version readProductVersionRecord(DataInput dis, File f) throws IOException {
@@ -2085,8 +2256,14 @@ public class Oplog implements CompactableOplog, Flushable {
   }
 
   private void readTotalCountRecord(DataInput dis, File f) throws IOException {
+    readTotalCountRecord(dis, f, true);
+  }
+
+  private void readTotalCountRecord(DataInput dis, File f, boolean apply) throws IOException {
     long recoveredCount = InternalDataSerializer.readUnsignedVL(dis);
-    this.totalCount.set(recoveredCount);
+    if (apply) {
+      this.totalCount.set(recoveredCount);
+    }
 
     if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY_VERBOSE)) {
       logger.trace(LogMarker.PERSIST_RECOVERY_VERBOSE, "totalCount={}", totalCount);
@@ -2096,6 +2273,15 @@ public class Oplog implements CompactableOplog, Flushable {
 
   private void readRVVRecord(DataInput dis, File f, boolean gcRVV, boolean latestOplog)
       throws IOException {
+    readRVVRecord(dis, f, gcRVV, latestOplog, true);
+  }
+
+  /**
+   * Reads an RVV record. Unless apply is true it is skipped without being recorded in any of the
+   * regions being recovered.
+   */
+  private void readRVVRecord(DataInput dis, File f, boolean gcRVV, boolean latestOplog,
+      boolean apply) throws IOException {
     final boolean isPersistRecoveryDebugEnabled =
         logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY_VERBOSE);
 
@@ -2107,7 +2293,7 @@ public class Oplog implements CompactableOplog, Flushable {
       long drId = InternalDataSerializer.readUnsignedVL(dis);
       // Get the drs. This may be null if this region is not currently
       // recovering
-      DiskRecoveryStore drs = getOplogSet().getCurrentlyRecovering(drId);
+      DiskRecoveryStore drs = apply ? getOplogSet().getCurrentlyRecovering(drId) : null;
       if (isPersistRecoveryDebugEnabled) {
         logger.trace(LogMarker.PERSIST_RECOVERY_VERBOSE, "readRVV drId={} region={}", drId, drs);
       }
@@ -2295,12 +2481,12 @@ public class Oplog implements CompactableOplog, Flushable {
         value = Token.INVALID;
         valueLength = 0;
       } else if (EntryBits.isSerialized(userBits)) {
-        value = DiskEntry.Helper.readSerializedValue(valueBytes, version, in, false,
-            getParent().getCache());
+        value = DiskEntry.Helper.readSerializedValue(decompressValue(valueBytes, userBits), version,
+            in, false, getParent().getCache());
       } else if (EntryBits.isTombstone(userBits)) {
         value = Token.TOMBSTONE;
       } else {
-        value = valueBytes;
+        value = decompressValue(valueBytes, userBits);
       }
       re = new DiskEntry.RecoveredEntry(oplogKeyId, oplogId, offsetInOplog, userBits, valueLength,
           value);
@@ -2347,8 +2533,24 @@ public class Oplog implements CompactableOplog, Flushable {
     return this.recordsSkippedDuringRecovery;
   }
 
+  /**
+   * Returns the number of records written to the crf of this oplog, including the records that are
+   * no longer live.
+   */
+  long getTotalCount() {
+    return this.totalCount.get();
+  }
+
   private VersionTag readVersionsFromOplog(DataInput dis) throws IOException {
-    if (Version.GFE_70.compareTo(currentRecoveredGFVersion()) <= 0) {
+    return readVersionsFromOplog(dis, currentRecoveredGFVersion());
+  }
+
+  /**
+   * Reads the version tag of an entry written with the given product version.
+   */
+  private VersionTag readVersionsFromOplog(DataInput dis, Version recoveredGFVersion)
+      throws IOException {
+    if (Version.GFE_70.compareTo(recoveredGFVersion) <= 0) {
       // this version format is for gemfire 7.0
       // if we have different version format in 7.1, it will be handled in
       // "else if"
@@ -2790,6 +2992,7 @@ public class Oplog implements CompactableOplog, Flushable {
       ByteArrayDataInput in) {
     if (getParent().isValidating()) {
       if (EntryBits.isSerialized(userBits)) {
+        valueBytes = decompressValue(valueBytes, userBits);
         // make sure values are deserializable
         if (!PdxWriterImpl.isPdx(valueBytes)) { // fix bug 43011
           try {
@@ -3213,6 +3416,11 @@ public class Oplog implements CompactableOplog, Flushable {
 
   private void basicClose(boolean forceDelete) {
     flushAll();
+    unmapCrf();
+    if (getParent().getGroupCommitter() != null) {
+      // writers may still be waiting for a group commit that includes this oplog
+      forceForGroupCommit();
+    }
     // No need to get the backup lock prior to synchronizing (correct lock order) since the
     // synchronized block does not attempt to get the backup lock (incorrect lock order)
     synchronized (this.lock/* crf */) {
@@ -3384,6 +3592,45 @@ public class Oplog implements CompactableOplog, Flushable {
     return vw.getUserBits();
   }
 
+  /**
+   * Returns the compressed form of a value about to be written, or null if it is written as is
+   * because the disk store does not compress values, the record has no value, the value is
+   * already compressed or compressing does not make it smaller.
+   */
+  private ValueWrapper compressValue(ValueWrapper value, byte userBits) throws IOException {
+    OplogValueCompressor compressor = getParent().getValueCompressor();
+    if (compressor == null || EntryBits.isCompressed(userBits)
+        || !EntryBits.isNeedsValue(userBits)) {
+      return null;
+    }
+    return compressor.compress(value);
+  }
+
+  /**
+   * Returns the compressor needed to read a compressed value from this oplog.
+   *
+   * @throws DiskAccessException if the disk store was not configured with a value compressor
+   */
+  private OplogValueCompressor getValueDecompressor() {
+    OplogValueCompressor compressor = getParent().getValueCompressor();
+    if (compressor == null) {
+      throw new DiskAccessException("Oplog " + this.diskFile.getPath()
+          + " contains compressed values but " + DiskStoreImpl.VALUE_COMPRESSOR_PROPERTY_NAME
+          + " is not set", getParent());
+    }
+    return compressor;
+  }
+
+  /**
+   * Returns the uncompressed bytes of a value read from this oplog.
+   */
+  private byte[] decompressValue(byte[] valueBytes, byte userBits) {
+    if (!EntryBits.isCompressed(userBits)) {
+      return valueBytes;
+    }
+    return getValueDecompressor().decompress(valueBytes);
+  }
+
   /**
    * Returns true if the given entry has not yet been written to this oplog.
    */
@@ -3473,6 +3720,11 @@ public class Oplog implements CompactableOplog, Flushable {
    */
   private void basicCreate(DiskRegion dr, DiskEntry entry, ValueWrapper value, byte userBits,
       boolean async) throws IOException, InterruptedException {
+    ValueWrapper compressed = compressValue(value, userBits);
+    if (compressed != null) {
+      value = compressed;
+      userBits = EntryBits.setCompressed(userBits, true);
+    }
     DiskId id = entry.getDiskId();
     boolean useNextOplog = false;
     long startPosForSynchOp = -1;
@@ -3544,7 +3796,7 @@ public class Oplog implements CompactableOplog, Flushable {
           id.setOplogId(getOplogId());
           // do the io while holding lock so that switch can set doneAppending
           // Write the data to the opLog for the synch mode
-          startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+          startPosForSynchOp = writeOpLogBytes(this.crf, async, true, true);
           // if (this.crf.currSize != startPosForSynchOp) {
           // assert false;
           // }
@@ -3726,6 +3978,10 @@ public class Oplog implements CompactableOplog, Flushable {
       getParent().executeDelayedExpensiveWrite(new Runnable() {
         @Override
         public void run() {
+          if (getParent().getGroupCommitter() != null) {
+            // a pending group commit may not have forced this oplog yet
+            forceForGroupCommit();
+          }
           // need to truncate crf and drf if their actual size is less than
           // their pregrow size
           unpreblow(Oplog.this.crf, getMaxCrfSize());
@@ -4257,7 +4513,7 @@ public class Oplog implements CompactableOplog, Flushable {
         if (entry.getDiskId().isPendingAsync()) {
           entry.getDiskId().setPendingAsync(false);
           try {
-            getOplogSet().getChild().basicRemove(dr, entry, false, false);
+            getOplogSet().getChild().basicRemove(dr, entry, false, false, true);
           } catch (IOException ex) {
             getParent().getCancelCriterion().checkCancelInProgress(ex);
             throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0
@@ -4399,6 +4655,12 @@ public class Oplog implements CompactableOplog, Flushable {
   private void copyForwardForOfflineCompact(long oplogKeyId, byte[] keyBytes, byte[] valueBytes,
       byte userBits, long drId, VersionTag tag) {
     try {
+      ValueWrapper compressed = compressValue(
+          new DiskEntry.Helper.CompactorValueWrapper(valueBytes, valueBytes.length), userBits);
+      if (compressed != null) {
+        valueBytes = ((DiskEntry.Helper.CompactorValueWrapper) compressed).bytes;
+        userBits = EntryBits.setCompressed(userBits, true);
+      }
       basicCopyForwardForOfflineCompact(oplogKeyId, keyBytes, valueBytes, userBits, drId, tag);
     } catch (IOException ex) {
       getParent().getCancelCriterion().checkCancelInProgress(ex);
@@ -4470,6 +4732,11 @@ public class Oplog implements CompactableOplog, Flushable {
    */
   private void basicModify(DiskRegionView dr, DiskEntry entry, ValueWrapper value, byte userBits,
       boolean async, boolean calledByCompactor) throws IOException, InterruptedException {
+    ValueWrapper compressed = compressValue(value, userBits);
+    if (compressed != null) {
+      value = compressed;
+      userBits = EntryBits.setCompressed(userBits, true);
+    }
     DiskId id = entry.getDiskId();
     boolean useNextOplog = false;
     long startPosForSynchOp = -1L;
@@ -4506,7 +4773,7 @@ public class Oplog implements CompactableOplog, Flushable {
             long oldOplogId;
             // do the io while holding lock so that switch can set doneAppending
             // Write the data to the opLog for the synch mode
-            startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+            startPosForSynchOp = writeOpLogBytes(this.crf, async, true, !calledByCompactor);
             this.crf.currSize = temp;
             startPosForSynchOp += getOpStateValueOffset();
             if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES_VERBOSE)) {
@@ -4631,7 +4898,7 @@ public class Oplog implements CompactableOplog, Flushable {
               throw cce;
             }
             this.firstRecord = false;
-            writeOpLogBytes(this.crf, async, true);
+            writeOpLogBytes(this.crf, async, true, true);
             this.crf.currSize = temp;
             if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES_VERBOSE)) {
               logger.trace(LogMarker.PERSIST_WRITES_VERBOSE,
@@ -4793,7 +5060,7 @@ public class Oplog implements CompactableOplog, Flushable {
       byte prevUsrBit = did.getUserBits();
       int len = did.getValueLength();
       try {
-        basicRemove(dr, entry, async, isClear);
+        basicRemove(dr, entry, async, isClear, false);
       } catch (IOException ex) {
         exceptionOccurred = true;
         getParent().getCancelCriterion().checkCancelInProgress(ex);
@@ -4921,8 +5188,8 @@ public class Oplog implements CompactableOplog, Flushable {
    *
    * @param entry DiskEntry object representing the current Entry
    */
-  private void basicRemove(DiskRegionView dr, DiskEntry entry, boolean async, boolean isClear)
-      throws IOException, InterruptedException {
+  private void basicRemove(DiskRegionView dr, DiskEntry entry, boolean async, boolean isClear,
+      boolean calledByCompactor) throws IOException, InterruptedException {
     DiskId id = entry.getDiskId();
 
     boolean useNextOplog = false;
@@ -4976,7 +5243,7 @@ public class Oplog implements CompactableOplog, Flushable {
             // before we flush the crf.
             // However we can't have removes by async if we are doing a sync write
             // because we might be killed right after we do this write.
-            startPosForSynchOp = writeOpLogBytes(this.drf, async, true);
+            startPosForSynchOp = writeOpLogBytes(this.drf, async, true, !calledByCompactor);
             setHasDeletes(true);
             if (logger.isDebugEnabled(LogMarker.PERSIST_WRITES_VERBOSE)) {
               logger.debug("basicRemove: id=<{}> key=<{}> drId={} oplog#{}", abs(id.getKeyId()),
@@ -5013,7 +5280,7 @@ public class Oplog implements CompactableOplog, Flushable {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
       }
       Assert.assertTrue(getOplogSet().getChild() != this);
-      getOplogSet().getChild().basicRemove(dr, entry, async, isClear);
+      getOplogSet().getChild().basicRemove(dr, entry, async, isClear, calledByCompactor);
     } else {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSettingOplogOffSet(startPosForSynchOp);
@@ -5172,6 +5439,34 @@ public class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Forces the drf and then the crf of this oplog to disk. Called by the {@link
+   * OplogGroupCommitter} without holding any oplog lock.
+   */
+  @Override
+  public void forceForGroupCommit() {
+    try {
+      // No need to get the backup lock prior to synchronizing (correct lock order) since the
+      // synchronized block does not attempt to get the backup lock (incorrect lock order)
+      synchronized (this.lock) {
+        // holding the lock keeps the channels from being closed while we force them
+        if (!this.drf.RAFClosed) {
+          this.drf.channel.force(false);
+        }
+        if (!this.crf.RAFClosed) {
+          this.crf.channel.force(false);
+        }
+      }
+    } catch (ClosedChannelException ignore) {
+      // see flush(OplogFile, boolean)
+    } catch (IOException ex) {
+      getParent().getCancelCriterion().checkCancelInProgress(ex);
+      throw new DiskAccessException(
+          LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()),
+          ex, getParent());
+    }
+  }
+
   /**
    * Since the ByteBuffer being writen to can have additional bytes which are used for extending the
    * size of the file, it is necessary that the ByteBuffer provided should have limit which is set
@@ -5188,6 +5483,16 @@ public class Oplog implements CompactableOplog, Flushable {
    */
   private long writeOpLogBytes(OplogFile olf, boolean async, boolean doFlushIfSync)
       throws IOException {
+    return writeOpLogBytes(olf, async, doFlushIfSync, false);
+  }
+
+  /**
+   * @param groupCommit true if the caller waits for the {@link OplogGroupCommitter} once it has
+   *        released its locks, so that a synchronous write may be forced by a group commit. Writes
+   *        that nobody waits for are flushed and synced as if group commit was disabled.
+   */
+  private long writeOpLogBytes(OplogFile olf, boolean async, boolean doFlushIfSync,
+      boolean groupCommit) throws IOException {
     long startPos = -1L;
     getParent().getBackupLock().lock();
     try {
@@ -5212,7 +5517,14 @@ public class Oplog implements CompactableOplog, Flushable {
         // " was not > lastWritePos=" + lastWritePos);
         long bytesWritten = this.opState.write(olf);
         if (!async && doFlushIfSync) {
-          flushAndSync(olf);
+          OplogGroupCommitter groupCommitter = getParent().getGroupCommitter();
+          if (groupCommitter != null && groupCommit) {
+            // the caller waits for the group force after releasing our lock
+            flushAllNoSync(false);
+            groupCommitter.written(this, bytesWritten);
+          } else {
+            flushAndSync(olf);
+          }
         }
         getStats().incWrittenBytes(bytesWritten, async);
 
@@ -5260,6 +5572,14 @@ public class Oplog implements CompactableOplog, Flushable {
 
   private volatile boolean beingRead;
 
+  /**
+   * Read only mapping of the crf used for reads once this oplog is done appending. Only set if
+   * {@link DiskStoreImpl#MAPPED_READS} is true.
+   */
+  private volatile MappedOplogFile mappedCrf;
+
+  private boolean crfMapFailed;
+
   /**
    * If crfRAF has been closed then attempt to reopen the oplog for this read. Verify that this only
    * happens when test methods are invoked.
@@ -5284,6 +5604,12 @@ public class Oplog implements CompactableOplog, Flushable {
 
   private BytesAndBits attemptGet(DiskRegionView dr, long offsetInOplog, boolean bitOnly,
       int valueLength, byte userBits) throws IOException {
+    if (DiskStoreImpl.MAPPED_READS && this.doneAppending) {
+      BytesAndBits bb = attemptMappedGet(offsetInOplog, valueLength, userBits);
+      if (bb != null) {
+        return bb;
+      }
+    }
     boolean didReopen = false;
     boolean accessedInactive = false;
     try {
@@ -5367,6 +5693,73 @@ public class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Reads a value as a slice of a memory mapping of the crf. Returns null if the crf can not be
+   * mapped, in which case the caller falls back to reading through the RandomAccessFile.
+   */
+  private BytesAndBits attemptMappedGet(long offsetInOplog, int valueLength, byte userBits) {
+    MappedOplogFile mapped = this.mappedCrf;
+    if (mapped == null) {
+      mapped = mapCrf();
+      if (mapped == null) {
+        return null;
+      }
+    }
+    ByteBuffer value = mapped.slice(offsetInOplog, valueLength);
+    if (value == null) {
+      return null;
+    }
+    this.stats.incMappedReads();
+    BytesAndBits bb = new BytesAndBits(value, userBits);
+    // also set the product version for an older product
+    final Version version = getProductVersionIfOld();
+    if (version != null) {
+      bb.setVersion(version);
+    }
+    return bb;
+  }
+
+  /**
+   * Maps the crf if this oplog is done appending and it has not been mapped yet.
+   *
+   * @return the mapping or null if the crf can not be mapped
+   */
+  private MappedOplogFile mapCrf() {
+    // No need to get the backup lock prior to synchronizing (correct lock order) since the
+    // synchronized block does not attempt to get the backup lock (incorrect lock order)
+    synchronized (this.lock/* crf */) {
+      if (this.mappedCrf == null && !this.crfMapFailed && this.doneAppending && !this.closed
+          && !this.deleted.get() && this.crf.f != null && this.crf.bytesFlushed > 0) {
+        try {
+          this.mappedCrf = MappedOplogFile.map(this.crf.f, this.crf.bytesFlushed);
+          this.stats.incMappedOplogs(this.mappedCrf.getLength());
+        } catch (IOException ex) {
+          // most likely out of address space; keep reading through the RandomAccessFile
+          this.crfMapFailed = true;
+          if (logger.isDebugEnabled()) {
+            logger.debug("Could not memory map {} for reading", this.crf.f, ex);
+          }
+        }
+      }
+      return this.mappedCrf;
+    }
+  }
+
+  /**
+   * Drops the memory mapping of the crf, if any. Values already read from it stay valid.
+   */
+  private void unmapCrf() {
+    // No need to get the backup lock prior to synchronizing (correct lock order) since the
+    // synchronized block does not attempt to get the backup lock (incorrect lock order)
+    synchronized (this.lock/* crf */) {
+      if (this.mappedCrf != null) {
+        this.stats.decMappedOplogs(this.mappedCrf.getLength());
+        this.mappedCrf.close();
+        this.mappedCrf = null;
+      }
+    }
+  }
+
   /**
    * Extracts the Value byte array & UserBit from the OpLog
    *
@@ -5382,6 +5775,8 @@ public class Oplog implements CompactableOplog, Flushable {
     BytesAndBits bb = null;
     if (EntryBits.isAnyInvalid(userBits) || EntryBits.isTombstone(userBits) || bitOnly
         || valueLength == 0) {
+      // no value is read so it is never returned compressed
+      userBits = EntryBits.setCompressed(userBits, false);
       if (EntryBits.isInvalid(userBits)) {
         bb = new BytesAndBits(DiskEntry.INVALID_BYTES, userBits);
       } else if (EntryBits.isTombstone(userBits)) {
@@ -5398,6 +5793,9 @@ public class Oplog implements CompactableOplog, Flushable {
           boolean interrupted = Thread.interrupted();
           try {
             bb = attemptGet(dr, offsetInOplog, bitOnly, valueLength, userBits);
+            if (EntryBits.isCompressed(userBits)) {
+              bb = getValueDecompressor().decompress(bb);
+            }
             break;
           } catch (InterruptedIOException ignore) { // bug 39756
             // ignore, we'll clear and retry.
@@ -5620,6 +6018,9 @@ public class Oplog implements CompactableOplog, Flushable {
     // No need to get the backup lock prior to synchronizing (correct lock order) since the
     // synchronized block does not attempt to get the backup lock (incorrect lock order)
     synchronized (this.lock) {
+      if (olf == this.crf) {
+        unmapCrf();
+      }
       if (olf.currSize != 0) {
         this.dirHolder.decrementTotalOplogSize(olf.currSize);
         olf.currSize = 0;
@@ -5755,6 +6156,18 @@ public class Oplog implements CompactableOplog, Flushable {
     return false;
   }
 
+  /**
+   * Returns the fraction of the records written to this oplog that are still live. The compactor
+   * copies forward the least live oplogs first since they free the most space per byte copied.
+   */
+  double getLiveRatio() {
+    long total = this.totalCount.get();
+    if (total <= 0) {
+      return 0;
+    }
+    return Math.max(0, this.totalLiveCount.get()) / (double) total;
+  }
+
   public boolean hadLiveEntries() {
     return this.totalCount.get() != 0;
   }
@@ -5895,7 +6308,7 @@ public class Oplog implements CompactableOplog, Flushable {
     this.compacting = true;
   }
 
-  private final Lock compactorLock = new ReentrantLock();
+  private final ReentrantLock compactorLock = new ReentrantLock();
 
   private void lockCompactor() {
     this.compactorLock.lock();
@@ -5961,6 +6374,7 @@ public class Oplog implements CompactableOplog, Flushable {
             }
             lastDe = de;
             didCompact = false;
+            long copiedBytes = 0;
             synchronized (de) { // fix for bug 41797
               DiskId did = de.getDiskId();
               assert did != null;
@@ -5985,12 +6399,14 @@ public class Oplog implements CompactableOplog, Flushable {
                   getOplogSet().getChild().copyForwardModifyForCompact(dr, de, wrapper);
                   // the did's oplogId will now be set to the current active oplog
                   didCompact = true;
+                  copiedBytes = did.getValueLength();
                 }
               } // did
             } // de
             if (didCompact) {
               totalCount++;
               getStats().endCompactionUpdate(opStart);
+              compactor.throttle(copiedBytes, this.compactorLock::hasQueuedThreads);
               opStart = getStats().getStatTime();
               // Check if the value byte array happens to be any of the
               // constant
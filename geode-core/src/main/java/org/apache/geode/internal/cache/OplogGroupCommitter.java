@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.geode.cache.DiskAccessException;
+
+/**
+ * Makes synchronous oplog writes durable in groups. Writers append their records to the oplog
+ * channels without forcing them, call {@link #written} and then {@link #awaitDurable()}. The first
+ * waiter becomes the leader of a group: it waits for the configured window (or until the byte limit
+ * is reached), forces every oplog written to since the previous group and then releases all writers
+ * covered by that force. A writer is never released before its records have been forced, so the
+ * durability guarantee of a synchronous write is unchanged, and a failed force is thrown to every
+ * writer whose records were in that group.
+ *
+ * @see DiskStoreImpl#GROUP_COMMIT_WINDOW_MICROS_PROPERTY_NAME
+ */
+class OplogGroupCommitter {
+
+  /**
+   * Something that can be made durable by a group commit.
+   */
+  interface Forceable {
+    /**
+     * Forces all bytes previously written by this object to the storage device.
+     *
+     * @throws DiskAccessException if the force fails
+     */
+    void forceForGroupCommit();
+  }
+
+  /**
+   * The writes that were collected, or are still being collected, to be forced together.
+   */
+  private static class Group {
+    /** The threads that wrote to this group; guarded by lock */
+    final List<Writer> writers = new ArrayList<>();
+
+    /** True once the group has been forced, successfully or not; guarded by lock */
+    boolean done;
+  }
+
+  /**
+   * The writes of one thread that it has not waited for yet.
+   */
+  private static class Writer {
+    /** The group of the most recent write of the thread; guarded by lock */
+    Group group;
+
+    /** The first failure of a group containing one of those writes; guarded by lock */
+    RuntimeException failure;
+  }
+
+  private final long windowNanos;
+
+  private final long maxBytes;
+
+  private final DiskStoreStats stats;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** Signalled when a group has been forced or when the byte limit is reached */
+  private final Condition changed = this.lock.newCondition();
+
+  private final ThreadLocal<Writer> writer = ThreadLocal.withInitial(Writer::new);
+
+  /** The group collecting new writes; guarded by lock */
+  private Group open = new Group();
+
+  /** Oplogs written to since the last group was collected; guarded by lock */
+  private Set<Forceable> dirty = new LinkedHashSet<>();
+
+  /** Bytes written since the last group was collected; guarded by lock */
+  private long pendingBytes;
+
+  /** Writes done since the last group was collected; guarded by lock */
+  private int pendingWrites;
+
+  /** True while a leader is collecting or forcing a group; guarded by lock */
+  private boolean leaderActive;
+
+  OplogGroupCommitter(long windowMicros, long maxBytes, DiskStoreStats stats) {
+    this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+    this.maxBytes = maxBytes;
+    this.stats = stats;
+  }
+
+  long getWindowNanos() {
+    return this.windowNanos;
+  }
+
+  long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  /**
+   * Records that bytes were written, but not forced, to the given oplog. Must be called before the
+   * writer calls {@link #awaitDurable()}.
+   */
+  void written(Forceable oplog, long bytes) {
+    this.lock.lock();
+    try {
+      this.dirty.add(oplog);
+      this.pendingBytes += bytes;
+      this.pendingWrites++;
+      Writer writer = this.writer.get();
+      if (writer.group != this.open) {
+        writer.group = this.open;
+        this.open.writers.add(writer);
+      }
+      if (this.pendingBytes >= this.maxBytes) {
+        // wake up a leader waiting out its window
+        this.changed.signalAll();
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Blocks until every write recorded by {@link #written} in this thread since its previous call
+   * of this method is durable.
+   *
+   * @throws DiskAccessException if a group containing one of those writes failed to force
+   * @throws org.apache.geode.CancelException if the cache closed while forcing such a group
+   */
+  void awaitDurable() {
+    final Writer writer = this.writer.get();
+    boolean interrupted = false;
+    this.lock.lock();
+    try {
+      final Group group = writer.group;
+      if (group == null) {
+        return;
+      }
+      // groups are forced in order so the group of the latest write is the last one to finish
+      while (!group.done) {
+        if (!this.leaderActive) {
+          interrupted |= leadGroup();
+        } else {
+          try {
+            this.changed.await();
+          } catch (InterruptedException ignore) {
+            // a synchronous write must not return before it is durable
+            interrupted = true;
+          }
+        }
+      }
+      final RuntimeException failure = writer.failure;
+      writer.group = null;
+      writer.failure = null;
+      if (failure != null) {
+        throw failure;
+      }
+    } finally {
+      this.lock.unlock();
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Collects a group and forces it. The caller must hold the lock; it is released while forcing
+   * and held again on return.
+   *
+   * @return true if the calling thread was interrupted while waiting out the window
+   */
+  private boolean leadGroup() {
+    boolean interrupted = false;
+    this.leaderActive = true;
+    try {
+      long remaining = this.windowNanos;
+      final long deadline = System.nanoTime() + remaining;
+      while (this.pendingBytes < this.maxBytes && remaining > 0) {
+        try {
+          this.changed.awaitNanos(remaining);
+        } catch (InterruptedException ignore) {
+          interrupted = true;
+        }
+        remaining = deadline - System.nanoTime();
+      }
+      final Group group = this.open;
+      final Set<Forceable> oplogs = this.dirty;
+      final long groupBytes = this.pendingBytes;
+      final int groupWrites = this.pendingWrites;
+      this.open = new Group();
+      this.dirty = new LinkedHashSet<>();
+      this.pendingBytes = 0;
+      this.pendingWrites = 0;
+
+      RuntimeException failure = null;
+      final long start = this.stats.startGroupCommit();
+      // forcing can take milliseconds so do it without the lock to let new writers queue up
+      this.lock.unlock();
+      try {
+        for (Forceable oplog : oplogs) {
+          try {
+            oplog.forceForGroupCommit();
+          } catch (RuntimeException ex) {
+            // a DiskAccessException, or a CancelException if the cache is closing
+            failure = ex;
+          }
+        }
+      } finally {
+        this.lock.lock();
+      }
+      this.stats.endGroupCommit(start, groupWrites, groupBytes);
+      for (Writer writer : group.writers) {
+        if (failure != null && writer.failure == null) {
+          writer.failure = failure;
+        }
+      }
+      group.writers.clear();
+      group.done = true;
+    } finally {
+      this.leaderActive = false;
+      this.changed.signalAll();
+    }
+    return interrupted;
+  }
+}
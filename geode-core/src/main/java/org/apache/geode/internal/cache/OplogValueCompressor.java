@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.geode.cache.DiskAccessException;
+import org.apache.geode.compression.CompressionException;
+import org.apache.geode.compression.Compressor;
+import org.apache.geode.internal.ClassPathLoader;
+import org.apache.geode.internal.cache.entries.DiskEntry.Helper.ByteArrayValueWrapper;
+import org.apache.geode.internal.cache.entries.DiskEntry.Helper.CompactorValueWrapper;
+import org.apache.geode.internal.cache.entries.DiskEntry.Helper.Flushable;
+import org.apache.geode.internal.cache.entries.DiskEntry.Helper.ValueWrapper;
+import org.apache.geode.internal.cache.persistence.BytesAndBits;
+
+/**
+ * Compresses the values a disk store writes to its crf files and decompresses them when they are
+ * read back by a fault-in or by recovery. This is independent of any region {@link Compressor}: a
+ * value compressed in memory is written as is and compressed again here.
+ * <p>
+ * Each value record is compressed on its own, and only if that makes it smaller, so that values can
+ * still be read with a single positioned read. A compressed record has the compressed bit of its
+ * {@link EntryBits} set and its value length is the compressed length. The compactor copies
+ * compressed values forward without decompressing them.
+ *
+ * @see DiskStoreImpl#VALUE_COMPRESSOR_PROPERTY_NAME
+ */
+class OplogValueCompressor {
+
+  /** Values shorter than this are not worth compressing */
+  static final int MIN_COMPRESSIBLE_LENGTH = 64;
+
+  private final Compressor compressor;
+
+  private final DiskStoreStats stats;
+
+  OplogValueCompressor(Compressor compressor, DiskStoreStats stats) {
+    this.compressor = compressor;
+    this.stats = stats;
+  }
+
+  /**
+   * Creates the compressor configured for the named disk store.
+   *
+   * @return null if values written to the disk store are not compressed
+   * @throws IllegalArgumentException if the configured compressor can not be created
+   */
+  static OplogValueCompressor create(String diskStoreName, DiskStoreStats stats) {
+    String className = System.getProperty(
+        DiskStoreImpl.VALUE_COMPRESSOR_PROPERTY_NAME + "." + diskStoreName,
+        System.getProperty(DiskStoreImpl.VALUE_COMPRESSOR_PROPERTY_NAME, ""));
+    if (className.isEmpty()) {
+      return null;
+    }
+    try {
+      Compressor compressor =
+          (Compressor) ClassPathLoader.getLatest().forName(className).newInstance();
+      return new OplogValueCompressor(compressor, stats);
+    } catch (ClassNotFoundException | InstantiationException | IllegalAccessException
+        | ClassCastException ex) {
+      throw new IllegalArgumentException(
+          "Could not create the value compressor " + className + " for disk store " + diskStoreName,
+          ex);
+    }
+  }
+
+  Compressor getCompressor() {
+    return this.compressor;
+  }
+
+  /**
+   * Returns a wrapper of the compressed bytes of the given value, or null if compressing does not
+   * make it smaller.
+   */
+  ValueWrapper compress(ValueWrapper value) throws IOException {
+    int length = value.getLength();
+    if (length < MIN_COMPRESSIBLE_LENGTH) {
+      return null;
+    }
+    long start = this.stats.getStatTime();
+    byte[] compressed = this.compressor.compress(getBytes(value));
+    this.stats.endValueCompression(start, length, compressed.length);
+    if (compressed.length >= length) {
+      return null;
+    }
+    return new CompactorValueWrapper(compressed, compressed.length);
+  }
+
+  /**
+   * Returns the bytes and bits of a record read from disk with its value decompressed, or the
+   * given instance if its value is not compressed.
+   */
+  BytesAndBits decompress(BytesAndBits bb) {
+    if (!EntryBits.isCompressed(bb.getBits())) {
+      return bb;
+    }
+    BytesAndBits result = new BytesAndBits(decompress(bb.getBytes()),
+        EntryBits.setCompressed(bb.getBits(), false));
+    if (bb.getVersion() != null) {
+      result.setVersion(bb.getVersion());
+    }
+    return result;
+  }
+
+  byte[] decompress(byte[] compressed) {
+    long start = this.stats.getStatTime();
+    try {
+      byte[] bytes = this.compressor.decompress(compressed);
+      this.stats.endValueDecompression(start);
+      return bytes;
+    } catch (CompressionException ex) {
+      throw new DiskAccessException("Could not decompress a value read from disk", ex);
+    }
+  }
+
+  private static byte[] getBytes(ValueWrapper value) throws IOException {
+    if (value instanceof ByteArrayValueWrapper) {
+      byte[] bytes = ((ByteArrayValueWrapper) value).bytes;
+      if (bytes.length == value.getLength()) {
+        return bytes;
+      }
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(value.getLength());
+    value.sendTo(buffer, NO_FLUSH);
+    return buffer.array();
+  }
+
+  /** The buffer given to sendTo always has room for the whole value */
+  private static final Flushable NO_FLUSH = new Flushable() {
+    @Override
+    public void flush() {
+      throw new IllegalStateException("value did not fit in its buffer");
+    }
+
+    @Override
+    public void flush(ByteBuffer bb, ByteBuffer chunkbb) {
+      throw new IllegalStateException("value did not fit in its buffer");
+    }
+  };
+}
@@ -24,7 +24,6 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.logging.log4j.Logger;
@@ -301,7 +300,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
     if (bitOnly) {
       dr.endRead(start, this.stats.endRead(start, 1), 1);
     } else {
-      dr.endRead(start, this.stats.endRead(start, bb.getBytes().length), bb.getBytes().length);
+      dr.endRead(start, this.stats.endRead(start, bb.getLength()), bb.getLength());
     }
     return bb;
   }
@@ -799,6 +798,12 @@ class OverflowOplog implements CompactableOplog, Flushable {
 
   private BytesAndBits attemptGet(DiskRegionView dr, long offsetInOplog, int valueLength,
       byte userBits) throws IOException {
+    if (DiskStoreImpl.MAPPED_READS && this.doneAppending) {
+      BytesAndBits bb = attemptMappedGet(offsetInOplog, valueLength, userBits);
+      if (bb != null) {
+        return bb;
+      }
+    }
     synchronized (this.crf) {
       assert offsetInOplog >= 0;
       RandomAccessFile myRAF = this.crf.raf;
@@ -834,6 +839,63 @@ class OverflowOplog implements CompactableOplog, Flushable {
     } // sync
   }
 
+  /**
+   * Reads a value as a slice of a memory mapping of the crf. Returns null if the crf can not be
+   * mapped, in which case the caller falls back to reading through the RandomAccessFile.
+   */
+  private BytesAndBits attemptMappedGet(long offsetInOplog, int valueLength, byte userBits) {
+    MappedOplogFile mapped = this.mappedCrf;
+    if (mapped == null) {
+      mapped = mapCrf();
+      if (mapped == null) {
+        return null;
+      }
+    }
+    ByteBuffer value = mapped.slice(offsetInOplog, valueLength);
+    if (value == null) {
+      return null;
+    }
+    this.stats.incMappedReads();
+    return new BytesAndBits(value, userBits);
+  }
+
+  /**
+   * Maps the crf if this oplog is done appending and it has not been mapped yet.
+   *
+   * @return the mapping or null if the crf can not be mapped
+   */
+  private MappedOplogFile mapCrf() {
+    synchronized (this.crf) {
+      if (this.mappedCrf == null && !this.crfMapFailed && this.doneAppending && !this.closed
+          && !this.deleted.get() && this.crf.f != null && this.crf.bytesFlushed > 0) {
+        try {
+          this.mappedCrf = MappedOplogFile.map(this.crf.f, this.crf.bytesFlushed);
+          this.stats.incMappedOplogs(this.mappedCrf.getLength());
+        } catch (IOException ex) {
+          // most likely out of address space; keep reading through the RandomAccessFile
+          this.crfMapFailed = true;
+          if (logger.isDebugEnabled()) {
+            logger.debug("Could not memory map {} for reading", this.crf.f, ex);
+          }
+        }
+      }
+      return this.mappedCrf;
+    }
+  }
+
+  /**
+   * Drops the memory mapping of the crf, if any. Values already read from it stay valid.
+   */
+  private void unmapCrf() {
+    synchronized (this.crf) {
+      if (this.mappedCrf != null) {
+        this.stats.decMappedOplogs(this.mappedCrf.getLength());
+        this.mappedCrf.close();
+        this.mappedCrf = null;
+      }
+    }
+  }
+
   private BytesAndBits attemptWriteBufferGet(long writePosition, long readPosition, int valueLength,
       byte userBits) {
     BytesAndBits bb = null;
@@ -911,6 +973,14 @@ class OverflowOplog implements CompactableOplog, Flushable {
 
   private final AtomicBoolean deleted = new AtomicBoolean();
 
+  /**
+   * Read only mapping of the crf used for reads once this oplog is done appending. Only set if
+   * {@link DiskStoreImpl#MAPPED_READS} is true.
+   */
+  private volatile MappedOplogFile mappedCrf;
+
+  private boolean crfMapFailed;
+
   /**
    * deletes the oplog's file(s)
    */
@@ -923,6 +993,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
   }
 
   private void deleteFile() {
+    unmapCrf();
     final OplogFile olf = getOLF();
     if (this.maxOplogSize != 0) {
       this.dirHolder.decrementTotalOplogSize(this.maxOplogSize);
@@ -1207,7 +1278,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
     return v != null && v == Boolean.TRUE;
   }
 
-  private final Lock compactorLock = new ReentrantLock();
+  private final ReentrantLock compactorLock = new ReentrantLock();
 
   private void lockCompactor() {
     this.compactorLock.lock();
@@ -1254,6 +1325,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
           }
           lastDe = de;
           didCompact = false;
+          long copiedBytes = 0;
           synchronized (de) { // fix for bug 41797
             DiskId did = de.getDiskId();
             assert did != null;
@@ -1295,12 +1367,14 @@ class OverflowOplog implements CompactableOplog, Flushable {
                 getOplogSet().copyForwardForOverflowCompact(de, valueBytes, length, userBits);
                 // the did's oplogId will now be set to the current active oplog
                 didCompact = true;
+                copiedBytes = length;
               }
             } // did
           } // de
           if (didCompact) {
             totalCount++;
             getStats().endCompactionUpdate(opStart);
+            compactor.throttle(copiedBytes, this.compactorLock::hasQueuedThreads);
             opStart = getStats().getStatTime();
             // Check if the value byte array happens to be any of the constant
             // static byte arrays or references the value byte array of underlying RegionEntry.
@@ -0,0 +1,819 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_EQ;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_GE;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_GT;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_LE;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_LT;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_NE;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_NE_ALT;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.DSCODE;
+import org.apache.geode.pdx.PdxInstance;
+import org.apache.geode.pdx.internal.PdxField;
+import org.apache.geode.pdx.internal.PdxInputStream;
+import org.apache.geode.pdx.internal.PdxReaderImpl;
+import org.apache.geode.pdx.internal.PdxType;
+import org.apache.geode.pdx.internal.TypeRegistry;
+
+/**
+ * Keeps the values of a bucket decomposed into one array per field of the most common PDX type
+ * stored in the bucket, so that a query filtering on a single field can compare that field for
+ * every value without deserializing any of them. Fields of type boolean, byte, short, int, long,
+ * float, double and String get a column; other fields are only available through the values.
+ * <p>
+ * Entries that can't be decomposed are kept as unchecked entries: values of another PDX type,
+ * values that are not serialized PDX and invalid entries. A scan hands them back so that the
+ * query evaluates them the regular way. When the entries of another PDX type outnumber the
+ * decomposed ones the store switches to that type.
+ * <p>
+ * The store is only created for the heap regions named in {@link #REGIONS_PROPERTY}. The
+ * {@link BucketRegion} hooks that keep track of the bucket size only note which keys changed,
+ * which costs one insert into a concurrent set and never waits for a scan. The changed values are
+ * read back from the bucket and decomposed by the next scan, and a scan that can't get the store
+ * to itself right away returns null so that the query iterates the bucket instead.
+ * <p>
+ * The columns sit next to the stored values rather than replacing them, and no value is
+ * referenced from the store. A decomposed entry costs a reference in the key array, an entry in
+ * the slot map (about 20 bytes), 8 bytes per numeric column, 1 byte per boolean column and 5
+ * bytes per String column, which only keeps the hash of the string. Keys changed since the last
+ * scan also cost an entry in the set of changed keys until that scan.
+ *
+ * @see org.apache.geode.cache.query.internal.CompiledSelect
+ */
+public class PdxColumnStore {
+
+  /**
+   * Comma separated names or full paths of the partitioned regions that keep a column store for
+   * each of their buckets.
+   */
+  public static final String REGIONS_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "PdxColumnStore.REGIONS";
+
+  private static final Set<String> COLUMNAR_REGIONS =
+      parseRegions(System.getProperty(REGIONS_PROPERTY));
+
+  /**
+   * How many entries of another PDX type are needed before the store switches to that type.
+   */
+  static final int MIN_ENTRIES_TO_SWITCH_TYPE = 64;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private static final int PDX_HEADER_SIZE = 9;
+
+  private final TypeRegistry typeRegistry;
+
+  /**
+   * Reads the current value of an entry: null if the entry no longer exists and
+   * {@link Token#NOT_AVAILABLE} if its value is not held in memory.
+   */
+  private final Function<Object, Object> valueReader;
+
+  /** the keys whose values changed since they were last decomposed */
+  private final Set<Object> changedKeys = ConcurrentHashMap.newKeySet();
+
+  /** true if the bucket was cleared since the last time changes were applied */
+  private volatile boolean cleared;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** the slot of each decomposed entry */
+  private final Object2IntOpenHashMap<Object> slots = new Object2IntOpenHashMap<>();
+
+  /** the keys of the entries that are not decomposed */
+  private final Set<Object> uncheckedKeys = new HashSet<>();
+
+  /** the PDX type of each unchecked entry whose value is a PDX instance */
+  private final Object2IntOpenHashMap<Object> uncheckedTypeIds = new Object2IntOpenHashMap<>();
+
+  /** how many unchecked entries there are of each PDX type */
+  private final Int2IntOpenHashMap uncheckedTypeCounts = new Int2IntOpenHashMap();
+
+  private PdxType type;
+
+  private Map<String, Column> columns = Collections.emptyMap();
+
+  /** the key of each slot, null for free slots */
+  private Object[] keys = new Object[INITIAL_CAPACITY];
+
+  private int slotLimit;
+
+  private int[] freeSlots = new int[INITIAL_CAPACITY];
+
+  private int freeSlotCount;
+
+  public PdxColumnStore(TypeRegistry typeRegistry, Function<Object, Object> valueReader) {
+    this.typeRegistry = typeRegistry;
+    this.valueReader = valueReader;
+    this.slots.defaultReturnValue(-1);
+    this.uncheckedTypeIds.defaultReturnValue(0);
+    this.uncheckedTypeCounts.defaultReturnValue(0);
+  }
+
+  /**
+   * Returns true if the buckets of the given region should keep a column store.
+   */
+  public static boolean isEnabledFor(PartitionedRegion region) {
+    return !COLUMNAR_REGIONS.isEmpty() && !region.getOffHeap()
+        && (COLUMNAR_REGIONS.contains(region.getName())
+            || COLUMNAR_REGIONS.contains(region.getFullPath()));
+  }
+
+  static Set<String> parseRegions(String regions) {
+    if (regions == null || regions.trim().isEmpty()) {
+      return Collections.emptySet();
+    }
+    Set<String> result = new HashSet<>();
+    for (String region : regions.split(",")) {
+      if (!region.trim().isEmpty()) {
+        result.add(region.trim());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Notes that the value of an entry was created, updated or removed. Only the key is recorded;
+   * the value is read back and decomposed by the next scan.
+   */
+  public void changed(Object key) {
+    this.changedKeys.add(key);
+  }
+
+  /**
+   * Returns true if the value of an entry changed since it was last decomposed, in which case its
+   * columns can't be trusted.
+   */
+  public boolean hasChanged(Object key) {
+    return this.changedKeys.contains(key);
+  }
+
+  /**
+   * Notes that every entry was removed. Like {@link #changed}, this is applied by the next scan.
+   */
+  public void clear() {
+    this.cleared = true;
+    this.changedKeys.clear();
+  }
+
+  /**
+   * Decomposes the values of the entries that changed since the last time. A key is dropped from
+   * the changed keys before its value is read, so a change that happens meanwhile is noted again.
+   *
+   * @return false if another thread is using the store, in which case nothing is done
+   */
+  private boolean applyChanges() {
+    if (this.changedKeys.isEmpty() && !this.cleared) {
+      return true;
+    }
+    if (!this.lock.writeLock().tryLock()) {
+      return false;
+    }
+    try {
+      if (this.cleared) {
+        this.cleared = false;
+        reset();
+      }
+      for (Iterator<Object> iterator = this.changedKeys.iterator(); iterator.hasNext();) {
+        Object key = iterator.next();
+        iterator.remove();
+        basicRemove(key);
+        Object value = this.valueReader.apply(key);
+        if (value != null && !Token.isRemoved(value)) {
+          basicPut(key, value, true);
+        }
+      }
+      return true;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of entries in this store, decomposed or not.
+   */
+  public int size() {
+    applyChanges();
+    this.lock.readLock().lock();
+    try {
+      return this.slots.size() + this.uncheckedKeys.size();
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of entries whose values are decomposed into columns.
+   */
+  public int getColumnizedCount() {
+    applyChanges();
+    this.lock.readLock().lock();
+    try {
+      return this.slots.size();
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the PDX type whose values are decomposed, or null if there is none yet.
+   */
+  public PdxType getType() {
+    applyChanges();
+    this.lock.readLock().lock();
+    try {
+      return this.type;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Compares a field of every decomposed value with a constant the way
+   * {@link org.apache.geode.cache.query.internal.types.TypeUtils#compare} would.
+   *
+   * The store is held until the result is {@link ScanResult#release released}, so that no other
+   * scan applies changes meanwhile and {@link #hasChanged} tells whether a matching entry still
+   * matches. Writes to the bucket don't wait for it.
+   *
+   * @param operator one of the comparison tokens of the query parser
+   * @return the entries whose field matches and the entries that have to be checked the regular
+   *         way, or null if the field has no column, the comparison can't be done on the column or
+   *         the store is busy, in which case every entry has to be checked the regular way
+   */
+  public ScanResult scan(String fieldName, int operator, Object constant) {
+    if (!isSupported(operator) || constant == null || !applyChanges()) {
+      return null;
+    }
+    if (!this.lock.readLock().tryLock()) {
+      return null;
+    }
+    boolean release = true;
+    try {
+      Column column = this.columns.get(fieldName);
+      if (column == null || (!column.isOrdered() && operator != TOK_EQ && operator != TOK_NE
+          && operator != TOK_NE_ALT)) {
+        return null;
+      }
+      IntUnaryOperator comparator = column.comparator(constant);
+      if (comparator == null) {
+        return null;
+      }
+      ScanResult result =
+          new ScanResult(this.lock.readLock(), this.slots.size() + this.uncheckedKeys.size());
+      boolean exact = column.isExact();
+      for (int slot = 0; slot < this.slotLimit; slot++) {
+        Object key = this.keys[slot];
+        if (key == null) {
+          continue;
+        }
+        if (column.isNull(slot)) {
+          result.uncheckedKeys.add(key);
+          continue;
+        }
+        int comparison = comparator.applyAsInt(slot);
+        if (!exact && comparison == 0) {
+          result.uncheckedKeys.add(key);
+        } else if (matches(comparison, operator)) {
+          result.matchingKeys.add(key);
+        }
+      }
+      result.uncheckedKeys.addAll(this.uncheckedKeys);
+      release = false;
+      return result;
+    } finally {
+      if (release) {
+        this.lock.readLock().unlock();
+      }
+    }
+  }
+
+  private static boolean isSupported(int operator) {
+    switch (operator) {
+      case TOK_EQ:
+      case TOK_NE:
+      case TOK_NE_ALT:
+      case TOK_LT:
+      case TOK_LE:
+      case TOK_GT:
+      case TOK_GE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean matches(int comparison, int operator) {
+    switch (operator) {
+      case TOK_EQ:
+        return comparison == 0;
+      case TOK_NE:
+      case TOK_NE_ALT:
+        return comparison != 0;
+      case TOK_LT:
+        return comparison < 0;
+      case TOK_LE:
+        return comparison <= 0;
+      case TOK_GT:
+        return comparison > 0;
+      default:
+        return comparison >= 0;
+    }
+  }
+
+  private void basicPut(Object key, Object value, boolean mayChangeType) {
+    byte[] bytes = getSerializedPdx(value);
+    int typeId = bytes == null ? 0 : getTypeId(bytes);
+    if (typeId == 0) {
+      this.uncheckedKeys.add(key);
+      return;
+    }
+    if (mayChangeType && (this.type == null || this.type.getTypeId() != typeId)) {
+      int count = this.uncheckedTypeCounts.get(typeId) + 1;
+      if (this.slots.isEmpty()
+          || (count >= MIN_ENTRIES_TO_SWITCH_TYPE && count > this.slots.size())) {
+        PdxType newType = this.typeRegistry.getType(typeId);
+        if (newType != null) {
+          switchType(newType);
+        }
+      }
+    }
+    if (this.type == null || this.type.getTypeId() != typeId || !decompose(key, bytes)) {
+      this.uncheckedKeys.add(key);
+      this.uncheckedTypeIds.put(key, typeId);
+      this.uncheckedTypeCounts.addTo(typeId, 1);
+    }
+  }
+
+  private void basicRemove(Object key) {
+    int slot = this.slots.removeInt(key);
+    if (slot >= 0) {
+      freeSlot(slot);
+      return;
+    }
+    this.uncheckedKeys.remove(key);
+    int typeId = this.uncheckedTypeIds.removeInt(key);
+    if (typeId != 0 && this.uncheckedTypeCounts.addTo(typeId, -1) == 1) {
+      this.uncheckedTypeCounts.remove(typeId);
+    }
+  }
+
+  private boolean decompose(Object key, byte[] bytes) {
+    int slot = allocateSlot();
+    try {
+      PdxInputStream in = new PdxInputStream(bytes);
+      in.readByte();
+      int length = in.readInt();
+      in.readInt();
+      PdxReaderImpl reader = new PdxReaderImpl(this.type, in, length);
+      for (Column column : this.columns.values()) {
+        column.read(reader, slot);
+      }
+    } catch (IOException | RuntimeException e) {
+      freeSlot(slot);
+      return false;
+    }
+    this.keys[slot] = key;
+    this.slots.put(key, slot);
+    return true;
+  }
+
+  private int allocateSlot() {
+    if (this.freeSlotCount > 0) {
+      return this.freeSlots[--this.freeSlotCount];
+    }
+    if (this.slotLimit == this.keys.length) {
+      int capacity = this.keys.length * 2;
+      this.keys = Arrays.copyOf(this.keys, capacity);
+      for (Column column : this.columns.values()) {
+        column.ensureCapacity(capacity);
+      }
+    }
+    return this.slotLimit++;
+  }
+
+  private void freeSlot(int slot) {
+    this.keys[slot] = null;
+    if (this.freeSlotCount == this.freeSlots.length) {
+      this.freeSlots = Arrays.copyOf(this.freeSlots, this.freeSlotCount * 2);
+    }
+    this.freeSlots[this.freeSlotCount++] = slot;
+  }
+
+  /**
+   * Decomposes the values of the given type instead of the current one, reading the value of
+   * every entry of this store again and putting it through {@link #basicPut}.
+   */
+  private void switchType(PdxType newType) {
+    Set<Object> entryKeys = new LinkedHashSet<>();
+    for (int slot = 0; slot < this.slotLimit; slot++) {
+      if (this.keys[slot] != null) {
+        entryKeys.add(this.keys[slot]);
+      }
+    }
+    entryKeys.addAll(this.uncheckedKeys);
+    reset();
+    this.type = newType;
+    Map<String, Column> newColumns = new HashMap<>();
+    for (PdxField field : newType.getFields()) {
+      Column column = createColumn(field, this.keys.length);
+      if (column != null && !field.isDeleted()) {
+        newColumns.put(field.getFieldName(), column);
+      }
+    }
+    this.columns = newColumns;
+    for (Object key : entryKeys) {
+      Object value = this.valueReader.apply(key);
+      if (value != null && !Token.isRemoved(value)) {
+        basicPut(key, value, false);
+      }
+    }
+  }
+
+  private void reset() {
+    this.slots.clear();
+    this.uncheckedKeys.clear();
+    this.uncheckedTypeIds.clear();
+    this.uncheckedTypeCounts.clear();
+    Arrays.fill(this.keys, null);
+    this.slotLimit = 0;
+    this.freeSlotCount = 0;
+  }
+
+  /**
+   * Returns the serialized form of the given region entry value if it is a PDX instance, or null.
+   */
+  static byte[] getSerializedPdx(Object value) {
+    if (!(value instanceof CachedDeserializable)) {
+      return null;
+    }
+    CachedDeserializable cd = (CachedDeserializable) value;
+    Object form = cd.getValue();
+    byte[] bytes;
+    if (form instanceof byte[]) {
+      bytes = (byte[]) form;
+    } else if (form instanceof PdxInstance) {
+      bytes = cd.getSerializedValue();
+    } else {
+      return null;
+    }
+    if (bytes.length < PDX_HEADER_SIZE || bytes[0] != DSCODE.PDX.toByte()) {
+      return null;
+    }
+    return bytes;
+  }
+
+  private static int getTypeId(byte[] bytes) {
+    return (bytes[5] & 0xff) << 24 | (bytes[6] & 0xff) << 16 | (bytes[7] & 0xff) << 8
+        | (bytes[8] & 0xff);
+  }
+
+  private static Column createColumn(PdxField field, int capacity) {
+    switch (field.getFieldType()) {
+      case BOOLEAN:
+        return new BooleanColumn(field, capacity);
+      case BYTE:
+      case SHORT:
+      case INT:
+      case LONG:
+        return new LongColumn(field, capacity);
+      case FLOAT:
+        return new FloatColumn(field, capacity);
+      case DOUBLE:
+        return new DoubleColumn(field, capacity);
+      case STRING:
+        return new StringColumn(field, capacity);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * The entries a {@link #scan} found.
+   */
+  public static class ScanResult {
+
+    private final Lock lock;
+
+    private final int entryCount;
+
+    private final List<Object> matchingKeys = new ArrayList<>();
+
+    private final List<Object> uncheckedKeys = new ArrayList<>();
+
+    ScanResult(Lock lock, int entryCount) {
+      this.lock = lock;
+      this.entryCount = entryCount;
+    }
+
+    /**
+     * Releases the store. Must be called once by the thread that did the scan.
+     */
+    public void release() {
+      this.lock.unlock();
+    }
+
+    /**
+     * Returns the number of entries the store held when it was scanned.
+     */
+    public int getEntryCount() {
+      return this.entryCount;
+    }
+
+    /**
+     * Returns the keys of the entries whose field matched. An entry that has
+     * {@link PdxColumnStore#hasChanged changed} since has to be checked again.
+     */
+    public List<Object> getMatchingKeys() {
+      return this.matchingKeys;
+    }
+
+    /**
+     * Returns the keys of the entries that have to be checked the regular way.
+     */
+    public List<Object> getUncheckedKeys() {
+      return this.uncheckedKeys;
+    }
+  }
+
+  private abstract static class Column {
+
+    final PdxField field;
+
+    Column(PdxField field) {
+      this.field = field;
+    }
+
+    abstract void read(PdxReaderImpl reader, int slot);
+
+    abstract void ensureCapacity(int capacity);
+
+    boolean isNull(int slot) {
+      return false;
+    }
+
+    /**
+     * Returns true if the column supports comparisons other than equality.
+     */
+    boolean isOrdered() {
+      return true;
+    }
+
+    /**
+     * Returns false if the column only keeps a digest of the field, in which case a comparison
+     * result of 0 means the value might be equal and has to be checked the regular way.
+     */
+    boolean isExact() {
+      return true;
+    }
+
+    /**
+     * Returns a function comparing the value of a slot with the given constant, or null if the
+     * constant can't be compared with the values of this column.
+     */
+    abstract IntUnaryOperator comparator(Object constant);
+  }
+
+  /**
+   * Holds byte, short, int and long fields. The query engine compares all of them as longs
+   * unless the other operand is a float or a double.
+   */
+  private static class LongColumn extends Column {
+
+    private long[] values;
+
+    LongColumn(PdxField field, int capacity) {
+      super(field);
+      this.values = new long[capacity];
+    }
+
+    @Override
+    void read(PdxReaderImpl reader, int slot) {
+      switch (this.field.getFieldType()) {
+        case BYTE:
+          this.values[slot] = reader.readByte(this.field);
+          break;
+        case SHORT:
+          this.values[slot] = reader.readShort(this.field);
+          break;
+        case INT:
+          this.values[slot] = reader.readInt(this.field);
+          break;
+        default:
+          this.values[slot] = reader.readLong(this.field);
+      }
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+      this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    @Override
+    IntUnaryOperator comparator(Object constant) {
+      if (constant instanceof Double) {
+        double value = (Double) constant;
+        return slot -> Double.compare((double) this.values[slot], value);
+      } else if (constant instanceof Float) {
+        float value = (Float) constant;
+        return slot -> Float.compare((float) (double) this.values[slot], value);
+      } else if (constant instanceof Long || constant instanceof Integer
+          || constant instanceof Short || constant instanceof Byte) {
+        long value = ((Number) constant).longValue();
+        return slot -> Long.compare(this.values[slot], value);
+      }
+      return null;
+    }
+  }
+
+  private static class FloatColumn extends Column {
+
+    private float[] values;
+
+    FloatColumn(PdxField field, int capacity) {
+      super(field);
+      this.values = new float[capacity];
+    }
+
+    @Override
+    void read(PdxReaderImpl reader, int slot) {
+      this.values[slot] = reader.readFloat(this.field);
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+      this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    @Override
+    IntUnaryOperator comparator(Object constant) {
+      if (constant instanceof Double) {
+        double value = (Double) constant;
+        return slot -> Double.compare(this.values[slot], value);
+      } else if (constant instanceof Float || constant instanceof Long
+          || constant instanceof Integer || constant instanceof Short
+          || constant instanceof Byte) {
+        float value = (float) ((Number) constant).doubleValue();
+        return slot -> Float.compare(this.values[slot], value);
+      }
+      return null;
+    }
+  }
+
+  private static class DoubleColumn extends Column {
+
+    private double[] values;
+
+    DoubleColumn(PdxField field, int capacity) {
+      super(field);
+      this.values = new double[capacity];
+    }
+
+    @Override
+    void read(PdxReaderImpl reader, int slot) {
+      this.values[slot] = reader.readDouble(this.field);
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+      this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    @Override
+    IntUnaryOperator comparator(Object constant) {
+      if (constant instanceof Double || constant instanceof Float || constant instanceof Long
+          || constant instanceof Integer || constant instanceof Short
+          || constant instanceof Byte) {
+        double value = ((Number) constant).doubleValue();
+        return slot -> Double.compare(this.values[slot], value);
+      }
+      return null;
+    }
+  }
+
+  private static class BooleanColumn extends Column {
+
+    private boolean[] values;
+
+    BooleanColumn(PdxField field, int capacity) {
+      super(field);
+      this.values = new boolean[capacity];
+    }
+
+    @Override
+    void read(PdxReaderImpl reader, int slot) {
+      this.values[slot] = reader.readBoolean(this.field);
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+      this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    @Override
+    boolean isOrdered() {
+      return false;
+    }
+
+    @Override
+    IntUnaryOperator comparator(Object constant) {
+      if (constant instanceof Boolean) {
+        boolean value = (Boolean) constant;
+        return slot -> this.values[slot] == value ? 0 : 1;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Holds the hash codes of String fields, so that the strings themselves are not kept twice.
+   * Only equality is done on the column since the query engine orders the strings of PDX values by
+   * their encoded form. Values with the same hash code as the constant, and null strings, are left
+   * to the regular evaluation.
+   */
+  private static class StringColumn extends Column {
+
+    private int[] hashes;
+
+    private boolean[] nulls;
+
+    StringColumn(PdxField field, int capacity) {
+      super(field);
+      this.hashes = new int[capacity];
+      this.nulls = new boolean[capacity];
+    }
+
+    @Override
+    void read(PdxReaderImpl reader, int slot) {
+      String value = reader.readString(this.field);
+      this.hashes[slot] = value == null ? 0 : value.hashCode();
+      this.nulls[slot] = value == null;
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+      this.hashes = Arrays.copyOf(this.hashes, capacity);
+      this.nulls = Arrays.copyOf(this.nulls, capacity);
+    }
+
+    @Override
+    boolean isNull(int slot) {
+      return this.nulls[slot];
+    }
+
+    @Override
+    boolean isOrdered() {
+      return false;
+    }
+
+    @Override
+    boolean isExact() {
+      return false;
+    }
+
+    @Override
+    IntUnaryOperator comparator(Object constant) {
+      if (constant instanceof String) {
+        int hash = constant.hashCode();
+        return slot -> this.hashes[slot] == hash ? 0 : 1;
+      }
+      return null;
+    }
+  }
+}
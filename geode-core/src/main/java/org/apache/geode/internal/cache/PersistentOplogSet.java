@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -85,6 +86,11 @@ public class PersistentOplogSet implements OplogSet {
    */
   private volatile long maxRecoveredOplogId = 0;
 
+  /**
+   * Reads krfs ahead of the recovery thread. Only set while oplogs are being recovered.
+   */
+  private volatile KrfPrefetcher<Oplog.DecodedKrf> krfPrefetcher;
+
 
   public PersistentOplogSet(DiskStoreImpl parent) {
     this.parent = parent;
@@ -404,7 +410,7 @@ public class PersistentOplogSet implements OplogSet {
                 }
               } else {
                 parent.incLiveEntryCount(vdr.size());
-                System.out.println(vdr.getName() + ": entryCount=" + vdr.size());
+                parent.printOfflineOutput(vdr.getName() + ": entryCount=" + vdr.size());
               }
             }
           }
@@ -412,8 +418,8 @@ public class PersistentOplogSet implements OplogSet {
         if (parent.isValidating()) {
           for (Map.Entry<String, Integer> me : prSizes.entrySet()) {
             parent.incLiveEntryCount(me.getValue());
-            System.out.println(me.getKey() + " entryCount=" + me.getValue() + " bucketCount="
-                + prBuckets.get(me.getKey()));
+            parent.printOfflineOutput(me.getKey() + " entryCount=" + me.getValue()
+                + " bucketCount=" + prBuckets.get(me.getKey()));
           }
         }
         parent.getStats().endRecovery(start, byteCount);
@@ -424,6 +430,42 @@ public class PersistentOplogSet implements OplogSet {
     }
   }
 
+  /**
+   * Starts reading and decoding the krfs of the given oplogs ahead of recovery if more than one
+   * recovery thread is configured. Returns null if the krfs will be read by the recovery thread.
+   */
+  private KrfPrefetcher<Oplog.DecodedKrf> createKrfPrefetcher(Set<Oplog> oplogSet) {
+    if (DiskStoreImpl.RECOVERY_THREADS <= 1 || recoverValuesSync()
+        || (parent.isOffline() && !parent.FORCE_KRF_RECOVERY)) {
+      return null;
+    }
+    List<File> krfFiles = new ArrayList<File>(oplogSet.size());
+    final Map<File, Oplog> krfOplogs = new HashMap<File, Oplog>();
+    for (Oplog oplog : oplogSet) {
+      if (parent.getDiskInitFile().hasKrf(oplog.getOplogId())) {
+        krfFiles.add(oplog.getKrfFile());
+        krfOplogs.put(oplog.getKrfFile(), oplog);
+      }
+    }
+    if (krfFiles.size() <= 1) {
+      return null;
+    }
+    return new KrfPrefetcher<>(krfFiles, DiskStoreImpl.RECOVERY_THREADS,
+        DiskStoreImpl.KRF_PREFETCH_MAX_BYTES, parent.getStats(),
+        (krfFile, contents) -> krfOplogs.get(krfFile).decodeKrf(krfFile, contents));
+  }
+
+  /**
+   * Returns the records of the given krf if they were decoded ahead of recovery, otherwise null.
+   */
+  Oplog.DecodedKrf takePrefetchedKrf(File krfFile) {
+    KrfPrefetcher<Oplog.DecodedKrf> prefetcher = this.krfPrefetcher;
+    if (prefetcher == null) {
+      return null;
+    }
+    return prefetcher.take(krfFile);
+  }
+
   private long recoverOplogs(long byteCount) {
     OplogEntryIdSet deletedIds = new OplogEntryIdSet();
 
@@ -440,9 +482,15 @@ public class PersistentOplogSet implements OplogSet {
     if (oplogSet.size() > 0) {
       long startOpLogRecovery = System.currentTimeMillis();
       // first figure out all entries that have been destroyed
+      OfflineDiskStoreReport report = parent.getOfflineReport();
       boolean latestOplog = true;
       for (Oplog oplog : oplogSet) {
-        byteCount += oplog.recoverDrf(deletedIds, this.alreadyRecoveredOnce.get(), latestOplog);
+        long drfBytes =
+            oplog.recoverDrf(deletedIds, this.alreadyRecoveredOnce.get(), latestOplog);
+        byteCount += drfBytes;
+        if (report != null) {
+          report.drfRecovered(oplog.getOplogId(), drfBytes);
+        }
         latestOplog = false;
         if (!this.alreadyRecoveredOnce.get()) {
           updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
@@ -450,24 +498,43 @@ public class PersistentOplogSet implements OplogSet {
       }
       parent.incDeadRecordCount(deletedIds.size());
       // now figure out live entries
-      latestOplog = true;
-      for (Oplog oplog : oplogSet) {
-        long startOpLogRead = parent.getStats().startOplogRead();
-        long bytesRead = oplog.recoverCrf(deletedIds,
-            // @todo make recoverValues per region
-            recoverValues(), recoverValuesSync(), this.alreadyRecoveredOnce.get(),
-            oplogsNeedingValueRecovery, latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
-        }
-        byteCount += bytesRead;
-        parent.getStats().endOplogRead(startOpLogRead, bytesRead);
+      this.krfPrefetcher = createKrfPrefetcher(oplogSet);
+      parent.getStats().incRecoveryOplogsRemaining(oplogSet.size());
+      int oplogsRecovered = 0;
+      try {
+        latestOplog = true;
+        for (Oplog oplog : oplogSet) {
+          long startOpLogRead = parent.getStats().startOplogRead();
+          long startCrfRecovery = System.nanoTime();
+          long bytesRead = oplog.recoverCrf(deletedIds,
+              // @todo make recoverValues per region
+              recoverValues(), recoverValuesSync(), this.alreadyRecoveredOnce.get(),
+              oplogsNeedingValueRecovery, latestOplog);
+          if (report != null) {
+            report.crfRecovered(oplog.getOplogId(), bytesRead, oplog.getTotalCount(),
+                oplog.getRecordsSkipped(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startCrfRecovery));
+          }
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
+          byteCount += bytesRead;
+          parent.getStats().endOplogRead(startOpLogRead, bytesRead);
 
-        // Callback to the disk regions to indicate the oplog is recovered
-        // Used for offline export
-        for (DiskRecoveryStore drs : this.currentRecoveryMap.values()) {
-          drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          // Callback to the disk regions to indicate the oplog is recovered
+          // Used for offline export
+          for (DiskRecoveryStore drs : this.currentRecoveryMap.values()) {
+            drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          }
+          oplogsRecovered++;
+          parent.getStats().incRecoveryOplogsRemaining(-1);
+        }
+      } finally {
+        parent.getStats().incRecoveryOplogsRemaining(oplogsRecovered - oplogSet.size());
+        if (this.krfPrefetcher != null) {
+          this.krfPrefetcher.close();
+          this.krfPrefetcher = null;
         }
       }
       long endOpLogRecovery = System.currentTimeMillis();
@@ -1031,27 +1098,28 @@ public class PersistentOplogSet implements OplogSet {
   }
 
   /**
-   * Add compactable oplogs to the list, up to the maximum size.
+   * Add compactable oplogs to the list, up to the maximum size. The oplogs with the most garbage
+   * are added first.
    */
   public void getCompactableOplogs(List<CompactableOplog> l, int max) {
+    // the live counts keep changing so the ratios are read once before sorting
+    Map<Oplog, Double> liveRatios = new LinkedHashMap<Oplog, Double>();
     synchronized (this.oplogIdToOplog) {
-      // Sort this list so we compact the oldest first instead of the one
-      // that was
-      // compactable first.
-      // ArrayList<CompactableOplog> l = new
-      // ArrayList<CompactableOplog>(this.oplogIdToOplog.values());
-      // Collections.sort(l);
-      // Iterator<Oplog> itr = l.iterator();
-      {
-        Iterator<Oplog> itr = this.oplogIdToOplog.values().iterator();
-        while (itr.hasNext() && l.size() < max) {
-          Oplog oplog = itr.next();
-          if (oplog.needsCompaction()) {
-            l.add(oplog);
-          }
+      for (Oplog oplog : this.oplogIdToOplog.values()) {
+        if (oplog.needsCompaction()) {
+          liveRatios.put(oplog, oplog.getLiveRatio());
         }
       }
     }
+    List<Oplog> compactable = new ArrayList<Oplog>(liveRatios.keySet());
+    // sort is stable so oplogs with the same ratio stay oldest first
+    compactable.sort(Comparator.comparing(liveRatios::get));
+    for (Oplog oplog : compactable) {
+      if (l.size() >= max) {
+        break;
+      }
+      l.add(oplog);
+    }
   }
 
   public void scheduleForRecovery(DiskRecoveryStore drs) {
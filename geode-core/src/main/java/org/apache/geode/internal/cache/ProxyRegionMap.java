@@ -883,6 +883,11 @@ class ProxyRegionMap implements RegionMap {
     return 0;
   }
 
+  @Override
+  public long demoteColdValues() {
+    return 0;
+  }
+
   @Override
   public void updateEvictionCounter() {}
 
@@ -366,6 +366,13 @@ public interface RegionMap extends EvictableMap {
 
   int centralizedLruUpdateCallback();
 
+  /**
+   * Moves the values that have not been used since the previous call from memory to disk.
+   *
+   * @return the number of bytes moved to disk
+   */
+  long demoteColdValues();
+
   void updateEvictionCounter();
 
   ConcurrentMapWithReusableEntries<Object, Object> getCustomEntryConcurrentHashMap();
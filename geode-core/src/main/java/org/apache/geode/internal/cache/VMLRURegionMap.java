@@ -571,7 +571,53 @@ public class VMLRURegionMap extends AbstractRegionMap {
     return evictedBytes;
   }
 
+  /**
+   * Moves the values of the entries that have not been used since the previous call to disk. Only
+   * regions that overflow to disk keep their values on disk, so nothing is demoted for other
+   * eviction actions. A value that is read again is faulted back in and its entry rejoins the
+   * eviction list, so calling this periodically keeps only the recently used values in memory.
+   *
+   * @return the number of bytes moved to disk
+   */
+  @Override
+  public long demoteColdValues() {
+    if (!_isOwnerALocalRegion()
+        || !getEvictionController().getEvictionAction().isOverflowToDisk()
+        || !getEvictionController().getEvictionAlgorithm().isLRU()) {
+      return 0;
+    }
+    final boolean isDebugEnabled_LRU = logger.isTraceEnabled(LogMarker.LRU_VERBOSE);
 
+    long demotedBytes = 0;
+    EvictionCounters stats = getEvictionList().getStatistics();
+    try {
+      // every entry in the list is considered once; entries used since they were last considered
+      // are only marked as unused and moved to the tail for the next pass
+      for (int remaining = getEvictionList().size(); remaining > 0; remaining--) {
+        EvictableEntry coldEntry = getEvictionList().getColdEntry();
+        if (coldEntry == null) {
+          continue;
+        }
+        int bytes = evictEntry(coldEntry, stats);
+        if (bytes != 0) {
+          demotedBytes += bytes;
+          _getOwner().incBucketEvictions();
+          stats.incEvictions();
+        }
+      }
+    } catch (RegionClearedException e) {
+      // Ignore
+      if (isDebugEnabled_LRU) {
+        logger.trace(LogMarker.LRU_VERBOSE, "exception ={}", e.getCause().getMessage(),
+            e.getCause());
+      }
+    }
+    if (isDebugEnabled_LRU) {
+      logger.trace(LogMarker.LRU_VERBOSE, "demoted {} bytes of cold values to disk",
+          demotedBytes);
+    }
+    return demotedBytes;
+  }
 
   /**
    * Update counter related to limit in list
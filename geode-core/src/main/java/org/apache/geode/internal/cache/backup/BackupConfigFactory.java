@@ -17,6 +17,7 @@ package org.apache.geode.internal.cache.backup;
 import static org.apache.geode.internal.cache.backup.AbstractBackupWriterConfig.TIMESTAMP;
 import static org.apache.geode.internal.cache.backup.AbstractBackupWriterConfig.TYPE;
 import static org.apache.geode.internal.cache.backup.FileSystemBackupWriterConfig.BASELINE_DIR;
+import static org.apache.geode.internal.cache.backup.FileSystemBackupWriterConfig.OPLOG_STORE_DIR;
 import static org.apache.geode.internal.cache.backup.FileSystemBackupWriterConfig.TARGET_DIR;
 
 import java.text.SimpleDateFormat;
@@ -27,6 +28,7 @@ class BackupConfigFactory {
 
   private String targetDirPath;
   private String baselineDirPath;
+  private String oplogStoreDirPath;
 
   BackupConfigFactory() {
     // nothing
@@ -42,6 +44,11 @@ class BackupConfigFactory {
     return this;
   }
 
+  BackupConfigFactory withOplogStoreDirPath(String oplogStoreDirPath) {
+    this.oplogStoreDirPath = oplogStoreDirPath;
+    return this;
+  }
+
   Properties createBackupProperties() {
     Properties properties = new Properties();
     SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss");
@@ -51,6 +58,9 @@ class BackupConfigFactory {
     if (baselineDirPath != null) {
       properties.setProperty(BASELINE_DIR, baselineDirPath);
     }
+    if (oplogStoreDirPath != null) {
+      properties.setProperty(OPLOG_STORE_DIR, oplogStoreDirPath);
+    }
     return properties;
   }
 }
@@ -67,8 +67,18 @@ public class BackupOperation {
   }
 
   public BackupStatus backupAllMembers(String targetDirPath, String baselineDirPath) {
+    return backupAllMembers(targetDirPath, baselineDirPath, null);
+  }
+
+  /**
+   * Backs up all members, keeping the oplogs in a content addressed store shared by all members
+   * and backups if {@code oplogStoreDirPath} is not null. The baseline is then ignored.
+   */
+  public BackupStatus backupAllMembers(String targetDirPath, String baselineDirPath,
+      String oplogStoreDirPath) {
     Properties properties = new BackupConfigFactory().withTargetDirPath(targetDirPath)
-        .withBaselineDirPath(baselineDirPath).createBackupProperties();
+        .withBaselineDirPath(baselineDirPath).withOplogStoreDirPath(oplogStoreDirPath)
+        .createBackupProperties();
     return performBackup(properties);
   }
 
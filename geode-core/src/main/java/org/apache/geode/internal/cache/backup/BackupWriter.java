@@ -26,6 +26,7 @@ public interface BackupWriter {
   String BACKUP_DIR_PREFIX = "dir";
   String README_FILE = "README_FILE.txt";
   String DATA_STORES_DIRECTORY = "diskstores";
+  String OPLOG_MANIFEST_FILE = "oplogs.manifest";
 
   void backupFiles(BackupDefinition backupDefinition) throws IOException;
 
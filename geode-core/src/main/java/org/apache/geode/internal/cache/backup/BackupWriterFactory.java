@@ -37,7 +37,12 @@ enum BackupWriterFactory {
         File baseline = new File(baselineDir).getAbsoluteFile();
         incrementalBackupLocation = new FileSystemIncrementalBackupLocation(baseline, memberId);
       }
-      return new FileSystemBackupWriter(targetDir, incrementalBackupLocation);
+      String oplogStoreDir = config.getOplogStoreDirectory();
+      ContentAddressedOplogStore oplogStore = null;
+      if (oplogStoreDir != null) {
+        oplogStore = new ContentAddressedOplogStore(Paths.get(oplogStoreDir).toAbsolutePath());
+      }
+      return new FileSystemBackupWriter(targetDir, incrementalBackupLocation, oplogStore);
     }
   };
 
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.backup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * A directory of backed up oplog files shared by any number of backups and members. Each oplog is
+ * stored once under the SHA-256 checksum of its content, so a backup only writes the oplogs that no
+ * earlier backup of any member has stored, and it can be restored from its own restore script
+ * without a chain of baseline backups.
+ * <p>
+ * An oplog is stored as {@code objects/<first two hex digits>/<checksum>/<file name>}. Keeping the
+ * original file name lets the restore script copy it back as is; an oplog with the same content
+ * but another name is hard linked next to it where the file system allows.
+ * <p>
+ * Computing a checksum means reading the whole oplog, so the checksum of every stored oplog is
+ * also kept in an index per disk store, keyed by file name and checked against the length and
+ * modification time of the file. Oplogs are not modified once they are backed up, so later
+ * backups only read the oplogs created since the previous one.
+ */
+class ContentAddressedOplogStore {
+
+  static final String OBJECTS_DIRECTORY = "objects";
+  static final String INDEX_DIRECTORY = "index";
+
+  private static final String CHECKSUM_ALGORITHM = "SHA-256";
+
+  private final Path storeDirectory;
+
+  ContentAddressedOplogStore(Path storeDirectory) {
+    this.storeDirectory = storeDirectory;
+  }
+
+  Path getStoreDirectory() {
+    return storeDirectory;
+  }
+
+  /**
+   * Reads the checksums recorded for the oplogs of a disk store by earlier backups.
+   *
+   * @param diskStoreName the unique name of the disk store
+   */
+  Properties readIndex(String diskStoreName) throws IOException {
+    Properties index = new Properties();
+    Path indexFile = getIndexFile(diskStoreName);
+    if (Files.exists(indexFile)) {
+      try (InputStream in = Files.newInputStream(indexFile)) {
+        index.load(in);
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Records the checksums of the oplogs of a disk store for later backups.
+   *
+   * @param diskStoreName the unique name of the disk store
+   */
+  void writeIndex(String diskStoreName, Properties index) throws IOException {
+    Path indexFile = getIndexFile(diskStoreName);
+    Files.createDirectories(indexFile.getParent());
+    Path temporaryFile = temporaryFile(indexFile.getParent());
+    try (OutputStream out = Files.newOutputStream(temporaryFile)) {
+      index.store(out, "Oplog checksums of disk store " + diskStoreName);
+    }
+    Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Stores an oplog unless the store already holds its content. The given file is moved into the
+   * store or deleted, so it should be a temporary link or copy of the oplog.
+   *
+   * @param oplog the oplog file to store
+   * @param index the checksums of the disk store the oplog belongs to; updated with the checksum
+   *        of the oplog
+   * @return the stored file
+   */
+  Path store(Path oplog, Properties index) throws IOException {
+    String fileName = oplog.getFileName().toString();
+    String checksum = getIndexedChecksum(oplog, index);
+    if (checksum == null) {
+      checksum = checksum(oplog);
+      index.setProperty(fileName, indexEntry(oplog, checksum));
+    }
+
+    Path objectDirectory = getObjectDirectory(checksum);
+    Path object = objectDirectory.resolve(fileName);
+    if (Files.exists(object)) {
+      Files.delete(oplog);
+      return object;
+    }
+
+    Files.createDirectories(objectDirectory);
+    if (linkToSameContent(objectDirectory, object)) {
+      Files.delete(oplog);
+      return object;
+    }
+
+    // the oplog may be on another file system, so move it next to the object before renaming it
+    // in place; another member storing the same content at the same time writes the same bytes
+    Path temporaryFile = temporaryFile(objectDirectory);
+    Files.move(oplog, temporaryFile);
+    Files.move(temporaryFile, object, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    return object;
+  }
+
+  Path getObjectDirectory(String checksum) {
+    return storeDirectory.resolve(OBJECTS_DIRECTORY).resolve(checksum.substring(0, 2))
+        .resolve(checksum);
+  }
+
+  /**
+   * Returns the checksum recorded for the oplog if the stored object still exists and the oplog
+   * has the length and modification time it had when the checksum was computed.
+   */
+  private String getIndexedChecksum(Path oplog, Properties index) throws IOException {
+    String fileName = oplog.getFileName().toString();
+    String entry = index.getProperty(fileName);
+    if (entry == null) {
+      return null;
+    }
+    int checksumStart = entry.lastIndexOf(':') + 1;
+    String checksum = entry.substring(checksumStart);
+    if (!entry.equals(indexEntry(oplog, checksum))
+        || !Files.exists(getObjectDirectory(checksum).resolve(fileName))) {
+      return null;
+    }
+    return checksum;
+  }
+
+  private String indexEntry(Path oplog, String checksum) throws IOException {
+    return Files.size(oplog) + ":" + Files.getLastModifiedTime(oplog).toMillis() + ":" + checksum;
+  }
+
+  private boolean linkToSameContent(Path objectDirectory, Path object) throws IOException {
+    try (DirectoryStream<Path> sameContent = Files.newDirectoryStream(objectDirectory,
+        path -> !path.getFileName().toString().startsWith("."))) {
+      for (Path existing : sameContent) {
+        try {
+          Files.createLink(object, existing);
+          return true;
+        } catch (IOException | UnsupportedOperationException e) {
+          // store a copy of its own instead
+          return false;
+        }
+      }
+    }
+    return false;
+  }
+
+  private Path getIndexFile(String diskStoreName) {
+    return storeDirectory.resolve(INDEX_DIRECTORY).resolve(diskStoreName + ".properties");
+  }
+
+  private Path temporaryFile(Path directory) {
+    return directory.resolve("." + UUID.randomUUID() + ".tmp");
+  }
+
+  static String checksum(Path file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(CHECKSUM_ALGORITHM + " is not available", e);
+    }
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+      while (in.read(buffer) != -1) {
+        // the digest is updated as the file is read
+      }
+    }
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest.digest()) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+}
@@ -19,8 +19,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 import org.apache.commons.io.FileUtils;
 
@@ -35,6 +38,7 @@ class FileSystemBackupWriter implements BackupWriter {
   private final Path backupDirectory;
   private final FileSystemIncrementalBackupLocation incrementalBaselineLocation;
   private final BackupFilter filter;
+  private final ContentAddressedOplogStore oplogStore;
 
   FileSystemBackupWriter(Path backupDirectory) {
     this(backupDirectory, null);
@@ -42,15 +46,26 @@ class FileSystemBackupWriter implements BackupWriter {
 
   FileSystemBackupWriter(Path backupDirectory,
       FileSystemIncrementalBackupLocation incrementalBaselineLocation) {
+    this(backupDirectory, incrementalBaselineLocation, null);
+  }
+
+  /**
+   * @param oplogStore if not null, oplogs are kept in this store instead of the backup directory
+   *        and the baseline is ignored
+   */
+  FileSystemBackupWriter(Path backupDirectory,
+      FileSystemIncrementalBackupLocation incrementalBaselineLocation,
+      ContentAddressedOplogStore oplogStore) {
     this.backupDirectory = backupDirectory;
     this.incrementalBaselineLocation = incrementalBaselineLocation;
+    this.oplogStore = oplogStore;
     filter = createBackupFilter(incrementalBaselineLocation);
   }
 
   private BackupFilter createBackupFilter(
       FileSystemIncrementalBackupLocation incrementalBaselineLocation) {
     BackupFilter filter;
-    if (incrementalBaselineLocation != null
+    if (oplogStore == null && incrementalBaselineLocation != null
         && Files.exists(incrementalBaselineLocation.getMemberBackupLocationDir())) {
       filter = new IncrementalBackupFilter(incrementalBaselineLocation);
     } else {
@@ -75,7 +90,11 @@ class FileSystemBackupWriter implements BackupWriter {
   private void backupAllFilesets(BackupDefinition backupDefinition) throws IOException {
     RestoreScript restoreScript = backupDefinition.getRestoreScript();
     backupDiskInitFiles(backupDefinition.getDiskInitFiles());
-    backupOplogs(backupDefinition.getOplogFilesByDiskStore(), restoreScript);
+    if (oplogStore != null) {
+      storeOplogs(backupDefinition.getOplogFilesByDiskStore(), restoreScript);
+    } else {
+      backupOplogs(backupDefinition.getOplogFilesByDiskStore(), restoreScript);
+    }
     backupConfigFiles(backupDefinition.getConfigFiles());
     backupUserFiles(backupDefinition.getUserFiles(), restoreScript);
     backupDeployedJars(backupDefinition.getDeployedJars(), restoreScript);
@@ -169,6 +188,33 @@ class FileSystemBackupWriter implements BackupWriter {
     }
   }
 
+  /**
+   * Moves the oplogs into the oplog store, skipping those it already holds, and lists them in the
+   * oplog manifest of the backup.
+   */
+  private void storeOplogs(Map<DiskStore, Collection<Path>> oplogFiles,
+      RestoreScript restoreScript) throws IOException {
+    File storesDir = new File(backupDirectory.toFile(), DATA_STORES_DIRECTORY);
+    List<String> manifest = new ArrayList<>();
+    for (Map.Entry<DiskStore, Collection<Path>> entry : oplogFiles.entrySet()) {
+      DiskStoreImpl diskStore = (DiskStoreImpl) entry.getKey();
+      String backupDirName = getBackupDirName(diskStore);
+      Properties index = oplogStore.readIndex(backupDirName);
+      for (Path path : entry.getValue()) {
+        Path storedOplog = oplogStore.store(path, index);
+        File originalOplog = new File(path.toAbsolutePath().getParent().getParent().toFile(),
+            path.getFileName().toString());
+        restoreScript.addStoredFile(storedOplog.toFile(), originalOplog);
+        manifest.add(
+            oplogStore.getStoreDirectory().relativize(storedOplog) + "\t" + originalOplog);
+      }
+      oplogStore.writeIndex(backupDirName, index);
+      File targetStoresDir = new File(storesDir, backupDirName);
+      addDiskStoreDirectoriesToRestoreScript(diskStore, targetStoresDir, restoreScript);
+    }
+    Files.write(backupDirectory.resolve(OPLOG_MANIFEST_FILE), manifest);
+  }
+
   private Path getOplogBackupDir(DiskStore diskStore, int index) {
     String name = diskStore.getName();
     if (name == null) {
@@ -22,6 +22,7 @@ class FileSystemBackupWriterConfig extends AbstractBackupWriterConfig {
 
   static final String TARGET_DIR = "TARGET_DIRECTORY";
   static final String BASELINE_DIR = "BASELINE_DIRECTORY";
+  static final String OPLOG_STORE_DIR = "OPLOG_STORE_DIRECTORY";
 
   FileSystemBackupWriterConfig(Properties properties) {
     super(properties);
@@ -38,4 +39,8 @@ class FileSystemBackupWriterConfig extends AbstractBackupWriterConfig {
   String getBaselineDirectory() {
     return getProperties().getProperty(BASELINE_DIR);
   }
+
+  String getOplogStoreDirectory() {
+    return getProperties().getProperty(OPLOG_STORE_DIR);
+  }
 }
@@ -19,11 +19,14 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.geode.internal.lang.SystemUtils;
 
@@ -52,10 +55,13 @@ class RestoreScript {
 
   private static final String RESTORE_DATA_COMMENT = "Restore data";
 
+  static final String STORED_OPLOGS_COMMENT = "Restore oplogs from the oplog store.";
+
   private final ScriptGenerator generator;
   private final Map<File, File> baselineFiles = new HashMap<>();
   private final Map<File, File> backedUpFiles = new LinkedHashMap<>();
   private final List<File> existenceTests = new ArrayList<>();
+  private final List<Map.Entry<File, File>> storedFiles = new ArrayList<>();
 
   RestoreScript() {
     this(SystemUtils.isWindows() ? new WindowsScriptGenerator() : new UnixScriptGenerator());
@@ -73,6 +79,14 @@ class RestoreScript {
     baselineFiles.put(baseline, absoluteFile);
   }
 
+  /**
+   * Adds an oplog kept in a {@link ContentAddressedOplogStore}. The same stored file may be
+   * restored to several locations.
+   */
+  void addStoredFile(final File storedFile, final File originalFile) {
+    storedFiles.add(new AbstractMap.SimpleEntry<>(storedFile, originalFile.getAbsoluteFile()));
+  }
+
   public void addFile(final File originalFile, final File backupFile) {
     backedUpFiles.put(backupFile, originalFile.getAbsoluteFile());
   }
@@ -89,6 +103,7 @@ class RestoreScript {
       writeAbout(writer);
       writeExistenceTest(writer);
       writeRestoreData(writer, outputDir.toPath());
+      writeStoredData(writer);
       writeIncrementalData(writer);
       generator.writeExit(writer);
     }
@@ -134,6 +149,23 @@ class RestoreScript {
     }
   }
 
+  private void writeStoredData(BufferedWriter writer) throws IOException {
+    if (storedFiles.isEmpty()) {
+      return;
+    }
+
+    writer.newLine();
+    generator.writeComment(writer, STORED_OPLOGS_COMMENT);
+    Set<File> directories = new HashSet<>();
+    for (Map.Entry<File, File> entry : storedFiles) {
+      File directory = entry.getValue().getParentFile();
+      if (directories.add(directory)) {
+        generator.writeCreateDirectory(writer, directory);
+      }
+      generator.writeCopyFile(writer, entry.getKey(), entry.getValue());
+    }
+  }
+
   private void writeIncrementalData(BufferedWriter writer) throws IOException {
     // Write out baseline file copies in restore script (if there are any) if this is a restore
     // for an incremental backup
@@ -26,6 +26,8 @@ interface ScriptGenerator {
 
   void writeCopyFile(BufferedWriter writer, File backup, File original) throws IOException;
 
+  void writeCreateDirectory(BufferedWriter writer, File directory) throws IOException;
+
   void writeCopyDirectoryContents(BufferedWriter writer, File backup, File original,
       boolean backupHasFiles) throws IOException;
 
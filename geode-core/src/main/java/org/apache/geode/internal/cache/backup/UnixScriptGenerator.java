@@ -47,6 +47,13 @@ class UnixScriptGenerator implements ScriptGenerator {
     }
   }
 
+  @Override
+  public void writeCreateDirectory(final BufferedWriter writer, final File directory)
+      throws IOException {
+    writer.write("mkdir -p '" + directory + "'");
+    writer.newLine();
+  }
+
   @Override
   public void writeCopyFile(final BufferedWriter writer, final File backup, final File original)
       throws IOException {
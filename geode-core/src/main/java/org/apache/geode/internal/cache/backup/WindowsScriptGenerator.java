@@ -61,6 +61,12 @@ class WindowsScriptGenerator implements ScriptGenerator {
     }
   }
 
+  @Override
+  public void writeCreateDirectory(BufferedWriter writer, File directory) throws IOException {
+    writer.write("if not exist \"" + directory + "\" " + MKDIR + " \"" + directory + "\"");
+    writer.newLine();
+  }
+
   @Override
   public void writeCopyFile(BufferedWriter writer, File source, File destination)
       throws IOException {
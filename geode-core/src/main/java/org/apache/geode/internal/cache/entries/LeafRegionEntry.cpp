@@ -25,6 +25,8 @@ package org.apache.geode.internal.cache.entries;
 #define KEY_TYPE UUID
 #elif defined(KEY_STRING1) || defined(KEY_STRING2)
 #define KEY_TYPE String
+#elif defined(KEY_STORED)
+#define KEY_TYPE Object
 #else
 #error the KEY_TYPE macro must be defined    
 #endif
@@ -66,6 +68,9 @@ import org.apache.geode.internal.cache.versions.VersionTag;
 #endif
 #ifdef OFFHEAP
 import org.apache.geode.internal.cache.Token;
+#ifdef KEY_STORED
+import org.apache.geode.internal.offheap.OffHeapKeyHelper;
+#endif
 import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
 import org.apache.geode.internal.offheap.annotations.Released;
 import org.apache.geode.internal.offheap.annotations.Retained;
@@ -90,25 +95,34 @@ import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.Ha
  * key uuid: KEY_UUID
  * key string1: KEY_STRING1
  * key string2: KEY_STRING2
+ * key stored off-heap: KEY_STORED
  */
 
 /**
  * Do not modify this class. It was generated. Instead modify LeafRegionEntry.cpp and then run
  * ./dev-tools/generateRegionEntryClasses.sh (it must be run from the top level directory).
  */
+#ifdef KEY_STORED
+public class LEAF_CLASS extends PARENT_CLASS implements OffHeapKeyRegionEntry {
+#else
 public class LEAF_CLASS extends PARENT_CLASS {
+#endif
 
   // --------------------------------------- common fields ----------------------------------------
 
+#ifndef KEY_STORED
   private static final AtomicLongFieldUpdater<LEAF_CLASS> LAST_MODIFIED_UPDATER
     = AtomicLongFieldUpdater.newUpdater(LEAF_CLASS.class, "lastModified");
 
+#endif
   protected int hash;
 
   private HashEntry<Object, Object> nextEntry;
 
+#ifndef KEY_STORED
   @SuppressWarnings("unused")
   private volatile long lastModified;
+#endif
 
 #ifdef OFFHEAP
 #else
@@ -164,11 +178,13 @@ public class LEAF_CLASS extends PARENT_CLASS {
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 
   private VersionSource memberId;
+#ifndef KEY_STORED
   private short entryVersionLowBytes;
   private short regionVersionHighBytes;
   private int regionVersionLowBytes;
   private byte entryVersionHighByte;
   private byte distributedSystemId;
+#endif
 #endif
 
   // --------------------------------------- key fields -------------------------------------------
@@ -199,6 +215,16 @@ public class LEAF_CLASS extends PARENT_CLASS {
    * bits2 encodes character data
    */
   private final long bits2;
+#elif defined(KEY_STORED)
+  /**
+   * The off-heap address of the header holding the key, the last modified time and the version
+   * stamp. All access done using HEADER_ADDRESS_UPDATER.
+   */
+  @SuppressWarnings("unused")
+  private volatile long headerAddress;
+
+  private static final AtomicLongFieldUpdater<LEAF_CLASS> HEADER_ADDRESS_UPDATER
+    = AtomicLongFieldUpdater.newUpdater(LEAF_CLASS.class, "headerAddress");
 #endif
 
   public LEAF_CLASS (final RegionEntryContext context, final KEY_TYPE key,
@@ -218,6 +244,9 @@ public class LEAF_CLASS extends PARENT_CLASS {
 #endif
         );
     // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
+#ifdef KEY_STORED
+    OffHeapKeyHelper.initialize(this, key, getAddress());
+#endif
 #ifdef DISK
     initialize(context, value);
 #endif
@@ -352,12 +381,20 @@ public class LEAF_CLASS extends PARENT_CLASS {
 
   @Override
   protected long getLastModifiedField() {
+#ifdef KEY_STORED
+    return OffHeapKeyHelper.getLastModified(this);
+#else
     return LAST_MODIFIED_UPDATER.get(this);
+#endif
   }
 
   @Override
   protected boolean compareAndSetLastModifiedField(final long expectedValue, final long newValue) {
+#ifdef KEY_STORED
+    return OffHeapKeyHelper.compareAndSetLastModified(this, expectedValue, newValue);
+#else
     return LAST_MODIFIED_UPDATER.compareAndSet(this, expectedValue, newValue);
+#endif
   }
 
   @Override
@@ -545,9 +582,12 @@ public class LEAF_CLASS extends PARENT_CLASS {
   
   @Override
   public Object getKeyForSizing() {
-#ifdef KEY_OBJECT
+#if defined(KEY_OBJECT)
     // default implementation.
     return getKey();
+#elif defined(KEY_STORED)
+    // stored keys only count while they are on the heap
+    return OffHeapKeyHelper.getKeyForSizing(this);
 #else
     // inline keys always report null for sizing since the size comes from the entry size
     return null;
@@ -632,12 +672,20 @@ public class LEAF_CLASS extends PARENT_CLASS {
 
   @Override
   public int getEntryVersion() {
+#ifdef KEY_STORED
+    return OffHeapKeyHelper.getEntryVersion(this);
+#else
     return ((entryVersionHighByte << 16) & 0xFF0000) | (entryVersionLowBytes & 0xFFFF);
+#endif
   }
   
   @Override
   public long getRegionVersion() {
+#ifdef KEY_STORED
+    return (((long)getRegionVersionHighBytes()) << 32) | (getRegionVersionLowBytes() & 0x00000000FFFFFFFFL);  
+#else
     return (((long)regionVersionHighBytes) << 32) | (regionVersionLowBytes & 0x00000000FFFFFFFFL);  
+#endif
   }
 
   @Override
@@ -657,7 +705,11 @@ public class LEAF_CLASS extends PARENT_CLASS {
 
   @Override
   public int getDistributedSystemId() {
+#ifdef KEY_STORED
+    return OffHeapKeyHelper.getDistributedSystemId(this);
+#else
     return this.distributedSystemId;
+#endif
   }
 
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
@@ -666,12 +718,19 @@ public class LEAF_CLASS extends PARENT_CLASS {
   public void setVersions(final VersionTag versionTag) {
     this.memberId = versionTag.getMemberID();
     int eVersion = versionTag.getEntryVersion();
+#ifdef KEY_STORED
+    OffHeapKeyHelper.setVersions(this, eVersion, versionTag.getRegionVersionHighBytes(),
+        versionTag.getRegionVersionLowBytes());
+
+    if (!versionTag.isGatewayTag() && getDistributedSystemId() == versionTag.getDistributedSystemId()) {
+#else
     this.entryVersionLowBytes = (short) (eVersion & 0xffff);
     this.entryVersionHighByte = (byte) ((eVersion & 0xff0000) >> 16);
     this.regionVersionHighBytes = versionTag.getRegionVersionHighBytes();
     this.regionVersionLowBytes = versionTag.getRegionVersionLowBytes();
 
     if (!versionTag.isGatewayTag() && this.distributedSystemId == versionTag.getDistributedSystemId()) {
+#endif
       if (getVersionTimeStamp() <= versionTag.getVersionTimeStamp()) {
         setVersionTimeStamp(versionTag.getVersionTimeStamp());
       } else {
@@ -681,7 +740,11 @@ public class LEAF_CLASS extends PARENT_CLASS {
       setVersionTimeStamp(versionTag.getVersionTimeStamp());
     }
 
+#ifdef KEY_STORED
+    OffHeapKeyHelper.setDistributedSystemId(this, (byte) (versionTag.getDistributedSystemId() & 0xff));
+#else
     this.distributedSystemId = (byte) (versionTag.getDistributedSystemId() & 0xff);
+#endif
   }
 
   @Override
@@ -700,9 +763,15 @@ public class LEAF_CLASS extends PARENT_CLASS {
   public VersionTag asVersionTag() {
     VersionTag tag = VersionTag.create(memberId);
     tag.setEntryVersion(getEntryVersion());
+#ifdef KEY_STORED
+    tag.setRegionVersion(getRegionVersionHighBytes(), getRegionVersionLowBytes());
+    tag.setVersionTimeStamp(getVersionTimeStamp());
+    tag.setDistributedSystemId(getDistributedSystemId());
+#else
     tag.setRegionVersion(this.regionVersionHighBytes, this.regionVersionLowBytes);
     tag.setVersionTimeStamp(getVersionTimeStamp());
     tag.setDistributedSystemId(this.distributedSystemId);
+#endif
     return tag;
   }
 
@@ -722,13 +791,21 @@ public class LEAF_CLASS extends PARENT_CLASS {
   /** get rvv internal high byte. Used by region entries for transferring to storage */
   @Override
   public short getRegionVersionHighBytes() {
+#ifdef KEY_STORED
+    return OffHeapKeyHelper.getRegionVersionHighBytes(this);
+#else
     return this.regionVersionHighBytes;
+#endif
   }
   
   /** get rvv internal low bytes. Used by region entries for transferring to storage */
   @Override
   public int getRegionVersionLowBytes() {
+#ifdef KEY_STORED
+    return OffHeapKeyHelper.getRegionVersionLowBytes(this);
+#else
     return this.regionVersionLowBytes;
+#endif
   }
 #endif
   
@@ -942,6 +1019,26 @@ public class LEAF_CLASS extends PARENT_CLASS {
     }
     return false;
   }
+#elif defined(KEY_STORED)
+  @Override
+  public Object getKey() {
+    return OffHeapKeyHelper.getKey(this);
+  }
+
+  @Override
+  public boolean isKeyEqual(final Object key) {
+    return OffHeapKeyHelper.isKeyEqual(this, key);
+  }
+
+  @Override
+  public long getHeaderAddress() {
+    return HEADER_ADDRESS_UPDATER.get(this);
+  }
+
+  @Override
+  public boolean setHeaderAddress(final long expectedAddress, final long newAddress) {
+    return HEADER_ADDRESS_UPDATER.compareAndSet(this, expectedAddress, newAddress);
+  }
 #endif
 
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
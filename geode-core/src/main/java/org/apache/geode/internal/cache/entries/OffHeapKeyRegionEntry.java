@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.entries;
+
+/**
+ * An OffHeapRegionEntry that also stores its header, that is its last modified time, the primitive
+ * parts of its version stamp and its serialized key, in off-heap memory. The header is stored when
+ * the entry first gets an off-heap value and moves back to the heap when the entry is removed, so
+ * a removed entry can still report its key after its memory is freed. The moves are done by
+ * {@link org.apache.geode.internal.offheap.OffHeapKeyHelper}.
+ */
+public interface OffHeapKeyRegionEntry extends OffHeapRegionEntry {
+  /**
+   * Returns the off-heap address of the header. An address that is not off-heap means the header
+   * is on the heap.
+   */
+  long getHeaderAddress();
+
+  boolean setHeaderAddress(long expectedAddress, long newAddress);
+}
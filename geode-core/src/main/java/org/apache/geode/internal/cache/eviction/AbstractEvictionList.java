@@ -171,6 +171,30 @@ abstract class AbstractEvictionList implements EvictionList {
     return evictionNode;
   }
 
+  /**
+   * Remove and return the head entry in the list if it has not been used since it was last
+   * considered. Unlike {@link #getEvictableEntry()} this never returns a recently used entry, so a
+   * full pass over the list only returns the entries that were not used during the previous pass.
+   */
+  @Override
+  public EvictableEntry getColdEntry() {
+    EvictionNode evictionNode = unlinkHeadEntry();
+    if (evictionNode == null || !isEvictable(evictionNode)) {
+      return null;
+    }
+
+    if (evictionNode.isRecentlyUsed()) {
+      evictionNode.unsetRecentlyUsed();
+      appendEntry(evictionNode);
+      return null;
+    }
+
+    if (logger.isTraceEnabled(LogMarker.LRU_CLOCK_VERBOSE)) {
+      logger.trace(LogMarker.LRU_CLOCK_VERBOSE, "returning cold entry {}", evictionNode);
+    }
+    return (EvictableEntry) evictionNode;
+  }
+
   protected boolean isEvictable(EvictionNode evictionNode) {
     if (evictionNode.isEvicted()) {
       if (logger.isTraceEnabled(LogMarker.LRU_CLOCK_VERBOSE)) {
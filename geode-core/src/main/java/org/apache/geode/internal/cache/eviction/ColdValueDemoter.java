@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.eviction;
+
+import static org.apache.geode.distributed.internal.DistributionConfig.GEMFIRE_PREFIX;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelException;
+import org.apache.geode.SystemFailure;
+import org.apache.geode.cache.EvictionAttributes;
+import org.apache.geode.cache.RegionDestroyedException;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.control.InternalResourceManager.ResourceType;
+import org.apache.geode.internal.cache.control.MemoryEvent;
+import org.apache.geode.internal.cache.control.ResourceListener;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * Keeps only the hot values of off-heap regions that overflow to disk in off-heap memory. The
+ * {@link OffHeapEvictor} only moves values to disk once off-heap memory reaches the eviction
+ * threshold; this periodically moves the values that have not been read for a while to disk as
+ * well, so off-heap memory holds the working set and the disk store holds the rest. A value that is
+ * read again is faulted back into off-heap memory by the region as usual.
+ * <p>
+ * Each pass over a region moves the values that were not read since the previous pass, so a value
+ * stays in memory for between one and two demotion intervals after it was last read. The interval
+ * is {@link #DEMOTION_INTERVAL_PROPERTY} seconds, and can be set for a single region by appending
+ * its full path to the property name. An interval of zero, the default, disables demotion.
+ */
+public class ColdValueDemoter {
+  private static final Logger logger = LogService.getLogger();
+
+  public static final String DEMOTION_INTERVAL_PROPERTY =
+      GEMFIRE_PREFIX + "ColdValueDemoter.DEMOTION_INTERVAL";
+
+  private static final long DEMOTION_INTERVAL = Long.getLong(DEMOTION_INTERVAL_PROPERTY, 0);
+
+  /** how often regions are checked for a demotion pass that is due */
+  private static final long CHECK_INTERVAL_MILLIS = 1000;
+
+  private static final String DEMOTER_THREAD_GROUP_NAME = "ColdValueDemoterThreadGroup";
+
+  private static final String DEMOTER_THREAD_NAME = "ColdValueDemoterThread";
+
+  private final InternalCache cache;
+
+  /** the time of the last pass over each region; only accessed by the demoter thread */
+  private final Map<LocalRegion, Long> lastPassTimes = new HashMap<>();
+
+  private ScheduledExecutorService executor;
+
+  public ColdValueDemoter(InternalCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Returns true if demotion is enabled for any region.
+   */
+  public static boolean isEnabled() {
+    if (DEMOTION_INTERVAL > 0) {
+      return true;
+    }
+    for (String name : System.getProperties().stringPropertyNames()) {
+      if (name.startsWith(DEMOTION_INTERVAL_PROPERTY + ".") && Long.getLong(name, 0) > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the demotion interval of a region in milliseconds, or zero if its values are not
+   * demoted.
+   *
+   * @param regionPath the full path of the region
+   */
+  static long getDemotionInterval(String regionPath) {
+    return TimeUnit.SECONDS
+        .toMillis(Long.getLong(DEMOTION_INTERVAL_PROPERTY + "." + regionPath, DEMOTION_INTERVAL));
+  }
+
+  public synchronized void start() {
+    if (executor != null) {
+      return;
+    }
+    ThreadGroup group = LoggingThreadGroup.createThreadGroup(DEMOTER_THREAD_GROUP_NAME, logger);
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(group, runnable, DEMOTER_THREAD_NAME);
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::run, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  private void run() {
+    try {
+      if (cache.getCancelCriterion().isCancelInProgress()) {
+        close();
+        return;
+      }
+      demoteColdValues(System.currentTimeMillis());
+    } catch (CancelException ignore) {
+      close();
+    } catch (VirtualMachineError e) {
+      SystemFailure.initiateFailure(e);
+      throw e;
+    } catch (Throwable t) {
+      SystemFailure.checkFailure();
+      logger.warn("Unable to demote cold values to disk", t);
+    }
+  }
+
+  /**
+   * Makes a pass over every region whose demotion interval has passed since its previous pass.
+   *
+   * @param now the current time in milliseconds
+   * @return the number of bytes moved to disk
+   */
+  long demoteColdValues(long now) {
+    Map<LocalRegion, Long> regions = getDemotedRegions();
+    lastPassTimes.keySet().retainAll(regions.keySet());
+
+    long demotedBytes = 0;
+    for (Map.Entry<LocalRegion, Long> entry : regions.entrySet()) {
+      LocalRegion region = entry.getKey();
+      Long lastPass = lastPassTimes.get(region);
+      if (lastPass == null) {
+        // the first pass only marks the values that are used from now on
+        lastPassTimes.put(region, now);
+      } else if (now - lastPass >= entry.getValue()) {
+        lastPassTimes.put(region, now);
+        try {
+          demotedBytes += region.getRegionMap().demoteColdValues();
+        } catch (RegionDestroyedException ignore) {
+          // the region or bucket is gone
+        }
+      }
+    }
+
+    if (demotedBytes > 0 && logger.isDebugEnabled()) {
+      logger.debug("Demoted {} bytes of cold values to disk", demotedBytes);
+    }
+    return demotedBytes;
+  }
+
+  /**
+   * Returns the regions and buckets whose values are demoted, with their demotion intervals.
+   */
+  private Map<LocalRegion, Long> getDemotedRegions() {
+    Map<LocalRegion, Long> regions = new HashMap<>();
+    for (ResourceListener<MemoryEvent> listener : cache.getInternalResourceManager()
+        .getResourceListeners(ResourceType.OFFHEAP_MEMORY)) {
+      if (listener instanceof PartitionedRegion) {
+        PartitionedRegion partitionedRegion = (PartitionedRegion) listener;
+        if (includeRegion(partitionedRegion.getEvictionAttributes(),
+            partitionedRegion.getAttributes().getOffHeap())
+            && partitionedRegion.getDataStore() != null) {
+          long interval = getDemotionInterval(partitionedRegion.getFullPath());
+          if (interval > 0) {
+            for (LocalRegion bucket : partitionedRegion.getDataStore().getAllLocalBucketRegions()) {
+              regions.put(bucket, interval);
+            }
+          }
+        }
+      } else if (listener instanceof LocalRegion) {
+        LocalRegion region = (LocalRegion) listener;
+        if (includeRegion(region.getEvictionAttributes(), region.getAttributes().getOffHeap())) {
+          long interval = getDemotionInterval(region.getFullPath());
+          if (interval > 0) {
+            regions.put(region, interval);
+          }
+        }
+      }
+    }
+    regions.keySet().removeIf(LocalRegion::isDestroyed);
+    return regions;
+  }
+
+  private boolean includeRegion(EvictionAttributes evictionAttributes, boolean offHeap) {
+    return offHeap && evictionAttributes.getAlgorithm().isLRU()
+        && evictionAttributes.getAction().isOverflowToDisk();
+  }
+}
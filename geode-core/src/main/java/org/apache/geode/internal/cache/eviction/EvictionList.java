@@ -32,6 +32,13 @@ public interface EvictionList {
    */
   EvictableEntry getEvictableEntry();
 
+  /**
+   * Returns the least recently used entry if it has not been used since the list last passed over
+   * it, or null. An entry that has been used is given another pass instead: it is marked as unused
+   * and moved to the tail of the list. The entry returned will no longer be in the list.
+   */
+  EvictableEntry getColdEntry();
+
   /**
    * remove an entry from the list
    */
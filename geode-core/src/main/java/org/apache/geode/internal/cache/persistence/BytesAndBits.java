@@ -14,6 +14,8 @@
  */
 package org.apache.geode.internal.cache.persistence;
 
+import java.nio.ByteBuffer;
+
 import org.apache.geode.internal.Version;
 
 /**
@@ -22,19 +24,68 @@ import org.apache.geode.internal.Version;
  * @since GemFire prPersistSprint1
  */
 public class BytesAndBits {
-  private final byte[] data;
+  private byte[] data;
+  private final ByteBuffer buffer;
   private final byte userBits;
   private Version version;
 
   public BytesAndBits(byte[] data, byte userBits) {
     this.data = data;
+    this.buffer = null;
     this.userBits = userBits;
   }
 
+  /**
+   * Creates an instance whose bytes are the remaining bytes of the given buffer. The bytes are
+   * only copied to the heap if {@link #getBytes()} is called.
+   */
+  public BytesAndBits(ByteBuffer buffer, byte userBits) {
+    this.data = null;
+    this.buffer = buffer;
+    this.userBits = userBits;
+  }
+
+  /**
+   * Returns the bytes on the heap, copying them out of the buffer the first time. Callers that
+   * only need to deserialize a buffer backed value should use {@link #getBuffer()} instead.
+   */
   public byte[] getBytes() {
+    if (this.data == null && this.buffer != null) {
+      byte[] bytes = new byte[this.buffer.remaining()];
+      this.buffer.duplicate().get(bytes);
+      this.data = bytes;
+    }
     return this.data;
   }
 
+  /**
+   * Returns the number of bytes without copying them.
+   */
+  public int getLength() {
+    if (this.data != null) {
+      return this.data.length;
+    }
+    if (this.buffer != null) {
+      return this.buffer.remaining();
+    }
+    return 0;
+  }
+
+  /**
+   * Returns true if the bytes are still backed by a buffer and have not been copied to the heap.
+   */
+  public boolean isBufferBacked() {
+    return this.data == null && this.buffer != null;
+  }
+
+  /**
+   * Returns a view of the bytes if they are still backed by a buffer, otherwise null. Reading the
+   * view does not change the position of the backing buffer.
+   */
+  public ByteBuffer getBuffer() {
+    return isBufferBacked() ? this.buffer.duplicate() : null;
+  }
+
   public byte getBits() {
     return this.userBits;
   }
@@ -86,4 +86,6 @@ public interface DiskInitFileInterpreter {
   boolean cmnRevokeDiskStoreId(PersistentMemberPattern id);
 
   void cmnGemfireVersion(Version version);
+
+  void cmnCompressedValues();
 }
@@ -443,6 +443,14 @@ public class DiskInitFileParser {
           interpreter.cmnGemfireVersion(gfversion);
           break;
         }
+        case DiskInitFile.IFREC_COMPRESSED_VALUES: {
+          readEndOfRecord(dis);
+          if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY_VERBOSE)) {
+            logger.trace(LogMarker.PERSIST_RECOVERY_VERBOSE, "IFREC_COMPRESSED_VALUES");
+          }
+          interpreter.cmnCompressedValues();
+          break;
+        }
         case DiskInitFile.IFREC_PR_DESTROY: {
           String name = dis.readUTF();
           readEndOfRecord(dis);
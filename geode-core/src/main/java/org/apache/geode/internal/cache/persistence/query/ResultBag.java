@@ -48,6 +48,18 @@ public interface ResultBag {
    */
   CloseableIterator<CachedDeserializable> iterator();
 
+  /**
+   * Return the number of elements in the bag with the same sort key as the given element.
+   */
+  int occurrences(Object e);
+
+  /**
+   * Remove every element in the bag with the same sort key as the given element.
+   *
+   * @return the number of elements removed
+   */
+  int removeAll(Object e);
+
   /**
    * Close the result set and free up any resources on disk associated with the result set.
    */
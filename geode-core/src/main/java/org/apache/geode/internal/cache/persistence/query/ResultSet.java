@@ -49,6 +49,18 @@ public interface ResultSet {
    */
   CloseableIterator<CachedDeserializable> iterator();
 
+  /**
+   * Return true if the set holds an element with the same sort key as the given element.
+   */
+  boolean contains(Object e);
+
+  /**
+   * Remove the element with the same sort key as the given element.
+   *
+   * @return true if there was such an element
+   */
+  boolean remove(Object e);
+
   /**
    * Close the result set and free up any resources on disk associated with the result set.
    */
@@ -0,0 +1,787 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence.query;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+import org.apache.geode.internal.cache.CachedDeserializable;
+import org.apache.geode.internal.cache.CachedDeserializableFactory;
+import org.apache.geode.internal.cache.EntryEventImpl;
+import org.apache.geode.internal.cache.VMCachedDeserializable;
+
+/**
+ * A sorted map of serialized records that keeps a bounded number of bytes on the heap. This is the
+ * storage behind the temporary result sets handed out by {@link TemporaryResultSetFactory}.
+ * <p>
+ * Writes go to an in memory table. Once the table holds more than the spill threshold it is written
+ * to a {@link SpillFile} as an immutable sorted run and a new table is started. Reads merge the
+ * table with the runs, newest first, so a later put or remove of a key hides any earlier one. Runs
+ * are merged in groups of {@link #MERGE_FACTOR} as they accumulate, which bounds both the number of
+ * open files and the number of times a record is rewritten.
+ * <p>
+ * Runs are read one block at a time and only the first key of each block is kept in memory, so a
+ * spilled run costs a small fraction of its size on the heap.
+ * <p>
+ * Keys are compared in deserialized form with the comparator given to the constructor. A null key
+ * sorts before every other key.
+ */
+class SortedSpillStore {
+
+  /** The largest number of records in a block of a run */
+  static final int BLOCK_RECORDS = 64;
+
+  /** The size at which a block of a run is ended, even if it holds fewer records */
+  static final int BLOCK_BYTES = 64 * 1024;
+
+  /** The number of runs of the same level that are merged into one run of the next level */
+  static final int MERGE_FACTOR = 8;
+
+  /** An estimate of the heap used by a record beyond its serialized bytes */
+  private static final int RECORD_OVERHEAD = 64;
+
+  private static final byte VALUE = 0;
+  private static final byte NULL_VALUE = 1;
+  private static final byte REMOVED = 2;
+
+  /**
+   * Stands in for a null key, which the skip list cannot hold.
+   */
+  private static final Object NULL_KEY = new Object() {
+    @Override
+    public String toString() {
+      return "NULL_KEY";
+    }
+  };
+
+  /**
+   * Passed as a bound to {@link #iterator} for a range that is open at that end.
+   */
+  static final Object UNBOUNDED = new Object() {
+    @Override
+    public String toString() {
+      return "UNBOUNDED";
+    }
+  };
+
+  private final Comparator<Object> comparator;
+
+  private final long spillThreshold;
+
+  private final File directory;
+
+  /** Every spill file that has not been closed, for {@link #close} and the reaper */
+  private final Collection<SpillFile> files = SpillFile.newFileSet();
+
+  /** guarded by this */
+  private ConcurrentSkipListMap<Object, Record> table;
+
+  /** The estimated heap used by the table; guarded by this */
+  private long tableBytes;
+
+  /** The spilled runs, newest first. Replaced rather than modified; guarded by this */
+  private List<Run> runs = Collections.emptyList();
+
+  /** guarded by this */
+  private boolean closed;
+
+  /**
+   * @param keyComparator compares deserialized keys, which are never null
+   * @param spillThreshold the estimated number of bytes held on the heap before spilling
+   * @param directory the directory spill files are created in
+   */
+  SortedSpillStore(Comparator<?> keyComparator, long spillThreshold, File directory) {
+    this.comparator = new InternalKeyComparator(keyComparator);
+    this.spillThreshold = spillThreshold;
+    this.directory = directory;
+    this.table = new ConcurrentSkipListMap<>(this.comparator);
+    SpillFile.closeWhenUnreachable(this, this.files);
+  }
+
+  /**
+   * Puts a key and value, replacing any existing value for the key.
+   *
+   * @param value the value, which may be null or a CachedDeserializable
+   */
+  void put(Object key, Object value) {
+    byte[] valueBytes = null;
+    if (value instanceof CachedDeserializable) {
+      valueBytes = ((CachedDeserializable) value).getSerializedValue();
+    } else if (value != null) {
+      valueBytes = EntryEventImpl.serialize(value);
+    }
+    add(toInternalKey(key), valueBytes == null ? NULL_VALUE : VALUE, valueBytes);
+  }
+
+  void remove(Object key) {
+    add(toInternalKey(key), REMOVED, null);
+  }
+
+  private synchronized void add(Object key, byte flag, byte[] value) {
+    checkClosed();
+    if (flag == REMOVED && this.runs.isEmpty()) {
+      Record removed = this.table.remove(key);
+      if (removed != null) {
+        this.tableBytes -= removed.heapSize();
+      }
+      return;
+    }
+    Record record = new Record(key, EntryEventImpl.serialize(fromInternalKey(key)), flag, value);
+    Record replaced = this.table.put(key, record);
+    this.tableBytes += record.heapSize();
+    if (replaced != null) {
+      this.tableBytes -= replaced.heapSize();
+    }
+    if (this.tableBytes >= this.spillThreshold) {
+      spill();
+    }
+  }
+
+  /**
+   * Returns the record for the given key, or null if there is none.
+   */
+  Record get(Object key) {
+    Object internalKey = toInternalKey(key);
+    ConcurrentSkipListMap<Object, Record> myTable;
+    List<Run> myRuns;
+    synchronized (this) {
+      checkClosed();
+      myTable = this.table;
+      myRuns = this.runs;
+    }
+    Record record = myTable.get(internalKey);
+    for (int i = 0; record == null && i < myRuns.size(); i++) {
+      record = myRuns.get(i).find(internalKey);
+    }
+    return record == null || record.flag == REMOVED ? null : record;
+  }
+
+  /**
+   * Returns the records whose keys lie between {@code from} and {@code to}, ordered from
+   * {@code from} to {@code to}. Either bound may be {@link #UNBOUNDED}.
+   *
+   * @param descending true if {@code from} is the upper bound and the records should be returned
+   *        in descending order
+   */
+  CloseableIterator<Record> iterator(Object from, boolean fromInclusive, Object to,
+      boolean toInclusive, boolean descending) {
+    ConcurrentSkipListMap<Object, Record> myTable;
+    List<Run> myRuns;
+    synchronized (this) {
+      checkClosed();
+      myTable = this.table;
+      myRuns = this.runs;
+    }
+    if (from != UNBOUNDED) {
+      from = toInternalKey(from);
+    }
+    if (to != UNBOUNDED) {
+      to = toInternalKey(to);
+    }
+    List<Cursor> cursors = new ArrayList<>(myRuns.size() + 1);
+    cursors.add(new TableCursor(0, myTable, from, fromInclusive, to, toInclusive, descending));
+    for (int i = 0; i < myRuns.size(); i++) {
+      cursors.add(
+          new RunCursor(i + 1, myRuns.get(i), from, fromInclusive, to, toInclusive, descending));
+    }
+    return new MergeIterator(cursors, descending, false);
+  }
+
+  CloseableIterator<Record> iterator() {
+    return iterator(UNBOUNDED, true, UNBOUNDED, true, false);
+  }
+
+  /**
+   * Returns an estimate of the number of keys. Keys that were replaced or removed after being
+   * spilled are counted more than once.
+   */
+  synchronized long estimateSize() {
+    long count = this.table.size();
+    for (Run run : this.runs) {
+      count += run.count;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of runs that have been spilled and not merged.
+   */
+  synchronized int getRunCount() {
+    return this.runs.size();
+  }
+
+  /**
+   * Deletes every spill file. Iterators that are still open fail once they need to read from disk.
+   */
+  synchronized void close() {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    this.table = new ConcurrentSkipListMap<>(this.comparator);
+    this.tableBytes = 0;
+    this.runs = Collections.emptyList();
+    for (SpillFile file : this.files) {
+      file.close();
+    }
+    this.files.clear();
+  }
+
+  private void checkClosed() {
+    if (this.closed) {
+      throw new IllegalStateException("The temporary result set has been closed");
+    }
+  }
+
+  /**
+   * Writes the table out as a new run. Caller must hold the lock on this.
+   */
+  private void spill() {
+    if (this.table.isEmpty()) {
+      return;
+    }
+    Run run = writeRun(this.table.values().iterator(), 0, this.runs.isEmpty());
+    List<Run> newRuns = new ArrayList<>(this.runs.size() + 1);
+    newRuns.add(run);
+    newRuns.addAll(this.runs);
+    this.table = new ConcurrentSkipListMap<>(this.comparator);
+    this.tableBytes = 0;
+    this.runs = mergeRuns(newRuns);
+  }
+
+  /**
+   * Merges the newest runs while {@link #MERGE_FACTOR} of them share a level.
+   */
+  private List<Run> mergeRuns(List<Run> runs) {
+    while (runs.size() >= MERGE_FACTOR
+        && runs.get(0).level == runs.get(MERGE_FACTOR - 1).level) {
+      List<Run> merging = runs.subList(0, MERGE_FACTOR);
+      List<Cursor> cursors = new ArrayList<>(MERGE_FACTOR);
+      for (int i = 0; i < MERGE_FACTOR; i++) {
+        cursors.add(new RunCursor(i, merging.get(i), UNBOUNDED, true, UNBOUNDED, true, false));
+      }
+      // removed records only need to be kept while they may hide an older run
+      boolean oldest = runs.size() == MERGE_FACTOR;
+      Run merged = writeRun(new MergeIterator(cursors, false, !oldest), merging.get(0).level + 1,
+          oldest);
+      for (Run run : merging) {
+        // an open iterator may still be reading the run, so let the reaper close it
+        this.files.remove(run.file);
+        SpillFile.closeWhenUnreachable(run, Collections.singleton(run.file));
+      }
+      List<Run> newRuns = new ArrayList<>(runs.size() - MERGE_FACTOR + 1);
+      newRuns.add(merged);
+      newRuns.addAll(runs.subList(MERGE_FACTOR, runs.size()));
+      runs = newRuns;
+    }
+    return Collections.unmodifiableList(runs);
+  }
+
+  private Run writeRun(Iterator<Record> records, int level, boolean dropRemoved) {
+    SpillFile file = SpillFile.create(this.directory);
+    this.files.add(file);
+    List<Long> blockOffsets = new ArrayList<>();
+    List<Object> firstKeys = new ArrayList<>();
+    ByteBuffer block = ByteBuffer.allocate(BLOCK_BYTES);
+    int blockRecords = 0;
+    long count = 0;
+    while (records.hasNext()) {
+      Record record = records.next();
+      if (dropRemoved && record.flag == REMOVED) {
+        continue;
+      }
+      if (blockRecords == 0) {
+        firstKeys.add(record.key);
+      }
+      block = record.writeTo(block);
+      blockRecords++;
+      count++;
+      if (blockRecords == BLOCK_RECORDS || block.position() >= BLOCK_BYTES) {
+        block.flip();
+        blockOffsets.add(file.append(block));
+        block.clear();
+        blockRecords = 0;
+      }
+    }
+    if (blockRecords > 0) {
+      block.flip();
+      blockOffsets.add(file.append(block));
+    }
+    long[] offsets = new long[blockOffsets.size()];
+    for (int i = 0; i < offsets.length; i++) {
+      offsets[i] = blockOffsets.get(i);
+    }
+    return new Run(file, level, offsets, firstKeys.toArray(), file.length(), count);
+  }
+
+  /**
+   * Returns the deserialized form of a key or element that may be a CachedDeserializable.
+   */
+  static Object deserialize(Object object) {
+    if (object instanceof CachedDeserializable) {
+      return ((CachedDeserializable) object).getDeserializedForReading();
+    }
+    return object;
+  }
+
+  /**
+   * Returns an iterator that applies the given function to each record.
+   */
+  static <T> CloseableIterator<T> transform(final CloseableIterator<Record> records,
+      final Function<Record, T> function) {
+    return new CloseableIterator<T>() {
+      @Override
+      public boolean hasNext() {
+        return records.hasNext();
+      }
+
+      @Override
+      public T next() {
+        return function.apply(records.next());
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void close() {
+        records.close();
+      }
+    };
+  }
+
+  private static Object toInternalKey(Object key) {
+    return key == null ? NULL_KEY : key;
+  }
+
+  private static Object fromInternalKey(Object key) {
+    return key == NULL_KEY ? null : key;
+  }
+
+  /**
+   * A key and value. The key is held both deserialized, for comparisons, and serialized.
+   */
+  static class Record {
+    private final Object key;
+    private final byte[] keyBytes;
+    private final byte flag;
+    private final byte[] value;
+
+    private Record(Object key, byte[] keyBytes, byte flag, byte[] value) {
+      this.key = key;
+      this.keyBytes = keyBytes;
+      this.flag = flag;
+      this.value = value;
+    }
+
+    /**
+     * Returns the deserialized key, which may be null.
+     */
+    Object getKey() {
+      return fromInternalKey(this.key);
+    }
+
+    CachedDeserializable getSerializedKey() {
+      return CachedDeserializableFactory.create(this.keyBytes, null);
+    }
+
+    /**
+     * Returns the value, or null if the record has no value.
+     */
+    CachedDeserializable getValue() {
+      return this.value == null ? null : CachedDeserializableFactory.create(this.value, null);
+    }
+
+    /**
+     * Returns the value of a record holding an element of a set, bag or list. Unlike
+     * {@link #getValue} a null element is returned as a serialized null.
+     */
+    CachedDeserializable getElement() {
+      return CachedDeserializableFactory
+          .create(this.value == null ? EntryEventImpl.serialize(null) : this.value, null);
+    }
+
+    /**
+     * Returns the key as an element, for records of a set whose elements are their own sort keys.
+     * The key was deserialized when the record was read, so it is not deserialized again.
+     */
+    CachedDeserializable getKeyElement() {
+      return toElement(getKey());
+    }
+
+    /**
+     * Returns an element held in an array key, for records of a bag whose elements are their own
+     * sort keys.
+     */
+    CachedDeserializable getKeyElement(int index) {
+      return toElement(((Object[]) this.key)[index]);
+    }
+
+    private CachedDeserializable toElement(Object element) {
+      if (element instanceof byte[]) {
+        return CachedDeserializableFactory.create(EntryEventImpl.serialize(element), null);
+      }
+      return new VMCachedDeserializable(element, this.keyBytes.length);
+    }
+
+    private int heapSize() {
+      return RECORD_OVERHEAD + this.keyBytes.length
+          + (this.value == null ? 0 : this.value.length);
+    }
+
+    private ByteBuffer writeTo(ByteBuffer buffer) {
+      int size = 4 + this.keyBytes.length + 1 + (this.value == null ? 0 : 4 + this.value.length);
+      if (buffer.remaining() < size) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2,
+            buffer.position() + size));
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+      }
+      buffer.putInt(this.keyBytes.length);
+      buffer.put(this.keyBytes);
+      buffer.put(this.flag);
+      if (this.value != null) {
+        buffer.putInt(this.value.length);
+        buffer.put(this.value);
+      }
+      return buffer;
+    }
+
+    private static Record readFrom(ByteBuffer buffer) {
+      byte[] keyBytes = new byte[buffer.getInt()];
+      buffer.get(keyBytes);
+      byte flag = buffer.get();
+      byte[] value = null;
+      if (flag == VALUE) {
+        value = new byte[buffer.getInt()];
+        buffer.get(value);
+      }
+      return new Record(toInternalKey(EntryEventImpl.deserialize(keyBytes)), keyBytes, flag,
+          value);
+    }
+  }
+
+  /**
+   * An immutable sorted run in its own spill file.
+   */
+  private class Run {
+    private final SpillFile file;
+    private final int level;
+    private final long[] blockOffsets;
+    private final Object[] firstKeys;
+    private final long end;
+    private final long count;
+
+    Run(SpillFile file, int level, long[] blockOffsets, Object[] firstKeys, long end, long count) {
+      this.file = file;
+      this.level = level;
+      this.blockOffsets = blockOffsets;
+      this.firstKeys = firstKeys;
+      this.end = end;
+      this.count = count;
+    }
+
+    int getBlockCount() {
+      return this.blockOffsets.length;
+    }
+
+    Record[] readBlock(int index) {
+      long start = this.blockOffsets[index];
+      long blockEnd =
+          index + 1 < this.blockOffsets.length ? this.blockOffsets[index + 1] : this.end;
+      ByteBuffer buffer = this.file.read(start, (int) (blockEnd - start));
+      List<Record> records = new ArrayList<>(BLOCK_RECORDS);
+      while (buffer.hasRemaining()) {
+        records.add(Record.readFrom(buffer));
+      }
+      return records.toArray(new Record[records.size()]);
+    }
+
+    /**
+     * Returns the index of the last block whose first key is not after the given key, or -1.
+     */
+    int findBlock(Object key) {
+      int low = 0;
+      int high = this.firstKeys.length - 1;
+      int result = -1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (comparator.compare(this.firstKeys[mid], key) <= 0) {
+          result = mid;
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return result;
+    }
+
+    Record find(Object key) {
+      int blockIndex = findBlock(key);
+      if (blockIndex < 0) {
+        return null;
+      }
+      for (Record record : readBlock(blockIndex)) {
+        int result = comparator.compare(record.key, key);
+        if (result == 0) {
+          return record;
+        } else if (result > 0) {
+          break;
+        }
+      }
+      return null;
+    }
+  }
+
+  private abstract static class Cursor {
+    /** Lower is newer */
+    final int age;
+
+    /** The record the cursor is positioned on, or null once the cursor is exhausted */
+    Record current;
+
+    Cursor(int age) {
+      this.age = age;
+    }
+
+    abstract void advance();
+  }
+
+  private static class TableCursor extends Cursor {
+    private final Iterator<Record> iterator;
+
+    TableCursor(int age, ConcurrentSkipListMap<Object, Record> table, Object from,
+        boolean fromInclusive, Object to, boolean toInclusive, boolean descending) {
+      super(age);
+      NavigableMap<Object, Record> view = descending ? table.descendingMap() : table;
+      if (from != UNBOUNDED) {
+        view = view.tailMap(from, fromInclusive);
+      }
+      if (to != UNBOUNDED) {
+        view = view.headMap(to, toInclusive);
+      }
+      this.iterator = view.values().iterator();
+      advance();
+    }
+
+    @Override
+    void advance() {
+      this.current = this.iterator.hasNext() ? this.iterator.next() : null;
+    }
+  }
+
+  private class RunCursor extends Cursor {
+    private final Run run;
+    private final Object to;
+    private final boolean toInclusive;
+    private final boolean descending;
+    private int blockIndex;
+    private Record[] block;
+    private int index;
+
+    RunCursor(int age, Run run, Object from, boolean fromInclusive, Object to,
+        boolean toInclusive, boolean descending) {
+      super(age);
+      this.run = run;
+      this.to = to;
+      this.toInclusive = toInclusive;
+      this.descending = descending;
+      if (run.getBlockCount() == 0) {
+        return;
+      }
+      if (from == UNBOUNDED) {
+        this.blockIndex = descending ? run.getBlockCount() - 1 : 0;
+        this.block = run.readBlock(this.blockIndex);
+        this.index = descending ? this.block.length - 1 : 0;
+      } else {
+        this.blockIndex = Math.max(run.findBlock(from), 0);
+        this.block = run.readBlock(this.blockIndex);
+        if (descending) {
+          this.index = this.block.length - 1;
+          while (this.index >= 0 && !inRange(this.block[this.index].key, from, fromInclusive)) {
+            this.index--;
+          }
+        } else {
+          this.index = 0;
+          while (this.index < this.block.length
+              && !inRange(this.block[this.index].key, from, fromInclusive)) {
+            this.index++;
+          }
+        }
+      }
+      position();
+    }
+
+    /**
+     * Returns true if the key is not before {@code from} in iteration order.
+     */
+    private boolean inRange(Object key, Object from, boolean fromInclusive) {
+      int result = order(key, from);
+      return fromInclusive ? result >= 0 : result > 0;
+    }
+
+    private int order(Object key1, Object key2) {
+      int result = comparator.compare(key1, key2);
+      return this.descending ? -result : result;
+    }
+
+    @Override
+    void advance() {
+      this.index += this.descending ? -1 : 1;
+      position();
+    }
+
+    /**
+     * Moves to the next block if the index has left the current one and sets the current record.
+     */
+    private void position() {
+      while (this.index < 0 || this.index >= this.block.length) {
+        this.blockIndex += this.descending ? -1 : 1;
+        if (this.blockIndex < 0 || this.blockIndex >= this.run.getBlockCount()) {
+          this.current = null;
+          this.block = null;
+          return;
+        }
+        this.block = this.run.readBlock(this.blockIndex);
+        this.index = this.descending ? this.block.length - 1 : 0;
+      }
+      Record record = this.block[this.index];
+      if (this.to != UNBOUNDED) {
+        int result = order(record.key, this.to);
+        if (this.toInclusive ? result > 0 : result >= 0) {
+          this.current = null;
+          this.block = null;
+          return;
+        }
+      }
+      this.current = record;
+    }
+  }
+
+  /**
+   * Merges cursors, returning the newest record for each key.
+   */
+  private class MergeIterator implements CloseableIterator<Record> {
+    private final PriorityQueue<Cursor> queue;
+    private final boolean descending;
+    private final boolean keepRemoved;
+    private Record next;
+
+    MergeIterator(List<Cursor> cursors, boolean descending, boolean keepRemoved) {
+      this.descending = descending;
+      this.keepRemoved = keepRemoved;
+      this.queue = new PriorityQueue<>(Math.max(cursors.size(), 1), (c1, c2) -> {
+        int result = order(c1.current.key, c2.current.key);
+        return result != 0 ? result : Integer.compare(c1.age, c2.age);
+      });
+      for (Cursor cursor : cursors) {
+        if (cursor.current != null) {
+          this.queue.add(cursor);
+        }
+      }
+      this.next = computeNext();
+    }
+
+    private int order(Object key1, Object key2) {
+      int result = comparator.compare(key1, key2);
+      return this.descending ? -result : result;
+    }
+
+    private Record computeNext() {
+      while (!this.queue.isEmpty()) {
+        Cursor newest = this.queue.poll();
+        Record record = newest.current;
+        advance(newest);
+        while (!this.queue.isEmpty()
+            && comparator.compare(this.queue.peek().current.key, record.key) == 0) {
+          // an older record for the same key
+          advance(this.queue.poll());
+        }
+        if (record.flag != REMOVED || this.keepRemoved) {
+          return record;
+        }
+      }
+      return null;
+    }
+
+    private void advance(Cursor cursor) {
+      cursor.advance();
+      if (cursor.current != null) {
+        this.queue.add(cursor);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.next != null;
+    }
+
+    @Override
+    public Record next() {
+      if (this.next == null) {
+        throw new NoSuchElementException();
+      }
+      Record result = this.next;
+      this.next = computeNext();
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      this.queue.clear();
+      this.next = null;
+    }
+  }
+
+  /**
+   * Orders the null key before every other key and delegates the rest.
+   */
+  private static class InternalKeyComparator implements Comparator<Object> {
+    private final Comparator comparator;
+
+    InternalKeyComparator(Comparator<?> comparator) {
+      this.comparator = comparator;
+    }
+
+    @Override
+    public int compare(Object key1, Object key2) {
+      if (key1 == NULL_KEY) {
+        return key2 == NULL_KEY ? 0 : -1;
+      } else if (key2 == NULL_KEY) {
+        return 1;
+      }
+      return this.comparator.compare(key1, key2);
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.cache.DiskAccessException;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * An append only scratch file holding one sorted run of a temporary result set. Nothing in a spill
+ * file is ever recovered. Where the platform allows it the file is unlinked as soon as it is
+ * opened, so it disappears with its descriptor even if the member is killed.
+ * <p>
+ * Temporary result sets have no guaranteed close, so the files of an owner that becomes
+ * unreachable without being closed are closed the next time a spill file is created.
+ */
+class SpillFile {
+  private static final Logger logger = LogService.getLogger();
+
+  static final String PREFIX = "QUERY_SPILL_";
+
+  private static final ReferenceQueue<Object> reaperQueue = new ReferenceQueue<>();
+
+  /** Keeps the reapers reachable until their owner has been collected */
+  private static final Set<Reaper> reapers = ConcurrentHashMap.newKeySet();
+
+  private final File file;
+
+  private final RandomAccessFile raf;
+
+  private final FileChannel channel;
+
+  private final boolean unlinked;
+
+  /** The number of bytes written; guarded by this */
+  private long length;
+
+  private volatile boolean closed;
+
+  private SpillFile(File file, RandomAccessFile raf, boolean unlinked) {
+    this.file = file;
+    this.raf = raf;
+    this.channel = raf.getChannel();
+    this.unlinked = unlinked;
+  }
+
+  /**
+   * Creates a new empty spill file in the given directory.
+   */
+  static SpillFile create(File directory) {
+    expungeStaleFiles();
+    File file = null;
+    try {
+      file = File.createTempFile(PREFIX, ".spill", directory);
+      RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      return new SpillFile(file, raf, file.delete());
+    } catch (IOException ex) {
+      if (file != null) {
+        file.delete();
+      }
+      throw new DiskAccessException(
+          "Could not create a query spill file in " + directory.getAbsolutePath(), ex);
+    }
+  }
+
+  /**
+   * Arranges for the given files to be closed once {@code owner} is no longer reachable. The
+   * collection is read when the owner is collected, so files may be added to it later.
+   */
+  static void closeWhenUnreachable(Object owner, Collection<SpillFile> files) {
+    reapers.add(new Reaper(owner, files));
+  }
+
+  private static void expungeStaleFiles() {
+    Reference<?> ref;
+    while ((ref = reaperQueue.poll()) != null) {
+      Reaper reaper = (Reaper) ref;
+      reapers.remove(reaper);
+      for (SpillFile file : reaper.files) {
+        file.close();
+      }
+    }
+  }
+
+  File getFile() {
+    return this.file;
+  }
+
+  synchronized long length() {
+    return this.length;
+  }
+
+  /**
+   * Appends the remaining bytes of the buffer to the end of the file.
+   *
+   * @return the offset at which the bytes were written
+   */
+  synchronized long append(ByteBuffer buffer) {
+    long offset = this.length;
+    try {
+      while (buffer.hasRemaining()) {
+        this.length += this.channel.write(buffer, this.length);
+      }
+    } catch (IOException ex) {
+      throw new DiskAccessException("Could not write query spill file " + this.file, ex);
+    }
+    return offset;
+  }
+
+  /**
+   * Reads {@code size} bytes starting at {@code offset}. Safe to call concurrently with appends.
+   */
+  ByteBuffer read(long offset, int size) {
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    try {
+      while (buffer.hasRemaining()) {
+        int read = this.channel.read(buffer, offset + buffer.position());
+        if (read < 0) {
+          throw new DiskAccessException("Unexpected end of query spill file " + this.file);
+        }
+      }
+    } catch (IOException ex) {
+      if (this.closed) {
+        throw new IllegalStateException("The temporary result set has been closed", ex);
+      }
+      throw new DiskAccessException("Could not read query spill file " + this.file, ex);
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  void close() {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    try {
+      this.raf.close();
+    } catch (IOException ex) {
+      logger.debug("Could not close query spill file {}", this.file, ex);
+    }
+    if (!this.unlinked && !this.file.delete() && this.file.exists()) {
+      logger.warn("Could not delete query spill file {}", this.file);
+    }
+  }
+
+  private static class Reaper extends PhantomReference<Object> {
+    private final Collection<SpillFile> files;
+
+    Reaper(Object owner, Collection<SpillFile> files) {
+      super(owner, reaperQueue);
+      this.files = files;
+    }
+  }
+
+  static Collection<SpillFile> newFileSet() {
+    return Collections.newSetFromMap(new ConcurrentHashMap<>());
+  }
+}
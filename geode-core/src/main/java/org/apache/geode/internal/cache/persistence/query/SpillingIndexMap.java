@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence.query;
+
+import java.io.File;
+import java.util.Comparator;
+
+import org.apache.geode.internal.cache.CachedDeserializable;
+import org.apache.geode.internal.cache.CachedDeserializableFactory;
+import org.apache.geode.internal.cache.EntryEventImpl;
+
+/**
+ * An index map that spills to disk once it holds more than a threshold of bytes. Entries are
+ * stored under the pair {indexKey, serialized regionKey}, so region keys need not be comparable.
+ *
+ * @see TemporaryResultSetFactory
+ */
+class SpillingIndexMap implements IndexMap {
+
+  /** Sorts before every region key with the same index key */
+  private static final byte[] MIN_REGION_KEY = new byte[0];
+
+  /** Sorts after every region key with the same index key */
+  private static final byte[] MAX_REGION_KEY = new byte[0];
+
+  private final SortedSpillStore store;
+  private final Comparator comparator;
+
+  SpillingIndexMap(Comparator<?> comparator, long spillThreshold, File directory) {
+    this.comparator = comparator;
+    this.store =
+        new SortedSpillStore(new IndexKeyComparator(comparator), spillThreshold, directory);
+  }
+
+  @Override
+  public void put(Object indexKey, Object regionKey, Object value) {
+    this.store.put(key(indexKey, toBytes(regionKey)), value);
+  }
+
+  @Override
+  public void remove(Object indexKey, Object regionKey) {
+    this.store.remove(key(indexKey, toBytes(regionKey)));
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> get(Object indexKey) {
+    return iterator(indexKey, true, indexKey, true);
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> getKey(Object indexKey) {
+    return keyIterator(indexKey, true, indexKey, true);
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> iterator(Object start, boolean startInclusive, Object end,
+      boolean endInclusive) {
+    return entries(records(start, startInclusive, end, endInclusive));
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> iterator(Object start, boolean startInclusive) {
+    return entries(this.store.iterator(lowerBound(start, startInclusive), startInclusive,
+        SortedSpillStore.UNBOUNDED, true, false));
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> iterator() {
+    return entries(this.store.iterator());
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> descendingIterator(Object end, boolean endInclusive) {
+    return entries(this.store.iterator(upperBound(end, endInclusive), endInclusive,
+        SortedSpillStore.UNBOUNDED, true, true));
+  }
+
+  @Override
+  public CloseableIterator<IndexEntry> descendingIterator() {
+    return entries(this.store.iterator(SortedSpillStore.UNBOUNDED, true,
+        SortedSpillStore.UNBOUNDED, true, true));
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> keyIterator(Object start, boolean startInclusive,
+      Object end, boolean endInclusive) {
+    return regionKeys(records(start, startInclusive, end, endInclusive));
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> keyIterator(Object start, boolean startInclusive) {
+    return regionKeys(this.store.iterator(lowerBound(start, startInclusive), startInclusive,
+        SortedSpillStore.UNBOUNDED, true, false));
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> keyIterator() {
+    return regionKeys(this.store.iterator());
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> descendingKeyIterator(Object end,
+      boolean endInclusive) {
+    return regionKeys(this.store.iterator(upperBound(end, endInclusive), endInclusive,
+        SortedSpillStore.UNBOUNDED, true, true));
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> descendingKeyIterator() {
+    return regionKeys(this.store.iterator(SortedSpillStore.UNBOUNDED, true,
+        SortedSpillStore.UNBOUNDED, true, true));
+  }
+
+  @Override
+  public long size(Object start, Object end) {
+    return count(records(start, true, end, true));
+  }
+
+  @Override
+  public long sizeToEnd(Object start) {
+    return count(this.store.iterator(lowerBound(start, true), true, SortedSpillStore.UNBOUNDED,
+        true, false));
+  }
+
+  @Override
+  public long sizeFromStart(Object end) {
+    return count(this.store.iterator(SortedSpillStore.UNBOUNDED, true, upperBound(end, true), true,
+        false));
+  }
+
+  @Override
+  public long size() {
+    return this.store.estimateSize();
+  }
+
+  @Override
+  public void destroy() {
+    this.store.close();
+  }
+
+  /**
+   * Returns the records with index keys between start and end, descending if end is before start.
+   */
+  private CloseableIterator<SortedSpillStore.Record> records(Object start, boolean startInclusive,
+      Object end, boolean endInclusive) {
+    Object startKey = SortedSpillStore.deserialize(start);
+    Object endKey = SortedSpillStore.deserialize(end);
+    if (startKey != null && endKey != null && this.comparator.compare(endKey, startKey) < 0) {
+      return this.store.iterator(upperBound(startKey, startInclusive), startInclusive,
+          lowerBound(endKey, endInclusive), endInclusive, true);
+    }
+    return this.store.iterator(lowerBound(startKey, startInclusive), startInclusive,
+        upperBound(endKey, endInclusive), endInclusive, false);
+  }
+
+  /**
+   * Returns the composite key that sorts just before (inclusive) or just after (exclusive) every
+   * entry with the given index key.
+   */
+  private static Object[] lowerBound(Object indexKey, boolean inclusive) {
+    return key(indexKey, inclusive ? MIN_REGION_KEY : MAX_REGION_KEY);
+  }
+
+  /**
+   * Returns the composite key that sorts just after (inclusive) or just before (exclusive) every
+   * entry with the given index key.
+   */
+  private static Object[] upperBound(Object indexKey, boolean inclusive) {
+    return key(indexKey, inclusive ? MAX_REGION_KEY : MIN_REGION_KEY);
+  }
+
+  private static Object[] key(Object indexKey, byte[] regionKey) {
+    return new Object[] {SortedSpillStore.deserialize(indexKey), regionKey};
+  }
+
+  private static byte[] toBytes(Object regionKey) {
+    if (regionKey instanceof CachedDeserializable) {
+      return ((CachedDeserializable) regionKey).getSerializedValue();
+    }
+    return EntryEventImpl.serialize(regionKey);
+  }
+
+  private static long count(CloseableIterator<SortedSpillStore.Record> records) {
+    long count = 0;
+    try {
+      while (records.hasNext()) {
+        records.next();
+        count++;
+      }
+    } finally {
+      records.close();
+    }
+    return count;
+  }
+
+  private static CloseableIterator<IndexEntry> entries(
+      CloseableIterator<SortedSpillStore.Record> records) {
+    return SortedSpillStore.transform(records, IndexEntryImpl::new);
+  }
+
+  private static CloseableIterator<CachedDeserializable> regionKeys(
+      CloseableIterator<SortedSpillStore.Record> records) {
+    return SortedSpillStore.transform(records,
+        record -> CachedDeserializableFactory.create((byte[]) ((Object[]) record.getKey())[1],
+            null));
+  }
+
+  private static class IndexEntryImpl implements IndexEntry {
+    private final SortedSpillStore.Record record;
+
+    IndexEntryImpl(SortedSpillStore.Record record) {
+      this.record = record;
+    }
+
+    @Override
+    public CachedDeserializable getKey() {
+      Object indexKey = ((Object[]) this.record.getKey())[0];
+      return CachedDeserializableFactory.create(EntryEventImpl.serialize(indexKey), null);
+    }
+
+    @Override
+    public CachedDeserializable getRegionKey() {
+      return CachedDeserializableFactory.create((byte[]) ((Object[]) this.record.getKey())[1],
+          null);
+    }
+
+    @Override
+    public CachedDeserializable getValue() {
+      return this.record.getValue();
+    }
+  }
+
+  /**
+   * Orders {indexKey, regionKey} keys by index key and then by the serialized region key. A null
+   * index key sorts first.
+   */
+  private static class IndexKeyComparator implements Comparator<Object[]> {
+    private final Comparator comparator;
+
+    IndexKeyComparator(Comparator<?> comparator) {
+      this.comparator = comparator;
+    }
+
+    @Override
+    public int compare(Object[] key1, Object[] key2) {
+      Object indexKey1 = key1[0];
+      Object indexKey2 = key2[0];
+      int result;
+      if (indexKey1 == null) {
+        result = indexKey2 == null ? 0 : -1;
+      } else if (indexKey2 == null) {
+        result = 1;
+      } else {
+        result = this.comparator.compare(indexKey1, indexKey2);
+      }
+      if (result == 0) {
+        result = compareRegionKeys((byte[]) key1[1], (byte[]) key2[1]);
+      }
+      return result;
+    }
+
+    private static int compareRegionKeys(byte[] key1, byte[] key2) {
+      if (key1 == key2) {
+        return 0;
+      }
+      if (key1 == MIN_REGION_KEY || key2 == MAX_REGION_KEY) {
+        return -1;
+      }
+      if (key1 == MAX_REGION_KEY || key2 == MIN_REGION_KEY) {
+        return 1;
+      }
+      int length = Math.min(key1.length, key2.length);
+      for (int i = 0; i < length; i++) {
+        int result = Byte.compare(key1[i], key2[i]);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return Integer.compare(key1.length, key2.length);
+    }
+  }
+}
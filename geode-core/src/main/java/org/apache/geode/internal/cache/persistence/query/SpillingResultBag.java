@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence.query;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.geode.internal.cache.CachedDeserializable;
+
+/**
+ * A sorted result bag that spills to disk once it holds more than a threshold of bytes. Each
+ * element is stored under its sort key and a sequence number, so equal elements are returned in
+ * the order they were added. A bag without a sort key extractor is sorted by the elements
+ * themselves, so it keeps each element only in its key.
+ *
+ * @see TemporaryResultSetFactory
+ */
+class SpillingResultBag implements ResultBag {
+  private final SortedSpillStore store;
+  private final SortKeyExtractor extractor;
+  private final boolean elementIsKey;
+  private final AtomicLong counter = new AtomicLong();
+
+  SpillingResultBag(SortKeyExtractor extractor, Comparator<?> comparator, long spillThreshold,
+      File directory) {
+    this.elementIsKey = extractor == null;
+    this.extractor = extractor == null ? new IdentityExtractor() : extractor;
+    this.store = new SortedSpillStore(new BagKeyComparator(comparator), spillThreshold, directory);
+  }
+
+  @Override
+  public void add(Object e) {
+    Object sortKey = SortedSpillStore.deserialize(this.extractor.getSortKey(e));
+    this.store.put(new Object[] {sortKey, this.counter.incrementAndGet()},
+        this.elementIsKey ? null : e);
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> iterator() {
+    return SortedSpillStore.transform(this.store.iterator(), this::getElement);
+  }
+
+  @Override
+  public int occurrences(Object e) {
+    CloseableIterator<SortedSpillStore.Record> records = sameSortKey(e);
+    int count = 0;
+    while (records.hasNext()) {
+      records.next();
+      count++;
+    }
+    return count;
+  }
+
+  @Override
+  public int removeAll(Object e) {
+    List<Object> keys = new ArrayList<>();
+    for (Iterator<SortedSpillStore.Record> records = sameSortKey(e); records.hasNext();) {
+      keys.add(records.next().getKey());
+    }
+    for (Object key : keys) {
+      this.store.remove(key);
+    }
+    return keys.size();
+  }
+
+  @Override
+  public void close() {
+    this.store.close();
+  }
+
+  /**
+   * Returns the records whose sort key is the sort key of the given element. Only the blocks of
+   * each run that may hold them are read.
+   */
+  private CloseableIterator<SortedSpillStore.Record> sameSortKey(Object e) {
+    Object sortKey = SortedSpillStore.deserialize(this.extractor.getSortKey(e));
+    return this.store.iterator(new Object[] {sortKey, Long.MIN_VALUE}, true,
+        new Object[] {sortKey, Long.MAX_VALUE}, true, false);
+  }
+
+  private CachedDeserializable getElement(SortedSpillStore.Record record) {
+    if (this.elementIsKey) {
+      return record.getKeyElement(0);
+    }
+    return record.getElement();
+  }
+
+  /**
+   * Orders the {sortKey, sequence} keys of the bag. A null sort key sorts first.
+   */
+  private static class BagKeyComparator implements Comparator<Object[]> {
+    private final Comparator comparator;
+
+    BagKeyComparator(Comparator<?> comparator) {
+      this.comparator = comparator;
+    }
+
+    @Override
+    public int compare(Object[] key1, Object[] key2) {
+      Object sortKey1 = key1[0];
+      Object sortKey2 = key2[0];
+      int result;
+      if (sortKey1 == null) {
+        result = sortKey2 == null ? 0 : -1;
+      } else if (sortKey2 == null) {
+        result = 1;
+      } else {
+        result = this.comparator.compare(sortKey1, sortKey2);
+      }
+      if (result == 0) {
+        result = Long.compare((Long) key1[1], (Long) key2[1]);
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence.query;
+
+import java.io.File;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.geode.internal.cache.CachedDeserializable;
+
+/**
+ * A result list that spills to disk once it holds more than a threshold of bytes. Elements are
+ * stored under their position in the list.
+ *
+ * @see TemporaryResultSetFactory
+ */
+class SpillingResultList implements ResultList {
+  private final SortedSpillStore store;
+  private final AtomicLong counter = new AtomicLong();
+
+  SpillingResultList(long spillThreshold, File directory) {
+    this.store =
+        new SortedSpillStore(Comparator.<Long>naturalOrder(), spillThreshold, directory);
+  }
+
+  @Override
+  public void add(Object e) {
+    this.store.put(this.counter.getAndIncrement(), e);
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> iterator() {
+    return SortedSpillStore.transform(this.store.iterator(), SortedSpillStore.Record::getElement);
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> iterator(long start) {
+    return SortedSpillStore.transform(
+        this.store.iterator(start, true, SortedSpillStore.UNBOUNDED, true, false),
+        SortedSpillStore.Record::getElement);
+  }
+
+  @Override
+  public void close() {
+    this.store.close();
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence.query;
+
+import java.io.File;
+import java.util.Comparator;
+
+import org.apache.geode.internal.cache.CachedDeserializable;
+
+/**
+ * A sorted result map that spills to disk once it holds more than a threshold of bytes.
+ *
+ * @see TemporaryResultSetFactory
+ */
+class SpillingResultMap implements ResultMap {
+  private final SortedSpillStore store;
+  private final Comparator comparator;
+
+  SpillingResultMap(Comparator<?> comparator, long spillThreshold, File directory) {
+    this.comparator = comparator;
+    this.store = new SortedSpillStore(comparator, spillThreshold, directory);
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    this.store.put(SortedSpillStore.deserialize(key), value);
+  }
+
+  @Override
+  public void remove(Object key) {
+    this.store.remove(SortedSpillStore.deserialize(key));
+  }
+
+  @Override
+  public Entry getEntry(Object key) {
+    SortedSpillStore.Record record = this.store.get(SortedSpillStore.deserialize(key));
+    return record == null ? null : new EntryImpl(record);
+  }
+
+  @Override
+  public CachedDeserializable get(Object key) {
+    SortedSpillStore.Record record = this.store.get(SortedSpillStore.deserialize(key));
+    return record == null ? null : record.getValue();
+  }
+
+  @Override
+  public boolean containsKey(Object e) {
+    return this.store.get(SortedSpillStore.deserialize(e)) != null;
+  }
+
+  @Override
+  public CloseableIterator<Entry> iterator(Object start, boolean startInclusive, Object end,
+      boolean endInclusive) {
+    return SortedSpillStore.transform(records(start, startInclusive, end, endInclusive),
+        EntryImpl::new);
+  }
+
+  @Override
+  public CloseableIterator<Entry> iterator(Object start, boolean startInclusive) {
+    return iterator(start, startInclusive, SortedSpillStore.UNBOUNDED, true);
+  }
+
+  @Override
+  public CloseableIterator<Entry> iterator() {
+    return iterator(SortedSpillStore.UNBOUNDED, true, SortedSpillStore.UNBOUNDED, true);
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> keyIterator(Object start, boolean startInclusive,
+      Object end, boolean endInclusive) {
+    return SortedSpillStore.transform(records(start, startInclusive, end, endInclusive),
+        SortedSpillStore.Record::getSerializedKey);
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> keyIterator(Object start, boolean startInclusive) {
+    return keyIterator(start, startInclusive, SortedSpillStore.UNBOUNDED, true);
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> keyIterator() {
+    return keyIterator(SortedSpillStore.UNBOUNDED, true, SortedSpillStore.UNBOUNDED, true);
+  }
+
+  @Override
+  public void close() {
+    this.store.close();
+  }
+
+  private CloseableIterator<SortedSpillStore.Record> records(Object start,
+      boolean startInclusive, Object end, boolean endInclusive) {
+    if (start != SortedSpillStore.UNBOUNDED) {
+      start = SortedSpillStore.deserialize(start);
+    }
+    if (end != SortedSpillStore.UNBOUNDED) {
+      end = SortedSpillStore.deserialize(end);
+    }
+    boolean descending = start != SortedSpillStore.UNBOUNDED && end != SortedSpillStore.UNBOUNDED
+        && start != null && end != null && this.comparator.compare(end, start) < 0;
+    return this.store.iterator(start, startInclusive, end, endInclusive, descending);
+  }
+
+  private static class EntryImpl implements Entry {
+    private final SortedSpillStore.Record record;
+
+    EntryImpl(SortedSpillStore.Record record) {
+      this.record = record;
+    }
+
+    @Override
+    public CachedDeserializable getKey() {
+      return this.record.getSerializedKey();
+    }
+
+    @Override
+    public CachedDeserializable getValue() {
+      return this.record.getValue();
+    }
+  }
+}
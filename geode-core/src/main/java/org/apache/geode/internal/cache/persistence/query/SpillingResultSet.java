@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence.query;
+
+import java.io.File;
+import java.util.Comparator;
+
+import org.apache.geode.internal.cache.CachedDeserializable;
+
+/**
+ * A sorted result set that spills to disk once it holds more than a threshold of bytes. A set
+ * without a sort key extractor is sorted by the elements themselves, so it keeps each element only
+ * in its key.
+ *
+ * @see TemporaryResultSetFactory
+ */
+class SpillingResultSet implements ResultSet {
+  private final SortedSpillStore store;
+  private final SortKeyExtractor extractor;
+  private final boolean elementIsKey;
+
+  SpillingResultSet(SortKeyExtractor extractor, Comparator<?> comparator, long spillThreshold,
+      File directory) {
+    this.elementIsKey = extractor == null;
+    this.extractor = extractor == null ? new IdentityExtractor() : extractor;
+    this.store = new SortedSpillStore(comparator, spillThreshold, directory);
+  }
+
+  @Override
+  public void add(Object e) {
+    this.store.put(sortKey(e), this.elementIsKey ? null : e);
+  }
+
+  @Override
+  public CloseableIterator<CachedDeserializable> iterator() {
+    return SortedSpillStore.transform(this.store.iterator(), this::getElement);
+  }
+
+  @Override
+  public boolean contains(Object e) {
+    return this.store.get(sortKey(e)) != null;
+  }
+
+  @Override
+  public boolean remove(Object e) {
+    Object sortKey = sortKey(e);
+    if (this.store.get(sortKey) == null) {
+      return false;
+    }
+    this.store.remove(sortKey);
+    return true;
+  }
+
+  @Override
+  public void close() {
+    this.store.close();
+  }
+
+  private Object sortKey(Object e) {
+    return SortedSpillStore.deserialize(this.extractor.getSortKey(e));
+  }
+
+  private CachedDeserializable getElement(SortedSpillStore.Record record) {
+    if (this.elementIsKey) {
+      return record.getKeyElement();
+    }
+    return record.getElement();
+  }
+}
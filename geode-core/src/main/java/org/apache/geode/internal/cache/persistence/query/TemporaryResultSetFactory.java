@@ -14,9 +14,12 @@
  */
 package org.apache.geode.internal.cache.persistence.query;
 
-import org.apache.geode.internal.cache.persistence.query.mock.ResultListImpl;
-import org.apache.geode.internal.cache.persistence.query.mock.SortedResultBagImpl;
-import org.apache.geode.internal.cache.persistence.query.mock.SortedResultSetImpl;
+import java.io.File;
+import java.util.Collections;
+import java.util.Comparator;
+
+import org.apache.geode.cache.query.internal.types.ExtendedNumericComparator;
+import org.apache.geode.distributed.internal.DistributionConfig;
 
 /**
  * This is a factory for temporary result sets that overflow to disk.
@@ -24,9 +27,41 @@ import org.apache.geode.internal.cache.persistence.query.mock.SortedResultSetImp
  * The result sets will not be recovered when the member restarts. Any temporary results still on
  * disk when a member restarts will be deleted.
  *
+ * Each result set keeps up to {@link #SPILL_THRESHOLD_BYTES} of serialized data on the heap. Beyond
+ * that it writes sorted runs to scratch files in {@link #SPILL_DIRECTORY} and merges them back
+ * when iterated.
  */
 public class TemporaryResultSetFactory {
 
+  /**
+   * The estimated number of bytes a temporary result set holds on the heap before spilling.
+   */
+  public static final long SPILL_THRESHOLD_BYTES = Long.getLong(
+      DistributionConfig.GEMFIRE_PREFIX + "Query.SPILL_THRESHOLD_BYTES", 16 * 1024 * 1024);
+
+  /**
+   * The directory temporary result sets spill to.
+   */
+  public static final String SPILL_DIRECTORY = System.getProperty(
+      DistributionConfig.GEMFIRE_PREFIX + "Query.SPILL_DIRECTORY",
+      System.getProperty("java.io.tmpdir"));
+
+  private final long spillThreshold;
+
+  private final File directory;
+
+  public TemporaryResultSetFactory() {
+    this(SPILL_THRESHOLD_BYTES, new File(SPILL_DIRECTORY));
+  }
+
+  /**
+   * @param spillThreshold the estimated number of bytes each result set holds on the heap
+   * @param directory the directory result sets spill to
+   */
+  public TemporaryResultSetFactory(long spillThreshold, File directory) {
+    this.spillThreshold = spillThreshold;
+    this.directory = directory;
+  }
 
   /**
    * Get a result set that is sorted. The result set will be overflowed on to disk as necessary, but
@@ -37,7 +72,18 @@ public class TemporaryResultSetFactory {
    * @param reverse - true to reverse the natural order of the keys
    */
   public ResultSet getSortedResultSet(SortKeyExtractor extractor, boolean reverse) {
-    return new SortedResultSetImpl(extractor, reverse);
+    return getSortedResultSet(extractor, naturalOrder(reverse));
+  }
+
+  /**
+   * Get a result set that is sorted by the given comparator. The result set will be overflowed on
+   * to disk as necessary, but it will not be recovered from disk.
+   *
+   * @param extractor a callback to extract the index sort key from the object.
+   * @param comparator compares the non null sort keys. A null sort key sorts first.
+   */
+  public ResultSet getSortedResultSet(SortKeyExtractor extractor, Comparator<?> comparator) {
+    return new SpillingResultSet(extractor, comparator, this.spillThreshold, this.directory);
   }
 
   /**
@@ -49,7 +95,18 @@ public class TemporaryResultSetFactory {
    * @param reverse - true to reverse the natural order of the keys
    */
   public ResultBag getSortedResultBag(SortKeyExtractor extractor, boolean reverse) {
-    return new SortedResultBagImpl(extractor, reverse);
+    return getSortedResultBag(extractor, naturalOrder(reverse));
+  }
+
+  /**
+   * Get a result bag that is sorted by the given comparator. The result set will be overflowed on
+   * to disk as necessary, but it will not be recovered from disk.
+   *
+   * @param extractor a callback to extract the index sort key from the object.
+   * @param comparator compares the non null sort keys. A null sort key sorts first.
+   */
+  public ResultBag getSortedResultBag(SortKeyExtractor extractor, Comparator<?> comparator) {
+    return new SpillingResultBag(extractor, comparator, this.spillThreshold, this.directory);
   }
 
   /**
@@ -62,7 +119,7 @@ public class TemporaryResultSetFactory {
    * @param reverse - true to reverse the natural order of the keys
    */
   public ResultSet getUnsortedResultSet(boolean reverse) {
-    return new SortedResultSetImpl(null, reverse);
+    return getSortedResultSet(null, reverse);
   }
 
   /**
@@ -71,6 +128,29 @@ public class TemporaryResultSetFactory {
    *
    */
   public ResultList getResultList() {
-    return new ResultListImpl();
+    return new SpillingResultList(this.spillThreshold, this.directory);
+  }
+
+  /**
+   * Get a map that is sorted by key. The map will be overflowed on to disk as necessary, but it
+   * will not be recovered from disk.
+   *
+   * @param reverse - true to reverse the natural order of the keys
+   */
+  public ResultMap getSortedResultMap(boolean reverse) {
+    return new SpillingResultMap(naturalOrder(reverse), this.spillThreshold, this.directory);
+  }
+
+  /**
+   * Get a map from index key and region key to value, sorted by index key. The map will be
+   * overflowed on to disk as necessary, but it will not be recovered from disk.
+   */
+  public IndexMap getIndexMap() {
+    return new SpillingIndexMap(naturalOrder(false), this.spillThreshold, this.directory);
+  }
+
+  private static Comparator<?> naturalOrder(boolean reverse) {
+    Comparator<Object> comparator = new ExtendedNumericComparator();
+    return reverse ? Collections.reverseOrder(comparator) : comparator;
   }
 }
@@ -14,11 +14,14 @@
  */
 package org.apache.geode.internal.cache.persistence.query.mock;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.geode.internal.cache.CachedDeserializable;
 import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
 import org.apache.geode.internal.cache.persistence.query.IdentityExtractor;
+import org.apache.geode.internal.cache.persistence.query.IndexMap.IndexEntry;
 import org.apache.geode.internal.cache.persistence.query.ResultBag;
 import org.apache.geode.internal.cache.persistence.query.SortKeyExtractor;
 
@@ -53,6 +56,29 @@ public class SortedResultBagImpl implements ResultBag {
     }
   }
 
+  @Override
+  public int occurrences(Object e) {
+    int count = 0;
+    for (CloseableIterator<IndexEntry> itr = map.get(extractor.getSortKey(e)); itr.hasNext();) {
+      itr.next();
+      count++;
+    }
+    return count;
+  }
+
+  @Override
+  public int removeAll(Object e) {
+    Object sortKey = extractor.getSortKey(e);
+    List<Object> sequences = new ArrayList<>();
+    for (CloseableIterator<IndexEntry> itr = map.get(sortKey); itr.hasNext();) {
+      sequences.add(itr.next().getRegionKey().getDeserializedForReading());
+    }
+    for (Object sequence : sequences) {
+      map.remove(sortKey, sequence);
+    }
+    return sequences.size();
+  }
+
   @Override
   public void close() {
     map.destroy();
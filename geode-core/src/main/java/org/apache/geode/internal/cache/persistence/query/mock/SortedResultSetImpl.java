@@ -41,6 +41,19 @@ public class SortedResultSetImpl implements ResultSet {
     return map.valueIterator();
   }
 
+  @Override
+  public boolean contains(Object e) {
+    return map.get(extractor.getSortKey(e)) != null;
+  }
+
+  @Override
+  public boolean remove(Object e) {
+    Object sortKey = extractor.getSortKey(e);
+    boolean found = map.get(sortKey) != null;
+    map.remove(sortKey);
+    return found;
+  }
+
   @Override
   public void close() {
     map.close();
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.geode.cache.CacheClosedException;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.snapshot.SnapshotOptions;
+import org.apache.geode.internal.cache.LocalDataSet;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.ChunkInfo;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.ChunkWriter;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.Manifest;
+
+/**
+ * Exports the local buckets of a partitioned region to a chunked snapshot. Each bucket is written
+ * to its own chunk by a {@link LocalExporter}, with up to
+ * {@link RegionSnapshotServiceImpl#CHUNK_CONCURRENCY} buckets written at a time, and the manifest
+ * is written once all of them are complete.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see ChunkedSnapshot
+ */
+class ChunkedExporter<K, V> {
+  private final int concurrency;
+
+  ChunkedExporter(int concurrency) {
+    this.concurrency = Math.max(1, concurrency);
+  }
+
+  /**
+   * Exports the buckets of the data set.
+   *
+   * @param region the local buckets to export
+   * @param manifest the manifest file
+   * @param options snapshot options
+   * @param executor runs the export of each bucket
+   * @return the chunks written
+   * @throws IOException error during export
+   */
+  List<ChunkInfo> export(LocalDataSet region, File manifest, SnapshotOptions<K, V> options,
+      ExecutorService executor) throws IOException {
+    PartitionedRegion pr = region.getProxy();
+    List<Integer> bucketIds = new ArrayList<>(region.getBucketSet());
+    Collections.sort(bucketIds);
+
+    List<ChunkInfo> chunks = new ArrayList<>(bucketIds.size());
+    LinkedList<Future<ChunkInfo>> writes = new LinkedList<>();
+    try {
+      for (Integer bucketId : bucketIds) {
+        if (writes.size() == concurrency) {
+          chunks.add(writes.removeFirst().get());
+        }
+        writes.addLast(executor.submit(() -> exportBucket(pr, bucketId, manifest, options)));
+      }
+
+      // wait for completion and check for errors
+      while (!writes.isEmpty()) {
+        chunks.add(writes.removeFirst().get());
+      }
+
+    } catch (InterruptedException e) {
+      while (!writes.isEmpty()) {
+        writes.removeFirst().cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      throw (IOException) new InterruptedIOException().initCause(e);
+
+    } catch (ExecutionException e) {
+      while (!writes.isEmpty()) {
+        writes.removeFirst().cancel(true);
+      }
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+
+    ExportedRegistry pdx;
+    try {
+      pdx = new ExportedRegistry(pr.getCache().getPdxRegistry());
+    } catch (CacheClosedException e) {
+      // ignore pdx types
+      pdx = new ExportedRegistry();
+    }
+    new Manifest(pr.getFullPath(), chunks, pdx).write(manifest);
+    return chunks;
+  }
+
+  private ChunkInfo exportBucket(PartitionedRegion pr, int bucketId, File manifest,
+      SnapshotOptions<K, V> options) throws IOException {
+    Region<K, V> bucket = new LocalDataSet(pr, Collections.singleton(bucketId));
+    ChunkWriter writer =
+        new ChunkWriter(ChunkedSnapshot.getChunkFile(manifest, bucketId), bucketId);
+    try {
+      new LocalExporter<K, V>().export(bucket, writer, options);
+      return writer.complete();
+    } catch (IOException | RuntimeException e) {
+      writer.abort();
+      throw e;
+    }
+  }
+}
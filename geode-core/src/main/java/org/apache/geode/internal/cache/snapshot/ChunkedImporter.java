@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.geode.cache.snapshot.SnapshotOptions;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.ChunkInfo;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.ChunkReader;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.Manifest;
+import org.apache.geode.internal.cache.snapshot.SnapshotPacket.SnapshotRecord;
+
+/**
+ * Imports a chunked snapshot. Up to {@link RegionSnapshotServiceImpl#CHUNK_CONCURRENCY} chunks are
+ * read at a time, each by its own thread, and their entries are put into the region in batches of
+ * about {@link RegionSnapshotServiceImpl#BUFFER_SIZE} bytes. A chunk that fails its checksum fails
+ * the import once it has been read, so the entries read from it before may already be in the
+ * region.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see ChunkedSnapshot
+ */
+class ChunkedImporter<K, V> {
+  private final int concurrency;
+
+  private final AtomicLong entries = new AtomicLong();
+
+  private final AtomicLong bytes = new AtomicLong();
+
+  ChunkedImporter(int concurrency) {
+    this.concurrency = Math.max(1, concurrency);
+  }
+
+  /**
+   * Imports the chunks listed in the manifest.
+   *
+   * @param manifest the manifest file
+   * @param options snapshot options
+   * @param local the region to import into
+   * @param executor runs the import of each chunk
+   * @throws IOException error during import
+   * @throws ClassNotFoundException unable to read the manifest
+   */
+  void load(File manifest, SnapshotOptions<K, V> options, LocalRegion local,
+      ExecutorService executor) throws IOException, ClassNotFoundException {
+    Manifest mf = Manifest.read(manifest);
+    mf.registerPdxTypes(local.getCache().getPdxRegistry());
+    File directory = manifest.getAbsoluteFile().getParentFile();
+
+    LinkedList<Future<?>> reads = new LinkedList<>();
+    try {
+      for (ChunkInfo chunk : mf.getChunks()) {
+        if (reads.size() == concurrency) {
+          reads.removeFirst().get();
+        }
+        reads.addLast(executor.submit(() -> {
+          loadChunk(directory, chunk, options, local);
+          return null;
+        }));
+      }
+
+      // wait for completion and check for errors
+      while (!reads.isEmpty()) {
+        reads.removeFirst().get();
+      }
+
+    } catch (InterruptedException e) {
+      while (!reads.isEmpty()) {
+        reads.removeFirst().cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      throw (IOException) new InterruptedIOException().initCause(e);
+
+    } catch (ExecutionException e) {
+      while (!reads.isEmpty()) {
+        reads.removeFirst().cancel(true);
+      }
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Returns the number of entries imported so far.
+   */
+  long getEntriesImported() {
+    return entries.get();
+  }
+
+  /**
+   * Returns the number of key and value bytes read so far.
+   */
+  long getBytesRead() {
+    return bytes.get();
+  }
+
+  private void loadChunk(File directory, ChunkInfo chunk, SnapshotOptions<K, V> options,
+      LocalRegion local) throws IOException, ClassNotFoundException {
+    ChunkReader in = new ChunkReader(directory, chunk);
+    try {
+      int bufferSize = 0;
+      Map<K, V> buffer = new HashMap<>();
+
+      SnapshotRecord record;
+      while ((record = in.readSnapshotRecord()) != null) {
+        bytes.addAndGet(record.getSize());
+        K key = record.getKeyObject();
+        V val = RegionSnapshotServiceImpl.getImportValue(record, local);
+
+        if (RegionSnapshotServiceImpl.includeEntry(options, key, val)) {
+          buffer.put(key, val);
+          bufferSize += record.getSize();
+
+          if (bufferSize > RegionSnapshotServiceImpl.BUFFER_SIZE) {
+            putAll(buffer, options, local);
+            bufferSize = 0;
+          }
+        }
+      }
+
+      // send off any remaining entries
+      if (!buffer.isEmpty()) {
+        putAll(buffer, options, local);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private void putAll(Map<K, V> buffer, SnapshotOptions<K, V> options, LocalRegion local) {
+    local.basicImportPutAll(buffer, !options.shouldInvokeCallbacks());
+    entries.addAndGet(buffer.size());
+    buffer.clear();
+  }
+}
@@ -0,0 +1,386 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.geode.DataSerializer;
+import org.apache.geode.cache.snapshot.RegionSnapshotService;
+import org.apache.geode.internal.InternalDataSerializer;
+import org.apache.geode.internal.cache.snapshot.RegionSnapshotServiceImpl.ExportSink;
+import org.apache.geode.internal.cache.snapshot.SnapshotPacket.SnapshotRecord;
+import org.apache.geode.pdx.internal.EnumInfo;
+import org.apache.geode.pdx.internal.PdxType;
+import org.apache.geode.pdx.internal.TypeRegistry;
+
+/**
+ * Provides support for reading and writing chunked snapshots. A chunked snapshot is written by a
+ * parallel export in {@link SnapshotOptionsImpl#setChunkedMode(boolean) chunked mode}: every member
+ * writes each of its primary buckets to a chunk file of its own, several at a time, and then writes
+ * a manifest listing the chunks with their length and CRC32 checksum together with the pdx types
+ * they use.
+ * <p>
+ * The manifest is written in place of the snapshot file named by the {@link SnapshotFileMapper}
+ * and the chunks are written next to it, so a chunked snapshot is imported the same way as a
+ * regular one. A chunk only holds the serialized snapshot records followed by a null key; the
+ * manifest is written last, so it only exists once every chunk it lists is complete.
+ */
+public class ChunkedSnapshot {
+  /** the chunk file extension */
+  public static final String CHUNK_FILE_EXTENSION = ".gfc";
+
+  /** the manifest format version 1 */
+  public static final int MANIFEST_VER_1 = 1;
+
+  /** the manifest file format */
+  private static final byte[] MANIFEST_FMT = {0x47, 0x46, 0x4D};
+
+  private ChunkedSnapshot() {}
+
+  /**
+   * Returns true if the file is the manifest of a chunked snapshot rather than a snapshot file.
+   *
+   * @param file the snapshot file
+   * @throws IOException error reading the file
+   */
+  public static boolean isManifest(File file) throws IOException {
+    byte[] header = new byte[1 + MANIFEST_FMT.length];
+    try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+      in.readFully(header);
+    } catch (EOFException e) {
+      return false;
+    }
+    return Arrays.equals(Arrays.copyOfRange(header, 1, header.length), MANIFEST_FMT);
+  }
+
+  /**
+   * Returns the file a bucket is written to when its chunked snapshot has the given manifest.
+   *
+   * @param manifest the manifest file
+   * @param bucketId the bucket
+   * @return the chunk file
+   */
+  static File getChunkFile(File manifest, int bucketId) {
+    String name = manifest.getName();
+    if (name.endsWith(RegionSnapshotService.SNAPSHOT_FILE_EXTENSION)) {
+      name = name.substring(0,
+          name.length() - RegionSnapshotService.SNAPSHOT_FILE_EXTENSION.length());
+    }
+    return new File(manifest.getAbsoluteFile().getParentFile(),
+        name + "-" + bucketId + CHUNK_FILE_EXTENSION);
+  }
+
+  /**
+   * Describes a chunk listed in a manifest.
+   */
+  static class ChunkInfo {
+    /** the chunk file name, relative to the manifest */
+    private final String fileName;
+
+    private final int bucketId;
+
+    private final long entries;
+
+    /** the length of the chunk file */
+    private final long length;
+
+    /** the CRC32 checksum of the chunk file */
+    private final long checksum;
+
+    ChunkInfo(String fileName, int bucketId, long entries, long length, long checksum) {
+      this.fileName = fileName;
+      this.bucketId = bucketId;
+      this.entries = entries;
+      this.length = length;
+      this.checksum = checksum;
+    }
+
+    public String getFileName() {
+      return fileName;
+    }
+
+    public int getBucketId() {
+      return bucketId;
+    }
+
+    public long getEntries() {
+      return entries;
+    }
+
+    public long getLength() {
+      return length;
+    }
+
+    public long getChecksum() {
+      return checksum;
+    }
+
+    void toData(DataOutputStream out) throws IOException {
+      out.writeUTF(fileName);
+      out.writeInt(bucketId);
+      out.writeLong(entries);
+      out.writeLong(length);
+      out.writeLong(checksum);
+    }
+
+    static ChunkInfo fromData(DataInputStream in) throws IOException {
+      return new ChunkInfo(in.readUTF(), in.readInt(), in.readLong(), in.readLong(), in.readLong());
+    }
+  }
+
+  /**
+   * Writes the snapshot records of one bucket to a chunk file.
+   */
+  static class ChunkWriter implements ExportSink {
+    private final File file;
+
+    private final int bucketId;
+
+    private final CRC32 checksum = new CRC32();
+
+    private final DataOutputStream dos;
+
+    private long entries;
+
+    public ChunkWriter(File file, int bucketId) throws IOException {
+      this.file = file;
+      this.bucketId = bucketId;
+      dos = new DataOutputStream(
+          new BufferedOutputStream(new CheckedOutputStream(new FileOutputStream(file), checksum),
+              RegionSnapshotServiceImpl.BUFFER_SIZE));
+    }
+
+    @Override
+    public void write(SnapshotRecord... records) throws IOException {
+      for (SnapshotRecord rec : records) {
+        InternalDataSerializer.invokeToData(rec, dos);
+        entries++;
+      }
+    }
+
+    /**
+     * Completes the chunk.
+     *
+     * @return the manifest entry of the chunk
+     * @throws IOException unable to complete the chunk
+     */
+    public ChunkInfo complete() throws IOException {
+      // write entry terminator entry
+      DataSerializer.writeByteArray(null, dos);
+      dos.close();
+      return new ChunkInfo(file.getName(), bucketId, entries, file.length(), checksum.getValue());
+    }
+
+    /**
+     * Closes an incomplete chunk after an error.
+     */
+    public void abort() {
+      try {
+        dos.close();
+      } catch (IOException ignore) {
+        // the chunk is unusable anyway
+      }
+    }
+  }
+
+  /**
+   * Reads the snapshot records of a chunk file and verifies its checksum once they have all been
+   * read.
+   */
+  static class ChunkReader {
+    private final File file;
+
+    private final ChunkInfo chunk;
+
+    private final CRC32 checksum = new CRC32();
+
+    private final DataInputStream dis;
+
+    public ChunkReader(File directory, ChunkInfo chunk) throws IOException {
+      this.file = new File(directory, chunk.getFileName());
+      this.chunk = chunk;
+      if (file.length() != chunk.getLength()) {
+        throw new IOException("Snapshot chunk " + file + " has length " + file.length()
+            + " but its manifest expects " + chunk.getLength());
+      }
+      dis = new DataInputStream(
+          new BufferedInputStream(new CheckedInputStream(new FileInputStream(file), checksum),
+              RegionSnapshotServiceImpl.BUFFER_SIZE));
+    }
+
+    /**
+     * Reads a snapshot entry. If the last entry has been read, the checksum of the chunk is
+     * verified and a null value is returned.
+     *
+     * @return the entry or null
+     * @throws IOException unable to read entry or the chunk is corrupt
+     */
+    public SnapshotRecord readSnapshotRecord() throws IOException {
+      byte[] key = DataSerializer.readByteArray(dis);
+      if (key == null) {
+        verify();
+        return null;
+      }
+
+      byte[] value = DataSerializer.readByteArray(dis);
+      return new SnapshotRecord(key, value);
+    }
+
+    public void close() throws IOException {
+      dis.close();
+    }
+
+    private void verify() throws IOException {
+      // drain the stream so the checksum covers the whole file
+      if (dis.read() != -1) {
+        throw new IOException("Snapshot chunk " + file + " has data after its last entry");
+      }
+      if (checksum.getValue() != chunk.getChecksum()) {
+        throw new IOException("Snapshot chunk " + file + " has checksum " + checksum.getValue()
+            + " but its manifest expects " + chunk.getChecksum());
+      }
+    }
+  }
+
+  /**
+   * The manifest of a chunked snapshot.
+   */
+  static class Manifest {
+    /** the region name */
+    private final String region;
+
+    private final List<ChunkInfo> chunks;
+
+    /** the pdx types used by the chunks */
+    private final ExportedRegistry pdx;
+
+    Manifest(String region, List<ChunkInfo> chunks, ExportedRegistry pdx) {
+      this.region = region;
+      this.chunks = Collections.unmodifiableList(chunks);
+      this.pdx = pdx;
+    }
+
+    /**
+     * Returns the original pathname of the region used to create the snapshot.
+     *
+     * @return the region name (full pathname)
+     */
+    public String getRegionName() {
+      return region;
+    }
+
+    public List<ChunkInfo> getChunks() {
+      return chunks;
+    }
+
+    public ExportedRegistry getPdxTypes() {
+      return pdx;
+    }
+
+    /**
+     * Adds the pdx types of the snapshot to the type registry so the chunks can be imported
+     * without any translation.
+     *
+     * @param tr the type registry, or null
+     */
+    public void registerPdxTypes(TypeRegistry tr) {
+      if (tr == null) {
+        return;
+      }
+      for (Map.Entry<Integer, PdxType> entry : pdx.types().entrySet()) {
+        tr.addImportedType(entry.getKey(), entry.getValue());
+      }
+      for (Map.Entry<Integer, EnumInfo> entry : pdx.enums().entrySet()) {
+        tr.addImportedEnum(entry.getKey(), entry.getValue());
+      }
+    }
+
+    /**
+     * Writes the manifest. It is written to a temporary file first and then moved into place, so
+     * the manifest is either complete or missing.
+     *
+     * @param file the manifest file
+     * @throws IOException unable to write the manifest
+     */
+    public void write(File file) throws IOException {
+      File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+      try (DataOutputStream dos =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+        dos.writeByte(MANIFEST_VER_1);
+        dos.write(MANIFEST_FMT);
+        dos.writeUTF(region);
+        dos.writeInt(chunks.size());
+        for (ChunkInfo chunk : chunks) {
+          chunk.toData(dos);
+        }
+        pdx.toData(dos);
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a manifest.
+     *
+     * @param file the manifest file
+     * @return the manifest
+     * @throws IOException unable to read the manifest
+     * @throws ClassNotFoundException unable to read the pdx types
+     */
+    public static Manifest read(File file) throws IOException, ClassNotFoundException {
+      try (DataInputStream dis =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+        byte version = dis.readByte();
+        byte[] format = new byte[MANIFEST_FMT.length];
+        dis.readFully(format);
+        if (!Arrays.equals(format, MANIFEST_FMT)) {
+          throw new IOException("Unrecognized snapshot manifest type "
+              + Arrays.toString(format) + ": " + file);
+        }
+        if (version != MANIFEST_VER_1) {
+          throw new IOException(
+              "Unrecognized snapshot manifest version " + version + ": " + file);
+        }
+
+        String region = dis.readUTF();
+        int count = dis.readInt();
+        List<ChunkInfo> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          chunks.add(ChunkInfo.fromData(dis));
+        }
+        ExportedRegistry pdx = new ExportedRegistry();
+        pdx.fromData(dis);
+        return new Manifest(region, chunks, pdx);
+      }
+    }
+  }
+}
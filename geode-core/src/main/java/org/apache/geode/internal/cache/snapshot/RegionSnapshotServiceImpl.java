@@ -57,6 +57,7 @@ import org.apache.geode.internal.cache.LocalDataSet;
 import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.Token;
 import org.apache.geode.internal.cache.execute.InternalFunction;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.ChunkInfo;
 import org.apache.geode.internal.cache.snapshot.GFSnapshot.GFSnapshotImporter;
 import org.apache.geode.internal.cache.snapshot.GFSnapshot.SnapshotWriter;
 import org.apache.geode.internal.cache.snapshot.SnapshotPacket.SnapshotRecord;
@@ -78,6 +79,15 @@ public class RegionSnapshotServiceImpl<K, V> implements RegionSnapshotService<K,
   static final int BUFFER_SIZE = Integer.getInteger(
       DistributionConfig.GEMFIRE_PREFIX + "RegionSnapshotServiceImpl.BUFFER_SIZE", 1024 * 1024);
 
+  // controls the default for chunked mode, see SnapshotOptionsImpl.setChunkedMode()
+  static final boolean CHUNKED_MODE = Boolean
+      .getBoolean(DistributionConfig.GEMFIRE_PREFIX + "RegionSnapshotServiceImpl.CHUNKED_MODE");
+
+  // controls number of buckets exported or chunks imported at once by each member in chunked mode
+  static final int CHUNK_CONCURRENCY = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "RegionSnapshotServiceImpl.CHUNK_CONCURRENCY",
+      Runtime.getRuntime().availableProcessors());
+
   static final SnapshotFileMapper LOCAL_MAPPER = new SnapshotFileMapper() {
     private static final long serialVersionUID = 1L;
 
@@ -231,6 +241,11 @@ public class RegionSnapshotServiceImpl<K, V> implements RegionSnapshotService<K,
 
   private void importSnapshotFile(File snapshot, SnapshotOptions<K, V> options, LocalRegion local)
       throws IOException, ClassNotFoundException {
+    if (ChunkedSnapshot.isManifest(snapshot)) {
+      importChunkedSnapshot(snapshot, options, local);
+      return;
+    }
+
     long count = 0;
     long bytes = 0;
     long start = CachePerfStats.getStatTime();
@@ -248,27 +263,7 @@ public class RegionSnapshotServiceImpl<K, V> implements RegionSnapshotService<K,
       while ((record = in.readSnapshotRecord()) != null) {
         bytes += record.getSize();
         K key = record.getKeyObject();
-
-        // Until we modify the semantics of put/putAll to allow null values we
-        // have to subvert the API by using Token.INVALID. Alternatively we could
-        // invoke create/invalidate directly but that prevents us from using
-        // bulk operations. The ugly type coercion below is necessary to allow
-        // strong typing elsewhere.
-        V val = (V) Token.INVALID;
-        if (record.hasValue()) {
-          byte[] data = record.getValue();
-          // If the underlying object is a byte[], we can't wrap it in a
-          // CachedDeserializable. Somewhere along the line the header bytes
-          // get lost and we start seeing serialization problems.
-          if (data.length > 0 && data[0] == DSCODE.BYTE_ARRAY.toByte()) {
-            // It would be faster to use System.arraycopy() directly but since
-            // length field is variable it's probably safest and simplest to
-            // keep the logic in the InternalDataSerializer.
-            val = record.getValueObject();
-          } else {
-            val = (V) CachedDeserializableFactory.create(record.getValue(), local.getCache());
-          }
-        }
+        V val = getImportValue(record, local);
 
         if (includeEntry(options, key, val)) {
           buffer.put(key, val);
@@ -327,6 +322,52 @@ public class RegionSnapshotServiceImpl<K, V> implements RegionSnapshotService<K,
     }
   }
 
+  private void importChunkedSnapshot(File manifest, SnapshotOptions<K, V> options,
+      LocalRegion local) throws IOException, ClassNotFoundException {
+    long start = CachePerfStats.getStatTime();
+    ChunkedImporter<K, V> importer = new ChunkedImporter<>(CHUNK_CONCURRENCY);
+    try {
+      importer.load(manifest, options, local,
+          local.getCache().getDistributionManager().getWaitingThreadPool());
+
+      if (getLoggerI18n().infoEnabled()) {
+        getLoggerI18n().info(LocalizedStrings.Snapshot_IMPORT_END_0_1_2_3,
+            new Object[] {importer.getEntriesImported(), importer.getBytesRead(), region.getName(),
+                manifest.getAbsolutePath()});
+      }
+    } finally {
+      local.getCachePerfStats().endImport(importer.getEntriesImported(), start);
+    }
+  }
+
+  /**
+   * Returns the value to import for a snapshot record.
+   */
+  static <V> V getImportValue(SnapshotRecord record, LocalRegion local)
+      throws IOException, ClassNotFoundException {
+    // Until we modify the semantics of put/putAll to allow null values we
+    // have to subvert the API by using Token.INVALID. Alternatively we could
+    // invoke create/invalidate directly but that prevents us from using
+    // bulk operations. The ugly type coercion below is necessary to allow
+    // strong typing elsewhere.
+    V val = (V) Token.INVALID;
+    if (record.hasValue()) {
+      byte[] data = record.getValue();
+      // If the underlying object is a byte[], we can't wrap it in a
+      // CachedDeserializable. Somewhere along the line the header bytes
+      // get lost and we start seeing serialization problems.
+      if (data.length > 0 && data[0] == DSCODE.BYTE_ARRAY.toByte()) {
+        // It would be faster to use System.arraycopy() directly but since
+        // length field is variable it's probably safest and simplest to
+        // keep the logic in the InternalDataSerializer.
+        val = record.getValueObject();
+      } else {
+        val = (V) CachedDeserializableFactory.create(record.getValue(), local.getCache());
+      }
+    }
+    return val;
+  }
+
   private void exportOnMember(File snapshot, SnapshotFormat format, SnapshotOptions<K, V> options)
       throws IOException {
     if (!snapshot.getName().endsWith(SNAPSHOT_FILE_EXTENSION)) {
@@ -340,6 +381,10 @@ public class RegionSnapshotServiceImpl<K, V> implements RegionSnapshotService<K,
     }
     directory.mkdirs();
     LocalRegion local = getLocalRegion(region);
+    if (region instanceof LocalDataSet && isChunkedMode(options)) {
+      exportChunksOnMember(snapshot, options, local);
+      return;
+    }
     Exporter<K, V> exp = createExporter(local.getCache(), region, options);
 
     if (getLoggerI18n().fineEnabled()) {
@@ -368,7 +413,44 @@ public class RegionSnapshotServiceImpl<K, V> implements RegionSnapshotService<K,
     }
   }
 
-  private boolean includeEntry(SnapshotOptions<K, V> options, final K key, final V val) {
+  private void exportChunksOnMember(File manifest, SnapshotOptions<K, V> options,
+      LocalRegion local) throws IOException {
+    if (getLoggerI18n().fineEnabled()) {
+      getLoggerI18n().fine("Writing to chunked snapshot " + manifest.getAbsolutePath());
+    }
+
+    long count = 0;
+    long start = CachePerfStats.getStatTime();
+    try {
+      if (getLoggerI18n().infoEnabled())
+        getLoggerI18n().info(LocalizedStrings.Snapshot_EXPORT_BEGIN_0, region.getName());
+
+      List<ChunkInfo> chunks = new ChunkedExporter<K, V>(CHUNK_CONCURRENCY).export(
+          (LocalDataSet) region, manifest, options,
+          local.getCache().getDistributionManager().getWaitingThreadPool());
+      long bytes = 0;
+      for (ChunkInfo chunk : chunks) {
+        count += chunk.getEntries();
+        bytes += chunk.getLength();
+      }
+
+      if (getLoggerI18n().infoEnabled()) {
+        getLoggerI18n().info(LocalizedStrings.Snapshot_EXPORT_END_0_1_2_3,
+            new Object[] {count, bytes, region.getName(), manifest.getAbsolutePath()});
+      }
+
+    } finally {
+      local.getCachePerfStats().endExport(count, start);
+    }
+  }
+
+  private static boolean isChunkedMode(SnapshotOptions<?, ?> options) {
+    // since we don't expose the chunked mode, we have to downcast
+    return options instanceof SnapshotOptionsImpl
+        && ((SnapshotOptionsImpl<?, ?>) options).isChunkedMode();
+  }
+
+  static <K, V> boolean includeEntry(SnapshotOptions<K, V> options, final K key, final V val) {
     if (options.getFilter() != null) {
       Entry<K, V> entry = new Entry<K, V>() {
         @Override
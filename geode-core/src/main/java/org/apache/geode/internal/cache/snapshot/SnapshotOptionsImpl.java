@@ -39,9 +39,13 @@ public class SnapshotOptionsImpl<K, V> implements SnapshotOptions<K, V> {
   /** the file mapper, or null if parallel mode is not enabled */
   private volatile SnapshotFileMapper mapper;
 
+  /** true if parallel exports write chunked snapshots */
+  private volatile boolean chunked;
+
   public SnapshotOptionsImpl() {
     filter = null;
     invokeCallbacks = false;
+    chunked = RegionSnapshotServiceImpl.CHUNKED_MODE;
   }
 
   @Override
@@ -104,12 +108,38 @@ public class SnapshotOptionsImpl<K, V> implements SnapshotOptions<K, V> {
     return mapper;
   }
 
+  /**
+   * Enables chunked mode for parallel exports of partitioned regions. Each member then writes each
+   * of its buckets to a separate checksummed chunk file, several buckets at a time, and the mapped
+   * export file becomes the manifest of those chunks. Imports recognize a chunked snapshot by its
+   * manifest, whatever this option is set to.
+   *
+   * @param chunked true to write chunked snapshots
+   * @return the snapshot options
+   * @see #setParallelMode(boolean)
+   * @see ChunkedSnapshot
+   */
+  public SnapshotOptions<K, V> setChunkedMode(boolean chunked) {
+    this.chunked = chunked;
+    return this;
+  }
+
+  /**
+   * Returns true if parallel exports write chunked snapshots.
+   *
+   * @return true if chunked mode is enabled
+   */
+  public boolean isChunkedMode() {
+    return chunked;
+  }
+
   @Override
   public String toString() {
     StringBuffer buf = new StringBuffer();
     buf.append("SnapshotOptionsImpl@").append(System.identityHashCode(this)).append(": ")
         .append("parallel=").append(parallel).append("; invokeCallbacks=").append(invokeCallbacks)
-        .append("; filter=").append(filter).append("; mapper=").append(mapper);
+        .append("; chunked=").append(chunked).append("; filter=").append(filter)
+        .append("; mapper=").append(mapper);
     return buf.toString();
   }
 }
@@ -1109,6 +1109,10 @@ public class AcceptorImpl implements Acceptor, Runnable, CommBufferPool {
             try {
               if (key.isValid() && key.isReadable()) {
                 // this is the only event we currently register for
+                if (!sc.readMessageFrame()) {
+                  // wait for the rest of the request without tying up a thread of the pool
+                  continue;
+                }
                 try {
                   key.cancel();
                   this.selectorRegistrations.remove(sc);
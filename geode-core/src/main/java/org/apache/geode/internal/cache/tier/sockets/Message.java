@@ -92,7 +92,7 @@ public class Message {
 
   private static final int PART_HEADER_SIZE = 5; // 4 bytes for length, 1 byte for isObject
 
-  private static final int FIXED_LENGTH = 17;
+  static final int FIXED_LENGTH = 17;
 
   private static final ThreadLocal<ByteBuffer> tlCommBuffer = new ThreadLocal<>();
 
@@ -143,6 +143,9 @@ public class Message {
   private ByteBuffer cachedCommBuffer;
   protected Socket socket = null;
   private SocketChannel socketChannel = null;
+  /** bytes of the next message already read off the socket channel; see setBufferedInput */
+  private ByteBuffer bufferedInput = null;
+  private PartBufferPool partBufferPool = PartBufferPool.getInstance();
   private OutputStream outputStream = null;
   protected InputStream inputStream = null;
   private boolean messageModified = true;
@@ -604,8 +607,16 @@ public class Message {
           int partLen = part.getLength();
           commBuffer.putInt(partLen);
           commBuffer.put(part.getTypeCode());
-          if (partLen <= commBuffer.remaining()) {
+          boolean fits = partLen <= commBuffer.remaining();
+          ByteBuffer directBuffer =
+              !fits && this.socketChannel != null ? part.getDirectBuffer() : null;
+          if (fits) {
             part.writeTo(commBuffer);
+          } else if (directBuffer != null) {
+            flushBuffer(directBuffer);
+            if (this.messageStats != null) {
+              this.messageStats.incSentBytes(partLen);
+            }
           } else {
             flushBuffer();
             if (this.socketChannel != null) {
@@ -649,6 +660,25 @@ public class Message {
     cb.clear();
   }
 
+  /**
+   * Writes the comm buffer followed by the given direct buffer to the socket channel with
+   * gathering writes. A value kept off the heap goes out this way without being copied into the
+   * comm buffer, and without a write of its own for the bytes that precede it.
+   */
+  private void flushBuffer(ByteBuffer directBuffer) throws IOException {
+    final ByteBuffer cb = getCommBuffer();
+    cb.flip();
+    final int buffered = cb.remaining();
+    final ByteBuffer[] buffers = {cb, directBuffer};
+    do {
+      this.socketChannel.write(buffers);
+    } while (directBuffer.remaining() > 0);
+    if (this.messageStats != null) {
+      this.messageStats.incSentBytes(buffered);
+    }
+    cb.clear();
+  }
+
   private void readHeaderAndBody(int headerReadTimeoutMillis) throws IOException {
     clearParts();
     // TODO: for server changes make sure sc is not null as this class also used by client
@@ -791,7 +821,7 @@ public class Message {
     if (this.socketChannel != null) {
       cb.limit(headerLength);
       do {
-        int bytesRead = this.socketChannel.read(cb);
+        int bytesRead = readChannel(cb);
         if (bytesRead == -1) {
           throw new EOFException(
               LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_THE_HEADER
@@ -823,10 +853,20 @@ public class Message {
     }
   }
 
+  void readPayloadFields(final int numParts, final int len) throws IOException {
+    try {
+      readPayloadParts(numParts, len);
+    } catch (IOException | RuntimeException e) {
+      // no command will execute and clear the parts read so far so give their buffers back now
+      releasePooledParts();
+      throw e;
+    }
+  }
+
   /**
-   * TODO: refactor overly long method readPayloadFields
+   * TODO: refactor overly long method readPayloadParts
    */
-  void readPayloadFields(final int numParts, final int len) throws IOException {
+  private void readPayloadParts(final int numParts, final int len) throws IOException {
     if (len > 0 && numParts <= 0 || len <= 0 && numParts > 0) {
       throw new IOException(
           LocalizedStrings.Message_PART_LENGTH_0_AND_NUMBER_OF_PARTS_1_INCONSISTENT
@@ -879,6 +919,19 @@ public class Message {
       byte partType = cb.get();
       byte[] partBytes = null;
 
+      if (i < numParts && this.serverConnection != null && this.socketChannel != null
+          && this.partBufferPool.shouldPool(partLen)) {
+        PooledPartBuffer pooled = this.partBufferPool.acquire(partLen);
+        try {
+          bytesRemaining -= readPooledPart(pooled.getBuffer(), cb);
+        } catch (IOException | RuntimeException e) {
+          pooled.release();
+          throw e;
+        }
+        part.init(pooled, partType);
+        continue;
+      }
+
       if (partLen > 0) {
         partBytes = new byte[partLen];
         int alreadyReadBytes = cb.remaining();
@@ -900,7 +953,7 @@ public class Message {
               bytesThisTime = cb.capacity();
             }
             cb.limit(bytesThisTime);
-            int res = this.socketChannel.read(cb);
+            int res = readChannel(cb);
             if (res != -1) {
               cb.flip();
               bytesRemaining -= res;
@@ -936,6 +989,44 @@ public class Message {
     }
   }
 
+  /**
+   * Reads the bytes of a part into a pooled buffer, taking those already in the comm buffer first
+   * and then reading the rest straight from the socket channel into the pooled buffer.
+   *
+   * @return the number of bytes read from the socket channel
+   */
+  private int readPooledPart(ByteBuffer dest, ByteBuffer cb) throws IOException {
+    int alreadyReadBytes = Math.min(cb.remaining(), dest.remaining());
+    if (alreadyReadBytes > 0) {
+      ByteBuffer alreadyRead = cb.duplicate();
+      alreadyRead.limit(alreadyRead.position() + alreadyReadBytes);
+      dest.put(alreadyRead);
+      cb.position(cb.position() + alreadyReadBytes);
+    }
+    int bytesRead = 0;
+    while (dest.remaining() > 0) {
+      int res = readChannel(dest);
+      if (res == -1) {
+        throw new EOFException(
+            LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_A_PART
+                .toLocalizedString());
+      }
+      bytesRead += res;
+      if (this.messageStats != null) {
+        this.messageStats.incReceivedBytes(res);
+      }
+    }
+    return bytesRead;
+  }
+
+  private void releasePooledParts() {
+    for (Part part : this.partsList) {
+      if (part.isPooled()) {
+        part.clear();
+      }
+    }
+  }
+
   protected int checkAndSetSecurityPart() {
     if ((this.flags | MESSAGE_HAS_SECURE_PART) == this.flags) {
       this.securePart = new Part();
@@ -977,7 +1068,7 @@ public class Message {
         commBuffer.limit(commBuffer.position() + bytesRemaining);
       }
       while (remaining > 0) {
-        int res = this.socketChannel.read(commBuffer);
+        int res = readChannel(commBuffer);
         if (res != -1) {
           remaining -= res;
           bytesRead += res;
@@ -1078,6 +1169,36 @@ public class Message {
     this.messageStats = msgStats;
   }
 
+  /**
+   * Makes the next {@link #receive} take the given bytes, which were read off the socket channel of
+   * this message by a selector thread, before reading the rest of the message from the channel.
+   *
+   * @see MessageFramer
+   */
+  void setBufferedInput(ByteBuffer bytes) {
+    this.bufferedInput = bytes;
+  }
+
+  void setPartBufferPool(PartBufferPool partBufferPool) {
+    this.partBufferPool = partBufferPool;
+  }
+
+  /**
+   * Reads from the buffered input first and from the socket channel once it has been used up.
+   */
+  private int readChannel(ByteBuffer dest) throws IOException {
+    ByteBuffer buffered = this.bufferedInput;
+    if (buffered == null || !buffered.hasRemaining()) {
+      return this.socketChannel.read(dest);
+    }
+    int bytes = Math.min(buffered.remaining(), dest.remaining());
+    int limit = buffered.limit();
+    buffered.limit(buffered.position() + bytes);
+    dest.put(buffered);
+    buffered.limit(limit);
+    return bytes;
+  }
+
   /**
    * Undo any state changes done by setComms.
    *
@@ -1121,7 +1242,11 @@ public class Message {
   public void receiveWithHeaderReadTimeout(int timeoutMillis) throws IOException {
     if (this.socket != null) {
       synchronized (getCommBuffer()) {
-        readHeaderAndBody(timeoutMillis);
+        try {
+          readHeaderAndBody(timeoutMillis);
+        } finally {
+          this.bufferedInput = null;
+        }
       }
     } else {
       throw new IOException(LocalizedStrings.Message_DEAD_CONNECTION.toLocalizedString());
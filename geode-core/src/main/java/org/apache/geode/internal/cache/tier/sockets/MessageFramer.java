@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.i18n.LocalizedStrings;
+
+/**
+ * Collects the bytes of the next request of a {@link ServerConnection} while it is registered with
+ * the selector of its {@link AcceptorImpl}. The selector thread reads whatever is available each
+ * time the channel is readable, without blocking, so a client that sends a request slowly, or has
+ * only sent part of it, does not tie up a thread of the server connection pool. Once the header
+ * and the payload are in, the connection is handed to the pool and {@link Message} reads the
+ * request from {@link #takeFrame()} instead of the socket.
+ * <p>
+ * Only {@link #MAX_FRAMED_PAYLOAD} bytes of a payload are collected; the rest of a larger request
+ * is read from the socket by the pool thread as before, which keeps the memory held for a
+ * connection bounded.
+ *
+ * @since Geode 1.8
+ */
+class MessageFramer {
+
+  /**
+   * The most payload bytes of a request that are collected by the selector thread.
+   */
+  static final int MAX_FRAMED_PAYLOAD = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "BridgeServer.MAX_FRAMED_PAYLOAD", 64 * 1024);
+
+  private final ByteBuffer header = ByteBuffer.allocate(Message.FIXED_LENGTH);
+
+  /** the header followed by the payload; null until the header has been read */
+  private ByteBuffer frame;
+
+  /**
+   * Reads the available bytes of the current request from the given channel, which must be in
+   * non-blocking mode.
+   *
+   * @return true if the request can now be processed
+   * @throws EOFException if the client closed the connection
+   */
+  boolean readFrom(ReadableByteChannel channel) throws IOException {
+    if (this.frame == null) {
+      read(channel, this.header);
+      if (this.header.hasRemaining()) {
+        return false;
+      }
+      // the payload length follows the message type
+      int framedPayload = Math.max(0, Math.min(this.header.getInt(4), MAX_FRAMED_PAYLOAD));
+      this.header.flip();
+      this.frame = ByteBuffer.allocate(Message.FIXED_LENGTH + framedPayload);
+      this.frame.put(this.header);
+      this.header.clear();
+    }
+    if (this.frame.hasRemaining()) {
+      read(channel, this.frame);
+    }
+    return !this.frame.hasRemaining();
+  }
+
+  /**
+   * Returns the bytes collected for the current request, header first, and starts over for the
+   * next one.
+   */
+  ByteBuffer takeFrame() {
+    ByteBuffer result = this.frame;
+    this.frame = null;
+    if (result == null) {
+      // only part of the header was read
+      result = ByteBuffer.allocate(this.header.position());
+      this.header.flip();
+      result.put(this.header);
+      this.header.clear();
+    }
+    result.flip();
+    return result;
+  }
+
+  private static void read(ReadableByteChannel channel, ByteBuffer dest) throws IOException {
+    if (channel.read(dest) == -1) {
+      throw new EOFException(
+          LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_THE_HEADER
+              .toLocalizedString());
+    }
+  }
+}
@@ -26,7 +26,9 @@ import org.apache.geode.internal.DSCODE;
 import org.apache.geode.internal.HeapDataOutputStream;
 import org.apache.geode.internal.Version;
 import org.apache.geode.internal.offheap.AddressableMemoryManager;
+import org.apache.geode.internal.offheap.MemoryAllocatorImpl;
 import org.apache.geode.internal.offheap.StoredObject;
+import org.apache.geode.internal.offheap.annotations.Retained;
 
 /**
  * Represents one unit of information (essentially a <code>byte</code> array) in the wire protocol.
@@ -53,7 +55,7 @@ public class Part {
 
   /**
    * The payload of this part. Could be null, a byte[] or a HeapDataOutputStream on the send side.
-   * Could be null, or a byte[] on the receiver side.
+   * Could be null, a byte[] or a PooledPartBuffer on the receiver side.
    */
   private Object part;
 
@@ -61,6 +63,7 @@ public class Part {
   private byte typeCode;
 
   public void init(byte[] v, byte tc) {
+    releasePooledBuffer();
     if (tc == EMPTY_BYTEARRAY_CODE) {
       this.part = EMPTY_BYTE_ARRAY;
     } else {
@@ -69,16 +72,35 @@ public class Part {
     this.typeCode = tc;
   }
 
+  /**
+   * Initializes this part with bytes read into a pooled buffer. This part owns the reference to the
+   * buffer and releases it when it is cleared.
+   */
+  void init(PooledPartBuffer v, byte tc) {
+    releasePooledBuffer();
+    this.part = v;
+    this.typeCode = tc;
+  }
+
   public void clear() {
     if (this.part != null) {
       if (this.part instanceof HeapDataOutputStream) {
         ((HeapDataOutputStream) this.part).close();
+      } else if (this.part instanceof PooledPartBuffer) {
+        ((PooledPartBuffer) this.part).release();
       }
       this.part = null;
     }
     this.typeCode = BYTE_CODE;
   }
 
+  private void releasePooledBuffer() {
+    if (this.part instanceof PooledPartBuffer) {
+      ((PooledPartBuffer) this.part).release();
+      this.part = null;
+    }
+  }
+
   public boolean isNull() {
     if (this.part == null) {
       return true;
@@ -88,10 +110,38 @@ public class Part {
       if (b.length == 1 && b[0] == DSCODE.NULL.toByte()) {
         return true;
       }
+    } else if (isObject() && this.part instanceof PooledPartBuffer) {
+      PooledPartBuffer pooled = (PooledPartBuffer) this.part;
+      if (pooled.getLength() == 1 && pooled.getBuffer().get() == DSCODE.NULL.toByte()) {
+        return true;
+      }
     }
     return false;
   }
 
+  /**
+   * Returns true if the bytes of this part are in a pooled buffer that has not been copied to the
+   * heap by {@link #getSerializedForm()}.
+   */
+  public boolean isPooled() {
+    return this.part instanceof PooledPartBuffer;
+  }
+
+  /**
+   * Copies the bytes of a pooled part straight into newly allocated off-heap memory, so that they
+   * never touch the heap. The caller owns the returned reference.
+   *
+   * @throws IllegalStateException if this part is not pooled
+   */
+  @Retained
+  public StoredObject copyToOffHeap() {
+    if (!isPooled()) {
+      throw new IllegalStateException("Only a pooled part can be copied off-heap");
+    }
+    ByteBuffer bytes = ((PooledPartBuffer) this.part).getBuffer();
+    return MemoryAllocatorImpl.getAllocator().allocateAndInitialize(bytes, isObject());
+  }
+
   public boolean isObject() {
     return this.typeCode == OBJECT_CODE;
   }
@@ -101,6 +151,7 @@ public class Part {
   }
 
   public void setPartState(byte[] b, boolean isObject) {
+    releasePooledBuffer();
     if (isObject) {
       this.typeCode = OBJECT_CODE;
     } else if (b != null && b.length == 0) {
@@ -113,6 +164,7 @@ public class Part {
   }
 
   public void setPartState(HeapDataOutputStream os, boolean isObject) {
+    releasePooledBuffer();
     if (isObject) {
       this.typeCode = OBJECT_CODE;
       this.part = os;
@@ -126,6 +178,7 @@ public class Part {
   }
 
   public void setPartState(StoredObject so, boolean isObject) {
+    releasePooledBuffer();
     if (isObject) {
       this.typeCode = OBJECT_CODE;
     } else if (so.getDataSize() == 0) {
@@ -157,6 +210,8 @@ public class Part {
       return ((byte[]) this.part).length;
     } else if (this.part instanceof StoredObject) {
       return ((StoredObject) this.part).getDataSize();
+    } else if (this.part instanceof PooledPartBuffer) {
+      return ((PooledPartBuffer) this.part).getLength();
     } else {
       return ((HeapDataOutputStream) this.part).size();
     }
@@ -169,7 +224,7 @@ public class Part {
     if (!isBytes()) {
       Assert.assertTrue(false, "expected String part to be of type BYTE, part =" + this.toString());
     }
-    return CacheServerHelper.fromUTF((byte[]) this.part);
+    return CacheServerHelper.fromUTF(getSerializedForm());
   }
 
   public int getInt() {
@@ -254,6 +309,14 @@ public class Part {
       return null;
     } else if (this.part instanceof byte[]) {
       return (byte[]) this.part;
+    } else if (this.part instanceof PooledPartBuffer) {
+      // the caller may keep the bytes so copy them to the heap and give the buffer back
+      PooledPartBuffer pooled = (PooledPartBuffer) this.part;
+      byte[] bytes = new byte[pooled.getLength()];
+      pooled.getBuffer().get(bytes);
+      this.part = bytes;
+      pooled.release();
+      return bytes;
     } else {
       return null; // should not be called on sender side?
     }
@@ -261,12 +324,14 @@ public class Part {
 
   public Object getObject(boolean unzip) throws IOException, ClassNotFoundException {
     if (isBytes()) {
-      return this.part;
+      return isPooled() ? getSerializedForm() : this.part;
     } else {
+      // deserialized objects, like PdxInstances, may refer to the bytes they were read from so
+      // pooled parts are copied to the heap first
       if (this.version != null) {
-        return CacheServerHelper.deserialize((byte[]) this.part, this.version, unzip);
+        return CacheServerHelper.deserialize(getSerializedForm(), this.version, unzip);
       } else {
-        return CacheServerHelper.deserialize((byte[]) this.part, unzip);
+        return CacheServerHelper.deserialize(getSerializedForm(), unzip);
       }
     }
   }
@@ -295,6 +360,9 @@ public class Part {
       if (this.part instanceof byte[]) {
         byte[] bytes = (byte[]) this.part;
         out.write(bytes, 0, bytes.length);
+      } else if (this.part instanceof PooledPartBuffer) {
+        ByteBuffer bb = ((PooledPartBuffer) this.part).getBuffer();
+        HeapDataOutputStream.writeByteBufferToStream(out, buf, bb);
       } else if (this.part instanceof StoredObject) {
         StoredObject so = (StoredObject) this.part;
         ByteBuffer sobb = so.createDirectByteBuffer();
@@ -307,9 +375,10 @@ public class Part {
             if (buf.remaining() == 0) {
               HeapDataOutputStream.flushStream(out, buf);
             }
-            buf.put(AddressableMemoryManager.readByte(addr));
-            addr++;
-            bytesToSend--;
+            int bytesThisTime = Math.min(bytesToSend, buf.remaining());
+            copyToBuffer(addr, bytesThisTime, buf);
+            addr += bytesThisTime;
+            bytesToSend -= bytesThisTime;
           }
         }
       } else {
@@ -328,6 +397,8 @@ public class Part {
     if (getLength() > 0) {
       if (this.part instanceof byte[]) {
         buf.put((byte[]) this.part);
+      } else if (this.part instanceof PooledPartBuffer) {
+        buf.put(((PooledPartBuffer) this.part).getBuffer());
       } else if (this.part instanceof StoredObject) {
         StoredObject c = (StoredObject) this.part;
         ByteBuffer bb = c.createDirectByteBuffer();
@@ -335,12 +406,7 @@ public class Part {
           buf.put(bb);
         } else {
           int bytesToSend = c.getDataSize();
-          long addr = c.getAddressForReadingData(0, bytesToSend);
-          while (bytesToSend > 0) {
-            buf.put(AddressableMemoryManager.readByte(addr));
-            addr++;
-            bytesToSend--;
-          }
+          copyToBuffer(c.getAddressForReadingData(0, bytesToSend), bytesToSend, buf);
         }
       } else {
         HeapDataOutputStream hdos = (HeapDataOutputStream) this.part;
@@ -377,6 +443,11 @@ public class Part {
           }
           buf.clear();
         }
+      } else if (this.part instanceof PooledPartBuffer) {
+        ByteBuffer bb = ((PooledPartBuffer) this.part).getBuffer();
+        while (bb.remaining() > 0) {
+          sc.write(bb);
+        }
       } else if (this.part instanceof StoredObject) {
         // instead of copying the StoredObject to buf try to create a direct ByteBuffer and
         // just write it directly to the socket channel.
@@ -396,11 +467,8 @@ public class Part {
               bytesThisTime = BUF_MAX;
             }
             len -= bytesThisTime;
-            while (bytesThisTime > 0) {
-              buf.put(AddressableMemoryManager.readByte(addr));
-              addr++;
-              bytesThisTime--;
-            }
+            copyToBuffer(addr, bytesThisTime, buf);
+            addr += bytesThisTime;
             buf.flip();
             while (buf.remaining() > 0) {
               sc.write(buf);
@@ -416,6 +484,45 @@ public class Part {
     }
   }
 
+  /**
+   * Returns a direct buffer holding the bytes of this part if they are kept outside of the heap,
+   * so that they can be written to a channel without being copied into a comm buffer first.
+   *
+   * @return the buffer, positioned at the first byte of this part, or null if the bytes of this
+   *         part are on the heap or cannot be wrapped in a buffer
+   */
+  ByteBuffer getDirectBuffer() {
+    if (getLength() == 0) {
+      return null;
+    } else if (this.part instanceof PooledPartBuffer) {
+      return ((PooledPartBuffer) this.part).getBuffer();
+    } else if (this.part instanceof StoredObject) {
+      return ((StoredObject) this.part).createDirectByteBuffer();
+    }
+    return null;
+  }
+
+  /**
+   * Copies the given number of bytes of off-heap memory to the given buffer in one go, advancing
+   * its position. Precondition: the bytes fit into "buf".
+   */
+  private static void copyToBuffer(long addr, int size, ByteBuffer buf) {
+    if (buf.hasArray()) {
+      AddressableMemoryManager.readBytes(addr, buf.array(), buf.arrayOffset() + buf.position(),
+          size);
+    } else {
+      long bufAddr = AddressableMemoryManager.getDirectByteBufferAddress(buf);
+      if (bufAddr == 0L) {
+        byte[] bytes = new byte[size];
+        AddressableMemoryManager.readBytes(addr, bytes, 0, size);
+        buf.put(bytes);
+        return;
+      }
+      AddressableMemoryManager.copyMemory(addr, bufAddr + buf.position(), size);
+    }
+    buf.position(buf.position() + size);
+  }
+
   private static String typeCodeToString(byte c) {
     switch (c) {
       case BYTE_CODE:
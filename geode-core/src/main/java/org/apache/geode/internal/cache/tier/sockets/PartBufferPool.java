@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * A pool of direct buffers that large parts of client requests are read into, instead of into
+ * <code>byte[]</code>s that become garbage as soon as the request has been processed. A part read
+ * into a pooled buffer holds a {@link PooledPartBuffer} that goes back to this pool when the part
+ * is cleared after the command has executed.
+ * <p>
+ * Buffers are kept in power of two size classes, each holding at most {@link #MAX_BUFFERS_PROPERTY}
+ * idle buffers. Only parts of at least {@link #THRESHOLD_PROPERTY} bytes, and no larger than the
+ * largest size class, are pooled. A threshold of zero, the default, disables pooling.
+ * <p>
+ * Only put commands copy a pooled value straight into off-heap memory. PutAll commands still take
+ * the serialized form of each value, which copies it to the heap, because they collect their values
+ * into a map of heap objects before the region sees them. GetAll requests only carry keys, and the
+ * values of their replies are written by the response path, not read into parts.
+ */
+public class PartBufferPool {
+
+  static final String THRESHOLD_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "CLIENT_MESSAGE_POOLED_PART_THRESHOLD";
+
+  static final String MAX_BUFFERS_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "CLIENT_MESSAGE_POOLED_PART_MAX_BUFFERS";
+
+  /** the size of the largest size class */
+  static final int MAX_POOLED_SIZE = 1 << 24;
+
+  private static final PartBufferPool instance = new PartBufferPool(
+      Integer.getInteger(THRESHOLD_PROPERTY, 0), Integer.getInteger(MAX_BUFFERS_PROPERTY, 64));
+
+  private final int threshold;
+
+  private final int maxBuffers;
+
+  /** the idle buffers of each size class, indexed by the log2 of their capacity */
+  private final ConcurrentLinkedQueue<ByteBuffer>[] queues;
+
+  private final AtomicInteger[] queueSizes;
+
+  public static PartBufferPool getInstance() {
+    return instance;
+  }
+
+  @SuppressWarnings("unchecked")
+  PartBufferPool(int threshold, int maxBuffers) {
+    if (threshold < 0) {
+      throw new IllegalStateException(THRESHOLD_PROPERTY + " must be >= 0 but it was " + threshold);
+    }
+    if (maxBuffers < 0) {
+      throw new IllegalStateException(
+          MAX_BUFFERS_PROPERTY + " must be >= 0 but it was " + maxBuffers);
+    }
+    this.threshold = threshold;
+    this.maxBuffers = maxBuffers;
+    int sizeClasses = Integer.numberOfTrailingZeros(MAX_POOLED_SIZE) + 1;
+    this.queues = new ConcurrentLinkedQueue[sizeClasses];
+    this.queueSizes = new AtomicInteger[sizeClasses];
+    for (int i = 0; i < sizeClasses; i++) {
+      this.queues[i] = new ConcurrentLinkedQueue<>();
+      this.queueSizes[i] = new AtomicInteger();
+    }
+  }
+
+  public boolean isEnabled() {
+    return this.threshold > 0;
+  }
+
+  /**
+   * Returns true if a part of the given length should be read into a pooled buffer.
+   */
+  public boolean shouldPool(int length) {
+    return isEnabled() && length >= this.threshold && length <= MAX_POOLED_SIZE;
+  }
+
+  /**
+   * Returns a buffer for a part of the given length, taking an idle buffer of the right size class
+   * if there is one. The buffer has a reference count of one.
+   */
+  PooledPartBuffer acquire(int length) {
+    int sizeClass = getSizeClass(length);
+    ByteBuffer buffer = this.queues[sizeClass].poll();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(1 << sizeClass);
+    } else {
+      this.queueSizes[sizeClass].decrementAndGet();
+    }
+    buffer.clear();
+    buffer.limit(length);
+    return new PooledPartBuffer(this, buffer);
+  }
+
+  /**
+   * Returns a buffer whose last reference was released to its size class, unless that size class
+   * is already full in which case the buffer is left to be garbage collected.
+   */
+  void release(ByteBuffer buffer) {
+    int sizeClass = Integer.numberOfTrailingZeros(buffer.capacity());
+    if (this.queueSizes[sizeClass].incrementAndGet() <= this.maxBuffers) {
+      this.queues[sizeClass].offer(buffer);
+    } else {
+      this.queueSizes[sizeClass].decrementAndGet();
+    }
+  }
+
+  /**
+   * Returns the number of idle buffers in the size class that a part of the given length uses.
+   */
+  int getIdleBufferCount(int length) {
+    return this.queueSizes[getSizeClass(length)].get();
+  }
+
+  /**
+   * Drops all idle buffers so their memory can be reclaimed.
+   */
+  public void clear() {
+    for (int i = 0; i < this.queues.length; i++) {
+      while (this.queues[i].poll() != null) {
+        this.queueSizes[i].decrementAndGet();
+      }
+    }
+  }
+
+  private static int getSizeClass(int length) {
+    if (length <= 1) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(length - 1);
+  }
+}
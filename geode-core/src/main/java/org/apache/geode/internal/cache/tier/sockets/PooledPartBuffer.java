@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A reference counted slice of a direct buffer from a {@link PartBufferPool} that holds the bytes
+ * of one {@link Part}. The buffer goes back to the pool when the last reference is released, after
+ * which its contents must no longer be read.
+ */
+class PooledPartBuffer {
+
+  private final PartBufferPool pool;
+
+  /** positioned at zero with its limit at the length of the part */
+  private final ByteBuffer buffer;
+
+  private final AtomicInteger refCount = new AtomicInteger(1);
+
+  PooledPartBuffer(PartBufferPool pool, ByteBuffer buffer) {
+    this.pool = pool;
+    this.buffer = buffer;
+  }
+
+  int getLength() {
+    return this.buffer.limit();
+  }
+
+  /**
+   * Returns a new view of the bytes of the part, positioned at the first byte.
+   */
+  ByteBuffer getBuffer() {
+    return this.buffer.duplicate();
+  }
+
+  int getRefCount() {
+    return this.refCount.get();
+  }
+
+  /**
+   * Adds a reference to this buffer.
+   *
+   * @return false if the buffer has already been released back to its pool
+   */
+  boolean retain() {
+    int count;
+    do {
+      count = this.refCount.get();
+      if (count <= 0) {
+        return false;
+      }
+    } while (!this.refCount.compareAndSet(count, count + 1));
+    return true;
+  }
+
+  /**
+   * Removes a reference to this buffer, returning the buffer to its pool if it was the last one.
+   */
+  void release() {
+    int count = this.refCount.decrementAndGet();
+    if (count == 0) {
+      this.pool.release(this.buffer);
+    } else if (count < 0) {
+      throw new IllegalStateException("Pooled part buffer was released more than once");
+    }
+  }
+}
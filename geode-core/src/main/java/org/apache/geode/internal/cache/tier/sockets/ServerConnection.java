@@ -49,6 +49,7 @@ import org.apache.geode.cache.UnsupportedVersionException;
 import org.apache.geode.cache.client.internal.AbstractOp;
 import org.apache.geode.cache.client.internal.Connection;
 import org.apache.geode.distributed.DistributedSystem;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.Assert;
 import org.apache.geode.internal.HeapDataOutputStream;
 import org.apache.geode.internal.Version;
@@ -153,12 +154,24 @@ public abstract class ServerConnection implements Runnable {
     for (LinkedBlockingQueue<ByteBuffer> q : commBufferMap.values()) {
       q.clear();
     }
+    PartBufferPool.getInstance().clear();
   }
 
   protected Socket theSocket;
   // private InputStream in = null;
   // private OutputStream out = null;
   private ByteBuffer commBuffer;
+
+  /**
+   * When max-threads is set, requests are read by the selector thread unless this is set, in which
+   * case threads of the pool read them from the socket.
+   */
+  private static final boolean MESSAGE_FRAMING = !Boolean
+      .getBoolean(DistributionConfig.GEMFIRE_PREFIX + "BridgeServer.DISABLE_MESSAGE_FRAMING");
+
+  /** collects the next request on the selector thread; null until first needed */
+  private MessageFramer messageFramer;
+
   protected final CachedRegionHelper crHelper;
   protected String name = null;
 
@@ -1214,6 +1227,9 @@ public abstract class ServerConnection implements Runnable {
         this.stats.decThreadQueueSize();
         if (!isTerminated()) {
           getAcceptor().setTLCommBuffer();
+          if (this.messageFramer != null) {
+            this.requestMsg.setBufferedInput(this.messageFramer.takeFrame());
+          }
           doOneMessage();
           if (this.processMessages && !(this.crHelper.isShutdown())) {
             registerWithSelector(); // finished msg so reregister
@@ -1280,6 +1296,37 @@ public abstract class ServerConnection implements Runnable {
     getAcceptor().registerSC(this);
   }
 
+  /**
+   * Called by the selector thread when the channel of this connection is readable, to read what
+   * has arrived of the next request without blocking.
+   *
+   * @return true once the request can be processed by a thread of the pool
+   * @see MessageFramer
+   */
+  boolean readMessageFrame() {
+    if (!MESSAGE_FRAMING || !canFrameMessages()) {
+      return true;
+    }
+    if (this.messageFramer == null) {
+      this.messageFramer = new MessageFramer();
+    }
+    try {
+      return this.messageFramer.readFrom(this.theSocket.getChannel());
+    } catch (IOException e) {
+      // the pool thread runs into the same failure when it reads the request and handles it like
+      // any other failure to read one
+      return true;
+    }
+  }
+
+  /**
+   * Returns true if the next message on this connection is a request that can be read by
+   * {@link #readMessageFrame()}.
+   */
+  protected boolean canFrameMessages() {
+    return false;
+  }
+
   public SelectableChannel getSelectableChannel() {
     return this.theSocket.getChannel();
   }
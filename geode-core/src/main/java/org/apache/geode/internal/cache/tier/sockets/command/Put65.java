@@ -47,6 +47,7 @@ import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
 import org.apache.geode.internal.cache.versions.VersionTag;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.log4j.LocalizedMessage;
+import org.apache.geode.internal.offheap.StoredObject;
 import org.apache.geode.internal.security.AuthorizeRequest;
 import org.apache.geode.internal.security.SecurityService;
 import org.apache.geode.internal.util.Breadcrumbs;
@@ -225,11 +226,17 @@ public class Put65 extends BaseCommand {
     boolean sendOldValue = false;
     boolean oldValueIsObject = true;
     Object oldValue = null;
+    StoredObject offHeapValue = null;
 
     try {
       Object value = null;
       if (!isDelta) {
-        value = valuePart.getSerializedForm();
+        if (canCopyValueOffHeap(region, valuePart, operation, serverConnection)) {
+          offHeapValue = valuePart.copyToOffHeap();
+          value = offHeapValue;
+        } else {
+          value = valuePart.getSerializedForm();
+        }
       }
       boolean isObject = valuePart.isObject();
       boolean isMetaRegion = region.isUsedForMetaRegion();
@@ -443,6 +450,9 @@ public class Put65 extends BaseCommand {
       }
       return;
     } finally {
+      if (offHeapValue != null) {
+        offHeapValue.release();
+      }
       long oldStart = start;
       start = DistributionStats.getStatTime();
       stats.incProcessPutTime(start - oldStart);
@@ -474,6 +484,19 @@ public class Put65 extends BaseCommand {
 
   }
 
+  /**
+   * Returns true if the value was read into a pooled buffer and can go from there straight into
+   * the off-heap memory of the region. Puts that authorize, compress, compare or transact with the
+   * value still need it on the heap.
+   */
+  boolean canCopyValueOffHeap(LocalRegion region, Part valuePart, Operation operation,
+      ServerConnection serverConnection) throws IOException {
+    return valuePart.isPooled() && region.getOffHeap() && region.getCompressor() == null
+        && (operation == Operation.UPDATE || operation == Operation.CREATE)
+        && !region.isUsedForMetaRegion() && serverConnection.getAuthzRequest() == null
+        && TXManagerImpl.getCurrentTXState() == null;
+  }
+
   protected void writeReply(Message origMsg, ServerConnection servConn, boolean sendOldValue,
       boolean oldValueIsObject, Object oldValue, VersionTag tag) throws IOException {
     Message replyMsg = servConn.getReplyMessage();
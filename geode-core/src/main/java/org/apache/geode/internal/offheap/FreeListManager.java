@@ -123,6 +123,9 @@ public class FreeListManager {
         tinyFree += cl.computeTotalSize();
       }
     }
+    if (this.tinyChunkCache != null) {
+      tinyFree += this.tinyChunkCache.computeTotalSize();
+    }
     return tinyFree;
   }
 
@@ -134,14 +137,57 @@ public class FreeListManager {
     return hugeFree;
   }
 
+  /**
+   * Adds every free fragment and free chunk to the given histogram.
+   */
+  void addFreeMemoryTo(OffHeapMemorySampler.Histogram histogram) {
+    for (Fragment f : this.fragmentList) {
+      int freeSpace = f.freeSpace();
+      if (freeSpace >= OffHeapStoredObject.MIN_CHUNK_SIZE) {
+        histogram.add(freeSpace);
+      }
+    }
+    for (int i = 0; i < this.tinyFreeLists.length(); i++) {
+      OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(i);
+      if (cl != null) {
+        long totalSize = cl.computeTotalSize();
+        if (totalSize > 0) {
+          int chunkSize = (i + 1) * TINY_MULTIPLE;
+          histogram.add(chunkSize, totalSize / chunkSize);
+        }
+      }
+    }
+    if (this.tinyChunkCache != null) {
+      for (MemoryBlock block : this.tinyChunkCache.getFreeBlocks()) {
+        histogram.add(block.getBlockSize());
+      }
+    }
+    for (OffHeapStoredObject c : this.hugeChunkSet) {
+      histogram.add(c.getSize());
+    }
+  }
+
+  OffHeapMemorySampler getSampler() {
+    return this.sampler;
+  }
+
   /**
    * The id of the last fragment we allocated from.
    */
   private final AtomicInteger lastFragmentAllocation = new AtomicInteger(0);
   private final CopyOnWriteArrayList<Fragment> fragmentList;
   private final MemoryAllocatorImpl ma;
+  /**
+   * Magazines of free tiny chunks in front of tinyFreeLists; null if they are disabled.
+   */
+  private final TinyChunkCache tinyChunkCache;
+  private final OffHeapMemorySampler sampler = new OffHeapMemorySampler(this);
 
   public FreeListManager(MemoryAllocatorImpl ma, final Slab[] slabs) {
+    this(ma, slabs, TINY_CACHE_STRIPES);
+  }
+
+  FreeListManager(MemoryAllocatorImpl ma, final Slab[] slabs, int tinyCacheStripes) {
     this.ma = ma;
     this.slabs = slabs;
     long total = 0;
@@ -152,6 +198,9 @@ public class FreeListManager {
     }
     this.fragmentList = new CopyOnWriteArrayList<Fragment>(tmp);
     this.totalSlabSize = total;
+    this.tinyChunkCache = tinyCacheStripes > 0 ? new TinyChunkCache(this, tinyCacheStripes,
+        Math.min(getNearestTinyMultiple(TINY_CACHE_MAX_SIZE) + 1, TINY_FREE_LIST_COUNT),
+        TINY_CACHE_MAGAZINE_SIZE) : null;
 
     fillFragments();
   }
@@ -198,6 +247,7 @@ public class FreeListManager {
 
     result.setDataSize(size);
     this.allocatedSize.addAndGet(result.getSize());
+    this.sampler.allocated(result.getAddress(), result.getSize());
     result.initializeUseCount();
 
     return result;
@@ -322,6 +372,25 @@ public class FreeListManager {
     verifyHugeMultiple(HUGE_MULTIPLE);
   }
   public static final int MAX_TINY = TINY_MULTIPLE * TINY_FREE_LIST_COUNT;
+  /**
+   * Number of stripes of tiny chunk magazines. Threads allocating and freeing chunks of up to
+   * TINY_CACHE_MAX_SIZE bytes go to the magazines of their stripe instead of contending on the
+   * shared tiny free lists. Rounded up to a power of two; zero, the default, disables the
+   * magazines.
+   */
+  public static final int TINY_CACHE_STRIPES =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_TINY_CACHE_STRIPES", 0);
+  /**
+   * The largest chunk size, including the off-heap header, kept in tiny chunk magazines.
+   */
+  public static final int TINY_CACHE_MAX_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_TINY_CACHE_MAX_SIZE", 512);
+  /**
+   * Number of chunks of one size a stripe holds. Half of that is moved to or from the shared tiny
+   * free list at a time.
+   */
+  public static final int TINY_CACHE_MAGAZINE_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_TINY_CACHE_MAGAZINE_SIZE", 32);
 
   /**
    * Return true if the two chunks have been combined into one. If low and high are adjacent to each
@@ -385,6 +454,127 @@ public class FreeListManager {
     }
   }
 
+  /**
+   * The next tiny free list an incremental defragmentation takes chunks from. Guarded by this.
+   */
+  private int incrementalDefragmentationCursor;
+
+  /**
+   * Takes up to maxChunks chunks off the free lists, sorts them by address and turns every run of
+   * adjacent chunks into a new fragment. Chunks without a free neighbor in the batch go back to
+   * their free list. Unlike {@link #defragment(int)} the work done is bounded by maxChunks, so it
+   * can be called repeatedly from a background thread without stalling allocations that need a full
+   * defragmentation for long.
+   *
+   * @return the number of bytes coalesced into new fragments
+   */
+  long defragmentIncrementally(int maxChunks) {
+    final long start = this.ma.getStats().startIncrementalDefragmentation();
+    long coalesced = 0;
+    try {
+      synchronized (this) {
+        pruneExhaustedFragments();
+        long[] chunks = new long[maxChunks];
+        int count = takeFreeChunks(chunks);
+        Arrays.sort(chunks, 0, count);
+        long runAddr = 0L;
+        boolean runCombined = false;
+        for (int i = 0; i < count; i++) {
+          long addr = chunks[i];
+          if (runAddr != 0L && combineIfAdjacentAndSmallEnough(runAddr, addr)) {
+            runCombined = true;
+          } else {
+            coalesced += finishRun(runAddr, runCombined);
+            runAddr = addr;
+            runCombined = false;
+          }
+        }
+        coalesced += finishRun(runAddr, runCombined);
+        if (coalesced > 0) {
+          this.ma.getStats().setFragments(this.fragmentList.size());
+        }
+      }
+    } finally {
+      this.ma.getStats().endIncrementalDefragmentation(start, coalesced);
+    }
+    return coalesced;
+  }
+
+  /**
+   * Removes the fragments that have no room left for another chunk. Only a full defragmentation
+   * clears the fragment list, so without this every incremental step would make allocations scan a
+   * longer list. A concurrent allocation that loses its fragment index just tries another one.
+   */
+  private void pruneExhaustedFragments() {
+    if (this.fragmentList.removeIf(
+        f -> f.getSize() - f.getFreeIndex() < OffHeapStoredObject.MIN_CHUNK_SIZE)) {
+      this.ma.getStats().setFragments(this.fragmentList.size());
+    }
+  }
+
+  /**
+   * Takes free chunks off the huge free list and then off the tiny free lists, continuing where the
+   * previous call left off, until chunks is full or every free list was visited once. Chunks held
+   * by the tiny chunk cache are returned to the tiny free lists first so that they can be coalesced
+   * too.
+   *
+   * @return the number of chunks taken
+   */
+  private int takeFreeChunks(long[] chunks) {
+    if (this.tinyChunkCache != null) {
+      this.tinyChunkCache.flush();
+    }
+    int count = 0;
+    while (count < chunks.length) {
+      OffHeapStoredObject huge = this.hugeChunkSet.pollFirst();
+      if (huge == null) {
+        break;
+      }
+      chunks[count++] = huge.getAddress();
+    }
+    for (int visited = 0; visited < TINY_FREE_LIST_COUNT && count < chunks.length; visited++) {
+      int idx = this.incrementalDefragmentationCursor;
+      this.incrementalDefragmentationCursor = (idx + 1) % TINY_FREE_LIST_COUNT;
+      OffHeapStoredObjectAddressStack clq = this.tinyFreeLists.get(idx);
+      if (clq != null) {
+        count += clq.poll(chunks, count, chunks.length - count);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Makes a fragment of a run of chunks that were combined, or returns a lone chunk to its free
+   * list.
+   *
+   * @return the size of the new fragment, or zero
+   */
+  private long finishRun(long addr, boolean combined) {
+    if (addr == 0L) {
+      return 0;
+    }
+    if (!combined) {
+      returnToFreeList(addr);
+      return 0;
+    }
+    int size = OffHeapStoredObject.getSize(addr);
+    Fragment fragment = createFragment(addr, size);
+    if (this.validateMemoryWithFill) {
+      fragment.fill();
+    }
+    this.fragmentList.add(fragment);
+    return size;
+  }
+
+  private void returnToFreeList(long addr) {
+    int cSize = OffHeapStoredObject.getSize(addr);
+    if (cSize <= MAX_TINY) {
+      basicFree(addr, getNearestTinyMultiple(cSize), this.tinyFreeLists);
+    } else {
+      freeHuge(addr, cSize);
+    }
+  }
+
   /**
    * Simple interface the represents a "stack" of primitive longs. Currently this interface only
    * allows supports poll but more could be added if needed in the future. This interface was
@@ -623,6 +813,9 @@ public class FreeListManager {
   }
 
   private void collectFreeTinyChunks(List<LongStack> l) {
+    if (this.tinyChunkCache != null) {
+      this.tinyChunkCache.flush();
+    }
     for (int i = 0; i < this.tinyFreeLists.length(); i++) {
       OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(i);
       if (cl != null) {
@@ -699,8 +892,14 @@ public class FreeListManager {
   }
 
   private OffHeapStoredObject allocateTiny(int size, boolean useFragments) {
-    return basicAllocate(getNearestTinyMultiple(size), TINY_MULTIPLE, 0, this.tinyFreeLists,
-        useFragments);
+    int idx = getNearestTinyMultiple(size);
+    if (this.tinyChunkCache != null && this.tinyChunkCache.isCached(idx)) {
+      long memAddr = this.tinyChunkCache.allocate(idx);
+      if (memAddr != 0L) {
+        return reuseFreeChunk(memAddr);
+      }
+    }
+    return basicAllocate(idx, TINY_MULTIPLE, 0, this.tinyFreeLists, useFragments);
   }
 
   private OffHeapStoredObject basicAllocate(int idx, int multiple, int offset,
@@ -709,10 +908,7 @@ public class FreeListManager {
     if (clq != null) {
       long memAddr = clq.poll();
       if (memAddr != 0) {
-        OffHeapStoredObject result = new OffHeapStoredObject(memAddr);
-        checkDataIntegrity(result);
-        result.readyForAllocation();
-        return result;
+        return reuseFreeChunk(memAddr);
       }
     }
     if (useFragments) {
@@ -746,6 +942,13 @@ public class FreeListManager {
     }
   }
 
+  private OffHeapStoredObject reuseFreeChunk(long memAddr) {
+    OffHeapStoredObject result = new OffHeapStoredObject(memAddr);
+    checkDataIntegrity(result);
+    result.readyForAllocation();
+    return result;
+  }
+
   private void checkDataIntegrity(OffHeapStoredObject data) {
     if (this.validateMemoryWithFill) {
       data.validateFill();
@@ -787,6 +990,7 @@ public class FreeListManager {
       this.allocatedSize.addAndGet(-cSize);
       stats.incUsedMemory(-cSize);
       stats.incFreeMemory(cSize);
+      this.sampler.freed(addr, cSize);
       this.ma.notifyListeners();
     }
     if (cSize <= MAX_TINY) {
@@ -797,7 +1001,43 @@ public class FreeListManager {
   }
 
   private void freeTiny(long addr, int cSize) {
-    basicFree(addr, getNearestTinyMultiple(cSize), this.tinyFreeLists);
+    int idx = getNearestTinyMultiple(cSize);
+    if (this.tinyChunkCache != null && this.tinyChunkCache.isCached(idx)) {
+      this.tinyChunkCache.free(addr, idx);
+    } else {
+      basicFree(addr, idx, this.tinyFreeLists);
+    }
+  }
+
+  /**
+   * Moves up to max chunks from a tiny free list to dest. Used to refill tiny chunk magazines.
+   *
+   * @return the number of chunks moved
+   */
+  int pollTinyFreeList(int idx, long[] dest, int max) {
+    OffHeapStoredObjectAddressStack clq = this.tinyFreeLists.get(idx);
+    if (clq == null) {
+      return 0;
+    }
+    return clq.poll(dest, 0, max);
+  }
+
+  /**
+   * Moves the first count chunks of src to a tiny free list. Used to empty tiny chunk magazines.
+   */
+  void offerTinyFreeList(int idx, long[] src, int count) {
+    OffHeapStoredObjectAddressStack clq = this.tinyFreeLists.get(idx);
+    if (clq == null) {
+      clq = createFreeListForEmptySlot(this.tinyFreeLists, idx);
+      if (!this.tinyFreeLists.compareAndSet(idx, null, clq)) {
+        clq = this.tinyFreeLists.get(idx);
+      }
+    }
+    clq.offer(src, 0, count);
+  }
+
+  OffHeapMemoryStats getStats() {
+    return this.ma.getStats();
   }
 
   private void basicFree(long addr, int idx,
@@ -872,6 +1112,11 @@ public class FreeListManager {
         addr = OffHeapStoredObject.getNext(addr);
       }
     }
+    if (this.tinyChunkCache != null) {
+      for (MemoryBlock block : this.tinyChunkCache.getFreeBlocks()) {
+        value.add(new MemoryBlockNode(sma, block));
+      }
+    }
     return value;
   }
 
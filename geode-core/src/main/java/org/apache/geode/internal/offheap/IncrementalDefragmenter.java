@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.SystemFailure;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * Coalesces free off-heap chunks into fragments in the background, a bounded number of chunks at a
+ * time, so that allocations rarely run out of fragments and have to wait for a full
+ * {@link FreeListManager#defragment(int)}.
+ * <p>
+ * Every {@link #INTERVAL_PROPERTY} milliseconds it checks
+ * {@link MemoryInspector#getFreeChunkPercentage()}, and while that is at least
+ * {@link #THRESHOLD_PROPERTY} it runs one {@link FreeListManager#defragmentIncrementally(int)} step
+ * of at most {@link #MAX_CHUNKS_PROPERTY} chunks per check. A threshold of zero, the default,
+ * disables it.
+ */
+class IncrementalDefragmenter {
+  private static final Logger logger = LogService.getLogger();
+
+  static final String THRESHOLD_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_INCREMENTAL_DEFRAGMENTATION_THRESHOLD";
+
+  static final String INTERVAL_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_INCREMENTAL_DEFRAGMENTATION_INTERVAL";
+
+  static final String MAX_CHUNKS_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_INCREMENTAL_DEFRAGMENTATION_MAX_CHUNKS";
+
+  private static final String THREAD_GROUP_NAME = "OffHeapDefragmenterThreadGroup";
+
+  private static final String THREAD_NAME = "OffHeapDefragmenterThread";
+
+  private final FreeListManager freeList;
+
+  private final MemoryInspector inspector;
+
+  private final int threshold;
+
+  private final long interval;
+
+  private final int maxChunks;
+
+  private ScheduledExecutorService executor;
+
+  IncrementalDefragmenter(FreeListManager freeList, MemoryInspector inspector) {
+    this(freeList, inspector, Integer.getInteger(THRESHOLD_PROPERTY, 0),
+        Long.getLong(INTERVAL_PROPERTY, 100), Integer.getInteger(MAX_CHUNKS_PROPERTY, 16384));
+  }
+
+  IncrementalDefragmenter(FreeListManager freeList, MemoryInspector inspector, int threshold,
+      long interval, int maxChunks) {
+    if (interval <= 0) {
+      throw new IllegalStateException(INTERVAL_PROPERTY + " must be > 0 but it was " + interval);
+    }
+    if (maxChunks < 2) {
+      throw new IllegalStateException(
+          MAX_CHUNKS_PROPERTY + " must be >= 2 but it was " + maxChunks);
+    }
+    this.freeList = freeList;
+    this.inspector = inspector;
+    this.threshold = threshold;
+    this.interval = interval;
+    this.maxChunks = maxChunks;
+  }
+
+  boolean isEnabled() {
+    return this.threshold > 0;
+  }
+
+  synchronized void start() {
+    if (this.executor != null || !isEnabled()) {
+      return;
+    }
+    ThreadGroup group = LoggingThreadGroup.createThreadGroup(THREAD_GROUP_NAME, logger);
+    this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(group, runnable, THREAD_NAME);
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor.scheduleWithFixedDelay(this::run, this.interval, this.interval,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the defragmenter and waits for a step in progress, so the slabs can be freed afterwards.
+   */
+  synchronized void close() {
+    if (this.executor == null) {
+      return;
+    }
+    this.executor.shutdownNow();
+    try {
+      this.executor.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException ignore) {
+      Thread.currentThread().interrupt();
+    }
+    this.executor = null;
+  }
+
+  private void run() {
+    try {
+      defragmentIfFragmented();
+    } catch (VirtualMachineError e) {
+      SystemFailure.initiateFailure(e);
+      throw e;
+    } catch (Throwable t) {
+      SystemFailure.checkFailure();
+      logger.warn("Unable to defragment off-heap memory incrementally", t);
+    }
+  }
+
+  /**
+   * Runs one incremental defragmentation step if enough free memory is in free chunk lists.
+   *
+   * @return the number of bytes coalesced into fragments
+   */
+  long defragmentIfFragmented() {
+    if (this.inspector.getFreeChunkPercentage() < this.threshold) {
+      return 0;
+    }
+    long coalesced = this.freeList.defragmentIncrementally(this.maxChunks);
+    if (coalesced > 0 && logger.isDebugEnabled()) {
+      logger.debug("Coalesced {} bytes of free off-heap chunks into fragments", coalesced);
+    }
+    return coalesced;
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Creates slabs backed by shared memory mappings of files instead of memory from
+ * {@link AddressableMemoryManager#allocate(int)}, so that the placement and page size of off-heap
+ * memory can be chosen by the file system the files are created on.
+ * <p>
+ * Setting {@link #DIRECTORIES_PROPERTY} to a comma separated list of directories enables it:
+ * <ul>
+ * <li>A directory on a hugetlbfs mount backs the slabs with huge pages, which removes most TLB
+ * misses on off-heap reads. The mount needs enough free huge pages for all slabs.</li>
+ * <li>A directory on a tmpfs mount with the huge=always option backs them with transparent huge
+ * pages.</li>
+ * <li>Slabs are created round robin in the directories. Giving one directory per NUMA node, each on
+ * a mount with the mpol=bind:node option, interleaves the slabs over the nodes. Giving only the
+ * directory of one node pins all slabs to that node.</li>
+ * </ul>
+ * Each slab is mapped from a new file that is deleted as soon as it is mapped, so nothing is left
+ * behind if the member dies. Mapped sizes are rounded up to {@link #PAGE_SIZE_PROPERTY}, the huge
+ * page size, which defaults to 2m. If {@link #PRETOUCH_PROPERTY} is true every page is touched when
+ * the slab is created, so page faults and node placement happen at startup instead of on the first
+ * allocations.
+ */
+public class MappedSlabFactory implements SlabFactory {
+  private static final Logger logger = LogService.getLogger();
+
+  static final String DIRECTORIES_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_SLAB_DIRECTORIES";
+
+  static final String PAGE_SIZE_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_SLAB_PAGE_SIZE";
+
+  static final String PRETOUCH_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_SLAB_PRETOUCH";
+
+  private static final long DEFAULT_PAGE_SIZE = 2 * 1024 * 1024;
+
+  private final File[] directories;
+
+  private final long pageSize;
+
+  private final boolean pretouch;
+
+  private final AtomicInteger nextDirectory = new AtomicInteger();
+
+  MappedSlabFactory(File[] directories, long pageSize, boolean pretouch) {
+    if (directories.length == 0) {
+      throw new IllegalArgumentException(DIRECTORIES_PROPERTY + " must name a directory");
+    }
+    for (File directory : directories) {
+      if (!directory.isDirectory()) {
+        throw new IllegalArgumentException(
+            DIRECTORIES_PROPERTY + " contains " + directory + " which is not a directory");
+      }
+    }
+    if (pageSize <= 0 || pageSize > Integer.MAX_VALUE || Long.bitCount(pageSize) != 1) {
+      throw new IllegalArgumentException(
+          PAGE_SIZE_PROPERTY + " must be a power of two but it was " + pageSize);
+    }
+    this.directories = directories;
+    this.pageSize = pageSize;
+    this.pretouch = pretouch;
+  }
+
+  /**
+   * Returns a factory configured by the system properties, or null if
+   * {@link #DIRECTORIES_PROPERTY} is not set.
+   */
+  static MappedSlabFactory create() {
+    String value = System.getProperty(DIRECTORIES_PROPERTY);
+    if (value == null || value.trim().isEmpty()) {
+      return null;
+    }
+    List<File> directories = new ArrayList<>();
+    for (String name : value.split(",")) {
+      if (!name.trim().isEmpty()) {
+        directories.add(new File(name.trim()));
+      }
+    }
+    long pageSize = OffHeapStorage.parseLongWithUnits(System.getProperty(PAGE_SIZE_PROPERTY),
+        DEFAULT_PAGE_SIZE, 1);
+    MappedSlabFactory result = new MappedSlabFactory(directories.toArray(new File[0]), pageSize,
+        Boolean.getBoolean(PRETOUCH_PROPERTY));
+    logger.info("Off-heap memory will be mapped from {} using pages of {} bytes.",
+        Arrays.toString(result.directories), pageSize);
+    return result;
+  }
+
+  long getPageSize() {
+    return this.pageSize;
+  }
+
+  /**
+   * Returns the largest slab size, no larger than maxSlabSize, that maps whole pages without
+   * exceeding the largest possible mapping. Slabs smaller than a page are left as they are.
+   */
+  long alignSlabSize(long maxSlabSize) {
+    long result = Math.min(maxSlabSize, Integer.MAX_VALUE) & -this.pageSize;
+    return result == 0 ? maxSlabSize : result;
+  }
+
+  @Override
+  public Slab create(int size) {
+    int index = Math.floorMod(this.nextDirectory.getAndIncrement(), this.directories.length);
+    File directory = this.directories[index];
+    long mappedSize = (size + this.pageSize - 1) & -this.pageSize;
+    ByteBuffer buffer;
+    try {
+      buffer = map(directory, mappedSize);
+    } catch (IOException | RuntimeException e) {
+      OutOfMemoryError error = new OutOfMemoryError(
+          "Failed mapping " + mappedSize + " bytes of off-heap memory in " + directory + ": " + e);
+      error.initCause(e);
+      throw error;
+    }
+    long address = AddressableMemoryManager.getDirectByteBufferAddress(buffer);
+    if (address == 0L) {
+      throw new OutOfMemoryError(
+          "Could not get the address of off-heap memory mapped in " + directory);
+    }
+    if (this.pretouch) {
+      for (long offset = 0; offset < mappedSize; offset += this.pageSize) {
+        AddressableMemoryManager.writeByte(address + offset, (byte) 0);
+      }
+    }
+    return new MappedSlab(buffer, address, size);
+  }
+
+  private static ByteBuffer map(File directory, long size) throws IOException {
+    File file = File.createTempFile("offheap-slab-", ".mem", directory);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } finally {
+      // the mapping outlives both the descriptor and the directory entry
+      if (!file.delete()) {
+        logger.warn("Could not delete {} which backs off-heap memory", file);
+      }
+    }
+  }
+
+  /**
+   * A slab that is the start of a shared file mapping.
+   * <p>
+   * The JVM has no supported way to unmap a buffer, so {@link #free()} drops this slab's reference
+   * to the mapping and the mapping is unmapped, and its pages returned, once the buffer is garbage
+   * collected. Slabs are only freed when the off-heap memory of the member is closed, after which
+   * no chunk addresses are used.
+   */
+  static class MappedSlab implements Slab {
+    private final long address;
+    private final int size;
+    private volatile ByteBuffer buffer;
+
+    MappedSlab(ByteBuffer buffer, long address, int size) {
+      this.buffer = buffer;
+      this.address = address;
+      this.size = size;
+    }
+
+    @Override
+    public long getMemoryAddress() {
+      return this.address;
+    }
+
+    @Override
+    public int getSize() {
+      return this.size;
+    }
+
+    @Override
+    public void free() {
+      this.buffer = null;
+    }
+
+    boolean isFreed() {
+      return this.buffer == null;
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+      sb.append("{");
+      sb.append("MemoryAddress=").append(getMemoryAddress());
+      sb.append(", Size=").append(getSize());
+      sb.append("}");
+      return sb.toString();
+    }
+  }
+}
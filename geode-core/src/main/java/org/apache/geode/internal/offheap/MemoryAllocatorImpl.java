@@ -14,6 +14,7 @@
  */
 package org.apache.geode.internal.offheap;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -35,6 +36,7 @@ import org.apache.geode.internal.cache.InternalRegion;
 import org.apache.geode.internal.cache.PartitionedRegion;
 import org.apache.geode.internal.cache.PartitionedRegionDataStore;
 import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.entries.OffHeapKeyRegionEntry;
 import org.apache.geode.internal.logging.LogService;
 import org.apache.geode.internal.offheap.annotations.OffHeapIdentifier;
 import org.apache.geode.internal.offheap.annotations.Unretained;
@@ -68,6 +70,8 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
 
   private MemoryInspector memoryInspector;
 
+  private final IncrementalDefragmenter incrementalDefragmenter;
+
   private volatile MemoryUsageListener[] memoryUsageListeners = new MemoryUsageListener[0];
 
   private static MemoryAllocatorImpl singleton = null;
@@ -94,6 +98,14 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
         });
   }
 
+  /**
+   * Creates the allocator, unless it already exists, with slabs created by the given factory.
+   */
+  public static MemoryAllocator create(OutOfOffHeapMemoryListener ooohml, OffHeapMemoryStats stats,
+      int slabCount, long offHeapMemorySize, long maxSlabSize, SlabFactory slabFactory) {
+    return create(ooohml, stats, slabCount, offHeapMemorySize, maxSlabSize, null, slabFactory);
+  }
+
   private static MemoryAllocatorImpl create(OutOfOffHeapMemoryListener ooohml,
       OffHeapMemoryStats stats, int slabCount, long offHeapMemorySize, long maxSlabSize,
       Slab[] slabs, SlabFactory slabFactory) {
@@ -113,7 +125,7 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
           logger.info(
               "Allocating {} bytes of off-heap memory. The maximum size of a single off-heap object is {} bytes.",
               offHeapMemorySize, maxSlabSize);
-          slabs = new SlabImpl[slabCount];
+          slabs = new Slab[slabCount];
           long uncreatedMemory = offHeapMemorySize;
           for (int i = 0; i < slabCount; i++) {
             try {
@@ -201,6 +213,7 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
     }
     this.ooohml = oooml;
     newStats.initialize(this.stats);
+    newStats.setSampler(this.freeList.getSampler());
     this.stats = newStats;
   }
 
@@ -218,9 +231,14 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
 
     this.freeList = new FreeListManager(this, slabs);
     this.memoryInspector = new MemoryInspectorImpl(this.freeList);
+    this.stats.setSampler(this.freeList.getSampler());
 
     this.stats.incMaxMemory(this.freeList.getTotalMemory());
     this.stats.incFreeMemory(this.freeList.getTotalMemory());
+
+    this.incrementalDefragmenter =
+        new IncrementalDefragmenter(this.freeList, this.memoryInspector);
+    this.incrementalDefragmenter.start();
   }
 
   public List<OffHeapStoredObject> getLostChunks(InternalCache cache) {
@@ -287,6 +305,12 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
         if (value instanceof OffHeapStoredObject) {
           result.add((OffHeapStoredObject) value);
         }
+        if (re instanceof OffHeapKeyRegionEntry) {
+          long headerAddress = ((OffHeapKeyRegionEntry) re).getHeaderAddress();
+          if (OffHeapRegionEntryHelper.isOffHeap(headerAddress)) {
+            result.add(new OffHeapStoredObject(headerAddress));
+          }
+        }
       }
     }
   }
@@ -348,6 +372,31 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
     return result;
   }
 
+  /**
+   * Allocates off heap memory for the remaining bytes of the given buffer and copies them into it.
+   * When the buffer is direct the bytes go straight from native memory to native memory.
+   *
+   * @param data the bytes of the data; its position is not changed
+   * @param isSerialized true if data contains a serialized object; false if it is an actual byte
+   *        array
+   */
+  public StoredObject allocateAndInitialize(ByteBuffer data, boolean isSerialized) {
+    int size = data.remaining();
+    OffHeapStoredObject result = allocateOffHeapStoredObject(size);
+    long srcAddr = AddressableMemoryManager.getDirectByteBufferAddress(data);
+    if (srcAddr != 0L) {
+      AddressableMemoryManager.copyMemory(srcAddr + data.position(), result.getBaseDataAddress(),
+          size);
+    } else {
+      byte[] bytes = new byte[size];
+      data.duplicate().get(bytes);
+      result.setSerializedValue(bytes);
+    }
+    result.setSerialized(isSerialized);
+    result.setCompressed(false);
+    return result;
+  }
+
   @Override
   public long getFreeMemory() {
     return this.freeList.getFreeMemory();
@@ -385,6 +434,7 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
   private void realClose() {
     // Removing this memory immediately can lead to a SEGV. See 47885.
     if (setClosed()) {
+      this.incrementalDefragmenter.close();
       this.freeList.freeSlabs();
       this.stats.close();
       singleton = null;
@@ -523,4 +573,8 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
     return this.memoryInspector;
   }
 
+  public OffHeapMemorySampler getSampler() {
+    return this.freeList.getSampler();
+  }
+
 }
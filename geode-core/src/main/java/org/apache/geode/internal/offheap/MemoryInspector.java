@@ -37,4 +37,11 @@ public interface MemoryInspector {
 
   MemoryBlock getBlockAfter(MemoryBlock block);
 
+  /**
+   * Returns the percentage of free memory that is held by the free lists of previously allocated
+   * chunks instead of by fragments. Those chunks can only be reused for allocations of about their
+   * own size until they are coalesced by a defragmentation.
+   */
+  int getFreeChunkPercentage();
+
 }
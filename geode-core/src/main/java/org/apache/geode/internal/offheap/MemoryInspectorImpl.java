@@ -90,6 +90,16 @@ public class MemoryInspectorImpl implements MemoryInspector {
     }
   }
 
+  @Override
+  public int getFreeChunkPercentage() {
+    long freeMemory = this.freeList.getFreeMemory();
+    if (freeMemory <= 0) {
+      return 0;
+    }
+    long freeChunkMemory = freeMemory - this.freeList.getFreeFragmentMemory();
+    return (int) Math.max(0, freeChunkMemory * 100 / freeMemory);
+  }
+
   private List<MemoryBlock> getOrderedBlocks() {
     return this.freeList.getOrderedBlocks();
   }
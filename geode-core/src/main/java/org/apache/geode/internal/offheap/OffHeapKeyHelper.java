@@ -0,0 +1,465 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.EntryEventImpl;
+import org.apache.geode.internal.cache.entries.OffHeapKeyRegionEntry;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * The class just has static methods that operate on instances of {@link OffHeapKeyRegionEntry}.
+ * <p>
+ * The header of such an entry, that is its last modified time, the primitive parts of its version
+ * stamp and its serialized key, is kept in one off-heap chunk whose address is the only header
+ * field of the entry. The chunk is allocated when the entry first gets an off-heap value and freed
+ * when the entry is removed. Until then, and after that, the header is kept on the heap in a side
+ * table that does not keep the entry alive. This way entries that are created but never make it
+ * into the region map, which nothing releases, do not leak off-heap memory.
+ * <p>
+ * Keys are compared in their serialized form, so only keys of classes whose equal instances always
+ * serialize to the same bytes are stored; see {@link #canStore}. Reading a stored key deserializes
+ * it, and reading or writing a header field retains the chunk, so these entries trade cpu for less
+ * heap per entry.
+ */
+public class OffHeapKeyHelper {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * If true, off-heap regions create entries that store their header and key off-heap for keys
+   * that can not be inlined.
+   */
+  public static boolean OFF_HEAP_REGION_KEYS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_REGION_KEYS");
+
+  /**
+   * The classes of the keys that can be stored. Equal instances of them serialize to equal bytes.
+   */
+  private static final Set<Class<?>> STORABLE_KEY_CLASSES =
+      new HashSet<>(Arrays.asList(String.class, Long.class, Integer.class, Short.class, Byte.class,
+          Character.class, Double.class, Float.class, UUID.class, BigInteger.class));
+
+  // the header fields are longs at these indexes in the data of the chunk, followed by the key
+  static final int LAST_MODIFIED = 0;
+  static final int REGION_VERSION = 1;
+  /** the entry version in the low three bytes and the distributed system id in the high byte */
+  static final int ENTRY_VERSION_AND_DSID = 2;
+  private static final int FIELD_COUNT = 3;
+  static final int KEY_OFFSET = FIELD_COUNT * 8;
+
+  /**
+   * The header address of an entry whose header has not been stored off-heap yet.
+   */
+  static final long HEAP_HEADER_ADDRESS = OffHeapRegionEntryHelper.NULL_ADDRESS;
+
+  /**
+   * The header address of an entry whose header is being moved back to the heap.
+   */
+  static final long RELEASING_HEADER_ADDRESS = OffHeapRegionEntryHelper.REMOVED_PHASE1_ADDRESS;
+
+  /**
+   * The header address of an entry whose header was moved back to the heap when it was removed.
+   */
+  static final long RELEASED_HEADER_ADDRESS = OffHeapRegionEntryHelper.REMOVED_PHASE2_ADDRESS;
+
+  /**
+   * The headers that are on the heap, by entry. Split to spread the contention of creating and
+   * removing entries.
+   */
+  private static final Map<OffHeapKeyRegionEntry, HeapHeader>[] HEAP_HEADERS = createHeapHeaders();
+
+  /**
+   * The last key each thread serialized to compare it with stored keys, so that looking up a key
+   * serializes it once rather than once per entry it is compared with.
+   */
+  private static final ThreadLocal<SerializedKey> LAST_SERIALIZED_KEY = new ThreadLocal<>();
+
+  private OffHeapKeyHelper() {
+    // no instances
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<OffHeapKeyRegionEntry, HeapHeader>[] createHeapHeaders() {
+    Map<OffHeapKeyRegionEntry, HeapHeader>[] result = new Map[64];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = Collections.synchronizedMap(new WeakHashMap<>());
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if entries for the given key can store it off-heap.
+   */
+  public static boolean canStore(Object key) {
+    return key != null && STORABLE_KEY_CLASSES.contains(key.getClass());
+  }
+
+  /**
+   * Called by the constructor of the entry once its value is set.
+   */
+  public static void initialize(OffHeapKeyRegionEntry re, Object key, long valueAddress) {
+    heapHeaders(re).put(re, new HeapHeader(key));
+    addressChanged(re, valueAddress);
+  }
+
+  /**
+   * Called after the value address of the entry changed to newAddress. Stores the header off-heap
+   * once the entry has an off-heap value, and moves it back to the heap once the entry is removed.
+   */
+  public static void addressChanged(OffHeapKeyRegionEntry re, long newAddress) {
+    if (newAddress == OffHeapRegionEntryHelper.REMOVED_PHASE2_ADDRESS) {
+      releaseHeader(re);
+    } else if (OffHeapRegionEntryHelper.isOffHeap(newAddress)) {
+      storeHeader(re);
+    }
+  }
+
+  public static Object getKey(OffHeapKeyRegionEntry re) {
+    while (true) {
+      long addr = retainStoredHeader(re);
+      if (addr != 0L) {
+        try {
+          return EntryEventImpl.deserialize(readKeyBytes(addr));
+        } finally {
+          OffHeapStoredObject.release(addr);
+        }
+      }
+      HeapHeader header = getHeapHeader(re);
+      if (header != null) {
+        return header.key;
+      }
+      // the header is being moved; spin around and try again
+    }
+  }
+
+  /**
+   * Compares the given key with the key of the entry without deserializing the stored key.
+   */
+  public static boolean isKeyEqual(OffHeapKeyRegionEntry re, Object key) {
+    if (!canStore(key)) {
+      return key.equals(getKey(re));
+    }
+    while (true) {
+      long addr = retainStoredHeader(re);
+      if (addr != 0L) {
+        try {
+          return keyBytesEqual(addr, serialize(key));
+        } finally {
+          OffHeapStoredObject.release(addr);
+        }
+      }
+      HeapHeader header = getHeapHeader(re);
+      if (header != null) {
+        return key.equals(header.key);
+      }
+    }
+  }
+
+  /**
+   * Returns the key of the entry if it is on the heap, otherwise null.
+   */
+  public static Object getKeyForSizing(OffHeapKeyRegionEntry re) {
+    HeapHeader header = getHeapHeader(re);
+    return header == null ? null : header.key;
+  }
+
+  public static long getLastModified(OffHeapKeyRegionEntry re) {
+    return readField(re, LAST_MODIFIED);
+  }
+
+  public static boolean compareAndSetLastModified(OffHeapKeyRegionEntry re, long expectedValue,
+      long newValue) {
+    return compareAndSetField(re, LAST_MODIFIED, expectedValue, newValue);
+  }
+
+  public static int getEntryVersion(OffHeapKeyRegionEntry re) {
+    return (int) readField(re, ENTRY_VERSION_AND_DSID) & 0xFFFFFF;
+  }
+
+  public static byte getDistributedSystemId(OffHeapKeyRegionEntry re) {
+    return (byte) (readField(re, ENTRY_VERSION_AND_DSID) >>> 24);
+  }
+
+  public static short getRegionVersionHighBytes(OffHeapKeyRegionEntry re) {
+    return (short) (readField(re, REGION_VERSION) >>> 32);
+  }
+
+  public static int getRegionVersionLowBytes(OffHeapKeyRegionEntry re) {
+    return (int) readField(re, REGION_VERSION);
+  }
+
+  /**
+   * Sets the entry and region versions of the entry. Called with the entry synchronized.
+   */
+  public static void setVersions(OffHeapKeyRegionEntry re, int entryVersion,
+      short regionVersionHighBytes, int regionVersionLowBytes) {
+    writeField(re, REGION_VERSION,
+        ((long) regionVersionHighBytes << 32) | (regionVersionLowBytes & 0xFFFFFFFFL));
+    long bits = readField(re, ENTRY_VERSION_AND_DSID);
+    writeField(re, ENTRY_VERSION_AND_DSID, (bits & 0xFF000000L) | (entryVersion & 0xFFFFFF));
+  }
+
+  /**
+   * Sets the distributed system id of the entry. Called with the entry synchronized.
+   */
+  public static void setDistributedSystemId(OffHeapKeyRegionEntry re, byte distributedSystemId) {
+    long bits = readField(re, ENTRY_VERSION_AND_DSID);
+    writeField(re, ENTRY_VERSION_AND_DSID,
+        (bits & 0xFFFFFFL) | ((distributedSystemId & 0xFFL) << 24));
+  }
+
+  private static long readField(OffHeapKeyRegionEntry re, int field) {
+    while (true) {
+      long addr = retainStoredHeader(re);
+      if (addr != 0L) {
+        try {
+          return AddressableMemoryManager.readLongVolatile(fieldAddress(addr, field));
+        } finally {
+          OffHeapStoredObject.release(addr);
+        }
+      }
+      HeapHeader header = getHeapHeader(re);
+      if (header != null) {
+        synchronized (header) {
+          if (isOnHeap(re)) {
+            return header.fields[field];
+          }
+        }
+      }
+    }
+  }
+
+  private static void writeField(OffHeapKeyRegionEntry re, int field, long value) {
+    while (true) {
+      long addr = retainStoredHeader(re);
+      if (addr != 0L) {
+        try {
+          AddressableMemoryManager.writeLongVolatile(fieldAddress(addr, field), value);
+          return;
+        } finally {
+          OffHeapStoredObject.release(addr);
+        }
+      }
+      HeapHeader header = getHeapHeader(re);
+      if (header != null) {
+        synchronized (header) {
+          if (isOnHeap(re)) {
+            header.fields[field] = value;
+            return;
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean compareAndSetField(OffHeapKeyRegionEntry re, int field,
+      long expectedValue, long newValue) {
+    while (true) {
+      long addr = retainStoredHeader(re);
+      if (addr != 0L) {
+        try {
+          return AddressableMemoryManager.writeLongVolatile(fieldAddress(addr, field),
+              expectedValue, newValue);
+        } finally {
+          OffHeapStoredObject.release(addr);
+        }
+      }
+      HeapHeader header = getHeapHeader(re);
+      if (header != null) {
+        synchronized (header) {
+          if (isOnHeap(re)) {
+            if (header.fields[field] != expectedValue) {
+              return false;
+            }
+            header.fields[field] = newValue;
+            return true;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies the header of the entry into a new off-heap chunk, unless it is already stored or no
+   * off-heap memory is left, in which case it stays on the heap.
+   */
+  static void storeHeader(OffHeapKeyRegionEntry re) {
+    if (re.getHeaderAddress() != HEAP_HEADER_ADDRESS) {
+      return;
+    }
+    HeapHeader header = getHeapHeader(re);
+    if (header == null) {
+      // still being constructed; the constructor stores the header once it is set
+      return;
+    }
+    StoredObject chunk;
+    try {
+      byte[] keyBytes = EntryEventImpl.serialize(header.key);
+      chunk = MemoryAllocatorImpl.getAllocator().allocate(KEY_OFFSET + keyBytes.length);
+      chunk.writeDataBytes(KEY_OFFSET, keyBytes);
+    } catch (RuntimeException e) {
+      // there is no off-heap memory left for it; the entry already has its new value so keep
+      // the header on the heap rather than fail the operation
+      if (logger.isDebugEnabled()) {
+        logger.debug("Keeping the header of key {} on the heap", header.key, e);
+      }
+      return;
+    }
+    long addr = chunk.getAddress();
+    synchronized (header) {
+      if (re.getHeaderAddress() == HEAP_HEADER_ADDRESS) {
+        for (int field = 0; field < FIELD_COUNT; field++) {
+          AddressableMemoryManager.writeLong(fieldAddress(addr, field), header.fields[field]);
+        }
+        if (re.setHeaderAddress(HEAP_HEADER_ADDRESS, addr)) {
+          heapHeaders(re).remove(re);
+          return;
+        }
+      }
+    }
+    chunk.release();
+  }
+
+  /**
+   * Moves the header of the entry back to the heap and frees its chunk, so that a removed entry
+   * can still report its key. A write to a header field that races with this may be lost, which
+   * does not matter for a removed entry.
+   */
+  static void releaseHeader(OffHeapKeyRegionEntry re) {
+    long addr = retainStoredHeader(re);
+    if (addr == 0L || !re.setHeaderAddress(addr, RELEASING_HEADER_ADDRESS)) {
+      if (addr != 0L) {
+        OffHeapStoredObject.release(addr);
+      }
+      return;
+    }
+    try {
+      HeapHeader header = new HeapHeader(EntryEventImpl.deserialize(readKeyBytes(addr)));
+      for (int field = 0; field < FIELD_COUNT; field++) {
+        header.fields[field] = AddressableMemoryManager.readLongVolatile(fieldAddress(addr, field));
+      }
+      synchronized (header) {
+        heapHeaders(re).put(re, header);
+        re.setHeaderAddress(RELEASING_HEADER_ADDRESS, RELEASED_HEADER_ADDRESS);
+      }
+    } finally {
+      // once for the retain above and once for the allocation
+      OffHeapStoredObject.release(addr);
+      OffHeapStoredObject.release(addr);
+    }
+  }
+
+  /**
+   * Returns the address of the entry's header chunk, retained, or 0 if the header is not stored
+   * off-heap.
+   */
+  private static long retainStoredHeader(OffHeapKeyRegionEntry re) {
+    while (true) {
+      long addr = re.getHeaderAddress();
+      if (!OffHeapRegionEntryHelper.isOffHeap(addr)) {
+        return 0L;
+      }
+      if (OffHeapStoredObject.retain(addr)) {
+        if (re.getHeaderAddress() == addr) {
+          return addr;
+        }
+        OffHeapStoredObject.release(addr);
+      }
+      // the header was released; spin around and try again
+    }
+  }
+
+  private static boolean isOnHeap(OffHeapKeyRegionEntry re) {
+    long addr = re.getHeaderAddress();
+    return addr == HEAP_HEADER_ADDRESS || addr == RELEASED_HEADER_ADDRESS;
+  }
+
+  private static HeapHeader getHeapHeader(OffHeapKeyRegionEntry re) {
+    return heapHeaders(re).get(re);
+  }
+
+  private static Map<OffHeapKeyRegionEntry, HeapHeader> heapHeaders(OffHeapKeyRegionEntry re) {
+    return HEAP_HEADERS[System.identityHashCode(re) & (HEAP_HEADERS.length - 1)];
+  }
+
+  private static long fieldAddress(long addr, int field) {
+    return addr + OffHeapStoredObject.HEADER_SIZE + field * 8;
+  }
+
+  private static byte[] readKeyBytes(long addr) {
+    OffHeapStoredObject chunk = new OffHeapStoredObject(addr);
+    byte[] bytes = new byte[chunk.getDataSize() - KEY_OFFSET];
+    chunk.readDataBytes(KEY_OFFSET, bytes);
+    return bytes;
+  }
+
+  private static boolean keyBytesEqual(long addr, byte[] bytes) {
+    if (OffHeapStoredObject.getDataSize(addr) - KEY_OFFSET != bytes.length) {
+      return false;
+    }
+    long keyAddress = addr + OffHeapStoredObject.HEADER_SIZE + KEY_OFFSET;
+    for (int i = 0; i < bytes.length; i++) {
+      if (AddressableMemoryManager.readByte(keyAddress + i) != bytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static byte[] serialize(Object key) {
+    SerializedKey last = LAST_SERIALIZED_KEY.get();
+    if (last == null || last.key != key) {
+      last = new SerializedKey(key, EntryEventImpl.serialize(key));
+      LAST_SERIALIZED_KEY.set(last);
+    }
+    return last.bytes;
+  }
+
+  /**
+   * The header of an entry while it is on the heap. The fields are guarded by synchronizing on the
+   * header.
+   */
+  private static class HeapHeader {
+    final Object key;
+
+    final long[] fields = new long[FIELD_COUNT];
+
+    HeapHeader(Object key) {
+      this.key = key;
+    }
+  }
+
+  private static class SerializedKey {
+    final Object key;
+
+    final byte[] bytes;
+
+    SerializedKey(Object key, byte[] bytes) {
+      this.key = key;
+      this.bytes = bytes;
+    }
+  }
+}
@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * Keeps live histograms of off-heap memory so that leaks and fragmentation can be diagnosed on a
+ * running member.
+ * <p>
+ * The number and size of the allocated chunks of each size class are counted on every allocate and
+ * free. In addition one in {@link #SAMPLE_INTERVAL_PROPERTY} allocations, chosen at random,
+ * records the code that allocated the chunk. A sampled chunk is tracked until it is freed, at most
+ * {@link #MAX_SAMPLES_PROPERTY} at a time, so the sites of chunks that stay allocated for a long
+ * time can be reported. A sample interval of zero disables sampling; the histograms are always
+ * kept.
+ * <p>
+ * Size class i holds chunks of more than {@link #getSizeClassLimit(int) getSizeClassLimit(i-1)}
+ * and at most getSizeClassLimit(i) bytes, header included. The limits grow by a factor of four
+ * from 64 bytes to 16 megabytes; the last class holds all larger chunks.
+ */
+public class OffHeapMemorySampler {
+
+  static final String SAMPLE_INTERVAL_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_SAMPLE_INTERVAL";
+
+  static final String MAX_SAMPLES_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_MAX_SAMPLES";
+
+  static final String LONG_LIVED_AGE_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_SAMPLE_LONG_LIVED_AGE";
+
+  private static final int SIZE_CLASS_COUNT = 11;
+
+  /**
+   * The number of stack frames, outside of this package, that identify an allocation site.
+   */
+  private static final int SITE_DEPTH = 4;
+
+  private static final String PACKAGE_PREFIX =
+      OffHeapMemorySampler.class.getPackage().getName() + ".";
+
+  /**
+   * The number of counters in the filter frees check before looking up a tracked sample.
+   */
+  private static final int FILTER_SIZE = 4096;
+
+  private final FreeListManager freeList;
+
+  private final int sampleInterval;
+
+  private final int maxSamples;
+
+  private final long longLivedAge;
+
+  private final LongAdder[] allocatedChunks = createAdders();
+
+  private final LongAdder[] allocatedBytes = createAdders();
+
+  private final LongAdder sampledAllocations = new LongAdder();
+
+  private final ConcurrentHashMap<Long, Sample> samples = new ConcurrentHashMap<>();
+
+  /**
+   * Counts the tracked samples whose address hashes to each slot. Most frees find a zero here and
+   * skip the samples map.
+   */
+  private final AtomicIntegerArray filter = new AtomicIntegerArray(FILTER_SIZE);
+
+  OffHeapMemorySampler(FreeListManager freeList) {
+    this(freeList, Integer.getInteger(SAMPLE_INTERVAL_PROPERTY, 8192),
+        Integer.getInteger(MAX_SAMPLES_PROPERTY, 1024),
+        Long.getLong(LONG_LIVED_AGE_PROPERTY, 60000));
+  }
+
+  OffHeapMemorySampler(FreeListManager freeList, int sampleInterval, int maxSamples,
+      long longLivedAge) {
+    if (sampleInterval < 0) {
+      throw new IllegalStateException(
+          SAMPLE_INTERVAL_PROPERTY + " must be >= 0 but it was " + sampleInterval);
+    }
+    if (maxSamples < 0) {
+      throw new IllegalStateException(
+          MAX_SAMPLES_PROPERTY + " must be >= 0 but it was " + maxSamples);
+    }
+    this.freeList = freeList;
+    this.sampleInterval = sampleInterval;
+    this.maxSamples = maxSamples;
+    this.longLivedAge = longLivedAge;
+  }
+
+  private static LongAdder[] createAdders() {
+    LongAdder[] result = new LongAdder[SIZE_CLASS_COUNT];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = new LongAdder();
+    }
+    return result;
+  }
+
+  public static int getSizeClassCount() {
+    return SIZE_CLASS_COUNT;
+  }
+
+  /**
+   * Returns the largest chunk size, in bytes, of the given size class.
+   */
+  public static long getSizeClassLimit(int sizeClass) {
+    if (sizeClass == SIZE_CLASS_COUNT - 1) {
+      return Long.MAX_VALUE;
+    }
+    return 1L << (6 + 2 * sizeClass);
+  }
+
+  static int getSizeClass(long chunkSize) {
+    int bits = 64 - Long.numberOfLeadingZeros(chunkSize - 1);
+    return Math.max(0, Math.min(SIZE_CLASS_COUNT - 1, (bits - 5) / 2));
+  }
+
+  /**
+   * Returns a short name, such as "1KB", for the given number of bytes.
+   */
+  public static String formatSize(long bytes) {
+    if (bytes >= (1 << 20) && bytes % (1 << 20) == 0) {
+      return (bytes >> 20) + "MB";
+    }
+    if (bytes >= (1 << 10) && bytes % (1 << 10) == 0) {
+      return (bytes >> 10) + "KB";
+    }
+    return bytes + "B";
+  }
+
+  /**
+   * Returns a name, such as "64B-256B", for the given size class.
+   */
+  public static String getSizeClassName(int sizeClass) {
+    if (sizeClass == 0) {
+      return "0-" + formatSize(getSizeClassLimit(0));
+    }
+    if (sizeClass == SIZE_CLASS_COUNT - 1) {
+      return ">" + formatSize(getSizeClassLimit(sizeClass - 1));
+    }
+    return formatSize(getSizeClassLimit(sizeClass - 1)) + "-"
+        + formatSize(getSizeClassLimit(sizeClass));
+  }
+
+  void allocated(long addr, int chunkSize) {
+    int sizeClass = getSizeClass(chunkSize);
+    this.allocatedChunks[sizeClass].increment();
+    this.allocatedBytes[sizeClass].add(chunkSize);
+    if (this.sampleInterval > 0
+        && ThreadLocalRandom.current().nextInt(this.sampleInterval) == 0) {
+      sample(addr, chunkSize);
+    }
+  }
+
+  void freed(long addr, int chunkSize) {
+    int sizeClass = getSizeClass(chunkSize);
+    this.allocatedChunks[sizeClass].decrement();
+    this.allocatedBytes[sizeClass].add(-chunkSize);
+    int slot = getFilterSlot(addr);
+    if (this.filter.get(slot) != 0 && this.samples.remove(addr) != null) {
+      this.filter.decrementAndGet(slot);
+    }
+  }
+
+  private void sample(long addr, int chunkSize) {
+    this.sampledAllocations.increment();
+    if (this.samples.size() >= this.maxSamples) {
+      return;
+    }
+    // the chunk is not visible to other threads yet so nobody can free it concurrently
+    this.filter.incrementAndGet(getFilterSlot(addr));
+    this.samples.put(addr, new Sample(getAllocationSite(), chunkSize, System.currentTimeMillis()));
+  }
+
+  private static int getFilterSlot(long addr) {
+    // chunk addresses are multiples of the alignment so the low bits carry no information
+    long h = addr >>> 3;
+    return (int) (h ^ (h >>> 12) ^ (h >>> 24)) & (FILTER_SIZE - 1);
+  }
+
+  private static String getAllocationSite() {
+    StringBuilder sb = new StringBuilder();
+    int frames = 0;
+    for (StackTraceElement frame : new Throwable().getStackTrace()) {
+      if (frame.getClassName().startsWith(PACKAGE_PREFIX)) {
+        continue;
+      }
+      if (frames > 0) {
+        sb.append(" <- ");
+      }
+      sb.append(frame);
+      if (++frames == SITE_DEPTH) {
+        break;
+      }
+    }
+    return sb.toString();
+  }
+
+  public int getSampleInterval() {
+    return this.sampleInterval;
+  }
+
+  /**
+   * Returns the total number of allocations that were sampled, including those that were not
+   * tracked because {@link #MAX_SAMPLES_PROPERTY} sampled chunks were already tracked.
+   */
+  public long getSampledAllocations() {
+    return this.sampledAllocations.sum();
+  }
+
+  /**
+   * Returns the number of sampled chunks that are still allocated.
+   */
+  public long getSampledChunks() {
+    return this.samples.size();
+  }
+
+  /**
+   * Returns the number of sampled chunks that have been allocated for at least
+   * {@link #LONG_LIVED_AGE_PROPERTY} milliseconds.
+   */
+  public long getLongLivedSampledChunks() {
+    long oldest = System.currentTimeMillis() - this.longLivedAge;
+    long result = 0;
+    for (Sample sample : this.samples.values()) {
+      if (sample.time <= oldest) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  public long getAllocatedChunks(int sizeClass) {
+    return this.allocatedChunks[sizeClass].sum();
+  }
+
+  public long getAllocatedBytes(int sizeClass) {
+    return this.allocatedBytes[sizeClass].sum();
+  }
+
+  /**
+   * Returns the number and size of the allocated chunks of each size class.
+   */
+  public Histogram getAllocatedHistogram() {
+    Histogram result = new Histogram();
+    for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+      result.chunks[i] = getAllocatedChunks(i);
+      result.bytes[i] = getAllocatedBytes(i);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number and size of the free fragments and free chunks of each size class. Unlike
+   * the allocated histogram this walks all the free lists so it should not be called often.
+   */
+  public Histogram getFreeHistogram() {
+    Histogram result = new Histogram();
+    this.freeList.addFreeMemoryTo(result);
+    return result;
+  }
+
+  /**
+   * Returns the sites of the sampled chunks that have been allocated for at least minAgeMillis,
+   * largest total size first.
+   */
+  public List<AllocationSite> getLongLivedSites(long minAgeMillis) {
+    long now = System.currentTimeMillis();
+    Map<String, AllocationSite> sites = new HashMap<>();
+    for (Sample sample : this.samples.values()) {
+      long age = now - sample.time;
+      if (age >= minAgeMillis) {
+        sites.computeIfAbsent(sample.site, AllocationSite::new).add(sample.size, age);
+      }
+    }
+    List<AllocationSite> result = new ArrayList<>(sites.values());
+    Collections.sort(result,
+        Comparator.comparingLong(AllocationSite::getBytes).reversed()
+            .thenComparing(AllocationSite::getSite));
+    return result;
+  }
+
+  private static class Sample {
+    private final String site;
+    private final int size;
+    private final long time;
+
+    Sample(String site, int size, long time) {
+      this.site = site;
+      this.size = size;
+      this.time = time;
+    }
+  }
+
+  /**
+   * The number of chunks, and their total size in bytes, in each size class.
+   */
+  public static class Histogram {
+    private final long[] chunks = new long[SIZE_CLASS_COUNT];
+    private final long[] bytes = new long[SIZE_CLASS_COUNT];
+
+    void add(long chunkSize) {
+      add(chunkSize, 1);
+    }
+
+    void add(long chunkSize, long count) {
+      int sizeClass = getSizeClass(chunkSize);
+      this.chunks[sizeClass] += count;
+      this.bytes[sizeClass] += chunkSize * count;
+    }
+
+    public long getChunks(int sizeClass) {
+      return this.chunks[sizeClass];
+    }
+
+    public long getBytes(int sizeClass) {
+      return this.bytes[sizeClass];
+    }
+  }
+
+  /**
+   * The sampled chunks allocated by one stack of callers.
+   */
+  public static class AllocationSite {
+    private final String site;
+    private long chunks;
+    private long bytes;
+    private long oldestAge;
+
+    AllocationSite(String site) {
+      this.site = site;
+    }
+
+    void add(int size, long age) {
+      this.chunks++;
+      this.bytes += size;
+      this.oldestAge = Math.max(this.oldestAge, age);
+    }
+
+    public String getSite() {
+      return this.site;
+    }
+
+    public long getChunks() {
+      return this.chunks;
+    }
+
+    public long getBytes() {
+      return this.bytes;
+    }
+
+    /**
+     * Returns, in milliseconds, how long the oldest of these chunks has been allocated.
+     */
+    public long getOldestAge() {
+      return this.oldestAge;
+    }
+  }
+}
@@ -43,6 +43,21 @@ public interface OffHeapMemoryStats {
 
   void setFragmentation(int value);
 
+  long startIncrementalDefragmentation();
+
+  void endIncrementalDefragmentation(long start, long coalescedBytes);
+
+  void incTinyCacheHits();
+
+  void incTinyCacheRefills();
+
+  void incTinyCacheFlushes();
+
+  /**
+   * Reports the histograms and samples kept by the given sampler in these statistics.
+   */
+  void setSampler(OffHeapMemorySampler sampler);
+
   long getFreeMemory();
 
   long getMaxMemory();
@@ -65,6 +80,18 @@ public interface OffHeapMemoryStats {
 
   long getDefragmentationTime();
 
+  int getIncrementalDefragmentations();
+
+  long getIncrementalDefragmentationTime();
+
+  long getCoalescedMemory();
+
+  long getTinyCacheHits();
+
+  long getTinyCacheRefills();
+
+  long getTinyCacheFlushes();
+
   Statistics getStats();
 
   void close();
@@ -21,6 +21,7 @@ import org.apache.geode.internal.cache.EntryEventImpl;
 import org.apache.geode.internal.cache.RegionEntryContext;
 import org.apache.geode.internal.cache.Token;
 import org.apache.geode.internal.cache.entries.DiskEntry;
+import org.apache.geode.internal.cache.entries.OffHeapKeyRegionEntry;
 import org.apache.geode.internal.cache.entries.OffHeapRegionEntry;
 import org.apache.geode.internal.offheap.annotations.Released;
 import org.apache.geode.internal.offheap.annotations.Retained;
@@ -161,7 +162,7 @@ public class OffHeapRegionEntryHelper {
     }
   }
 
-  private static void releaseAddress(@Released long ohAddress) {
+  static void releaseAddress(@Released long ohAddress) {
     if (isOffHeap(ohAddress)) {
       OffHeapStoredObject.release(ohAddress);
     }
@@ -196,6 +197,9 @@ public class OffHeapRegionEntryHelper {
     } /*
        * else { if (!calledSetValue || re.getAddress() != newAddress) { expectedValue.release(); } }
        */
+    if (re instanceof OffHeapKeyRegionEntry && re.getAddress() == newAddress) {
+      OffHeapKeyHelper.releaseHeader((OffHeapKeyRegionEntry) re);
+    }
   }
 
   /**
@@ -338,9 +342,15 @@ public class OffHeapRegionEntryHelper {
     do {
       oldAddress = re.getAddress();
     } while (!re.setAddress(oldAddress, newAddress));
-    ReferenceCountHelper.setReferenceCountOwner(re);
-    releaseAddress(oldAddress);
-    ReferenceCountHelper.setReferenceCountOwner(null);
+    try {
+      if (re instanceof OffHeapKeyRegionEntry) {
+        OffHeapKeyHelper.addressChanged((OffHeapKeyRegionEntry) re, newAddress);
+      }
+    } finally {
+      ReferenceCountHelper.setReferenceCountOwner(re);
+      releaseAddress(oldAddress);
+      ReferenceCountHelper.setReferenceCountOwner(null);
+    }
   }
 
   public static Token getValueAsToken(@Unretained OffHeapRegionEntry re) {
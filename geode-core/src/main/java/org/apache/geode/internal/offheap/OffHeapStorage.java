@@ -15,6 +15,9 @@
 package org.apache.geode.internal.offheap;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.geode.StatisticDescriptor;
 import org.apache.geode.Statistics;
@@ -60,6 +63,16 @@ public class OffHeapStorage implements OffHeapMemoryStats {
   private static final int defragmentationTimeId;
   private static final int fragmentationId;
   private static final int defragmentationsInProgressId;
+  private static final int incrementalDefragmentationsId;
+  private static final int incrementalDefragmentationTimeId;
+  private static final int coalescedMemoryId;
+  private static final int tinyCacheHitsId;
+  private static final int tinyCacheRefillsId;
+  private static final int tinyCacheFlushesId;
+  private static final int sampledAllocationsId;
+  private static final int sampledChunksId;
+  private static final int longLivedSampledChunksId;
+  private static final int[] allocatedChunksIds;
   // NOTE!!!! When adding new stats make sure and update the initialize method on this class
 
   // creates and registers the statistics type
@@ -84,6 +97,24 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objectsDesc = "The number of objects stored in off-heap memory.";
     final String readsDesc =
         "The total number of reads of off-heap memory. Only reads of a full object increment this statistic. If only a part of the object is read this statistic is not incremented.";
+    final String incrementalDefragmentationsDesc =
+        "The total number of bounded steps in which the background defragmenter coalesced free off-heap chunks.";
+    final String incrementalDefragmentationTimeDesc =
+        "The total time spent in incremental defragmentation steps.";
+    final String coalescedMemoryDesc =
+        "The total amount of free off-heap memory, in bytes, that incremental defragmentation steps coalesced into fragments.";
+    final String tinyCacheHitsDesc =
+        "The total number of small allocations served from the magazine of the allocating thread's stripe without touching a shared free list.";
+    final String tinyCacheRefillsDesc =
+        "The total number of times an empty tiny chunk magazine was refilled with a batch of chunks from a shared free list.";
+    final String tinyCacheFlushesDesc =
+        "The total number of times a full tiny chunk magazine returned a batch of chunks to a shared free list.";
+    final String sampledAllocationsDesc =
+        "The total number of off-heap allocations whose allocation site was sampled.";
+    final String sampledChunksDesc =
+        "The number of sampled off-heap chunks that are still allocated.";
+    final String longLivedSampledChunksDesc =
+        "The number of sampled off-heap chunks that have been allocated for longer than the long lived age.";
     final String maxMemoryDesc =
         "The maximum amount of off-heap memory, in bytes. This is the amount of memory allocated at startup and does not change.";
 
@@ -98,9 +129,18 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objects = "objects";
     final String reads = "reads";
     final String maxMemory = "maxMemory";
-
-    statsType = f.createType(statsTypeName, statsTypeDescription,
-        new StatisticDescriptor[] {f.createLongGauge(usedMemory, usedMemoryDesc, "bytes"),
+    final String incrementalDefragmentations = "incrementalDefragmentations";
+    final String incrementalDefragmentationTime = "incrementalDefragmentationTime";
+    final String coalescedMemory = "coalescedMemory";
+    final String tinyCacheHits = "tinyCacheHits";
+    final String tinyCacheRefills = "tinyCacheRefills";
+    final String tinyCacheFlushes = "tinyCacheFlushes";
+    final String sampledAllocations = "sampledAllocations";
+    final String sampledChunks = "sampledChunks";
+    final String longLivedSampledChunks = "longLivedSampledChunks";
+
+    final List<StatisticDescriptor> descriptors =
+        new ArrayList<>(Arrays.asList(f.createLongGauge(usedMemory, usedMemoryDesc, "bytes"),
             f.createIntCounter(defragmentations, defragmentationDesc, "operations"),
             f.createIntGauge(defragmentationsInProgress, defragmentationsInProgressDesc,
                 "operations"),
@@ -111,7 +151,27 @@ public class OffHeapStorage implements OffHeapMemoryStats {
             f.createIntGauge(largestFragment, largestFragmentDesc, "bytes"),
             f.createIntGauge(objects, objectsDesc, "objects"),
             f.createLongCounter(reads, readsDesc, "operations"),
-            f.createLongGauge(maxMemory, maxMemoryDesc, "bytes"),});
+            f.createLongGauge(maxMemory, maxMemoryDesc, "bytes"),
+            f.createIntCounter(incrementalDefragmentations, incrementalDefragmentationsDesc,
+                "operations"),
+            f.createLongCounter(incrementalDefragmentationTime,
+                incrementalDefragmentationTimeDesc, "nanoseconds", false),
+            f.createLongCounter(coalescedMemory, coalescedMemoryDesc, "bytes"),
+            f.createLongCounter(tinyCacheHits, tinyCacheHitsDesc, "operations"),
+            f.createLongCounter(tinyCacheRefills, tinyCacheRefillsDesc, "operations"),
+            f.createLongCounter(tinyCacheFlushes, tinyCacheFlushesDesc, "operations"),
+            f.createLongCounter(sampledAllocations, sampledAllocationsDesc, "operations"),
+            f.createLongGauge(sampledChunks, sampledChunksDesc, "chunks"),
+            f.createLongGauge(longLivedSampledChunks, longLivedSampledChunksDesc, "chunks")));
+    final int sizeClassCount = OffHeapMemorySampler.getSizeClassCount();
+    for (int i = 0; i < sizeClassCount; i++) {
+      descriptors.add(f.createLongGauge(getAllocatedChunksStatName(i),
+          "The number of allocated off-heap chunks, header included, of "
+              + OffHeapMemorySampler.getSizeClassName(i) + " bytes.",
+          "chunks"));
+    }
+    statsType = f.createType(statsTypeName, statsTypeDescription,
+        descriptors.toArray(new StatisticDescriptor[descriptors.size()]));
 
     usedMemoryId = statsType.nameToId(usedMemory);
     defragmentationId = statsType.nameToId(defragmentations);
@@ -124,6 +184,28 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     objectsId = statsType.nameToId(objects);
     readsId = statsType.nameToId(reads);
     maxMemoryId = statsType.nameToId(maxMemory);
+    incrementalDefragmentationsId = statsType.nameToId(incrementalDefragmentations);
+    incrementalDefragmentationTimeId = statsType.nameToId(incrementalDefragmentationTime);
+    coalescedMemoryId = statsType.nameToId(coalescedMemory);
+    tinyCacheHitsId = statsType.nameToId(tinyCacheHits);
+    tinyCacheRefillsId = statsType.nameToId(tinyCacheRefills);
+    tinyCacheFlushesId = statsType.nameToId(tinyCacheFlushes);
+    sampledAllocationsId = statsType.nameToId(sampledAllocations);
+    sampledChunksId = statsType.nameToId(sampledChunks);
+    longLivedSampledChunksId = statsType.nameToId(longLivedSampledChunks);
+    allocatedChunksIds = new int[sizeClassCount];
+    for (int i = 0; i < sizeClassCount; i++) {
+      allocatedChunksIds[i] = statsType.nameToId(getAllocatedChunksStatName(i));
+    }
+  }
+
+  private static String getAllocatedChunksStatName(int sizeClass) {
+    if (sizeClass == OffHeapMemorySampler.getSizeClassCount() - 1) {
+      return "allocatedChunksOver"
+          + OffHeapMemorySampler.formatSize(OffHeapMemorySampler.getSizeClassLimit(sizeClass - 1));
+    }
+    return "allocatedChunksUpTo"
+        + OffHeapMemorySampler.formatSize(OffHeapMemorySampler.getSizeClassLimit(sizeClass));
   }
 
   public static long parseOffHeapMemorySize(String value) {
@@ -215,11 +297,20 @@ public class OffHeapStorage implements OffHeapMemoryStats {
       OutOfOffHeapMemoryListener ooohml) {
     final OffHeapMemoryStats stats = new OffHeapStorage(sf);
 
+    final MappedSlabFactory mappedSlabFactory = MappedSlabFactory.create();
+
     // determine off-heap and slab sizes
-    final long maxSlabSize = calcMaxSlabSize(offHeapMemorySize);
+    long maxSlabSize = calcMaxSlabSize(offHeapMemorySize);
+    if (mappedSlabFactory != null) {
+      maxSlabSize = mappedSlabFactory.alignSlabSize(maxSlabSize);
+    }
 
     final int slabCount = calcSlabCount(maxSlabSize, offHeapMemorySize);
 
+    if (mappedSlabFactory != null) {
+      return MemoryAllocatorImpl.create(ooohml, stats, slabCount, offHeapMemorySize, maxSlabSize,
+          mappedSlabFactory);
+    }
     return MemoryAllocatorImpl.create(ooohml, stats, slabCount, offHeapMemorySize, maxSlabSize);
   }
 
@@ -240,7 +331,7 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     return (int) result;
   }
 
-  private static long parseLongWithUnits(String v, long defaultValue, int defaultMultiplier) {
+  static long parseLongWithUnits(String v, long defaultValue, int defaultMultiplier) {
     if (v == null || v.equals("")) {
       return defaultValue;
     }
@@ -374,6 +465,81 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     return this.stats.getInt(fragmentationId);
   }
 
+  @Override
+  public long startIncrementalDefragmentation() {
+    return DistributionStats.getStatTime();
+  }
+
+  @Override
+  public void endIncrementalDefragmentation(long start, long coalescedBytes) {
+    this.stats.incInt(incrementalDefragmentationsId, 1);
+    this.stats.incLong(coalescedMemoryId, coalescedBytes);
+    if (DistributionStats.enableClockStats) {
+      this.stats.incLong(incrementalDefragmentationTimeId, DistributionStats.getStatTime() - start);
+    }
+  }
+
+  @Override
+  public int getIncrementalDefragmentations() {
+    return this.stats.getInt(incrementalDefragmentationsId);
+  }
+
+  @Override
+  public long getIncrementalDefragmentationTime() {
+    return this.stats.getLong(incrementalDefragmentationTimeId);
+  }
+
+  @Override
+  public long getCoalescedMemory() {
+    return this.stats.getLong(coalescedMemoryId);
+  }
+
+  @Override
+  public void incTinyCacheHits() {
+    this.stats.incLong(tinyCacheHitsId, 1);
+  }
+
+  @Override
+  public long getTinyCacheHits() {
+    return this.stats.getLong(tinyCacheHitsId);
+  }
+
+  @Override
+  public void incTinyCacheRefills() {
+    this.stats.incLong(tinyCacheRefillsId, 1);
+  }
+
+  @Override
+  public long getTinyCacheRefills() {
+    return this.stats.getLong(tinyCacheRefillsId);
+  }
+
+  @Override
+  public void incTinyCacheFlushes() {
+    this.stats.incLong(tinyCacheFlushesId, 1);
+  }
+
+  @Override
+  public long getTinyCacheFlushes() {
+    return this.stats.getLong(tinyCacheFlushesId);
+  }
+
+  /**
+   * The sampler statistics are read from the sampler whenever the statistics are sampled so,
+   * unlike the others, {@link #initialize(OffHeapMemoryStats)} does not need to copy them.
+   */
+  @Override
+  public void setSampler(OffHeapMemorySampler sampler) {
+    this.stats.setLongSupplier(sampledAllocationsId, sampler::getSampledAllocations);
+    this.stats.setLongSupplier(sampledChunksId, sampler::getSampledChunks);
+    this.stats.setLongSupplier(longLivedSampledChunksId, sampler::getLongLivedSampledChunks);
+    for (int i = 0; i < allocatedChunksIds.length; i++) {
+      final int sizeClass = i;
+      this.stats.setLongSupplier(allocatedChunksIds[i],
+          () -> sampler.getAllocatedChunks(sizeClass));
+    }
+  }
+
   public Statistics getStats() {
     return this.stats;
   }
@@ -396,10 +562,40 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     setLargestFragment(oldStats.getLargestFragment());
     setDefragmentationTime(oldStats.getDefragmentationTime());
     setFragmentation(oldStats.getFragmentation());
+    setIncrementalDefragmentations(oldStats.getIncrementalDefragmentations());
+    setIncrementalDefragmentationTime(oldStats.getIncrementalDefragmentationTime());
+    setCoalescedMemory(oldStats.getCoalescedMemory());
+    setTinyCacheHits(oldStats.getTinyCacheHits());
+    setTinyCacheRefills(oldStats.getTinyCacheRefills());
+    setTinyCacheFlushes(oldStats.getTinyCacheFlushes());
 
     oldStats.close();
   }
 
+  private void setIncrementalDefragmentations(int value) {
+    this.stats.setInt(incrementalDefragmentationsId, value);
+  }
+
+  private void setIncrementalDefragmentationTime(long value) {
+    this.stats.setLong(incrementalDefragmentationTimeId, value);
+  }
+
+  private void setCoalescedMemory(long value) {
+    this.stats.setLong(coalescedMemoryId, value);
+  }
+
+  private void setTinyCacheHits(long value) {
+    this.stats.setLong(tinyCacheHitsId, value);
+  }
+
+  private void setTinyCacheRefills(long value) {
+    this.stats.setLong(tinyCacheRefillsId, value);
+  }
+
+  private void setTinyCacheFlushes(long value) {
+    this.stats.setLong(tinyCacheFlushesId, value);
+  }
+
   private void setDefragmentationTime(long value) {
     stats.setLong(defragmentationTimeId, value);
   }
@@ -62,6 +62,48 @@ public class OffHeapStoredObjectAddressStack implements LongStack {
     return result;
   }
 
+  /**
+   * Removes up to max addresses from the top of this stack, holding the lock once for all of them.
+   *
+   * @param dest the array the removed addresses are stored in, starting at offset
+   * @return the number of addresses removed
+   */
+  public int poll(long[] dest, int offset, int max) {
+    int count = 0;
+    synchronized (this) {
+      long addr = this.topAddr;
+      while (count < max && addr != 0L) {
+        dest[offset + count] = addr;
+        count++;
+        addr = OffHeapStoredObject.getNext(addr);
+      }
+      this.topAddr = addr;
+    }
+    return count;
+  }
+
+  /**
+   * Adds count addresses to this stack, holding the lock once for all of them. The last address of
+   * the range ends up on top.
+   */
+  public void offer(long[] src, int offset, int count) {
+    if (count == 0) {
+      return;
+    }
+    final int end = offset + count;
+    MemoryAllocatorImpl.validateAddress(src[offset]);
+    for (int i = offset + 1; i < end; i++) {
+      assert src[i] != 0;
+      MemoryAllocatorImpl.validateAddress(src[i]);
+      // link the new addresses to each other before taking the lock
+      OffHeapStoredObject.setNext(src[i], src[i - 1]);
+    }
+    synchronized (this) {
+      OffHeapStoredObject.setNext(src[offset], this.topAddr);
+      this.topAddr = src[end - 1];
+    }
+  }
+
   /**
    * Returns the address of the "top" item in this stack.
    */
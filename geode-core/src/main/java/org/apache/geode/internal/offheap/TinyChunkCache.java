@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.geode.internal.offheap.FreeListManager.TinyMemoryBlock;
+
+/**
+ * Magazines of free tiny chunks kept in front of the tiny free lists of a FreeListManager, in the
+ * manner of the thread caches of jemalloc and tcmalloc. A thread allocates from and frees to the
+ * magazine of its stripe for the size it needs. Only when that magazine is empty or full does it go
+ * to the shared free list, and then it moves half a magazine of chunks under a single lock.
+ * <p>
+ * Stripes are picked by thread id instead of being kept in thread locals so that defragmentation
+ * can take back the chunks of every stripe with {@link #flush()}. Only the smaller tiny sizes are
+ * cached since those are the ones allocated often enough to contend.
+ */
+class TinyChunkCache {
+
+  private final FreeListManager freeListManager;
+
+  private final Stripe[] stripes;
+
+  private final int stripeMask;
+
+  private final int sizeClassCount;
+
+  private final int magazineSize;
+
+  /**
+   * @param stripeCount the number of stripes; rounded up to a power of two
+   * @param sizeClassCount the number of tiny free lists, starting with the smallest, that are
+   *        cached
+   * @param magazineSize the most chunks of one size a stripe holds
+   */
+  TinyChunkCache(FreeListManager freeListManager, int stripeCount, int sizeClassCount,
+      int magazineSize) {
+    if (stripeCount <= 0) {
+      throw new IllegalArgumentException("stripeCount must be > 0 but it was " + stripeCount);
+    }
+    if (magazineSize < 2) {
+      throw new IllegalArgumentException("magazineSize must be >= 2 but it was " + magazineSize);
+    }
+    this.freeListManager = freeListManager;
+    int powerOfTwo = Integer.highestOneBit(stripeCount);
+    if (powerOfTwo < stripeCount) {
+      powerOfTwo <<= 1;
+    }
+    this.stripes = new Stripe[powerOfTwo];
+    for (int i = 0; i < this.stripes.length; i++) {
+      this.stripes[i] = new Stripe(sizeClassCount);
+    }
+    this.stripeMask = powerOfTwo - 1;
+    this.sizeClassCount = sizeClassCount;
+    this.magazineSize = magazineSize;
+  }
+
+  int getStripeCount() {
+    return this.stripes.length;
+  }
+
+  /**
+   * Returns true if chunks of the given tiny free list are cached.
+   */
+  boolean isCached(int idx) {
+    return idx < this.sizeClassCount;
+  }
+
+  /**
+   * Removes a free chunk of the given tiny free list from the magazine of the current thread's
+   * stripe, refilling the magazine from the free list if it is empty.
+   *
+   * @return the address of the chunk, or 0 if neither the magazine nor the free list had one
+   */
+  long allocate(int idx) {
+    final Stripe stripe = getStripe();
+    synchronized (stripe) {
+      int count = stripe.counts[idx];
+      if (count > 0) {
+        this.freeListManager.getStats().incTinyCacheHits();
+      } else {
+        count = this.freeListManager.pollTinyFreeList(idx, stripe.getMagazine(idx, magazineSize),
+            this.magazineSize / 2);
+        if (count == 0) {
+          return 0L;
+        }
+        this.freeListManager.getStats().incTinyCacheRefills();
+      }
+      count--;
+      stripe.counts[idx] = count;
+      return stripe.magazines[idx][count];
+    }
+  }
+
+  /**
+   * Adds a freed chunk of the given tiny free list to the magazine of the current thread's stripe.
+   * If the magazine is full its older half is returned to the free list first.
+   */
+  void free(long addr, int idx) {
+    final Stripe stripe = getStripe();
+    synchronized (stripe) {
+      long[] magazine = stripe.getMagazine(idx, this.magazineSize);
+      int count = stripe.counts[idx];
+      if (count == this.magazineSize) {
+        int half = this.magazineSize / 2;
+        this.freeListManager.offerTinyFreeList(idx, magazine, half);
+        System.arraycopy(magazine, half, magazine, 0, count - half);
+        count -= half;
+        this.freeListManager.getStats().incTinyCacheFlushes();
+      }
+      magazine[count] = addr;
+      stripe.counts[idx] = count + 1;
+    }
+  }
+
+  /**
+   * Returns the chunks of every stripe to the tiny free lists.
+   */
+  void flush() {
+    for (Stripe stripe : this.stripes) {
+      synchronized (stripe) {
+        for (int idx = 0; idx < this.sizeClassCount; idx++) {
+          int count = stripe.counts[idx];
+          if (count > 0) {
+            this.freeListManager.offerTinyFreeList(idx, stripe.magazines[idx], count);
+            stripe.counts[idx] = 0;
+          }
+        }
+      }
+    }
+  }
+
+  long computeTotalSize() {
+    long result = 0;
+    for (Stripe stripe : this.stripes) {
+      synchronized (stripe) {
+        for (int idx = 0; idx < this.sizeClassCount; idx++) {
+          for (int i = 0; i < stripe.counts[idx]; i++) {
+            result += OffHeapStoredObject.getSize(stripe.magazines[idx][i]);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  List<MemoryBlock> getFreeBlocks() {
+    List<MemoryBlock> result = new ArrayList<MemoryBlock>();
+    for (Stripe stripe : this.stripes) {
+      synchronized (stripe) {
+        for (int idx = 0; idx < this.sizeClassCount; idx++) {
+          for (int i = 0; i < stripe.counts[idx]; i++) {
+            result.add(new TinyMemoryBlock(stripe.magazines[idx][i], idx));
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private Stripe getStripe() {
+    return this.stripes[(int) Thread.currentThread().getId() & this.stripeMask];
+  }
+
+  /**
+   * The magazines of one stripe. The fields are guarded by synchronizing on the stripe.
+   */
+  private static class Stripe {
+    /** the magazine of each cached size; created on first use */
+    final long[][] magazines;
+    /** the number of chunks in each magazine; the newest one is at count - 1 */
+    final int[] counts;
+
+    Stripe(int sizeClassCount) {
+      this.magazines = new long[sizeClassCount][];
+      this.counts = new int[sizeClassCount];
+    }
+
+    long[] getMagazine(int idx, int magazineSize) {
+      long[] magazine = this.magazines[idx];
+      if (magazine == null) {
+        magazine = new long[magazineSize];
+        this.magazines[idx] = magazine;
+      }
+      return magazine;
+    }
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.size;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.geode.InternalGemFireError;
+import org.apache.geode.internal.size.ObjectGraphSizer.ObjectFilter;
+import org.apache.geode.internal.util.concurrent.CopyOnWriteWeakHashMap;
+
+/**
+ * Sizes object graphs using a plan of each class: the shallow size of its instances and method
+ * handles that read its reference fields. A plan is built the first time a class is seen. After
+ * that, sizing uses no reflection. Once the scratch space of the sizing thread has grown to fit its
+ * graphs, sizing does not allocate either.
+ * <p>
+ * A plan reads the fields {@link ObjectTraverser} reads, and objects are visited in the same
+ * breadth first order, and offered to the filter the same way, as it does without statics, so the
+ * sizes are the same as those of {@link ObjectGraphSizer#traverse(Object, ObjectFilter, boolean)}.
+ * Like that traversal, the children of references are not visited; see
+ * {@link ObjectGraphSizer#sizesChildrenOf(Class)}.
+ */
+class LayoutPlanSizer {
+
+  private static final Map<Class, ClassPlan> PLANS = new CopyOnWriteWeakHashMap<Class, ClassPlan>();
+
+  private static final ThreadLocal<GraphWalk> WALKS = ThreadLocal.withInitial(GraphWalk::new);
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  /**
+   * Returns the size of root and all objects reachable from it through instance fields and array
+   * elements.
+   */
+  static long size(Object root, ObjectFilter filter) throws IllegalAccessException {
+    GraphWalk walk = WALKS.get();
+    if (walk.inUse) {
+      // the filter is sizing objects itself
+      walk = new GraphWalk();
+    }
+    walk.inUse = true;
+    try {
+      return walk.size(root, filter);
+    } finally {
+      walk.reset();
+      walk.inUse = false;
+    }
+  }
+
+  static ClassPlan getPlan(Object object) throws IllegalAccessException {
+    Class clazz = object.getClass();
+    ClassPlan plan = PLANS.get(clazz);
+    if (plan == null) {
+      plan = ClassPlan.create(clazz, object);
+      PLANS.put(clazz, plan);
+    }
+    return plan;
+  }
+
+  /**
+   * What the sizer needs to know about a class.
+   */
+  static class ClassPlan {
+    private static final MethodHandle[] NO_FIELDS = new MethodHandle[0];
+
+    /** the shallow size of each instance, or -1 for arrays whose size depends on their length */
+    private final long shallowSize;
+
+    /** getters of the fields {@link ObjectTraverser} reads, in the order it reads them */
+    private final MethodHandle[] referenceFields;
+
+    private final boolean objectArray;
+
+    /** false for leaves and for references, whose children are not counted */
+    private final boolean hasChildren;
+
+    private ClassPlan(Class clazz, long shallowSize, MethodHandle[] referenceFields,
+        boolean objectArray) {
+      this.shallowSize = shallowSize;
+      this.referenceFields = referenceFields;
+      this.objectArray = objectArray;
+      this.hasChildren = (objectArray || referenceFields.length > 0)
+          && ObjectGraphSizer.sizesChildrenOf(clazz);
+    }
+
+    static ClassPlan create(Class clazz, Object instance) throws IllegalAccessException {
+      if (clazz.isArray()) {
+        return new ClassPlan(clazz, -1, NO_FIELDS, !clazz.getComponentType().isPrimitive());
+      }
+      Field[] fields = ObjectTraverser.getInstanceFields(clazz);
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      MethodHandle[] getters = new MethodHandle[fields.length];
+      for (int i = 0; i < fields.length; i++) {
+        getters[i] = lookup.unreflectGetter(fields[i]).asType(GETTER_TYPE);
+      }
+      return new ClassPlan(clazz, ObjectGraphSizer.SIZE_OF_UTIL.sizeof(instance), getters, false);
+    }
+
+    long sizeof(Object object) {
+      if (this.shallowSize >= 0) {
+        return this.shallowSize;
+      }
+      return ObjectGraphSizer.SIZE_OF_UTIL.sizeof(object);
+    }
+
+    boolean hasChildren() {
+      return this.hasChildren;
+    }
+  }
+
+  /**
+   * The scratch space of one sizing: the identity set of the objects seen so far and the queue of
+   * objects whose children are still to be visited. It is kept by its thread and reused.
+   */
+  private static class GraphWalk {
+    private static final int INITIAL_QUEUE_SIZE = 64;
+
+    /** walks that grew beyond this many seen slots drop their space instead of keeping it */
+    private static final int MAX_RETAINED_SEEN_SIZE = 1 << 14;
+
+    boolean inUse;
+
+    private Object[] queue = new Object[INITIAL_QUEUE_SIZE];
+
+    private ClassPlan[] queuedPlans = new ClassPlan[INITIAL_QUEUE_SIZE];
+
+    private int head;
+
+    private int tail;
+
+    /** an open addressing identity set with linear probing */
+    private Object[] seen = new Object[INITIAL_QUEUE_SIZE * 2];
+
+    private int seenCount;
+
+    long size(Object root, ObjectFilter filter) throws IllegalAccessException {
+      long totalSize = add(null, root, filter);
+      while (this.head < this.tail) {
+        Object parent = this.queue[this.head];
+        ClassPlan plan = this.queuedPlans[this.head];
+        this.queue[this.head] = null;
+        this.queuedPlans[this.head] = null;
+        this.head++;
+        if (plan.objectArray) {
+          for (Object element : (Object[]) parent) {
+            totalSize += add(parent, element, filter);
+          }
+        } else {
+          for (MethodHandle getter : plan.referenceFields) {
+            totalSize += add(parent, get(getter, parent), filter);
+          }
+        }
+      }
+      return totalSize;
+    }
+
+    private long add(Object parent, Object object, ObjectFilter filter)
+        throws IllegalAccessException {
+      if (object == null || !markSeen(object)) {
+        return 0;
+      }
+      if (!filter.accept(parent, object)) {
+        return 0;
+      }
+      ClassPlan plan = getPlan(object);
+      if (plan.hasChildren()) {
+        enqueue(object, plan);
+      }
+      return plan.sizeof(object);
+    }
+
+    private static Object get(MethodHandle getter, Object object) {
+      try {
+        return (Object) getter.invokeExact(object);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new InternalGemFireError(t);
+      }
+    }
+
+    private void enqueue(Object object, ClassPlan plan) {
+      if (this.tail == this.queue.length) {
+        int newLength = this.queue.length * 2;
+        this.queue = Arrays.copyOf(this.queue, newLength);
+        this.queuedPlans = Arrays.copyOf(this.queuedPlans, newLength);
+      }
+      this.queue[this.tail] = object;
+      this.queuedPlans[this.tail] = plan;
+      this.tail++;
+    }
+
+    /**
+     * Adds the object to the seen set.
+     *
+     * @return false if it had already been seen
+     */
+    private boolean markSeen(Object object) {
+      if ((this.seenCount + 1) * 2 > this.seen.length) {
+        Object[] oldSeen = this.seen;
+        this.seen = new Object[oldSeen.length * 2];
+        for (Object o : oldSeen) {
+          if (o != null) {
+            insert(this.seen, o);
+          }
+        }
+      }
+      if (!insert(this.seen, object)) {
+        return false;
+      }
+      this.seenCount++;
+      return true;
+    }
+
+    private static boolean insert(Object[] table, Object object) {
+      int mask = table.length - 1;
+      int i = System.identityHashCode(object) & mask;
+      Object o;
+      while ((o = table[i]) != null) {
+        if (o == object) {
+          return false;
+        }
+        i = (i + 1) & mask;
+      }
+      table[i] = object;
+      return true;
+    }
+
+    void reset() {
+      Arrays.fill(this.queue, this.head, this.tail, null);
+      Arrays.fill(this.queuedPlans, this.head, this.tail, null);
+      this.head = 0;
+      this.tail = 0;
+      if (this.seen.length > MAX_RETAINED_SEEN_SIZE) {
+        this.seen = new Object[INITIAL_QUEUE_SIZE * 2];
+        this.queue = new Object[INITIAL_QUEUE_SIZE];
+        this.queuedPlans = new ClassPlan[INITIAL_QUEUE_SIZE];
+      } else if (this.seenCount > 0) {
+        Arrays.fill(this.seen, null);
+      }
+      this.seenCount = 0;
+    }
+  }
+
+  private LayoutPlanSizer() {}
+}
@@ -14,8 +14,7 @@
  */
 package org.apache.geode.internal.size;
 
-import java.lang.ref.SoftReference;
-import java.lang.ref.WeakReference;
+import java.lang.ref.Reference;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -31,6 +30,12 @@ public class ObjectGraphSizer {
       System.getProperty(DistributionConfig.GEMFIRE_PREFIX + "ObjectSizer.SIZE_OF_CLASS",
           ReflectionSingleObjectSizer.class.getName());
   static final SingleObjectSizer SIZE_OF_UTIL;
+  /**
+   * Set this property to size object graphs by traversing them with reflection instead of with
+   * the cached layout plans of {@link LayoutPlanSizer}.
+   */
+  static final boolean USE_LAYOUT_PLANS =
+      !Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "ObjectSizer.DISABLE_LAYOUT_PLANS");
   private static ObjectFilter NULL_FILTER = new ObjectFilter() {
     @Override
     public boolean accept(Object parent, Object object) {
@@ -81,8 +86,8 @@ public class ObjectGraphSizer {
    * method will include objects reachable from static fields. Using this method requires some heap
    * space - probably between 8 - 30 bytes per reachable object.
    *
-   * Objects reachable only through weak or soft references will not be considered part of the total
-   * size.
+   * Objects reachable only through weak, soft or phantom references will not be considered part of
+   * the total size.
    *
    * @param root the object to size
    * @param filter that can exclude objects from being counted in the results. If an object is not
@@ -94,6 +99,17 @@ public class ObjectGraphSizer {
    */
   public static long size(Object root, ObjectFilter filter, boolean includeStatics)
       throws IllegalArgumentException, IllegalAccessException {
+    if (USE_LAYOUT_PLANS && !includeStatics) {
+      return LayoutPlanSizer.size(root, filter);
+    }
+    return traverse(root, filter, includeStatics);
+  }
+
+  /**
+   * Finds the size of an object graph by traversing it with reflection.
+   */
+  static long traverse(Object root, ObjectFilter filter, boolean includeStatics)
+      throws IllegalArgumentException, IllegalAccessException {
     SizeVisitor visitor = new SizeVisitor(filter);
     ObjectTraverser.breadthFirstSearch(root, visitor, includeStatics);
 
@@ -220,10 +236,7 @@ public class ObjectGraphSizer {
       }
 
       totalSize += SIZE_OF_UTIL.sizeof(object);
-      // We do want to include the size of the reference itself, but
-      // we don't visit the children because they will be GC'd if there is no
-      // other reference
-      return !(object instanceof WeakReference) && !(object instanceof SoftReference);
+      return sizesChildrenOf(object.getClass());
     }
 
     public long getTotalSize() {
@@ -233,6 +246,15 @@ public class ObjectGraphSizer {
 
 
 
+  /**
+   * Returns true if the children of instances of the given class are part of their size. We do want
+   * to include the size of a weak, soft or phantom reference itself, but we don't visit its
+   * children because they will be GC'd if there is no other reference.
+   */
+  static boolean sizesChildrenOf(Class clazz) {
+    return !Reference.class.isAssignableFrom(clazz);
+  }
+
   public interface ObjectFilter {
     boolean accept(Object parent, Object object);
   }
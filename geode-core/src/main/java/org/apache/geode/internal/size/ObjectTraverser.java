@@ -84,6 +84,18 @@ public class ObjectTraverser {
     }
   }
 
+  /**
+   * Returns the fields of an instance of the given class, which must not be an array, that a search
+   * reads to find the children of the instance.
+   */
+  static Field[] getInstanceFields(Class clazz) {
+    FieldSet set = FIELD_CACHE.get(clazz);
+    if (set == null) {
+      set = cacheFieldSet(clazz);
+    }
+    return set.getNonPrimativeFields();
+  }
+
   private static FieldSet cacheFieldSet(Class clazz) {
     FieldSet set = buildFieldSet(clazz);
     FIELD_CACHE.put(clazz, set);
@@ -15,6 +15,7 @@
 package org.apache.geode.internal.util;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.apache.geode.DataSerializer;
 import org.apache.geode.distributed.internal.DMStats;
@@ -23,8 +24,10 @@ import org.apache.geode.internal.ByteArrayDataInput;
 import org.apache.geode.internal.DSCODE;
 import org.apache.geode.internal.HeapDataOutputStream;
 import org.apache.geode.internal.Version;
+import org.apache.geode.internal.VersionedDataInputStream;
 import org.apache.geode.internal.offheap.StoredObject;
 import org.apache.geode.internal.offheap.annotations.Unretained;
+import org.apache.geode.internal.tcp.ByteBufferInputStream;
 import org.apache.geode.pdx.internal.PdxInputStream;
 
 /**
@@ -102,6 +105,31 @@ public class BlobHelper {
     return result;
   }
 
+  /**
+   * A blob is a serialized Object. This method returns the object deserialized from the remaining
+   * bytes of the given buffer, which are read in place instead of being copied to a byte array
+   * first. The position of the buffer is not changed. A top level pdx is copied to the heap so that
+   * the returned object never refers to the buffer; nested pdx instances copy their own bytes.
+   */
+  public static Object deserializeBlob(ByteBuffer blob, Version version)
+      throws IOException, ClassNotFoundException {
+    if (blob.remaining() > 0 && blob.get(blob.position()) == DSCODE.PDX.toByte()) {
+      byte[] bytes = new byte[blob.remaining()];
+      blob.duplicate().get(bytes);
+      return deserializeBlob(bytes, version, null);
+    }
+    Object result;
+    final long start = startDeserialization();
+    ByteBufferInputStream bbis = new ByteBufferInputStream(blob.duplicate());
+    if (version == null) {
+      result = DataSerializer.readObject(bbis);
+    } else {
+      result = DataSerializer.readObject(new VersionedDataInputStream(bbis, version));
+    }
+    endDeserialization(start, blob.remaining());
+    return result;
+  }
+
   /**
    * A blob is a serialized Object. This method returns the deserialized object. If a PdxInstance is
    * returned then it will refer to Chunk's off-heap memory with an unretained reference.
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.util;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.tcp.ByteBufferInputStream.ByteSource;
+
+/**
+ * A fixed size dictionary of frequently seen strings. Interning a string returns the instance the
+ * dictionary holds for it, so that the many equal copies of a string that keeps coming back (a
+ * status code, a country code, a tenant id) can be replaced by one.
+ * <p>
+ * Each string hashes to a single slot. A string only takes over a slot once it misses that slot
+ * twice in a row, so a stream of distinct strings does not push out the frequent ones. Slots are
+ * replaced without locking; a lookup racing with a replacement simply misses.
+ * <p>
+ * Strings are only shared once they are read. The stored and serialized forms still hold every
+ * copy, since encoding them as dictionary ids would change the format exchanged with clients,
+ * peers and disk stores.
+ */
+public class StringDictionary {
+
+  /**
+   * The number of slots of the shared dictionary, rounded up to a power of two.
+   */
+  public static final String SIZE_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "StringDictionary.SIZE";
+
+  /**
+   * The length of the longest string the shared dictionary holds.
+   */
+  public static final String MAX_LENGTH_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "StringDictionary.MAX_LENGTH";
+
+  /**
+   * If true, the String fields of PDX instances are read through the shared dictionary.
+   */
+  public static final String PDX_STRINGS_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "StringDictionary.PDX_STRINGS";
+
+  public static final boolean PDX_STRINGS = Boolean.getBoolean(PDX_STRINGS_PROPERTY);
+
+  static final int DEFAULT_SIZE = 16384;
+
+  static final int DEFAULT_MAX_LENGTH = 64;
+
+  private static final StringDictionary sharedInstance = new StringDictionary(
+      Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE),
+      Integer.getInteger(MAX_LENGTH_PROPERTY, DEFAULT_MAX_LENGTH));
+
+  private final String[] strings;
+
+  /** the hash of the last string that missed each slot */
+  private final int[] candidates;
+
+  private final int mask;
+
+  private final int maxLength;
+
+  public StringDictionary(int size, int maxLength) {
+    int slots = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+    this.strings = new String[slots];
+    this.candidates = new int[slots];
+    this.mask = slots - 1;
+    this.maxLength = maxLength;
+  }
+
+  /**
+   * Returns the dictionary shared by the PDX string fields read by this member.
+   */
+  public static StringDictionary getSharedInstance() {
+    return sharedInstance;
+  }
+
+  /**
+   * Returns the instance of the given string held by this dictionary, or the string itself if
+   * this dictionary does not hold it yet.
+   */
+  public String intern(String string) {
+    if (string == null || string.length() > this.maxLength) {
+      return string;
+    }
+    int hash = string.hashCode();
+    int slot = slot(hash);
+    String canonical = this.strings[slot];
+    if (canonical != null && canonical.hashCode() == hash && canonical.equals(string)) {
+      return canonical;
+    }
+    if (this.candidates[slot] == hash) {
+      this.strings[slot] = string;
+    } else {
+      this.candidates[slot] = hash;
+    }
+    return string;
+  }
+
+  /**
+   * Returns the string this dictionary holds for the given ASCII encoded bytes, or null if it
+   * does not hold one. This lets a string be read without decoding it. A caller that gets null
+   * should decode the string and {@link #intern} it.
+   *
+   * @param source the bytes
+   * @param position the absolute position of the first byte in source
+   * @param length the number of bytes
+   */
+  public String lookup(ByteSource source, int position, int length) {
+    if (length > this.maxLength) {
+      return null;
+    }
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + source.get(position + i);
+    }
+    String canonical = this.strings[slot(hash)];
+    if (canonical == null || canonical.length() != length || canonical.hashCode() != hash) {
+      return null;
+    }
+    for (int i = 0; i < length; i++) {
+      if (canonical.charAt(i) != source.get(position + i)) {
+        return null;
+      }
+    }
+    return canonical;
+  }
+
+  private int slot(int hash) {
+    return (hash ^ (hash >>> 16)) & this.mask;
+  }
+}
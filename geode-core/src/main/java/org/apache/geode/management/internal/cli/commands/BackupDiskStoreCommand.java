@@ -49,7 +49,9 @@ public class BackupDiskStoreCommand extends InternalGfshCommand {
       @CliOption(key = CliStrings.BACKUP_DISK_STORE__DISKDIRS,
           help = CliStrings.BACKUP_DISK_STORE__DISKDIRS__HELP, mandatory = true) String targetDir,
       @CliOption(key = CliStrings.BACKUP_DISK_STORE__BASELINEDIR,
-          help = CliStrings.BACKUP_DISK_STORE__BASELINEDIR__HELP) String baselineDir) {
+          help = CliStrings.BACKUP_DISK_STORE__BASELINEDIR__HELP) String baselineDir,
+      @CliOption(key = CliStrings.BACKUP_DISK_STORE__OPLOGSTOREDIR,
+          help = CliStrings.BACKUP_DISK_STORE__OPLOGSTOREDIR__HELP) String oplogStoreDir) {
 
     authorize(ResourcePermission.Resource.CLUSTER, ResourcePermission.Operation.WRITE,
         ResourcePermission.Target.DISK);
@@ -59,7 +61,10 @@ public class BackupDiskStoreCommand extends InternalGfshCommand {
       DistributionManager dm = cache.getDistributionManager();
       BackupStatus backupStatus;
 
-      if (baselineDir != null && !baselineDir.isEmpty()) {
+      if (oplogStoreDir != null && !oplogStoreDir.isEmpty()) {
+        backupStatus = new BackupOperation(dm, dm.getCache()).backupAllMembers(targetDir, null,
+            oplogStoreDir);
+      } else if (baselineDir != null && !baselineDir.isEmpty()) {
         backupStatus =
             new BackupOperation(dm, dm.getCache()).backupAllMembers(targetDir, baselineDir);
       } else {
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.management.internal.cli.commands;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.shell.core.annotation.CliCommand;
+import org.springframework.shell.core.annotation.CliOption;
+
+import org.apache.geode.distributed.DistributedMember;
+import org.apache.geode.management.cli.CliMetaData;
+import org.apache.geode.management.cli.ConverterHint;
+import org.apache.geode.management.cli.Result;
+import org.apache.geode.management.internal.cli.LogWrapper;
+import org.apache.geode.management.internal.cli.domain.OffHeapMemoryDetails;
+import org.apache.geode.management.internal.cli.functions.GetOffHeapMemoryDetailsFunction;
+import org.apache.geode.management.internal.cli.i18n.CliStrings;
+import org.apache.geode.management.internal.cli.result.CompositeResultData;
+import org.apache.geode.management.internal.cli.result.ResultBuilder;
+import org.apache.geode.management.internal.cli.result.TabularResultData;
+import org.apache.geode.management.internal.security.ResourceOperation;
+import org.apache.geode.security.ResourcePermission;
+
+public class DescribeOffHeapMemoryCommand extends InternalGfshCommand {
+  private static final GetOffHeapMemoryDetailsFunction getOffHeapMemoryDetailsFunction =
+      new GetOffHeapMemoryDetailsFunction();
+
+  @CliCommand(value = CliStrings.DESCRIBE_OFF_HEAP_MEMORY,
+      help = CliStrings.DESCRIBE_OFF_HEAP_MEMORY__HELP)
+  @CliMetaData(relatedTopic = {CliStrings.TOPIC_GEODE_DEBUG_UTIL})
+  @ResourceOperation(resource = ResourcePermission.Resource.CLUSTER,
+      operation = ResourcePermission.Operation.READ)
+  public Result describeOffHeapMemory(
+      @CliOption(key = {CliStrings.MEMBER, CliStrings.MEMBERS},
+          optionContext = ConverterHint.MEMBERIDNAME,
+          help = CliStrings.DESCRIBE_OFF_HEAP_MEMORY__MEMBER__HELP) String[] members,
+      @CliOption(key = {CliStrings.GROUP, CliStrings.GROUPS},
+          optionContext = ConverterHint.MEMBERGROUP,
+          help = CliStrings.DESCRIBE_OFF_HEAP_MEMORY__GROUP__HELP) String[] groups,
+      @CliOption(key = CliStrings.DESCRIBE_OFF_HEAP_MEMORY__MIN_AGE, unspecifiedDefaultValue = "60",
+          help = CliStrings.DESCRIBE_OFF_HEAP_MEMORY__MIN_AGE__HELP) long minAge) {
+    if (minAge < 0) {
+      return ResultBuilder.createUserErrorResult(
+          CliStrings.format(CliStrings.DESCRIBE_OFF_HEAP_MEMORY__MSG__INVALID_MIN_AGE, minAge));
+    }
+    Set<DistributedMember> targetMembers = findMembers(groups, members);
+    if (targetMembers.isEmpty()) {
+      return ResultBuilder.createUserErrorResult(CliStrings.NO_MEMBERS_FOUND_MESSAGE);
+    }
+
+    List<?> results = (List<?>) executeFunction(getOffHeapMemoryDetailsFunction,
+        TimeUnit.SECONDS.toMillis(minAge), targetMembers).getResult();
+    for (Object result : results) {
+      if (result instanceof Throwable) {
+        LogWrapper.getInstance(getCache()).fine(
+            "Exception describing off-heap memory " + ((Throwable) result).getMessage(),
+            (Throwable) result);
+      }
+    }
+    List<OffHeapMemoryDetails> detailsList =
+        results.stream().filter(OffHeapMemoryDetails.class::isInstance)
+            .map(OffHeapMemoryDetails.class::cast)
+            .sorted(Comparator.comparing(OffHeapMemoryDetails::getMemberNameOrId))
+            .collect(Collectors.toList());
+    if (detailsList.isEmpty()) {
+      return ResultBuilder
+          .createInfoResult(CliStrings.DESCRIBE_OFF_HEAP_MEMORY__MSG__NO_OFF_HEAP_MEMORY);
+    }
+
+    CompositeResultData resultData = ResultBuilder.createCompositeResultData();
+    for (OffHeapMemoryDetails details : detailsList) {
+      addMemberSection(resultData, details, minAge);
+    }
+    return ResultBuilder.buildResult(resultData);
+  }
+
+  private void addMemberSection(CompositeResultData resultData, OffHeapMemoryDetails details,
+      long minAge) {
+    CompositeResultData.SectionResultData section = resultData.addSection();
+    section.setHeader("Off-heap memory of " + details.getMemberNameOrId());
+    section.addData("Max Memory", details.getMaxMemory());
+    section.addData("Used Memory", details.getUsedMemory());
+    section.addData("Free Memory", details.getFreeMemory());
+    section.addData("Sample Interval", details.getSampleInterval());
+    section.addData("Sampled Allocations", details.getSampledAllocations());
+
+    TabularResultData sizeClassTable = section.addTable();
+    sizeClassTable.setHeader("Chunks by size class, header included");
+    for (OffHeapMemoryDetails.SizeClass sizeClass : details.getSizeClasses()) {
+      sizeClassTable.accumulate("Size", sizeClass.getName());
+      sizeClassTable.accumulate("Allocated Chunks", sizeClass.getAllocatedChunks());
+      sizeClassTable.accumulate("Allocated Bytes", sizeClass.getAllocatedBytes());
+      sizeClassTable.accumulate("Free Chunks", sizeClass.getFreeChunks());
+      sizeClassTable.accumulate("Free Bytes", sizeClass.getFreeBytes());
+    }
+
+    if (details.getAllocationSites().isEmpty()) {
+      section.addData("Long Lived Allocation Sites",
+          "No sampled chunk has been allocated for " + minAge + " seconds");
+      return;
+    }
+    TabularResultData siteTable = section.addTable();
+    siteTable.setHeader("Sites of sampled chunks allocated for at least " + minAge + " seconds");
+    for (OffHeapMemoryDetails.AllocationSite site : details.getAllocationSites()) {
+      siteTable.accumulate("Chunks", site.getChunks());
+      siteTable.accumulate("Bytes", site.getBytes());
+      siteTable.accumulate("Oldest Age (s)", TimeUnit.MILLISECONDS.toSeconds(site.getOldestAge()));
+      siteTable.accumulate("Allocation Site", site.getSite());
+    }
+  }
+}
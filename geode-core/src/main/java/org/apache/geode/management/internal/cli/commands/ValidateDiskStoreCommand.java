@@ -34,6 +34,12 @@ import org.apache.geode.management.internal.cli.i18n.CliStrings;
 import org.apache.geode.management.internal.cli.result.ResultBuilder;
 import org.apache.geode.management.internal.cli.util.DiskStoreValidater;
 
+/**
+ * Validates one offline disk store in a process of its own. Validating several disk stores at a
+ * time is only offered by the validate-disk-store command of the gemfire launcher, see
+ * {@link org.apache.geode.internal.SystemAdmin#validateDiskStore(List)}, since this command names
+ * a single disk store.
+ */
 public class ValidateDiskStoreCommand extends InternalGfshCommand {
   @CliCommand(value = CliStrings.VALIDATE_DISK_STORE, help = CliStrings.VALIDATE_DISK_STORE__HELP)
   @CliMetaData(requireLocalExecution = true, relatedTopic = {CliStrings.TOPIC_GEODE_DISKSTORE})
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.management.internal.cli.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The off-heap memory histograms and long lived allocation sites of one member.
+ */
+public class OffHeapMemoryDetails implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String memberNameOrId;
+  private final long maxMemory;
+  private final long usedMemory;
+  private final long freeMemory;
+  private final int sampleInterval;
+  private final long sampledAllocations;
+  private final List<SizeClass> sizeClasses = new ArrayList<>();
+  private final List<AllocationSite> allocationSites = new ArrayList<>();
+
+  public OffHeapMemoryDetails(String memberNameOrId, long maxMemory, long usedMemory,
+      long freeMemory, int sampleInterval, long sampledAllocations) {
+    this.memberNameOrId = memberNameOrId;
+    this.maxMemory = maxMemory;
+    this.usedMemory = usedMemory;
+    this.freeMemory = freeMemory;
+    this.sampleInterval = sampleInterval;
+    this.sampledAllocations = sampledAllocations;
+  }
+
+  public String getMemberNameOrId() {
+    return this.memberNameOrId;
+  }
+
+  public long getMaxMemory() {
+    return this.maxMemory;
+  }
+
+  public long getUsedMemory() {
+    return this.usedMemory;
+  }
+
+  public long getFreeMemory() {
+    return this.freeMemory;
+  }
+
+  public int getSampleInterval() {
+    return this.sampleInterval;
+  }
+
+  public long getSampledAllocations() {
+    return this.sampledAllocations;
+  }
+
+  public List<SizeClass> getSizeClasses() {
+    return this.sizeClasses;
+  }
+
+  public void addSizeClass(SizeClass sizeClass) {
+    this.sizeClasses.add(sizeClass);
+  }
+
+  public List<AllocationSite> getAllocationSites() {
+    return this.allocationSites;
+  }
+
+  public void addAllocationSite(AllocationSite allocationSite) {
+    this.allocationSites.add(allocationSite);
+  }
+
+  /**
+   * The allocated and free chunks, header included, of one range of sizes.
+   */
+  public static class SizeClass implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final long allocatedChunks;
+    private final long allocatedBytes;
+    private final long freeChunks;
+    private final long freeBytes;
+
+    public SizeClass(String name, long allocatedChunks, long allocatedBytes, long freeChunks,
+        long freeBytes) {
+      this.name = name;
+      this.allocatedChunks = allocatedChunks;
+      this.allocatedBytes = allocatedBytes;
+      this.freeChunks = freeChunks;
+      this.freeBytes = freeBytes;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    public long getAllocatedChunks() {
+      return this.allocatedChunks;
+    }
+
+    public long getAllocatedBytes() {
+      return this.allocatedBytes;
+    }
+
+    public long getFreeChunks() {
+      return this.freeChunks;
+    }
+
+    public long getFreeBytes() {
+      return this.freeBytes;
+    }
+  }
+
+  /**
+   * The sampled chunks that one stack of callers allocated and has not freed.
+   */
+  public static class AllocationSite implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String site;
+    private final long chunks;
+    private final long bytes;
+    private final long oldestAge;
+
+    public AllocationSite(String site, long chunks, long bytes, long oldestAge) {
+      this.site = site;
+      this.chunks = chunks;
+      this.bytes = bytes;
+      this.oldestAge = oldestAge;
+    }
+
+    public String getSite() {
+      return this.site;
+    }
+
+    public long getChunks() {
+      return this.chunks;
+    }
+
+    public long getBytes() {
+      return this.bytes;
+    }
+
+    /**
+     * Returns, in milliseconds, how long the oldest of these chunks has been allocated.
+     */
+    public long getOldestAge() {
+      return this.oldestAge;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.management.internal.cli.functions;
+
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.distributed.DistributedMember;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.execute.InternalFunction;
+import org.apache.geode.internal.offheap.MemoryAllocator;
+import org.apache.geode.internal.offheap.MemoryAllocatorImpl;
+import org.apache.geode.internal.offheap.OffHeapMemorySampler;
+import org.apache.geode.management.internal.cli.domain.OffHeapMemoryDetails;
+
+/**
+ * Collects the off-heap memory histograms and the sites of sampled chunks that have been allocated
+ * for at least the number of milliseconds given as the argument. Members without off-heap memory
+ * return null.
+ */
+public class GetOffHeapMemoryDetailsFunction implements InternalFunction {
+  public static final String ID = GetOffHeapMemoryDetailsFunction.class.getName();
+
+  private static final long serialVersionUID = 1L;
+
+  @Override
+  public void execute(FunctionContext context) {
+    try {
+      InternalCache cache = (InternalCache) context.getCache();
+      MemoryAllocator allocator = cache.getOffHeapStore();
+      if (!(allocator instanceof MemoryAllocatorImpl)) {
+        context.getResultSender().lastResult(null);
+        return;
+      }
+      DistributedMember member = cache.getDistributedSystem().getDistributedMember();
+      String memberNameOrId = member.getName();
+      if (memberNameOrId == null || memberNameOrId.isEmpty()) {
+        memberNameOrId = member.getId();
+      }
+      long minAge = (Long) context.getArguments();
+      context.getResultSender().lastResult(
+          getDetails(memberNameOrId, (MemoryAllocatorImpl) allocator, minAge));
+    } catch (Exception e) {
+      context.getResultSender().sendException(e);
+    }
+  }
+
+  static OffHeapMemoryDetails getDetails(String memberNameOrId, MemoryAllocatorImpl allocator,
+      long minAge) {
+    OffHeapMemorySampler sampler = allocator.getSampler();
+    OffHeapMemoryDetails details = new OffHeapMemoryDetails(memberNameOrId,
+        allocator.getTotalMemory(), allocator.getUsedMemory(), allocator.getFreeMemory(),
+        sampler.getSampleInterval(), sampler.getSampledAllocations());
+    OffHeapMemorySampler.Histogram allocated = sampler.getAllocatedHistogram();
+    OffHeapMemorySampler.Histogram free = sampler.getFreeHistogram();
+    for (int i = 0; i < OffHeapMemorySampler.getSizeClassCount(); i++) {
+      details.addSizeClass(new OffHeapMemoryDetails.SizeClass(
+          OffHeapMemorySampler.getSizeClassName(i), allocated.getChunks(i), allocated.getBytes(i),
+          free.getChunks(i), free.getBytes(i)));
+    }
+    for (OffHeapMemorySampler.AllocationSite site : sampler.getLongLivedSites(minAge)) {
+      details.addAllocationSite(new OffHeapMemoryDetails.AllocationSite(site.getSite(),
+          site.getChunks(), site.getBytes(), site.getOldestAge()));
+    }
+    return details;
+  }
+
+  @Override
+  public String getId() {
+    return ID;
+  }
+
+  @Override
+  public boolean isHA() {
+    return false;
+  }
+}
@@ -478,6 +478,9 @@ public class CliStrings {
       "Directory which contains the baseline backup used for comparison during an incremental backup.";
   public static final String BACKUP_DISK_STORE__DISKDIRS__HELP =
       "Directory to which backup files will be written.";
+  public static final String BACKUP_DISK_STORE__OPLOGSTOREDIR = "oplog-store-dir";
+  public static final String BACKUP_DISK_STORE__OPLOGSTOREDIR__HELP =
+      "Directory in which oplog files are stored once, by checksum, and shared by all backups and members. Each backup then only writes new oplog files and can be restored on its own. The baseline directory is ignored.";
   public static final String BACKUP_DISK_STORE_MSG_BACKED_UP_DISK_STORES =
       "The following disk stores were backed up successfully";
   public static final String BACKUP_DISK_STORE_MSG_OFFLINE_DISK_STORES =
@@ -1140,6 +1143,22 @@ public class CliStrings {
   public static final String DESCRIBE_MEMBER__MSG__INFO_FOR__0__COULD_NOT_BE_RETRIEVED =
       "Information for the member \"{0}\" could not be retrieved.";
 
+  /* 'describe off-heap-memory' command */
+  public static final String DESCRIBE_OFF_HEAP_MEMORY = "describe off-heap-memory";
+  public static final String DESCRIBE_OFF_HEAP_MEMORY__HELP =
+      "Display off-heap memory histograms and long lived allocation sites of members.";
+  public static final String DESCRIBE_OFF_HEAP_MEMORY__MEMBER__HELP =
+      "Name/Id of the member(s) whose off-heap memory will be described.";
+  public static final String DESCRIBE_OFF_HEAP_MEMORY__GROUP__HELP =
+      "Group(s) of members whose off-heap memory will be described.";
+  public static final String DESCRIBE_OFF_HEAP_MEMORY__MIN_AGE = "min-age";
+  public static final String DESCRIBE_OFF_HEAP_MEMORY__MIN_AGE__HELP =
+      "Minimum age, in seconds, of the sampled chunks whose allocation sites are displayed.";
+  public static final String DESCRIBE_OFF_HEAP_MEMORY__MSG__INVALID_MIN_AGE =
+      "The minimum age must not be negative but it was {0}.";
+  public static final String DESCRIBE_OFF_HEAP_MEMORY__MSG__NO_OFF_HEAP_MEMORY =
+      "None of the selected members have off-heap memory.";
+
   /* 'describe offline-disk-store' command */
   public static final String DESCRIBE_OFFLINE_DISK_STORE = "describe offline-disk-store";
   public static final String DESCRIBE_OFFLINE_DISK_STORE__HELP =
@@ -20,9 +20,11 @@ import java.util.Date;
 
 import org.apache.geode.DataSerializer;
 import org.apache.geode.InternalGemFireException;
+import org.apache.geode.internal.DSCODE;
 import org.apache.geode.internal.offheap.StoredObject;
 import org.apache.geode.internal.tcp.ByteBufferInputStream;
 import org.apache.geode.internal.tcp.ImmutableByteBufferInputStream;
+import org.apache.geode.internal.util.StringDictionary;
 import org.apache.geode.pdx.PdxSerializationException;
 
 /**
@@ -236,6 +238,9 @@ public class PdxInputStream extends ImmutableByteBufferInputStream {
   }
 
   public String readString() {
+    if (StringDictionary.PDX_STRINGS) {
+      return readDictionaryString();
+    }
     try {
       return DataSerializer.readString(this);
     } catch (IOException e) {
@@ -243,6 +248,31 @@ public class PdxInputStream extends ImmutableByteBufferInputStream {
     }
   }
 
+  /**
+   * Reads a string through the shared {@link StringDictionary}. An ASCII string the dictionary
+   * holds is returned without being decoded.
+   */
+  private String readDictionaryString() {
+    StringDictionary dictionary = StringDictionary.getSharedInstance();
+    ByteSource buffer = getBuffer();
+    int pos = buffer.position();
+    if (buffer.remaining() >= 3 && buffer.get(pos) == DSCODE.STRING_BYTES.toByte()) {
+      int length = buffer.getShort(pos + 1) & 0xFFFF;
+      if (length <= buffer.remaining() - 3) {
+        String canonical = dictionary.lookup(buffer, pos + 3, length);
+        if (canonical != null) {
+          buffer.position(pos + 3 + length);
+          return canonical;
+        }
+      }
+    }
+    try {
+      return dictionary.intern(DataSerializer.readString(this));
+    } catch (IOException e) {
+      throw new PdxSerializationException("Exception deserializing a PDX field", e);
+    }
+  }
+
   public Object readObject() {
     try {
       return DataSerializer.readObject(this);
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.awaitility.Awaitility;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.client.internal.GetAllOp.GetAllOpImpl;
+import org.apache.geode.cache.client.internal.GetOp.GetOpImpl;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.tier.sockets.VersionedObjectList;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class GetCoalescerTest {
+
+  private ExecutablePool pool;
+  private ConnectionStats stats;
+  private LocalRegion region;
+  private ServerLocation server;
+  private EndpointManager endpointManager;
+  private GetCoalescer coalescer;
+
+  /** released to let the get of the first thread return */
+  private CountDownLatch firstGetLatch;
+
+  /** the keys of the getAlls sent */
+  private List<List> getAllKeys;
+
+  @Before
+  public void setUp() throws Exception {
+    pool = mock(ExecutablePool.class);
+    stats = mock(ConnectionStats.class);
+    region = mock(LocalRegion.class);
+    when(region.getFullPath()).thenReturn("/region");
+    server = new ServerLocation("localhost", 40404);
+    Endpoint endpoint = mock(Endpoint.class);
+    when(endpoint.getStats()).thenReturn(stats);
+    endpointManager = mock(EndpointManager.class);
+    when(endpointManager.getEndpointMap())
+        .thenReturn(Collections.singletonMap(server, endpoint));
+    coalescer = new GetCoalescer(pool, endpointManager, 0, 10, 1);
+    firstGetLatch = new CountDownLatch(1);
+    getAllKeys = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @Test
+  public void loneGetIsSentOnItsOwn() {
+    GetOpImpl op = getOp("key");
+    when(pool.executeOn(server, op, true, false)).thenReturn("value");
+
+    assertThat(coalescer.execute(server, op, false)).isEqualTo("value");
+
+    verify(pool).executeOn(server, op, true, false);
+    verify(stats, never()).incCoalescedGets(anyInt());
+    assertThat(coalescer.getLaneCount()).isZero();
+  }
+
+  @Test
+  public void getsWaitingForAGetAreSentAsOneGetAll() throws Exception {
+    when(pool.executeOn(eq(server), any(Op.class), eq(true), eq(false))).thenAnswer(invocation -> {
+      Object op = invocation.getArgument(1);
+      if (op instanceof GetAllOpImpl) {
+        List keys = ((GetAllOpImpl) op).getKeyList();
+        getAllKeys.add(keys);
+        VersionedObjectList values = new VersionedObjectList(keys.size(), true, false);
+        for (Object key : keys) {
+          if (key.equals("absent")) {
+            values.addObjectPartForAbsentKey(key, null, null);
+          } else {
+            values.addObjectPart(key, "value-" + key, true, null);
+          }
+        }
+        return values;
+      }
+      firstGetLatch.await();
+      return "value-first";
+    });
+
+    FutureTask<Object> first = startGet("first");
+    FutureTask<Object> second = startGet("second");
+    FutureTask<Object> absent = startGet("absent");
+    firstGetLatch.countDown();
+
+    assertThat(first.get(30, TimeUnit.SECONDS)).isEqualTo("value-first");
+    assertThat(second.get(30, TimeUnit.SECONDS)).isEqualTo("value-second");
+    assertThat(absent.get(30, TimeUnit.SECONDS)).isNull();
+    assertThat(getAllKeys).hasSize(1);
+    assertThat(getAllKeys.get(0)).containsExactly("second", "absent");
+    verify(stats).incCoalescedGets(2);
+    assertThat(coalescer.getLaneCount()).isZero();
+  }
+
+  @Test
+  public void getsAreSentWithoutWaitingWhileTheLaneMaySendMoreBatches() throws Exception {
+    coalescer = new GetCoalescer(pool, endpointManager, 0, 10, 2);
+    when(pool.executeOn(eq(server), any(Op.class), eq(true), eq(false))).thenAnswer(invocation -> {
+      Object op = invocation.getArgument(1);
+      if (op instanceof GetAllOpImpl) {
+        List keys = ((GetAllOpImpl) op).getKeyList();
+        getAllKeys.add(keys);
+        VersionedObjectList values = new VersionedObjectList(keys.size(), true, false);
+        for (Object key : keys) {
+          values.addObjectPart(key, "value-" + key, true, null);
+        }
+        return values;
+      }
+      firstGetLatch.await();
+      return "own-" + ((GetOpImpl) op).getKey();
+    });
+
+    FutureTask<Object> first = startGet("first");
+    FutureTask<Object> second = startGet("second");
+    FutureTask<Object> third = startGet("third");
+    FutureTask<Object> fourth = startGet("fourth");
+    firstGetLatch.countDown();
+
+    assertThat(first.get(30, TimeUnit.SECONDS)).isEqualTo("own-first");
+    assertThat(second.get(30, TimeUnit.SECONDS)).isEqualTo("own-second");
+    assertThat(third.get(30, TimeUnit.SECONDS)).isEqualTo("value-third");
+    assertThat(fourth.get(30, TimeUnit.SECONDS)).isEqualTo("value-fourth");
+    assertThat(getAllKeys).hasSize(1);
+    assertThat(getAllKeys.get(0)).containsExactly("third", "fourth");
+    assertThat(coalescer.getLaneCount()).isZero();
+  }
+
+  @Test
+  public void getWhoseKeyFailedIsRedoneOnItsOwn() throws Exception {
+    when(pool.executeOn(eq(server), any(Op.class), eq(true), eq(false))).thenAnswer(invocation -> {
+      Object op = invocation.getArgument(1);
+      if (op instanceof GetAllOpImpl) {
+        List keys = ((GetAllOpImpl) op).getKeyList();
+        VersionedObjectList values = new VersionedObjectList(keys.size(), true, false);
+        for (Object key : keys) {
+          if (key.equals("failing")) {
+            values.addExceptionPart(key, new IllegalStateException("loader failed"));
+          } else {
+            values.addObjectPart(key, "value-" + key, true, null);
+          }
+        }
+        return values;
+      }
+      GetOpImpl get = (GetOpImpl) op;
+      if (get.getKey().equals("first")) {
+        firstGetLatch.await();
+      }
+      return "own-" + get.getKey();
+    });
+
+    FutureTask<Object> first = startGet("first");
+    FutureTask<Object> failing = startGet("failing");
+    FutureTask<Object> second = startGet("second");
+    firstGetLatch.countDown();
+
+    assertThat(first.get(30, TimeUnit.SECONDS)).isEqualTo("own-first");
+    assertThat(failing.get(30, TimeUnit.SECONDS)).isEqualTo("own-failing");
+    assertThat(second.get(30, TimeUnit.SECONDS)).isEqualTo("value-second");
+  }
+
+  private GetOpImpl getOp(Object key) {
+    return new GetOpImpl(region, key, null, true, null);
+  }
+
+  /**
+   * Starts a thread doing a get of the given key and waits until it is blocked, either in the pool
+   * or waiting for the get ahead of it.
+   */
+  private FutureTask<Object> startGet(Object key) {
+    GetOpImpl op = getOp(key);
+    FutureTask<Object> task = new FutureTask<>(() -> coalescer.execute(server, op, false));
+    Thread thread = new Thread(task, "get-" + key);
+    thread.setDaemon(true);
+    thread.start();
+    Awaitility.await().atMost(30, TimeUnit.SECONDS)
+        .until(() -> thread.getState() == Thread.State.WAITING);
+    return task;
+  }
+}
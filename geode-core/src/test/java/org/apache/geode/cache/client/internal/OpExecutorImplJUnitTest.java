@@ -17,6 +17,7 @@ package org.apache.geode.cache.client.internal;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -35,6 +36,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 
 import org.junit.Before;
@@ -256,6 +258,32 @@ public class OpExecutorImplJUnitTest {
     assertEquals(11, serverCrashes);
   }
 
+  @Test
+  public void executeAsyncDoesNotExecuteOpThatCanNotBePipelinedInCallingThread()
+      throws Exception {
+    OpExecutorImpl exec = new OpExecutorImpl(manager, queueManager, endpointManager, riTracker, 3,
+        10, false, cancelCriterion, null);
+    try {
+      CompletableFuture<Object> result = exec.executeAsync(new Op() {
+        @Override
+        public Object attempt(Connection cnx) throws Exception {
+          return Thread.currentThread();
+        }
+
+        @Override
+        public boolean useThreadLocalConnection() {
+          return true;
+        }
+      });
+
+      assertNotSame(Thread.currentThread(), result.get());
+      assertEquals(1, borrows);
+      assertEquals(1, returns);
+    } finally {
+      exec.close();
+    }
+  }
+
   @Test
   public void testExecuteOn() throws Exception {
     OpExecutorImpl exec = new OpExecutorImpl(manager, queueManager, endpointManager, riTracker, 3,
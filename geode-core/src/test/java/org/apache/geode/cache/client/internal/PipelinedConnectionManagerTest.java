@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.client.AllConnectionsInUseException;
+import org.apache.geode.cache.client.internal.pooling.ConnectionManager;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class PipelinedConnectionManagerTest {
+
+  private ConnectionManager connectionManager;
+  private EndpointManager endpointManager;
+  private ServerLocation server;
+
+  @Before
+  public void setUp() throws Exception {
+    connectionManager = mock(ConnectionManager.class);
+    endpointManager = mock(EndpointManager.class);
+    server = new ServerLocation("localhost", 40404);
+    when(endpointManager.getEndpointMap())
+        .thenReturn(Collections.singletonMap(server, mock(Endpoint.class)));
+  }
+
+  @Test
+  public void opsShareConnectionsUpToTheLimit() throws Exception {
+    Connection first = mockConnection(server);
+    Connection second = mockConnection(server);
+    when(connectionManager.borrowConnection(anyLong())).thenReturn(first, second);
+    PipelinedConnectionManager manager =
+        new PipelinedConnectionManager(connectionManager, endpointManager, 1000, 2, 10,
+            Runnable::run);
+
+    PipelinedConnection a = manager.acquire(null, false);
+    PipelinedConnection b = manager.acquire(null, false);
+    PipelinedConnection c = manager.acquire(null, false);
+
+    assertThat(a.getConnection()).isSameAs(first);
+    assertThat(b.getConnection()).isSameAs(second);
+    assertThat(c.getConnection()).isSameAs(first);
+    assertThat(manager.getConnectionCount()).isEqualTo(2);
+    verify(connectionManager, times(2)).borrowConnection(anyLong());
+  }
+
+  @Test
+  public void busyConnectionsAreNotUsedBeyondMaxOps() throws Exception {
+    when(connectionManager.borrowConnection(eq(server), anyLong(), eq(false)))
+        .thenReturn(mockConnection(server));
+    PipelinedConnectionManager manager =
+        new PipelinedConnectionManager(connectionManager, endpointManager, 1000, 1, 2,
+            Runnable::run);
+
+    assertThat(manager.acquire(server, false)).isNotNull();
+    assertThat(manager.acquire(server, false)).isNotNull();
+    assertThat(manager.acquire(server, false)).isNull();
+  }
+
+  @Test
+  public void onlyExistingConnectionsAreUsedIfRequested() throws Exception {
+    PipelinedConnectionManager manager =
+        new PipelinedConnectionManager(connectionManager, endpointManager, 1000, 1, 2,
+            Runnable::run);
+
+    assertThat(manager.acquire(server, true)).isNull();
+    verify(connectionManager, times(0)).borrowConnection(any(), anyLong(), eq(false));
+  }
+
+  @Test
+  public void connectionIsGivenBackWhenItFailsAndItsLastOpIsDone() throws Exception {
+    Connection connection = mockConnection(server);
+    when(connectionManager.borrowConnection(anyLong())).thenReturn(connection);
+    PipelinedConnectionManager manager =
+        new PipelinedConnectionManager(connectionManager, endpointManager, 1000, 1, 2,
+            Runnable::run);
+
+    PipelinedConnection pipelined = manager.acquire(null, false);
+    when(connection.isDestroyed()).thenReturn(true);
+    manager.release(pipelined);
+
+    verify(connectionManager).returnConnection(connection);
+    assertThat(manager.getConnectionCount()).isZero();
+  }
+
+  @Test
+  public void pipeliningIsDisabledForServersRequiringCredentials() throws Exception {
+    ServerLocation secureServer = new ServerLocation("localhost", 40405);
+    secureServer.setRequiresCredentials(true);
+    Connection connection = mockConnection(secureServer);
+    when(connectionManager.borrowConnection(anyLong())).thenReturn(connection);
+    PipelinedConnectionManager manager =
+        new PipelinedConnectionManager(connectionManager, endpointManager, 1000, 1, 2,
+            Runnable::run);
+
+    assertThat(manager.acquire(null, false)).isNull();
+    assertThat(manager.acquire(null, false)).isNull();
+    verify(connectionManager).returnConnection(connection);
+    verify(connectionManager, times(1)).borrowConnection(anyLong());
+  }
+
+  @Test
+  public void poolFailuresAreLeftToTheRegularPath() throws Exception {
+    when(connectionManager.borrowConnection(anyLong()))
+        .thenThrow(new AllConnectionsInUseException());
+    PipelinedConnectionManager manager =
+        new PipelinedConnectionManager(connectionManager, endpointManager, 1000, 1, 2,
+            Runnable::run);
+
+    assertThat(manager.acquire(null, false)).isNull();
+  }
+
+  @Test
+  public void closeShutsDownReaderExecutor() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    PipelinedConnectionManager manager = new PipelinedConnectionManager(connectionManager,
+        endpointManager, 1000, 1, 2, executor);
+
+    manager.close();
+
+    assertThat(executor.isShutdown()).isTrue();
+  }
+
+  private Connection mockConnection(ServerLocation location) throws IOException {
+    Connection connection = mock(Connection.class);
+    when(connection.getSocket()).thenReturn(mock(Socket.class));
+    when(connection.getCommBuffer()).thenReturn(ByteBuffer.allocate(1024));
+    when(connection.getServer()).thenReturn(location);
+    return connection;
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.cache.client.internal.pooling.ConnectionDestroyedException;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class PipelinedConnectionTest {
+
+  private ServerSocket serverSocket;
+  private Socket socket;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws Exception {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdownNow();
+    if (socket != null) {
+      socket.close();
+    }
+    serverSocket.close();
+  }
+
+  @Test
+  public void responsesAreMatchedToOpsInSendOrder() throws Exception {
+    int ops = 8;
+    // the server only answers once all requests are in, so this only completes if they are
+    // pipelined on the one connection
+    startServer(ops, false);
+    PipelinedConnection connection = new PipelinedConnection(connect(), executor);
+
+    List<Future<Object>> results = new ArrayList<>();
+    for (int i = 0; i < ops; i++) {
+      String key = "key-" + i;
+      assertThat(connection.reserve()).isTrue();
+      results.add(executor.submit(() -> connection.execute(new EchoOp(key))));
+    }
+
+    for (int i = 0; i < ops; i++) {
+      assertThat(results.get(i).get(30, TimeUnit.SECONDS)).isEqualTo("key-" + i);
+    }
+    assertThat(connection.isUsable()).isTrue();
+  }
+
+  @Test
+  public void failureToProcessResponseOnlyFailsItsOp() throws Exception {
+    startServer(1, false);
+    PipelinedConnection connection = new PipelinedConnection(connect(), executor);
+
+    assertThatThrownBy(() -> connection.execute(new EchoOp("fail")))
+        .isInstanceOf(ServerOperationException.class);
+    assertThat(connection.isUsable()).isTrue();
+    assertThat(connection.execute(new EchoOp("ok"))).isEqualTo("ok");
+  }
+
+  @Test
+  public void lostConnectionFailsAllPendingOps() throws Exception {
+    startServer(2, true);
+    PipelinedConnection connection = new PipelinedConnection(connect(), executor);
+
+    Future<Object> first = executor.submit(() -> connection.execute(new EchoOp("first")));
+    Future<Object> second = executor.submit(() -> connection.execute(new EchoOp("second")));
+
+    assertThatThrownBy(() -> first.get(30, TimeUnit.SECONDS)).hasCauseInstanceOf(Exception.class);
+    assertThatThrownBy(() -> second.get(30, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(Exception.class);
+    assertThat(connection.isUsable()).isFalse();
+    assertThat(connection.reserve()).isFalse();
+    assertThatThrownBy(() -> connection.execute(new EchoOp("third")))
+        .isInstanceOf(ConnectionDestroyedException.class);
+  }
+
+  @Test
+  public void asyncOpsAreCompletedByTheReaderExecutor() throws Exception {
+    int ops = 8;
+    startServer(ops, false);
+    PipelinedConnection connection = new PipelinedConnection(connect(), executor);
+
+    List<CompletableFuture<Object>> results = new ArrayList<>();
+    for (int i = 0; i < ops; i++) {
+      assertThat(connection.reserve()).isTrue();
+      results.add(connection.executeAsync(new EchoOp("key-" + i)));
+    }
+
+    for (int i = 0; i < ops; i++) {
+      assertThat(results.get(i).get(30, TimeUnit.SECONDS)).isEqualTo("key-" + i);
+    }
+    assertThat(connection.isUsable()).isTrue();
+  }
+
+  @Test
+  public void asyncAndBlockingOpsShareTheConnection() throws Exception {
+    startServer(3, false);
+    PipelinedConnection connection = new PipelinedConnection(connect(), executor);
+
+    CompletableFuture<Object> first = connection.executeAsync(new EchoOp("first"));
+    Future<Object> second = executor.submit(() -> connection.execute(new EchoOp("second")));
+    CompletableFuture<Object> third = connection.executeAsync(new EchoOp("third"));
+
+    assertThat(first.get(30, TimeUnit.SECONDS)).isEqualTo("first");
+    assertThat(second.get(30, TimeUnit.SECONDS)).isEqualTo("second");
+    assertThat(third.get(30, TimeUnit.SECONDS)).isEqualTo("third");
+  }
+
+  @Test
+  public void lostConnectionFailsPendingAsyncOps() throws Exception {
+    startServer(2, true);
+    PipelinedConnection connection = new PipelinedConnection(connect(), executor);
+
+    CompletableFuture<Object> first = connection.executeAsync(new EchoOp("first"));
+    CompletableFuture<Object> second = connection.executeAsync(new EchoOp("second"));
+
+    assertThatThrownBy(() -> first.get(30, TimeUnit.SECONDS)).hasCauseInstanceOf(Exception.class);
+    assertThatThrownBy(() -> second.get(30, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(Exception.class);
+    assertThat(connection.isUsable()).isFalse();
+  }
+
+  @Test
+  public void retiredConnectionIsGivenBackByLastOp() throws Exception {
+    PipelinedConnection connection = new PipelinedConnection(mockConnection(), executor);
+
+    assertThat(connection.reserve()).isTrue();
+    assertThat(connection.reserve()).isTrue();
+    assertThat(connection.retire()).isFalse();
+    assertThat(connection.reserve()).isFalse();
+    assertThat(connection.release()).isFalse();
+    assertThat(connection.release()).isTrue();
+    assertThat(connection.getInFlight()).isZero();
+  }
+
+  @Test
+  public void idleConnectionIsGivenBackWhenRetired() throws Exception {
+    PipelinedConnection connection = new PipelinedConnection(mockConnection(), executor);
+
+    assertThat(connection.retire()).isTrue();
+    assertThat(connection.retire()).isFalse();
+  }
+
+  /**
+   * Starts a server that accepts one connection, reads the given number of requests and then
+   * either echoes the string of each one in order or closes the connection.
+   */
+  private void startServer(int requests, boolean close) {
+    executor.submit(() -> {
+      try (Socket serverSide = serverSocket.accept()) {
+        ByteBuffer buffer = ByteBuffer.allocate(32768);
+        List<Message> received = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+          Message request = new Message(1, Version.CURRENT);
+          request.setComms(serverSide, serverSide.getInputStream(), serverSide.getOutputStream(),
+              buffer, null);
+          request.receive();
+          received.add(request);
+        }
+        if (close) {
+          return null;
+        }
+        for (Message request : received) {
+          Message response = new Message(1, Version.CURRENT);
+          response.setMessageType(MessageType.RESPONSE);
+          response.setTransactionId(request.getTransactionId());
+          response.addStringPart(request.getPart(0).getString());
+          response.setComms(serverSide, serverSide.getInputStream(),
+              serverSide.getOutputStream(), buffer, null);
+          response.send();
+        }
+        // wait for the client to go away
+        serverSide.getInputStream().read();
+      }
+      return null;
+    });
+  }
+
+  private Connection connect() throws IOException {
+    socket = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+    socket.setSoTimeout(30000);
+    Connection connection = mockConnection();
+    when(connection.getSocket()).thenReturn(socket);
+    when(connection.getInputStream()).thenReturn(socket.getInputStream());
+    when(connection.getOutputStream()).thenReturn(socket.getOutputStream());
+    doAnswer(invocation -> {
+      socket.close();
+      return null;
+    }).when(connection).destroy();
+    return connection;
+  }
+
+  private Connection mockConnection() throws IOException {
+    Connection connection = mock(Connection.class);
+    when(connection.getSocket()).thenReturn(mock(Socket.class));
+    when(connection.getCommBuffer()).thenReturn(ByteBuffer.allocate(32768));
+    when(connection.getStats()).thenReturn(mock(ConnectionStats.class));
+    when(connection.getEndpoint()).thenReturn(mock(Endpoint.class));
+    when(connection.getServer()).thenReturn(new ServerLocation("localhost", 40404));
+    return connection;
+  }
+
+  private static class EchoOp extends AbstractOp {
+    EchoOp(String key) {
+      super(MessageType.REQUEST, 1);
+      getMessage().addStringPart(key);
+    }
+
+    @Override
+    protected Object processResponse(Message msg) throws Exception {
+      String key = msg.getPart(0).getString();
+      if ("fail".equals(key)) {
+        throw new ServerOperationException(key);
+      }
+      return key;
+    }
+
+    @Override
+    protected boolean isErrorResponse(int msgType) {
+      return false;
+    }
+
+    @Override
+    protected long startAttempt(ConnectionStats stats) {
+      return 0;
+    }
+
+    @Override
+    protected void endSendAttempt(ConnectionStats stats, long start) {}
+
+    @Override
+    protected void endAttempt(ConnectionStats stats, long start) {}
+
+    @Override
+    protected boolean participateInTransaction() {
+      return false;
+    }
+
+    @Override
+    protected boolean isPipelinable() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SortedResultSetJUnitTest {
+
+  @Test
+  public void spilledSetIteratesInOrderWithoutDuplicates() {
+    SortedResultSet set = new SortedResultSet(Comparator.naturalOrder());
+    set.spillAbove(2);
+
+    for (String element : new String[] {"c", "a", "b", "a", "d", "c"}) {
+      set.add(element);
+    }
+
+    assertThat(set.isSpilled()).isTrue();
+    assertThat(set.size()).isEqualTo(4);
+    assertThat(toList(set)).containsExactly("a", "b", "c", "d");
+  }
+
+  @Test
+  public void addingAnElementThatWasSpilledReturnsFalse() {
+    SortedResultSet set = new SortedResultSet(Comparator.naturalOrder());
+    set.spillAbove(2);
+    set.add("a");
+    set.add("b");
+
+    assertThat(set.add("a")).isFalse();
+    assertThat(set.contains("a")).isTrue();
+    assertThat(set.contains("z")).isFalse();
+  }
+
+  @Test
+  public void spilledSetRemovesElementsOnDiskAndOnHeap() {
+    SortedResultSet set = new SortedResultSet(Comparator.naturalOrder());
+    set.spillAbove(2);
+    set.add("a");
+    set.add("b");
+    set.add("c");
+
+    assertThat(set.remove("a")).isTrue();
+    assertThat(set.remove("c")).isTrue();
+    assertThat(set.remove("a")).isFalse();
+    assertThat(set.size()).isEqualTo(1);
+    assertThat(toList(set)).containsExactly("b");
+  }
+
+  @Test
+  public void spilledSetIteratorRemovesElements() {
+    SortedResultSet set = new SortedResultSet(Comparator.naturalOrder());
+    set.spillAbove(2);
+    set.add("a");
+    set.add("b");
+    set.add("c");
+
+    for (Iterator itr = set.iterator(); itr.hasNext();) {
+      if (!itr.next().equals("b")) {
+        itr.remove();
+      }
+    }
+
+    assertThat(set.size()).isEqualTo(1);
+    assertThat(toList(set)).containsExactly("b");
+  }
+
+  @Test
+  public void setWithoutComparatorDoesNotSpill() {
+    SortedResultSet set = new SortedResultSet();
+    set.spillAbove(1);
+
+    set.add("b");
+    set.add("a");
+
+    assertThat(set.isSpilled()).isFalse();
+    assertThat(toList(set)).containsExactly("a", "b");
+  }
+
+  private static List<Object> toList(SortedResultSet set) {
+    List<Object> result = new ArrayList<>();
+    for (Object element : set) {
+      result.add(element);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SortedResultsBagJUnitTest {
+
+  @Test
+  public void spilledBagIteratesInOrderWithDuplicates() {
+    SortedResultsBag<String> bag = new SortedResultsBag<>(Comparator.naturalOrder(), true);
+    bag.spillAbove(2);
+
+    for (String element : new String[] {"c", "a", "b", "a", "d", null}) {
+      bag.add(element);
+    }
+
+    assertThat(bag.isSpilled()).isTrue();
+    assertThat(bag.size()).isEqualTo(6);
+    assertThat(toList(bag)).containsExactly(null, "a", "a", "b", "c", "d");
+  }
+
+  @Test
+  public void spilledBagCountsOccurrencesOnDiskAndOnHeap() {
+    SortedResultsBag<String> bag = new SortedResultsBag<>(Comparator.naturalOrder(), true);
+    bag.spillAbove(2);
+
+    bag.add("a");
+    bag.add("b");
+    bag.add("a");
+
+    assertThat(bag.occurrences("a")).isEqualTo(2);
+    assertThat(bag.contains("b")).isTrue();
+    assertThat(bag.contains("z")).isFalse();
+    assertThat(bag.asSet()).containsExactly("a", "b");
+  }
+
+  @Test
+  public void spilledBagKeepsCountingOccurrencesAfterLaterSpills() {
+    SortedResultsBag<String> bag = new SortedResultsBag<>(Comparator.naturalOrder(), true);
+    bag.spillAbove(2);
+    bag.add("a");
+    bag.add("b");
+
+    assertThat(bag.occurrences("a")).isEqualTo(1);
+
+    bag.add("c");
+    bag.add("a");
+    bag.add("a");
+
+    assertThat(bag.occurrences("a")).isEqualTo(3);
+    assertThat(bag.occurrences("c")).isEqualTo(1);
+    assertThat(bag.asSet()).hasSize(3);
+    assertThat(toList(bag)).containsExactly("a", "a", "a", "b", "c");
+  }
+
+  @Test
+  public void spilledBagRemovesOccurrencesOnDiskAndOnHeap() {
+    SortedResultsBag<String> bag = new SortedResultsBag<>(Comparator.naturalOrder(), true);
+    bag.spillAbove(2);
+    bag.add("a");
+    bag.add("b");
+    bag.add("a");
+
+    assertThat(bag.remove("a")).isTrue();
+    assertThat(bag.occurrences("a")).isEqualTo(1);
+    assertThat(bag.remove("a")).isTrue();
+    assertThat(bag.remove("a")).isFalse();
+    assertThat(bag.size()).isEqualTo(1);
+    assertThat(bag.asSet()).containsExactly("b");
+  }
+
+  @Test
+  public void bagForOrderedInputDoesNotSpill() {
+    SortedResultsBag<String> bag = new SortedResultsBag<>(true);
+    bag.spillAbove(1);
+
+    bag.add("b");
+    bag.add("a");
+
+    assertThat(bag.isSpilled()).isFalse();
+    assertThat(toList(bag)).containsExactly("b", "a");
+  }
+
+  private static List<Object> toList(SortedResultsBag<?> bag) {
+    List<Object> result = new ArrayList<>();
+    for (Object element : bag) {
+      result.add(element);
+    }
+    return result;
+  }
+}
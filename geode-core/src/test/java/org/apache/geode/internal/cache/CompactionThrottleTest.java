@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompactionThrottleTest {
+
+  private static final long MB = 1024 * 1024;
+
+  private DiskStoreStats stats;
+  private long now;
+  private long paused;
+  private long writes;
+  private long writeTime;
+
+  @Before
+  public void setUp() {
+    stats = mock(DiskStoreStats.class);
+    now = 1;
+    when(stats.getWrites()).thenAnswer(invocation -> writes);
+    when(stats.getWriteTime()).thenAnswer(invocation -> writeTime);
+  }
+
+  @Test
+  public void unlimitedThrottleWithoutBackoffIsDisabled() {
+    CompactionThrottle throttle = newThrottle(0, 0);
+
+    throttle.throttle(100 * MB, () -> false);
+
+    assertThat(throttle.isEnabled()).isFalse();
+    assertThat(paused).isZero();
+  }
+
+  @Test
+  public void pausesToStayWithinBudget() {
+    CompactionThrottle throttle = newThrottle(10 * MB, 0);
+
+    for (int i = 0; i < 10; i++) {
+      throttle.throttle(MB, () -> false);
+    }
+
+    // the first 100 milliseconds may be spent as a burst
+    assertThat(paused).isBetween(TimeUnit.MILLISECONDS.toNanos(800),
+        TimeUnit.MILLISECONDS.toNanos(1000));
+    verify(stats, atLeastOnce()).incCompactionThrottleTime(anyLong());
+  }
+
+  @Test
+  public void pauseEndsWhenStopWaitingIsTrue() {
+    CompactionThrottle throttle = newThrottle(MB, 0);
+
+    throttle.throttle(10 * MB, () -> true);
+
+    assertThat(paused).isZero();
+  }
+
+  @Test
+  public void backsOffWhenWriteTimeRises() {
+    CompactionThrottle throttle = newThrottle(10 * MB, 2);
+    runSample(throttle, 100_000);
+    runSample(throttle, 100_000);
+    assertThat(throttle.getBytesPerSecond()).isEqualTo(10 * MB);
+
+    runSample(throttle, 500_000);
+
+    assertThat(throttle.getBytesPerSecond()).isEqualTo(5 * MB);
+    verify(stats).incCompactionBackoffs();
+  }
+
+  @Test
+  public void recoversToConfiguredBudgetWhenWriteTimeFalls() {
+    CompactionThrottle throttle = newThrottle(10 * MB, 2);
+    runSample(throttle, 100_000);
+    runSample(throttle, 500_000);
+    assertThat(throttle.getBytesPerSecond()).isEqualTo(5 * MB);
+
+    for (int i = 0; i < 10; i++) {
+      runSample(throttle, 100_000);
+    }
+
+    assertThat(throttle.getBytesPerSecond()).isEqualTo(10 * MB);
+  }
+
+  @Test
+  public void unlimitedBudgetBacksOffFromCopiedRate() {
+    CompactionThrottle throttle = newThrottle(0, 2);
+    runSample(throttle, 100_000);
+    assertThat(throttle.getBytesPerSecond()).isZero();
+
+    runSample(throttle, 500_000);
+
+    assertThat(throttle.getBytesPerSecond()).isGreaterThan(0);
+  }
+
+  @Test
+  public void ignoresSamplesWithTooFewWrites() {
+    CompactionThrottle throttle = newThrottle(10 * MB, 2);
+    runSample(throttle, 100_000);
+    runSample(throttle, 100_000);
+
+    writeTime += 5 * 500_000;
+    writes += 5;
+    now += CompactionThrottle.SAMPLE_INTERVAL_NANOS;
+    throttle.throttle(1, () -> false);
+
+    assertThat(throttle.getBytesPerSecond()).isEqualTo(10 * MB);
+    verify(stats, never()).incCompactionBackoffs();
+  }
+
+  /**
+   * Copies a little data during one sample interval while foreground writes take the given time.
+   */
+  private void runSample(CompactionThrottle throttle, long writeNanos) {
+    throttle.throttle(1024, () -> false);
+    writes += 100;
+    writeTime += 100 * writeNanos;
+    now += CompactionThrottle.SAMPLE_INTERVAL_NANOS;
+    throttle.throttle(1024, () -> false);
+  }
+
+  private CompactionThrottle newThrottle(long bytesPerSecond, double backoffLatencyFactor) {
+    return new CompactionThrottle(bytesPerSecond, backoffLatencyFactor, stats, () -> now) {
+      @Override
+      void pause(long nanos) {
+        paused += nanos;
+        now += nanos;
+      }
+    };
+  }
+}
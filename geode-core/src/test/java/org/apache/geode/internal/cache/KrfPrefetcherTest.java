@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KrfPrefetcherTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final List<File> krfFiles = new ArrayList<>();
+  private KrfPrefetcher<byte[]> prefetcher;
+
+  @Before
+  public void setUp() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      File krf = temporaryFolder.newFile("BACKUPds_" + i + ".krf");
+      Files.write(krf.toPath(), new byte[] {(byte) i, (byte) i});
+      krfFiles.add(krf);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    if (prefetcher != null) {
+      prefetcher.close();
+    }
+  }
+
+  @Test
+  public void takeReturnsContentsOfEveryKrfInOrder() {
+    prefetcher = new KrfPrefetcher<>(krfFiles, 2, Long.MAX_VALUE, mock(DiskStoreStats.class),
+        (krf, contents) -> contents);
+
+    for (int i = 0; i < krfFiles.size(); i++) {
+      assertThat(prefetcher.take(krfFiles.get(i))).containsExactly((byte) i, (byte) i);
+    }
+  }
+
+  @Test
+  public void takeOfUnknownKrfReturnsNull() throws Exception {
+    prefetcher = new KrfPrefetcher<>(krfFiles, 2, Long.MAX_VALUE, mock(DiskStoreStats.class),
+        (krf, contents) -> contents);
+
+    assertThat(prefetcher.take(temporaryFolder.newFile("other.krf"))).isNull();
+  }
+
+  @Test
+  public void takeOfKrfAlreadyTakenReturnsNull() {
+    prefetcher = new KrfPrefetcher<>(krfFiles, 2, Long.MAX_VALUE, mock(DiskStoreStats.class),
+        (krf, contents) -> contents);
+    prefetcher.take(krfFiles.get(0));
+
+    assertThat(prefetcher.take(krfFiles.get(0))).isNull();
+  }
+
+  @Test
+  public void skippedKrfsDoNotStopLaterKrfsFromBeingPrefetched() {
+    prefetcher = new KrfPrefetcher<>(krfFiles, 1, Long.MAX_VALUE, mock(DiskStoreStats.class),
+        (krf, contents) -> contents);
+
+    assertThat(prefetcher.take(krfFiles.get(9))).containsExactly((byte) 9, (byte) 9);
+  }
+
+  @Test
+  public void takeOfMissingKrfReturnsNull() {
+    File missing = new File(temporaryFolder.getRoot(), "missing.krf");
+    prefetcher = new KrfPrefetcher<>(Collections.singletonList(missing), 2, Long.MAX_VALUE,
+        mock(DiskStoreStats.class), (krf, contents) -> contents);
+
+    assertThat(prefetcher.take(missing)).isNull();
+  }
+
+  @Test
+  public void krfsAreDecodedAheadOfTheThreadTakingThem() {
+    List<Thread> decodingThreads = new CopyOnWriteArrayList<>();
+    KrfPrefetcher<String> decodingPrefetcher =
+        new KrfPrefetcher<>(krfFiles, 2, Long.MAX_VALUE, mock(DiskStoreStats.class),
+            (krf, contents) -> {
+              decodingThreads.add(Thread.currentThread());
+              return krf.getName() + ":" + contents.length;
+            });
+    try {
+      for (int i = 0; i < krfFiles.size(); i++) {
+        assertThat(decodingPrefetcher.take(krfFiles.get(i)))
+            .isEqualTo("BACKUPds_" + i + ".krf:2");
+      }
+    } finally {
+      decodingPrefetcher.close();
+    }
+
+    assertThat(decodingThreads).hasSize(krfFiles.size()).doesNotContain(Thread.currentThread());
+  }
+
+  @Test
+  public void krfThatFailsToDecodeIsLeftToTheCaller() {
+    prefetcher = new KrfPrefetcher<>(krfFiles, 2, Long.MAX_VALUE, mock(DiskStoreStats.class),
+        (krf, contents) -> {
+          if (krf.equals(krfFiles.get(1))) {
+            throw new IOException("corrupt");
+          }
+          return contents;
+        });
+
+    assertThat(prefetcher.take(krfFiles.get(0))).containsExactly((byte) 0, (byte) 0);
+    assertThat(prefetcher.take(krfFiles.get(1))).isNull();
+    assertThat(prefetcher.take(krfFiles.get(2))).containsExactly((byte) 2, (byte) 2);
+  }
+
+  @Test
+  public void krfsAreStillTakenInOrderWhenMaxBytesLimitsTheReadAhead() {
+    prefetcher = new KrfPrefetcher<>(krfFiles, 4, 5, mock(DiskStoreStats.class),
+        (krf, contents) -> contents);
+
+    for (int i = 0; i < krfFiles.size(); i++) {
+      assertThat(prefetcher.take(krfFiles.get(i))).containsExactly((byte) i, (byte) i);
+    }
+  }
+
+  @Test
+  public void krfsThatDoNotFitInMaxBytesAreNotReadAhead() {
+    DiskStoreStats stats = mock(DiskStoreStats.class);
+    prefetcher = new KrfPrefetcher<>(krfFiles, 4, 5, stats,
+        (krf, contents) -> contents);
+
+    verify(stats, after(500).times(2)).startKrfPrefetch();
+  }
+
+  @Test
+  public void krfLargerThanMaxBytesIsLeftToTheCaller() throws Exception {
+    Files.write(krfFiles.get(1).toPath(), new byte[] {1, 1, 1, 1, 1, 1});
+    prefetcher = new KrfPrefetcher<>(krfFiles, 2, 5, mock(DiskStoreStats.class),
+        (krf, contents) -> contents);
+
+    assertThat(prefetcher.take(krfFiles.get(0))).containsExactly((byte) 0, (byte) 0);
+    assertThat(prefetcher.take(krfFiles.get(1))).isNull();
+    assertThat(prefetcher.take(krfFiles.get(2))).containsExactly((byte) 2, (byte) 2);
+  }
+}
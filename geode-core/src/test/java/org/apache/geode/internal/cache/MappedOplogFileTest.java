@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.internal.cache.persistence.BytesAndBits;
+
+public class MappedOplogFileTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File file;
+  private byte[] contents;
+
+  @Before
+  public void setUp() throws Exception {
+    file = temporaryFolder.newFile("test.crf");
+    contents = new byte[100];
+    for (int i = 0; i < contents.length; i++) {
+      contents[i] = (byte) i;
+    }
+    Files.write(file.toPath(), contents);
+  }
+
+  @Test
+  public void sliceWithinSegmentReturnsMappedBytes() throws Exception {
+    MappedOplogFile mapped = MappedOplogFile.map(file, contents.length, 64);
+
+    assertThat(toArray(mapped.slice(10, 20))).isEqualTo(Arrays.copyOfRange(contents, 10, 30));
+  }
+
+  @Test
+  public void sliceStraddlingSegmentsReturnsAllBytes() throws Exception {
+    MappedOplogFile mapped = MappedOplogFile.map(file, contents.length, 64);
+
+    assertThat(toArray(mapped.slice(50, 40))).isEqualTo(Arrays.copyOfRange(contents, 50, 90));
+  }
+
+  @Test
+  public void sliceBeyondMappedLengthReturnsNull() throws Exception {
+    MappedOplogFile mapped = MappedOplogFile.map(file, 80, 64);
+
+    assertThat(mapped.slice(70, 20)).isNull();
+  }
+
+  @Test
+  public void sliceRemainsReadableAfterClose() throws Exception {
+    MappedOplogFile mapped = MappedOplogFile.map(file, contents.length);
+    ByteBuffer slice = mapped.slice(0, 10);
+
+    mapped.close();
+
+    assertThat(mapped.isClosed()).isTrue();
+    assertThat(mapped.slice(0, 10)).isNull();
+    assertThat(toArray(slice)).isEqualTo(Arrays.copyOfRange(contents, 0, 10));
+  }
+
+  @Test
+  public void bytesAndBitsCopiesSliceOnlyWhenBytesAreRequested() throws Exception {
+    MappedOplogFile mapped = MappedOplogFile.map(file, contents.length);
+    BytesAndBits bb = new BytesAndBits(mapped.slice(5, 10), (byte) 1);
+
+    assertThat(bb.isBufferBacked()).isTrue();
+    assertThat(bb.getLength()).isEqualTo(10);
+    assertThat(bb.getBytes()).isEqualTo(Arrays.copyOfRange(contents, 5, 15));
+    assertThat(bb.isBufferBacked()).isFalse();
+  }
+
+  private static byte[] toArray(ByteBuffer buffer) {
+    byte[] result = new byte[buffer.remaining()];
+    buffer.duplicate().get(result);
+    return result;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.internal.cache.OfflineDiskStoreReport.OplogReport;
+
+public class OfflineDiskStoreReportTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void oplogsAreReportedInOrder() {
+    OfflineDiskStoreReport report =
+        new OfflineDiskStoreReport("store", OfflineDiskStoreReport.Operation.VALIDATE);
+
+    report.drfRecovered(2, 10);
+    report.drfRecovered(1, 20);
+    report.crfRecovered(2, 100, 4, 1, 5);
+    report.crfRecovered(1, 200, 8, 6, 7);
+
+    assertThat(report.getOplogs()).extracting(OplogReport::getOplogId).containsExactly(1L, 2L);
+    OplogReport oplog = report.getOplogs().get(0);
+    assertThat(oplog.getCrfBytes()).isEqualTo(200);
+    assertThat(oplog.getDrfBytes()).isEqualTo(20);
+    assertThat(oplog.getLiveRecords()).isEqualTo(2);
+    assertThat(oplog.getLiveRatio()).isEqualTo(0.25);
+    assertThat(oplog.getGarbageRatio()).isEqualTo(0.75);
+    assertThat(oplog.getMillis()).isEqualTo(7);
+  }
+
+  @Test
+  public void emptyCrfIsLive() {
+    OfflineDiskStoreReport report =
+        new OfflineDiskStoreReport("store", OfflineDiskStoreReport.Operation.COMPACT);
+
+    report.drfRecovered(1, 20);
+
+    assertThat(report.getOplogs().get(0).getLiveRatio()).isEqualTo(1);
+  }
+
+  @Test
+  public void garbageIsNeverMoreThanRecords() {
+    OfflineDiskStoreReport report =
+        new OfflineDiskStoreReport("store", OfflineDiskStoreReport.Operation.COMPACT);
+
+    report.crfRecovered(1, 200, 2, 3, 7);
+
+    assertThat(report.getOplogs().get(0).getLiveRecords()).isZero();
+  }
+
+  @Test
+  public void completedReportHasDiskStoreCounts() {
+    DiskStoreImpl diskStore = mock(DiskStoreImpl.class);
+    when(diskStore.getLiveEntryCount()).thenReturn(5);
+    when(diskStore.getDeadRecordCount()).thenReturn(3);
+    OfflineDiskStoreReport report =
+        new OfflineDiskStoreReport("store", OfflineDiskStoreReport.Operation.COMPACT);
+
+    report.completed(diskStore, 42);
+
+    assertThat(report.isSuccessful()).isTrue();
+    assertThat(report.getLiveEntryCount()).isEqualTo(5);
+    assertThat(report.getDeadRecordCount()).isEqualTo(3);
+    assertThat(report.getElapsedMillis()).isEqualTo(42);
+  }
+
+  @Test
+  public void failedReportHasError() {
+    OfflineDiskStoreReport report =
+        new OfflineDiskStoreReport("store", OfflineDiskStoreReport.Operation.VALIDATE);
+
+    report.failed(new IOException("bad crf"), 42);
+
+    assertThat(report.isSuccessful()).isFalse();
+    assertThat(report.getError()).contains("bad crf");
+  }
+
+  @Test
+  public void reportsAreWrittenAsJsonArray() throws Exception {
+    OfflineDiskStoreReport first =
+        new OfflineDiskStoreReport("first", OfflineDiskStoreReport.Operation.VALIDATE);
+    first.crfRecovered(1, 200, 8, 6, 7);
+    OfflineDiskStoreReport second =
+        new OfflineDiskStoreReport("second", OfflineDiskStoreReport.Operation.VALIDATE);
+    File file = temporaryFolder.newFile("report.json");
+
+    OfflineDiskStoreReport.write(file, Arrays.asList(first, second));
+
+    JsonNode json = new ObjectMapper().readTree(file);
+    assertThat(json.isArray()).isTrue();
+    assertThat(json.size()).isEqualTo(2);
+    assertThat(json.get(0).get("diskStoreName").asText()).isEqualTo("first");
+    assertThat(json.get(0).get("operation").asText()).isEqualTo("VALIDATE");
+    JsonNode oplog = json.get(0).get("oplogs").get(0);
+    assertThat(oplog.get("oplogId").asLong()).isEqualTo(1);
+    assertThat(oplog.get("liveRecords").asLong()).isEqualTo(2);
+    assertThat(oplog.get("garbageRatio").asDouble()).isEqualTo(0.75);
+    assertThat(json.get(1).get("oplogs").size()).isZero();
+  }
+
+  @Test
+  public void emptyReportListIsWritten() throws Exception {
+    File file = temporaryFolder.newFile("report.json");
+
+    OfflineDiskStoreReport.write(file, Collections.emptyList());
+
+    assertThat(new ObjectMapper().readTree(file).size()).isZero();
+  }
+}
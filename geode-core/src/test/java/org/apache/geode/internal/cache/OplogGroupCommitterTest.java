@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.apache.geode.cache.DiskAccessException;
+
+public class OplogGroupCommitterTest {
+
+  private final DiskStoreStats stats = mock(DiskStoreStats.class);
+  private final OplogGroupCommitter.Forceable oplog = mock(OplogGroupCommitter.Forceable.class);
+  private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void awaitDurableWithoutWritesDoesNotForce() {
+    OplogGroupCommitter committer = new OplogGroupCommitter(1000, 1024, stats);
+
+    committer.awaitDurable();
+
+    verify(oplog, never()).forceForGroupCommit();
+  }
+
+  @Test
+  public void awaitDurableForcesWrittenOplog() {
+    OplogGroupCommitter committer = new OplogGroupCommitter(1, 1024, stats);
+
+    committer.written(oplog, 100);
+    committer.awaitDurable();
+
+    verify(oplog, times(1)).forceForGroupCommit();
+    verify(stats, times(1)).endGroupCommit(anyLong(), eq(1), eq(100L));
+  }
+
+  @Test
+  public void concurrentWritersShareOneForce() throws Exception {
+    // the window is long enough that only reaching the byte limit can end it
+    OplogGroupCommitter committer =
+        new OplogGroupCommitter(TimeUnit.MINUTES.toMicros(5), 300, stats);
+
+    List<Future<?>> writers = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      writers.add(executor.submit(() -> {
+        committer.written(oplog, 100);
+        committer.awaitDurable();
+      }));
+    }
+    for (Future<?> writer : writers) {
+      writer.get(1, TimeUnit.MINUTES);
+    }
+
+    verify(oplog, times(1)).forceForGroupCommit();
+    verify(stats, times(1)).endGroupCommit(anyLong(), eq(3), eq(300L));
+  }
+
+  @Test
+  public void failedForceIsThrownToWriter() {
+    OplogGroupCommitter committer = new OplogGroupCommitter(1, 1024, stats);
+    doThrow(new DiskAccessException("force failed")).when(oplog).forceForGroupCommit();
+
+    committer.written(oplog, 100);
+
+    assertThatThrownBy(committer::awaitDurable).isInstanceOf(DiskAccessException.class)
+        .hasMessage("force failed");
+  }
+
+  @Test
+  public void failureIsThrownToWritersOfItsGroupOnly() throws Exception {
+    OplogGroupCommitter committer = new OplogGroupCommitter(1, 1024, stats);
+    OplogGroupCommitter.Forceable failing = mock(OplogGroupCommitter.Forceable.class);
+    doThrow(new DiskAccessException("first")).doThrow(new DiskAccessException("second"))
+        .when(failing).forceForGroupCommit();
+
+    // another writer forces the group of our first write, which succeeds
+    committer.written(oplog, 100);
+    executor.submit(() -> writeAndAwait(committer, oplog)).get(1, TimeUnit.MINUTES);
+    // the group of our second write fails, and so does a later group
+    committer.written(failing, 100);
+    assertThatThrownBy(
+        () -> executor.submit(() -> writeAndAwait(committer, oplog)).get(1, TimeUnit.MINUTES))
+            .hasCauseInstanceOf(DiskAccessException.class);
+    assertThatThrownBy(
+        () -> executor.submit(() -> writeAndAwait(committer, failing)).get(1, TimeUnit.MINUTES))
+            .hasCauseInstanceOf(DiskAccessException.class);
+
+    assertThatThrownBy(committer::awaitDurable).isInstanceOf(DiskAccessException.class)
+        .hasMessage("first");
+    committer.written(oplog, 100);
+    committer.awaitDurable();
+  }
+
+  private static void writeAndAwait(OplogGroupCommitter committer,
+      OplogGroupCommitter.Forceable oplog) {
+    committer.written(oplog, 100);
+    committer.awaitDurable();
+  }
+}
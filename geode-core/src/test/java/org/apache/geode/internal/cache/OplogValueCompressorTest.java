@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.RestoreSystemProperties;
+
+import org.apache.geode.compression.SnappyCompressor;
+import org.apache.geode.internal.cache.entries.DiskEntry.Helper.ByteArrayValueWrapper;
+import org.apache.geode.internal.cache.entries.DiskEntry.Helper.ValueWrapper;
+import org.apache.geode.internal.cache.persistence.BytesAndBits;
+
+public class OplogValueCompressorTest {
+
+  @Rule
+  public RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties();
+
+  private DiskStoreStats stats;
+  private OplogValueCompressor compressor;
+
+  @Before
+  public void setUp() {
+    stats = mock(DiskStoreStats.class);
+    compressor = new OplogValueCompressor(new SnappyCompressor(), stats);
+  }
+
+  @Test
+  public void compressedValueDecompressesToOriginal() throws Exception {
+    byte[] value = new byte[1000];
+    Arrays.fill(value, (byte) 'x');
+
+    ValueWrapper compressed = compressor.compress(new ByteArrayValueWrapper(true, value));
+
+    assertThat(compressed.getLength()).isLessThan(value.length);
+    assertThat(compressor.decompress(toArray(compressed))).isEqualTo(value);
+  }
+
+  @Test
+  public void shortValueIsNotCompressed() throws Exception {
+    byte[] value = new byte[OplogValueCompressor.MIN_COMPRESSIBLE_LENGTH - 1];
+
+    assertThat(compressor.compress(new ByteArrayValueWrapper(true, value))).isNull();
+  }
+
+  @Test
+  public void incompressibleValueIsNotCompressed() throws Exception {
+    byte[] value = new byte[1000];
+    new Random(1).nextBytes(value);
+
+    assertThat(compressor.compress(new ByteArrayValueWrapper(true, value))).isNull();
+  }
+
+  @Test
+  public void decompressClearsCompressedBit() throws Exception {
+    byte[] value = new byte[1000];
+    Arrays.fill(value, (byte) 'x');
+    byte[] compressed = toArray(compressor.compress(new ByteArrayValueWrapper(true, value)));
+    byte bits = EntryBits.setCompressed(EntryBits.setSerialized((byte) 0, true), true);
+
+    BytesAndBits bb = compressor.decompress(new BytesAndBits(ByteBuffer.wrap(compressed), bits));
+
+    assertThat(bb.getBytes()).isEqualTo(value);
+    assertThat(EntryBits.isCompressed(bb.getBits())).isFalse();
+    assertThat(EntryBits.isSerialized(bb.getBits())).isTrue();
+  }
+
+  @Test
+  public void decompressReturnsUncompressedRecordAsIs() {
+    BytesAndBits bb = new BytesAndBits(new byte[] {1, 2, 3}, (byte) 1);
+
+    assertThat(compressor.decompress(bb)).isSameAs(bb);
+  }
+
+  @Test
+  public void compressedBitIsPersistent() {
+    byte bits = EntryBits.setCompressed((byte) 0, true);
+
+    assertThat(EntryBits.isCompressed(EntryBits.getPersistentBits(bits))).isTrue();
+  }
+
+  @Test
+  public void createReturnsNullWhenNotConfigured() {
+    assertThat(OplogValueCompressor.create("store", stats)).isNull();
+  }
+
+  @Test
+  public void diskStorePropertyOverridesDefault() {
+    System.setProperty(DiskStoreImpl.VALUE_COMPRESSOR_PROPERTY_NAME,
+        SnappyCompressor.class.getName());
+    System.setProperty(DiskStoreImpl.VALUE_COMPRESSOR_PROPERTY_NAME + ".other", "");
+
+    assertThat(OplogValueCompressor.create("store", stats).getCompressor())
+        .isInstanceOf(SnappyCompressor.class);
+    assertThat(OplogValueCompressor.create("other", stats)).isNull();
+  }
+
+  @Test
+  public void createWithUnknownClassThrows() {
+    System.setProperty(DiskStoreImpl.VALUE_COMPRESSOR_PROPERTY_NAME, "no.such.Compressor");
+
+    assertThatThrownBy(() -> OplogValueCompressor.create("store", stats))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static byte[] toArray(ValueWrapper value) throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocate(value.getLength());
+    value.sendTo(buffer, null);
+    return buffer.array();
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_EQ;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_GE;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_GT;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_LT;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_NE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.geode.pdx.internal.PdxOutputStream;
+import org.apache.geode.pdx.internal.PdxType;
+import org.apache.geode.pdx.internal.PdxWriterImpl;
+import org.apache.geode.pdx.internal.TypeRegistry;
+
+public class PdxColumnStoreTest {
+
+  private static final int TRADE_TYPE_ID = 1;
+
+  private static final int ORDER_TYPE_ID = 2;
+
+  private final Map<Integer, PdxType> types = new HashMap<>();
+
+  /** the values of the bucket the store reads back */
+  private final Map<Object, Object> values = new HashMap<>();
+
+  private final AtomicInteger reads = new AtomicInteger();
+
+  private TypeRegistry typeRegistry;
+
+  private PdxColumnStore store;
+
+  @Before
+  public void setUp() {
+    typeRegistry = mock(TypeRegistry.class);
+    when(typeRegistry.defineLocalType(any(), any())).thenAnswer(invocation -> {
+      PdxType type = invocation.getArgument(1);
+      type.setTypeId(
+          type.getClassName().equals(Trade.class.getName()) ? TRADE_TYPE_ID : ORDER_TYPE_ID);
+      types.put(type.getTypeId(), type);
+      return type;
+    });
+    when(typeRegistry.getType(anyInt()))
+        .thenAnswer(invocation -> types.get(invocation.<Integer>getArgument(0)));
+    store = new PdxColumnStore(typeRegistry, key -> {
+      reads.incrementAndGet();
+      return values.get(key);
+    });
+  }
+
+  @Test
+  public void decomposesValuesOfFirstPdxType() {
+    put("small", trade(5, 10.0, true, "GEOD"));
+    put("large", trade(50, 20.0, false, "ASF"));
+
+    assertThat(store.getType().getTypeId()).isEqualTo(TRADE_TYPE_ID);
+    assertThat(store.getColumnizedCount()).isEqualTo(2);
+
+    PdxColumnStore.ScanResult result = scan("quantity", TOK_GT, 10);
+    assertThat(result.getMatchingKeys()).containsExactly("large");
+    assertThat(result.getUncheckedKeys()).isEmpty();
+    assertThat(result.getEntryCount()).isEqualTo(2);
+
+    assertThat(scan("open", TOK_EQ, true).getMatchingKeys()).containsExactly("small");
+    assertThat(scan("price", TOK_GE, 10).getMatchingKeys()).containsExactlyInAnyOrder("small",
+        "large");
+  }
+
+  @Test
+  public void comparesNumbersLikeTheQueryEngine() {
+    put("a", trade(10, 1.5f, true, "A"));
+    put("b", trade(11, 2.5f, true, "B"));
+
+    assertThat(scan("quantity", TOK_LT, 10.5d).getMatchingKeys()).containsExactly("a");
+    assertThat(scan("quantity", TOK_EQ, 11L).getMatchingKeys()).containsExactly("b");
+    assertThat(scan("price", TOK_EQ, 2.5f).getMatchingKeys()).containsExactly("b");
+    assertThat(scan("price", TOK_NE, 2).getMatchingKeys()).containsExactlyInAnyOrder("a", "b");
+  }
+
+  @Test
+  public void stringsAreOnlyComparedForEqualityOfTheirHashes() {
+    put("a", trade(1, 1.0, true, "GEOD"));
+    put("b", trade(2, 1.0, true, null));
+    put("c", trade(3, 1.0, true, "ASF"));
+
+    PdxColumnStore.ScanResult result = scan("symbol", TOK_EQ, "GEOD");
+    assertThat(result.getMatchingKeys()).isEmpty();
+    assertThat(result.getUncheckedKeys()).containsExactlyInAnyOrder("a", "b");
+
+    result = scan("symbol", TOK_NE, "GEOD");
+    assertThat(result.getMatchingKeys()).containsExactly("c");
+    assertThat(result.getUncheckedKeys()).containsExactlyInAnyOrder("a", "b");
+
+    assertThat(store.scan("symbol", TOK_LT, "GEOD")).isNull();
+  }
+
+  @Test
+  public void scanReturnsNullIfTheColumnCannotBeUsed() {
+    put("a", trade(1, 1.0, true, "GEOD"));
+
+    assertThat(store.scan("unknown", TOK_EQ, 1)).isNull();
+    assertThat(store.scan("quantity", TOK_EQ, "1")).isNull();
+    assertThat(store.scan("quantity", TOK_EQ, null)).isNull();
+    assertThat(store.scan("open", TOK_GT, true)).isNull();
+  }
+
+  @Test
+  public void valuesThatCannotBeDecomposedAreUnchecked() {
+    put("trade", trade(1, 1.0, true, "GEOD"));
+    put("order", order(7));
+    put("string", new VMCachedDeserializable("not pdx", 20));
+    put("invalid", Token.INVALID);
+    put("evicted", Token.NOT_AVAILABLE);
+
+    assertThat(store.size()).isEqualTo(5);
+    assertThat(store.getColumnizedCount()).isEqualTo(1);
+    assertThat(scan("quantity", TOK_EQ, 1).getUncheckedKeys())
+        .containsExactlyInAnyOrder("order", "string", "invalid", "evicted");
+  }
+
+  @Test
+  public void removedEntriesAreDropped() {
+    put("a", trade(1, 1.0, true, "A"));
+    put("b", trade(2, 1.0, true, "B"));
+    put("c", order(3));
+
+    put("a", null);
+    put("b", Token.TOMBSTONE);
+    put("c", null);
+
+    assertThat(store.size()).isEqualTo(0);
+    assertThat(scan("quantity", TOK_GE, 0).getMatchingKeys()).isEmpty();
+  }
+
+  @Test
+  public void changesAreOnlyReadBackByTheNextScan() {
+    put("a", trade(1, 1.0, true, "A"));
+    put("a", trade(2, 1.0, true, "A"));
+    put("b", trade(3, 1.0, true, "B"));
+
+    assertThat(reads).hasValue(0);
+    assertThat(store.hasChanged("a")).isTrue();
+
+    assertThat(scan("quantity", TOK_EQ, 2).getMatchingKeys()).containsExactly("a");
+    assertThat(reads).hasValue(2);
+    assertThat(store.hasChanged("a")).isFalse();
+
+    scan("quantity", TOK_EQ, 2);
+    assertThat(reads).hasValue(2);
+  }
+
+  @Test
+  public void scanDoesNotApplyChangesWhileTheStoreIsHeld() {
+    put("a", trade(1, 1.0, true, "A"));
+    PdxColumnStore.ScanResult held = store.scan("quantity", TOK_EQ, 1);
+
+    put("a", trade(2, 1.0, true, "A"));
+
+    assertThat(store.hasChanged("a")).isTrue();
+    assertThat(store.scan("quantity", TOK_EQ, 2)).isNull();
+    held.release();
+    assertThat(scan("quantity", TOK_EQ, 2).getMatchingKeys()).containsExactly("a");
+  }
+
+  @Test
+  public void updatesReuseFreedSlots() {
+    put("a", trade(1, 1.0, true, "A"));
+    put("b", trade(2, 1.0, true, "B"));
+    store.size();
+    put("a", null);
+    put("b", trade(20, 1.0, true, "B"));
+    put("c", trade(30, 1.0, true, "C"));
+
+    assertThat(store.size()).isEqualTo(2);
+    assertThat(scan("quantity", TOK_GE, 2).getMatchingKeys()).containsExactlyInAnyOrder("b",
+        "c");
+  }
+
+  @Test
+  public void switchesToTypeWithMoreEntries() {
+    put("trade", trade(1, 1.0, true, "GEOD"));
+    store.size();
+    for (int i = 0; i < PdxColumnStore.MIN_ENTRIES_TO_SWITCH_TYPE; i++) {
+      put(i, order(i));
+    }
+
+    assertThat(store.getType().getTypeId()).isEqualTo(ORDER_TYPE_ID);
+    assertThat(store.getColumnizedCount()).isEqualTo(PdxColumnStore.MIN_ENTRIES_TO_SWITCH_TYPE);
+    PdxColumnStore.ScanResult result = scan("id", TOK_LT, 2);
+    assertThat(result.getMatchingKeys()).containsExactlyInAnyOrder(0, 1);
+    assertThat(result.getUncheckedKeys()).containsExactly("trade");
+  }
+
+  @Test
+  public void clearRemovesAllEntries() {
+    put("a", trade(1, 1.0, true, "A"));
+    put("b", order(1));
+    store.size();
+
+    values.clear();
+    store.clear();
+
+    assertThat(store.size()).isEqualTo(0);
+    assertThat(scan("quantity", TOK_EQ, 1).getMatchingKeys()).isEmpty();
+  }
+
+  @Test
+  public void parsesRegionNames() {
+    assertThat(PdxColumnStore.parseRegions(null)).isEmpty();
+    assertThat(PdxColumnStore.parseRegions(" trades, /orders ,,")).containsExactlyInAnyOrder(
+        "trades", "/orders");
+  }
+
+  /**
+   * Sets the value of an entry of the bucket, or removes it if the value is null, and tells the
+   * store about it.
+   */
+  private void put(Object key, Object value) {
+    if (value == null) {
+      values.remove(key);
+    } else {
+      values.put(key, value);
+    }
+    store.changed(key);
+  }
+
+  private PdxColumnStore.ScanResult scan(String fieldName, int operator, Object constant) {
+    PdxColumnStore.ScanResult result = store.scan(fieldName, operator, constant);
+    result.release();
+    return result;
+  }
+
+  private CachedDeserializable trade(int quantity, double price, boolean open, String symbol) {
+    PdxWriterImpl writer = new PdxWriterImpl(typeRegistry, new Trade(), new PdxOutputStream());
+    writer.writeInt("quantity", quantity);
+    writer.writeDouble("price", price);
+    writer.writeBoolean("open", open);
+    writer.writeString("symbol", symbol);
+    writer.completeByteStreamGeneration();
+    return new VMCachedDeserializable(writer.toByteArray());
+  }
+
+  private CachedDeserializable order(int id) {
+    PdxWriterImpl writer = new PdxWriterImpl(typeRegistry, new Order(), new PdxOutputStream());
+    writer.writeInt("id", id);
+    writer.completeByteStreamGeneration();
+    return new VMCachedDeserializable(writer.toByteArray());
+  }
+
+  private static class Trade {
+  }
+
+  private static class Order {
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.backup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContentAddressedOplogStoreTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private ContentAddressedOplogStore store;
+  private Path sourceDir;
+
+  @Before
+  public void setUp() throws IOException {
+    store = new ContentAddressedOplogStore(temporaryFolder.newFolder("store").toPath());
+    sourceDir = temporaryFolder.newFolder("source").toPath();
+  }
+
+  @Test
+  public void storesOplogUnderItsChecksum() throws IOException {
+    Path oplog = createOplog("BACKUPds_1.crf", "content");
+    String checksum = ContentAddressedOplogStore.checksum(oplog);
+
+    Path stored = store.store(oplog, new Properties());
+
+    assertThat(stored).isEqualTo(store.getObjectDirectory(checksum).resolve("BACKUPds_1.crf"));
+    assertThat(new String(Files.readAllBytes(stored))).isEqualTo("content");
+    assertThat(oplog).doesNotExist();
+  }
+
+  @Test
+  public void doesNotStoreSameOplogTwice() throws IOException {
+    Path stored = store.store(createOplog("BACKUPds_1.crf", "content"), new Properties());
+    FileTime modified = Files.getLastModifiedTime(stored);
+    Path oplog = createOplog("BACKUPds_1.crf", "content");
+
+    Path storedAgain = store.store(oplog, new Properties());
+
+    assertThat(storedAgain).isEqualTo(stored);
+    assertThat(Files.getLastModifiedTime(storedAgain)).isEqualTo(modified);
+    assertThat(oplog).doesNotExist();
+  }
+
+  @Test
+  public void sameContentWithOtherNameIsStoredUnderSameChecksum() throws IOException {
+    Path stored = store.store(createOplog("BACKUPds_1.drf", "content"), new Properties());
+
+    Path other = store.store(createOplog("BACKUPds_2.drf", "content"), new Properties());
+
+    assertThat(other.getParent()).isEqualTo(stored.getParent());
+    assertThat(other.getFileName().toString()).isEqualTo("BACKUPds_2.drf");
+    assertThat(new String(Files.readAllBytes(other))).isEqualTo("content");
+  }
+
+  @Test
+  public void differentContentIsStoredSeparately() throws IOException {
+    Path stored = store.store(createOplog("BACKUPds_1.crf", "content"), new Properties());
+
+    Path other = store.store(createOplog("BACKUPds_1.crf", "other content"), new Properties());
+
+    assertThat(other).isNotEqualTo(stored);
+    assertThat(new String(Files.readAllBytes(stored))).isEqualTo("content");
+    assertThat(new String(Files.readAllBytes(other))).isEqualTo("other content");
+  }
+
+  @Test
+  public void indexedChecksumIsUsedForUnchangedOplog() throws IOException {
+    Properties index = new Properties();
+    Path oplog = createOplog("BACKUPds_1.crf", "content");
+    FileTime modified = Files.getLastModifiedTime(oplog);
+    Path stored = store.store(oplog, index);
+
+    // same name, length and modification time, so the indexed checksum is trusted
+    Path unchanged = createOplog("BACKUPds_1.crf", "CONTENT");
+    Files.setLastModifiedTime(unchanged, modified);
+
+    assertThat(store.store(unchanged, index)).isEqualTo(stored);
+  }
+
+  @Test
+  public void modifiedOplogIsChecksummedAgain() throws IOException {
+    Properties index = new Properties();
+    Path oplog = createOplog("BACKUPds_1.crf", "content");
+    FileTime modified = Files.getLastModifiedTime(oplog);
+    Path stored = store.store(oplog, index);
+
+    Path changed = createOplog("BACKUPds_1.crf", "CONTENT");
+    Files.setLastModifiedTime(changed, FileTime.fromMillis(modified.toMillis() + 1000));
+
+    assertThat(store.store(changed, index)).isNotEqualTo(stored);
+  }
+
+  @Test
+  public void indexIsReadBack() throws IOException {
+    Properties index = new Properties();
+    store.store(createOplog("BACKUPds_1.crf", "content"), index);
+
+    store.writeIndex("ds_1234", index);
+
+    assertThat(store.readIndex("ds_1234")).isEqualTo(index);
+    assertThat(store.readIndex("other")).isEmpty();
+  }
+
+  private Path createOplog(String name, String content) throws IOException {
+    Path oplog = sourceDir.resolve(name);
+    Files.write(oplog, content.getBytes());
+    return oplog;
+  }
+}
@@ -15,6 +15,7 @@
 package org.apache.geode.internal.cache.backup;
 
 import static org.apache.geode.internal.cache.backup.FileSystemBackupWriterConfig.BASELINE_DIR;
+import static org.apache.geode.internal.cache.backup.FileSystemBackupWriterConfig.OPLOG_STORE_DIR;
 import static org.apache.geode.internal.cache.backup.FileSystemBackupWriterConfig.TARGET_DIR;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
@@ -68,4 +69,15 @@ public class FileSystemBackupWriterConfigTest {
   public void getBaselineDirectoryIsOptional() {
     assertThatCode(() -> config.getBaselineDirectory()).doesNotThrowAnyException();
   }
+
+  @Test
+  public void getOplogStoreDirectoryReturnsCorrectString() {
+    properties.setProperty(OPLOG_STORE_DIR, "oplog/store");
+    assertThat(config.getOplogStoreDirectory()).isEqualTo("oplog/store");
+  }
+
+  @Test
+  public void getOplogStoreDirectoryIsOptional() {
+    assertThat(config.getOplogStoreDirectory()).isNull();
+  }
 }
@@ -26,6 +26,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import org.apache.geode.internal.cache.BucketRegion;
+import org.apache.geode.internal.cache.RegionEntryContext;
 import org.apache.geode.internal.cache.versions.RegionVersionVector;
 
 public class AbstractEvictionListTest {
@@ -226,6 +227,52 @@ public class AbstractEvictionListTest {
     assertThat(evictionList.isEvictable(node)).isTrue();
   }
 
+  @Test
+  public void getColdEntryReturnsUnusedHeadEntry() {
+    TestEvictionList evictionList = new TestEvictionList(controller);
+    LRUTestEntry first = new LRUTestEntry(1);
+    LRUTestEntry second = new LRUTestEntry(2);
+    evictionList.appendEntry(first);
+    evictionList.appendEntry(second);
+
+    assertThat(evictionList.getColdEntry()).isSameAs(first);
+    assertThat(evictionList.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void getColdEntryGivesRecentlyUsedEntryAnotherPass() {
+    TestEvictionList evictionList = new TestEvictionList(controller);
+    LRUTestEntry used = new LRUTestEntry(1);
+    LRUTestEntry unused = new LRUTestEntry(2);
+    evictionList.appendEntry(used);
+    evictionList.appendEntry(unused);
+    used.setRecentlyUsed(mock(RegionEntryContext.class));
+
+    assertThat(evictionList.getColdEntry()).isNull();
+    assertThat(used.isRecentlyUsed()).isFalse();
+    assertThat(evictionList.size()).isEqualTo(2);
+    assertThat(evictionList.getColdEntry()).isSameAs(unused);
+    assertThat(evictionList.getColdEntry()).isSameAs(used);
+  }
+
+  @Test
+  public void getColdEntrySkipsEvictedEntry() {
+    TestEvictionList evictionList = new TestEvictionList(controller);
+    LRUTestEntry evicted = new LRUTestEntry(1);
+    evicted.setEvicted();
+    evictionList.appendEntry(evicted);
+
+    assertThat(evictionList.getColdEntry()).isNull();
+    assertThat(evictionList.size()).isZero();
+  }
+
+  @Test
+  public void getColdEntryOfEmptyListIsNull() {
+    TestEvictionList evictionList = new TestEvictionList(controller);
+
+    assertThat(evictionList.getColdEntry()).isNull();
+  }
+
   private static class TestEvictionList extends AbstractEvictionList {
 
     TestEvictionList(EvictionController controller) {
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.eviction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.RestoreSystemProperties;
+
+import org.apache.geode.cache.EvictionAction;
+import org.apache.geode.cache.EvictionAttributes;
+import org.apache.geode.cache.RegionAttributes;
+import org.apache.geode.internal.cache.BucketRegion;
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.PartitionedRegionDataStore;
+import org.apache.geode.internal.cache.RegionMap;
+import org.apache.geode.internal.cache.control.InternalResourceManager;
+import org.apache.geode.internal.cache.control.InternalResourceManager.ResourceType;
+import org.apache.geode.internal.cache.control.ResourceListener;
+
+public class ColdValueDemoterTest {
+
+  @Rule
+  public RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties();
+
+  private final Set<ResourceListener> listeners = new HashSet<>();
+
+  private ColdValueDemoter demoter;
+
+  @Before
+  public void setUp() {
+    InternalCache cache = mock(InternalCache.class);
+    InternalResourceManager resourceManager = mock(InternalResourceManager.class);
+    when(cache.getInternalResourceManager()).thenReturn(resourceManager);
+    when(resourceManager.getResourceListeners(ResourceType.OFFHEAP_MEMORY)).thenReturn(listeners);
+    demoter = new ColdValueDemoter(cache);
+  }
+
+  @Test
+  public void firstPassOnlyStartsTheInterval() {
+    setDemotionInterval("/region", 10);
+    RegionMap regionMap = addRegion("/region", true, EvictionAction.OVERFLOW_TO_DISK);
+    when(regionMap.demoteColdValues()).thenReturn(100L);
+
+    assertThat(demoter.demoteColdValues(0)).isZero();
+    assertThat(demoter.demoteColdValues(9999)).isZero();
+    verify(regionMap, never()).demoteColdValues();
+
+    assertThat(demoter.demoteColdValues(10000)).isEqualTo(100);
+    verify(regionMap, times(1)).demoteColdValues();
+  }
+
+  @Test
+  public void regionWithoutIntervalIsNotDemoted() {
+    RegionMap regionMap = addRegion("/region", true, EvictionAction.OVERFLOW_TO_DISK);
+
+    demoter.demoteColdValues(0);
+    demoter.demoteColdValues(Long.MAX_VALUE);
+
+    verify(regionMap, never()).demoteColdValues();
+  }
+
+  @Test
+  public void onlyOffHeapRegionsThatOverflowToDiskAreDemoted() {
+    setDemotionInterval("/heap", 1);
+    setDemotionInterval("/destroy", 1);
+    RegionMap heap = addRegion("/heap", false, EvictionAction.OVERFLOW_TO_DISK);
+    RegionMap destroy = addRegion("/destroy", true, EvictionAction.LOCAL_DESTROY);
+
+    demoter.demoteColdValues(0);
+    demoter.demoteColdValues(1000);
+
+    verify(heap, never()).demoteColdValues();
+    verify(destroy, never()).demoteColdValues();
+  }
+
+  @Test
+  public void localBucketsOfPartitionedRegionAreDemoted() {
+    setDemotionInterval("/partitioned", 1);
+    PartitionedRegion partitionedRegion = mock(PartitionedRegion.class);
+    mockAttributes(partitionedRegion, "/partitioned", true, EvictionAction.OVERFLOW_TO_DISK);
+    PartitionedRegionDataStore dataStore = mock(PartitionedRegionDataStore.class);
+    when(partitionedRegion.getDataStore()).thenReturn(dataStore);
+    BucketRegion bucket = mock(BucketRegion.class);
+    RegionMap regionMap = mock(RegionMap.class);
+    when(bucket.getRegionMap()).thenReturn(regionMap);
+    when(dataStore.getAllLocalBucketRegions()).thenReturn(Collections.singleton(bucket));
+    listeners.add(partitionedRegion);
+
+    demoter.demoteColdValues(0);
+    demoter.demoteColdValues(1000);
+
+    verify(regionMap).demoteColdValues();
+  }
+
+  private void setDemotionInterval(String regionPath, long seconds) {
+    System.setProperty(ColdValueDemoter.DEMOTION_INTERVAL_PROPERTY + "." + regionPath,
+        String.valueOf(seconds));
+  }
+
+  private RegionMap addRegion(String path, boolean offHeap, EvictionAction action) {
+    LocalRegion region = mock(LocalRegion.class);
+    mockAttributes(region, path, offHeap, action);
+    RegionMap regionMap = mock(RegionMap.class);
+    when(region.getRegionMap()).thenReturn(regionMap);
+    listeners.add(region);
+    return regionMap;
+  }
+
+  private void mockAttributes(LocalRegion region, String path, boolean offHeap,
+      EvictionAction action) {
+    RegionAttributes attributes = mock(RegionAttributes.class);
+    when(attributes.getOffHeap()).thenReturn(offHeap);
+    when(region.getAttributes()).thenReturn(attributes);
+    when(region.getEvictionAttributes())
+        .thenReturn(EvictionAttributes.createLRUHeapAttributes(null, action));
+    when(region.getFullPath()).thenReturn(path);
+  }
+}
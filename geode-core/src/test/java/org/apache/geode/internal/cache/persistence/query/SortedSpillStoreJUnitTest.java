@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.persistence.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SortedSpillStoreJUnitTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private SortedSpillStore store;
+
+  @Before
+  public void setUp() {
+    // a threshold of one byte spills every put to its own run
+    store = new SortedSpillStore(Comparator.<Integer>naturalOrder(), 1, temporaryFolder.getRoot());
+  }
+
+  @After
+  public void tearDown() {
+    store.close();
+  }
+
+  @Test
+  public void iteratesInKeyOrderAcrossMergedRuns() {
+    List<Integer> keys = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      keys.add(i);
+    }
+    Collections.shuffle(keys, new Random(17));
+    for (Integer key : keys) {
+      store.put(key, "v" + key);
+    }
+
+    Collections.sort(keys);
+    assertThat(keys(store.iterator())).isEqualTo(keys);
+    assertThat(store.getRunCount()).isLessThan(SortedSpillStore.MERGE_FACTOR * 3);
+    assertThat(store.get(123).getValue().getDeserializedForReading()).isEqualTo("v123");
+  }
+
+  @Test
+  public void laterPutHidesSpilledValue() {
+    store.put(1, "old");
+    store.put(2, "two");
+    store.put(1, "new");
+
+    assertThat(store.get(1).getValue().getDeserializedForReading()).isEqualTo("new");
+    assertThat(keys(store.iterator())).containsExactly(1, 2);
+  }
+
+  @Test
+  public void removeHidesSpilledValue() {
+    store.put(1, "one");
+    store.put(2, "two");
+    store.remove(1);
+
+    assertThat(store.get(1)).isNull();
+    assertThat(keys(store.iterator())).containsExactly(2);
+  }
+
+  @Test
+  public void nullKeySortsFirst() {
+    store.put(1, "one");
+    store.put(null, "null");
+
+    assertThat(keys(store.iterator())).containsExactly(null, 1);
+    assertThat(store.get(null).getValue().getDeserializedForReading()).isEqualTo("null");
+  }
+
+  @Test
+  public void iteratesRangesInBothDirections() {
+    for (int i = 0; i < 10; i++) {
+      store.put(i, null);
+    }
+
+    assertThat(keys(store.iterator(3, true, 6, false, false))).containsExactly(3, 4, 5);
+    assertThat(keys(store.iterator(6, false, 3, true, true))).containsExactly(5, 4, 3);
+    assertThat(keys(store.iterator(7, true, SortedSpillStore.UNBOUNDED, true, false)))
+        .containsExactly(7, 8, 9);
+    assertThat(keys(store.iterator(SortedSpillStore.UNBOUNDED, true, 7, false, true)))
+        .containsExactly(9, 8);
+  }
+
+  @Test
+  public void closeDeletesSpillFiles() {
+    store.put(1, "one");
+    store.put(2, "two");
+
+    store.close();
+
+    assertThat(temporaryFolder.getRoot().list()).isEmpty();
+    assertThatThrownBy(() -> store.get(1)).isInstanceOf(IllegalStateException.class);
+  }
+
+  private static List<Object> keys(CloseableIterator<SortedSpillStore.Record> records) {
+    List<Object> keys = new ArrayList<>();
+    try {
+      while (records.hasNext()) {
+        keys.add(records.next().getKey());
+      }
+    } finally {
+      records.close();
+    }
+    return keys;
+  }
+}
@@ -15,6 +15,8 @@
 package org.apache.geode.internal.cache.persistence.query;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -22,7 +24,9 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import org.apache.geode.internal.cache.CachedDeserializable;
 import org.apache.geode.internal.cache.persistence.query.IndexMap.IndexEntry;
@@ -33,6 +37,9 @@ import org.apache.geode.internal.cache.persistence.query.mock.PairComparator;
 
 public class TemporaryResultSetFactoryJUnitTest {
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test
   public void testSortedResultSet() {
     ResultSet set = new TemporaryResultSetFactory().getSortedResultSet(null, false);
@@ -89,6 +96,122 @@ public class TemporaryResultSetFactoryJUnitTest {
     assertEntryEquals(map.iterator("i2", true, "i4", true), expected.tailMap(new Pair("i1", "r2")));
   }
 
+  @Test
+  public void testSpilledSortedResultSet() {
+    ResultSet set = spillingFactory().getSortedResultSet(null, true);
+    set.add(1);
+    set.add(2);
+    set.add(4);
+    set.add(3);
+    set.add(2);
+
+    assertItrEquals(set.iterator(), 4, 3, 2, 1);
+    set.close();
+  }
+
+  @Test
+  public void testSpilledSortedResultBag() {
+    ResultBag set = spillingFactory().getSortedResultBag(null, false);
+    set.add(1);
+    set.add(2);
+    set.add(4);
+    set.add(3);
+    set.add(2);
+
+    assertItrEquals(set.iterator(), 1, 2, 2, 3, 4);
+    set.close();
+  }
+
+  @Test
+  public void testSpilledSortedResultBagCountsAndRemovesOccurrences() {
+    ResultBag set = spillingFactory().getSortedResultBag(null, false);
+    set.add(1);
+    set.add(2);
+    set.add(2);
+    set.add(3);
+
+    assertEquals(2, set.occurrences(2));
+    assertEquals(0, set.occurrences(5));
+    assertEquals(2, set.removeAll(2));
+    assertEquals(0, set.occurrences(2));
+    assertItrEquals(set.iterator(), 1, 3);
+    set.close();
+  }
+
+  @Test
+  public void testSpilledSortedResultSetFindsAndRemovesElements() {
+    ResultSet set = spillingFactory().getSortedResultSet(null, false);
+    set.add(1);
+    set.add(2);
+    set.add(3);
+
+    assertTrue(set.contains(2));
+    assertTrue(set.remove(2));
+    assertFalse(set.contains(2));
+    assertFalse(set.remove(2));
+    assertItrEquals(set.iterator(), 1, 3);
+    set.close();
+  }
+
+  @Test
+  public void testSpilledResultList() {
+    ResultList set = spillingFactory().getResultList();
+    set.add(1);
+    set.add(2);
+    set.add(4);
+    set.add(3);
+    set.add(2);
+
+    assertItrEquals(set.iterator(), 1, 2, 4, 3, 2);
+    assertItrEquals(set.iterator(2), 4, 3, 2);
+    set.close();
+  }
+
+  @Test
+  public void testSpilledResultMap() {
+    ResultMap map = spillingFactory().getSortedResultMap(false);
+    map.put("k1", "v1");
+    map.put("k3", "v3");
+    map.put("k2", "v2");
+    map.put("k1", "v4");
+    map.remove("k3");
+
+    assertEquals("v4", map.get("k1").getDeserializedForReading());
+    assertEquals(false, map.containsKey("k3"));
+    assertItrEquals(map.keyIterator(), "k1", "k2");
+    assertItrEquals(map.keyIterator("k2", true, "k1", true), "k2", "k1");
+    map.close();
+  }
+
+  @Test
+  public void testSpilledIndexMap() {
+    IndexMap map = spillingFactory().getIndexMap();
+    TreeMap expected =
+        new TreeMap(new PairComparator(new NaturalComparator(), new NaturalComparator()));
+    put("i1", "r1", "v1", map, expected);
+    put("i2", "r2", "v4", map, expected);
+    put("i4", "r4", "v4", map, expected);
+    put("i2", "r5", "v5", map, expected);
+
+    assertItrEquals(map.keyIterator(), "r1", "r2", "r5", "r4");
+    assertItrEquals(map.keyIterator("i2", true, "i3", true), "r2", "r5");
+    assertItrEquals(map.keyIterator("i2", true, "i2", true), "r2", "r5");
+    assertItrEquals(map.getKey("i2"), "r2", "r5");
+    assertItrEquals(map.descendingKeyIterator("i2", false), "r1");
+    assertEquals(3, map.sizeToEnd("i2"));
+
+    // See if we can get an entry range
+    assertEntryEquals(map.iterator("i2", true, "i4", true), expected.tailMap(new Pair("i1", "r2")));
+    map.destroy();
+  }
+
+  /**
+   * Returns a factory whose result sets spill on every add.
+   */
+  private TemporaryResultSetFactory spillingFactory() {
+    return new TemporaryResultSetFactory(1, temporaryFolder.getRoot());
+  }
+
   private void put(String ikey, String rkey, String value, IndexMap map, Map expected) {
     map.put(ikey, rkey, value);
     expected.put(new Pair(ikey, rkey), value);
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.internal.cache.InternalCache;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.ChunkInfo;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.ChunkWriter;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.Manifest;
+import org.apache.geode.internal.cache.snapshot.SnapshotPacket.SnapshotRecord;
+
+public class ChunkedImporterTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private ExecutorService executor;
+  private LocalRegion region;
+  private Set<Object> imported;
+  private File manifest;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    imported = ConcurrentHashMap.newKeySet();
+    region = mock(LocalRegion.class);
+    when(region.getCache()).thenReturn(mock(InternalCache.class));
+    doAnswer(invocation -> {
+      imported.addAll(((Map<?, ?>) invocation.getArgument(0)).keySet());
+      return null;
+    }).when(region).basicImportPutAll(any(), anyBoolean());
+    manifest = new File(temporaryFolder.getRoot(), "snapshot.gfd");
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void importsEveryChunk() throws Exception {
+    List<ChunkInfo> chunks = new ArrayList<>();
+    for (int bucketId = 0; bucketId < 10; bucketId++) {
+      chunks.add(writeChunk(bucketId, 100));
+    }
+    new Manifest("/region", chunks, new ExportedRegistry()).write(manifest);
+
+    ChunkedImporter<String, Object> importer = new ChunkedImporter<>(3);
+    importer.load(manifest, new SnapshotOptionsImpl<>(), region, executor);
+
+    assertThat(importer.getEntriesImported()).isEqualTo(1000);
+    assertThat(imported).hasSize(1000).contains("0-0", "9-99");
+  }
+
+  @Test
+  public void appliesFilter() throws Exception {
+    List<ChunkInfo> chunks = new ArrayList<>();
+    chunks.add(writeChunk(0, 10));
+    new Manifest("/region", chunks, new ExportedRegistry()).write(manifest);
+
+    ChunkedImporter<String, Object> importer = new ChunkedImporter<>(1);
+    importer.load(manifest,
+        new SnapshotOptionsImpl<String, Object>().setFilter(entry -> entry.getKey().equals("0-5")),
+        region, executor);
+
+    assertThat(imported).containsExactly("0-5");
+  }
+
+  @Test
+  public void missingChunkFailsImport() throws Exception {
+    List<ChunkInfo> chunks = new ArrayList<>();
+    chunks.add(writeChunk(0, 10));
+    ChunkedSnapshot.getChunkFile(manifest, 0).delete();
+    new Manifest("/region", chunks, new ExportedRegistry()).write(manifest);
+
+    ChunkedImporter<String, Object> importer = new ChunkedImporter<>(1);
+
+    assertThatThrownBy(
+        () -> importer.load(manifest, new SnapshotOptionsImpl<>(), region, executor))
+            .isInstanceOf(IOException.class);
+  }
+
+  private ChunkInfo writeChunk(int bucketId, int entries) throws IOException {
+    ChunkWriter writer =
+        new ChunkWriter(ChunkedSnapshot.getChunkFile(manifest, bucketId), bucketId);
+    for (int i = 0; i < entries; i++) {
+      writer.write(new SnapshotRecord(bucketId + "-" + i, "value" + i));
+    }
+    return writer.complete();
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.ChunkInfo;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.ChunkReader;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.ChunkWriter;
+import org.apache.geode.internal.cache.snapshot.ChunkedSnapshot.Manifest;
+import org.apache.geode.internal.cache.snapshot.SnapshotPacket.SnapshotRecord;
+
+public class ChunkedSnapshotTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void chunkFileIsNamedAfterManifestAndBucket() {
+    File manifest = new File(temporaryFolder.getRoot(), "snapshot-1270011234.gfd");
+
+    File chunk = ChunkedSnapshot.getChunkFile(manifest, 7);
+
+    assertThat(chunk).isEqualTo(new File(temporaryFolder.getRoot(), "snapshot-1270011234-7.gfc"));
+  }
+
+  @Test
+  public void chunkRecordsAreReadBack() throws Exception {
+    ChunkInfo chunk = writeChunk(3, 100);
+
+    assertThat(chunk.getBucketId()).isEqualTo(3);
+    assertThat(chunk.getEntries()).isEqualTo(100);
+    assertThat(chunk.getLength())
+        .isEqualTo(new File(temporaryFolder.getRoot(), chunk.getFileName()).length());
+
+    ChunkReader reader = new ChunkReader(temporaryFolder.getRoot(), chunk);
+    try {
+      for (int i = 0; i < 100; i++) {
+        SnapshotRecord record = reader.readSnapshotRecord();
+        assertThat((String) record.getKeyObject()).isEqualTo("key" + i);
+        assertThat((String) record.getValueObject()).isEqualTo("value" + i);
+      }
+      assertThat(reader.readSnapshotRecord()).isNull();
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void corruptChunkFailsChecksum() throws Exception {
+    ChunkInfo chunk = writeChunk(0, 10);
+    try (RandomAccessFile raf =
+        new RandomAccessFile(new File(temporaryFolder.getRoot(), chunk.getFileName()), "rw")) {
+      // a character of the first key, so the records can still be parsed
+      raf.seek(4);
+      int b = raf.read();
+      raf.seek(4);
+      raf.write(b ^ 0x01);
+    }
+
+    assertThatThrownBy(() -> readAll(chunk)).isInstanceOf(IOException.class)
+        .hasMessageContaining("checksum");
+  }
+
+  @Test
+  public void truncatedChunkIsRejected() throws Exception {
+    ChunkInfo chunk = writeChunk(0, 10);
+    try (RandomAccessFile raf =
+        new RandomAccessFile(new File(temporaryFolder.getRoot(), chunk.getFileName()), "rw")) {
+      raf.setLength(raf.length() - 1);
+    }
+
+    assertThatThrownBy(() -> new ChunkReader(temporaryFolder.getRoot(), chunk))
+        .isInstanceOf(IOException.class).hasMessageContaining("length");
+  }
+
+  @Test
+  public void manifestIsReadBack() throws Exception {
+    File file = temporaryFolder.newFile("snapshot.gfd");
+    ChunkInfo first = writeChunk(1, 5);
+    ChunkInfo second = writeChunk(2, 6);
+    new Manifest("/region", Arrays.asList(first, second), new ExportedRegistry()).write(file);
+
+    Manifest manifest = Manifest.read(file);
+
+    assertThat(ChunkedSnapshot.isManifest(file)).isTrue();
+    assertThat(manifest.getRegionName()).isEqualTo("/region");
+    assertThat(manifest.getChunks()).hasSize(2);
+    ChunkInfo read = manifest.getChunks().get(1);
+    assertThat(read.getFileName()).isEqualTo(second.getFileName());
+    assertThat(read.getBucketId()).isEqualTo(2);
+    assertThat(read.getEntries()).isEqualTo(6);
+    assertThat(read.getLength()).isEqualTo(second.getLength());
+    assertThat(read.getChecksum()).isEqualTo(second.getChecksum());
+    assertThat(manifest.getPdxTypes().types()).isEmpty();
+  }
+
+  @Test
+  public void manifestReplacesExistingFile() throws Exception {
+    File file = temporaryFolder.newFile("snapshot.gfd");
+    new Manifest("/old", Collections.emptyList(), new ExportedRegistry()).write(file);
+    new Manifest("/new", Collections.emptyList(), new ExportedRegistry()).write(file);
+
+    assertThat(Manifest.read(file).getRegionName()).isEqualTo("/new");
+    assertThat(temporaryFolder.getRoot().list()).containsExactly("snapshot.gfd");
+  }
+
+  @Test
+  public void snapshotFileIsNotManifest() throws Exception {
+    File file = temporaryFolder.newFile("snapshot.gfd");
+    try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(file))) {
+      // the header written by GFSnapshotExporter
+      dos.writeByte(GFSnapshot.SNAP_VER_2);
+      dos.write(new byte[] {0x47, 0x46, 0x53});
+      dos.writeLong(-1);
+      dos.writeUTF("/region");
+    }
+
+    assertThat(ChunkedSnapshot.isManifest(file)).isFalse();
+  }
+
+  @Test
+  public void emptyFileIsNotManifest() throws Exception {
+    assertThat(ChunkedSnapshot.isManifest(temporaryFolder.newFile("empty.gfd"))).isFalse();
+  }
+
+  private ChunkInfo writeChunk(int bucketId, int entries) throws IOException {
+    File manifest = new File(temporaryFolder.getRoot(), "snapshot.gfd");
+    ChunkWriter writer =
+        new ChunkWriter(ChunkedSnapshot.getChunkFile(manifest, bucketId), bucketId);
+    for (int i = 0; i < entries; i++) {
+      writer.write(new SnapshotRecord("key" + i, "value" + i));
+    }
+    return writer.complete();
+  }
+
+  private void readAll(ChunkInfo chunk) throws IOException {
+    ChunkReader reader = new ChunkReader(temporaryFolder.getRoot(), chunk);
+    try {
+      while (reader.readSnapshotRecord() != null) {
+        // keep reading
+      }
+    } finally {
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class MessageFramerTest {
+
+  private ServerSocketChannel serverChannel;
+  private SocketChannel clientChannel;
+  private SocketChannel serverSide;
+
+  @Before
+  public void setUp() throws Exception {
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    clientChannel = SocketChannel.open(serverChannel.getLocalAddress());
+    serverSide = serverChannel.accept();
+    serverSide.configureBlocking(false);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    clientChannel.close();
+    serverSide.close();
+    serverChannel.close();
+  }
+
+  @Test
+  public void requestIsFramedFromPartialReads() throws Exception {
+    byte[] request = serialize("key", "value");
+    MessageFramer framer = new MessageFramer();
+
+    assertThat(framer.readFrom(serverSide)).isFalse();
+    for (int i = 0; i < request.length; i += 5) {
+      assertThat(framer.readFrom(serverSide)).isFalse();
+      write(Arrays.copyOfRange(request, i, Math.min(i + 5, request.length)));
+    }
+    readUntilFramed(framer);
+
+    ByteBuffer frame = framer.takeFrame();
+    byte[] framed = new byte[frame.remaining()];
+    frame.get(framed);
+    assertThat(framed).isEqualTo(request);
+  }
+
+  @Test
+  public void framedRequestIsReadByMessage() throws Exception {
+    write(serialize("key", "value"));
+    MessageFramer framer = new MessageFramer();
+    readUntilFramed(framer);
+
+    Message message = receive(framer.takeFrame());
+
+    assertThat(message.getMessageType()).isEqualTo(MessageType.REQUEST);
+    assertThat(message.getTransactionId()).isEqualTo(7);
+    assertThat(message.getPart(0).getString()).isEqualTo("key");
+    assertThat(message.getPart(1).getString()).isEqualTo("value");
+  }
+
+  @Test
+  public void restOfLargeRequestIsReadFromTheChannel() throws Exception {
+    char[] chars = new char[MessageFramer.MAX_FRAMED_PAYLOAD * 2];
+    Arrays.fill(chars, 'x');
+    String value = new String(chars);
+    byte[] request = serialize("key", value);
+    MessageFramer framer = new MessageFramer();
+    new Thread(() -> {
+      try {
+        write(request);
+      } catch (IOException ignore) {
+      }
+    }).start();
+    readUntilFramed(framer);
+    ByteBuffer frame = framer.takeFrame();
+    assertThat(frame.remaining())
+        .isEqualTo(Message.FIXED_LENGTH + MessageFramer.MAX_FRAMED_PAYLOAD);
+
+    serverSide.configureBlocking(true);
+    Message message = receive(frame);
+
+    assertThat(message.getPart(0).getString()).isEqualTo("key");
+    assertThat(message.getPart(1).getString()).isEqualTo(value);
+  }
+
+  @Test
+  public void framerStartsOverAfterTakingAFrame() throws Exception {
+    byte[] first = serialize("first", "1");
+    byte[] second = serialize("second", "2");
+    byte[] both = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, both, first.length, second.length);
+    write(both);
+    MessageFramer framer = new MessageFramer();
+
+    readUntilFramed(framer);
+    assertThat(framer.takeFrame().remaining()).isEqualTo(first.length);
+    readUntilFramed(framer);
+    assertThat(framer.takeFrame().remaining()).isEqualTo(second.length);
+  }
+
+  private void readUntilFramed(MessageFramer framer) throws Exception {
+    long giveUp = System.currentTimeMillis() + 30000;
+    while (!framer.readFrom(serverSide)) {
+      assertThat(System.currentTimeMillis()).isLessThan(giveUp);
+      Thread.sleep(1);
+    }
+  }
+
+  private void write(byte[] bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      clientChannel.write(buffer);
+    }
+  }
+
+  private Message receive(ByteBuffer frame) throws IOException {
+    Message message = new Message(2, Version.CURRENT);
+    message.setComms(serverSide.socket(), ByteBuffer.allocate(1024), mock(MessageStats.class));
+    message.setBufferedInput(frame);
+    message.receive();
+    return message;
+  }
+
+  private static byte[] serialize(String key, String value) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Message message = new Message(2, Version.CURRENT);
+    message.setMessageType(MessageType.REQUEST);
+    message.setTransactionId(7);
+    message.addStringPart(key);
+    message.addStringPart(value);
+    message.setComms(mock(Socket.class), null, out, ByteBuffer.allocate(1024), null);
+    message.send();
+    return out.toByteArray();
+  }
+}
@@ -14,15 +14,18 @@
  */
 package org.apache.geode.internal.cache.tier.sockets;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -30,6 +33,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -122,6 +126,99 @@ public class MessageJUnitTest {
     verify(mockPart1, times(2)).clear();
   }
 
+  @Test
+  public void largePartIsReadIntoPooledBuffer() throws Exception {
+    PartBufferPool pool = new PartBufferPool(1024, 4);
+    byte[] bytes = partBytes(1500);
+    Message message = messageReading(pool, partHeader(1500), bytes);
+
+    message.readPayloadFields(1, 1505);
+
+    Part part = message.getPart(0);
+    assertTrue(part.isPooled());
+    assertArrayEquals(bytes, part.getSerializedForm());
+    assertEquals(1, pool.getIdleBufferCount(1500));
+  }
+
+  @Test
+  public void pooledBufferIsReleasedWhenConnectionIsResetWhileReadingIt() throws Exception {
+    PartBufferPool pool = new PartBufferPool(1024, 4);
+    Message message = messageReading(pool, partHeader(3000), partBytes(1500));
+
+    try {
+      message.readPayloadFields(1, 3005);
+      fail("expected an EOFException");
+    } catch (EOFException expected) {
+    }
+
+    assertFalse(message.getPart(0).isPooled());
+    assertEquals(1, pool.getIdleBufferCount(3000));
+  }
+
+  @Test
+  public void pooledBuffersOfPartsReadBeforeAFailureAreReleased() throws Exception {
+    PartBufferPool pool = new PartBufferPool(1024, 4);
+    Message message =
+        messageReading(pool, partHeader(1500), partBytes(1500), partHeader(100), new byte[10]);
+
+    try {
+      message.readPayloadFields(2, 1610);
+      fail("expected an EOFException");
+    } catch (EOFException expected) {
+    }
+
+    assertFalse(message.getPart(0).isPooled());
+    assertEquals(1, pool.getIdleBufferCount(1500));
+  }
+
+  /**
+   * Returns a server side message whose socket channel supplies the given bytes, and then reports
+   * that it was closed.
+   */
+  private Message messageReading(PartBufferPool pool, byte[]... chunks) throws Exception {
+    int length = 0;
+    for (byte[] chunk : chunks) {
+      length += chunk.length;
+    }
+    ByteBuffer input = ByteBuffer.allocate(length);
+    for (byte[] chunk : chunks) {
+      input.put(chunk);
+    }
+    input.flip();
+    SocketChannel channel = mock(SocketChannel.class);
+    when(channel.read(any(ByteBuffer.class))).thenAnswer(invocation -> {
+      ByteBuffer dest = invocation.getArgument(0);
+      if (!input.hasRemaining()) {
+        return -1;
+      }
+      int bytes = Math.min(input.remaining(), dest.remaining());
+      ByteBuffer slice = input.duplicate();
+      slice.limit(slice.position() + bytes);
+      dest.put(slice);
+      input.position(input.position() + bytes);
+      return bytes;
+    });
+    Socket socket = mock(Socket.class);
+    when(socket.getChannel()).thenReturn(channel);
+    Message message = new Message(2, Version.CURRENT);
+    message.setComms(mock(ServerConnection.class), socket, ByteBuffer.allocate(1000),
+        mock(MessageStats.class));
+    message.setPartBufferPool(pool);
+    return message;
+  }
+
+  private static byte[] partHeader(int partLength) {
+    return ByteBuffer.allocate(5).putInt(partLength).put((byte) 0).array();
+  }
+
+  private static byte[] partBytes(int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) i;
+    }
+    return bytes;
+  }
+
   /**
    * Client subscription threads establish a timeout when reading a message header in order to avoid
    * hanging should the server's machine fail, or should the network path to the server have
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.ClientServerTest;
+
+@Category({ClientServerTest.class})
+public class PartBufferPoolTest {
+
+  @Test
+  public void zeroThresholdDisablesPooling() {
+    PartBufferPool pool = new PartBufferPool(0, 4);
+
+    assertThat(pool.isEnabled()).isFalse();
+    assertThat(pool.shouldPool(1 << 20)).isFalse();
+  }
+
+  @Test
+  public void onlyPartsBetweenThresholdAndLargestSizeClassArePooled() {
+    PartBufferPool pool = new PartBufferPool(1024, 4);
+
+    assertThat(pool.shouldPool(1023)).isFalse();
+    assertThat(pool.shouldPool(1024)).isTrue();
+    assertThat(pool.shouldPool(PartBufferPool.MAX_POOLED_SIZE)).isTrue();
+    assertThat(pool.shouldPool(PartBufferPool.MAX_POOLED_SIZE + 1)).isFalse();
+  }
+
+  @Test
+  public void acquiredBufferIsDirectAndLimitedToPartLength() {
+    PartBufferPool pool = new PartBufferPool(1024, 4);
+
+    PooledPartBuffer pooled = pool.acquire(1500);
+
+    ByteBuffer buffer = pooled.getBuffer();
+    assertThat(buffer.isDirect()).isTrue();
+    assertThat(buffer.position()).isZero();
+    assertThat(buffer.limit()).isEqualTo(1500);
+    assertThat(buffer.capacity()).isEqualTo(2048);
+    assertThat(pooled.getLength()).isEqualTo(1500);
+  }
+
+  @Test
+  public void bufferIsReusedAfterLastReferenceIsReleased() {
+    PartBufferPool pool = new PartBufferPool(1024, 4);
+    PooledPartBuffer pooled = pool.acquire(1500);
+    ByteBuffer buffer = pooled.getBuffer();
+
+    assertThat(pooled.retain()).isTrue();
+    pooled.release();
+    assertThat(pool.getIdleBufferCount(1500)).isZero();
+    pooled.release();
+    assertThat(pool.getIdleBufferCount(1500)).isEqualTo(1);
+
+    PooledPartBuffer reused = pool.acquire(1100);
+    ByteBuffer reusedBuffer = reused.getBuffer();
+    assertThat(pool.getIdleBufferCount(1100)).isZero();
+    assertThat(reusedBuffer.limit()).isEqualTo(1100);
+    buffer.put(0, (byte) 42);
+    assertThat(reusedBuffer.get(0)).isEqualTo((byte) 42);
+  }
+
+  @Test
+  public void releasedBufferCannotBeRetainedOrReleasedAgain() {
+    PartBufferPool pool = new PartBufferPool(1024, 4);
+    PooledPartBuffer pooled = pool.acquire(1024);
+
+    pooled.release();
+
+    assertThat(pooled.retain()).isFalse();
+    assertThatThrownBy(pooled::release).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void idleBuffersAreBoundedPerSizeClass() {
+    PartBufferPool pool = new PartBufferPool(1024, 2);
+    PooledPartBuffer first = pool.acquire(1024);
+    PooledPartBuffer second = pool.acquire(1024);
+    PooledPartBuffer third = pool.acquire(1024);
+
+    first.release();
+    second.release();
+    third.release();
+
+    assertThat(pool.getIdleBufferCount(1024)).isEqualTo(2);
+  }
+
+  @Test
+  public void clearDropsIdleBuffers() {
+    PartBufferPool pool = new PartBufferPool(1024, 2);
+    pool.acquire(1024).release();
+
+    pool.clear();
+
+    assertThat(pool.getIdleBufferCount(1024)).isZero();
+  }
+}
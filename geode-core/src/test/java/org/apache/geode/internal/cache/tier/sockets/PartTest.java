@@ -14,16 +14,30 @@
  */
 package org.apache.geode.internal.cache.tier.sockets;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import org.apache.geode.OutOfOffHeapMemoryException;
+import org.apache.geode.internal.DSCODE;
+import org.apache.geode.internal.HeapDataOutputStream;
+import org.apache.geode.internal.offheap.AddressableMemoryManager;
+import org.apache.geode.internal.offheap.MemoryAllocatorImpl;
+import org.apache.geode.internal.offheap.OffHeapMemoryStats;
+import org.apache.geode.internal.offheap.OutOfOffHeapMemoryListener;
+import org.apache.geode.internal.offheap.SlabImpl;
+import org.apache.geode.internal.offheap.StoredObject;
+import org.apache.geode.internal.util.BlobHelper;
 import org.apache.geode.test.junit.categories.ClientServerTest;
 
 @Category({ClientServerTest.class})
@@ -39,4 +53,231 @@ public class PartTest {
 
     verify(mockPart, times(1)).writeTo(mockOutputStream, mockByteBuffer);
   }
+
+  @Test
+  public void pooledPartIsReadInPlace() throws Exception {
+    PartBufferPool pool = new PartBufferPool(1, 4);
+    byte[] bytes = BlobHelper.serializeToBlob("value");
+    Part part = new Part();
+
+    part.init(pooledBuffer(pool, bytes), (byte) 1);
+
+    assertThat(part.isPooled()).isTrue();
+    assertThat(part.isNull()).isFalse();
+    assertThat(part.getLength()).isEqualTo(bytes.length);
+    ByteBuffer written = ByteBuffer.allocate(bytes.length);
+    part.writeTo(written);
+    assertThat(written.array()).isEqualTo(bytes);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    part.writeTo(out, ByteBuffer.allocate(4));
+    assertThat(out.toByteArray()).isEqualTo(bytes);
+  }
+
+  @Test
+  public void serializedFormOfPooledPartIsCopiedToHeapAndBufferIsReleased() throws Exception {
+    PartBufferPool pool = new PartBufferPool(1, 4);
+    byte[] bytes = BlobHelper.serializeToBlob("value");
+    PooledPartBuffer pooled = pooledBuffer(pool, bytes);
+    Part part = new Part();
+    part.init(pooled, (byte) 1);
+
+    assertThat(part.getSerializedForm()).isEqualTo(bytes);
+
+    assertThat(part.isPooled()).isFalse();
+    assertThat(pooled.getRefCount()).isZero();
+    assertThat(pool.getIdleBufferCount(bytes.length)).isEqualTo(1);
+    assertThat(part.getObject()).isEqualTo("value");
+  }
+
+  @Test
+  public void objectOfPooledPartIsDeserialized() throws Exception {
+    PartBufferPool pool = new PartBufferPool(1, 4);
+    Part part = new Part();
+    part.init(pooledBuffer(pool, BlobHelper.serializeToBlob("value")), (byte) 1);
+
+    assertThat(part.getObject()).isEqualTo("value");
+  }
+
+  @Test
+  public void pooledNullObjectIsNull() {
+    PartBufferPool pool = new PartBufferPool(1, 4);
+    Part part = new Part();
+
+    part.init(pooledBuffer(pool, new byte[] {DSCODE.NULL.toByte()}), (byte) 1);
+
+    assertThat(part.isNull()).isTrue();
+  }
+
+  @Test
+  public void clearReleasesPooledBuffer() {
+    PartBufferPool pool = new PartBufferPool(1, 4);
+    PooledPartBuffer pooled = pooledBuffer(pool, new byte[] {1, 2, 3});
+    Part part = new Part();
+    part.init(pooled, (byte) 0);
+
+    part.clear();
+
+    assertThat(pooled.getRefCount()).isZero();
+    assertThat(part.getLength()).isZero();
+  }
+
+  @Test
+  public void initReleasesPooledBuffer() {
+    PartBufferPool pool = new PartBufferPool(1, 4);
+    PooledPartBuffer pooled = pooledBuffer(pool, new byte[] {1, 2, 3});
+    Part part = new Part();
+    part.init(pooled, (byte) 0);
+
+    part.init(new byte[] {4}, (byte) 0);
+
+    assertThat(pooled.getRefCount()).isZero();
+    assertThat(part.getSerializedForm()).containsExactly(4);
+  }
+
+  @Test
+  public void heapPartHasNoDirectBuffer() {
+    Part part = new Part();
+
+    part.setPartState(new byte[] {1, 2, 3}, false);
+
+    assertThat(part.getDirectBuffer()).isNull();
+  }
+
+  @Test
+  public void directBufferOfPooledPartHoldsItsBytes() {
+    PartBufferPool pool = new PartBufferPool(1, 4);
+    Part part = new Part();
+    part.init(pooledBuffer(pool, new byte[] {1, 2, 3}), (byte) 0);
+
+    ByteBuffer buffer = part.getDirectBuffer();
+
+    assertThat(buffer.isDirect()).isTrue();
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    assertThat(bytes).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void offHeapPartIsCopiedWhenItCannotBeWrapped() throws Exception {
+    byte[] bytes = new byte[100];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+    long addr = AddressableMemoryManager.allocate(bytes.length);
+    try {
+      AddressableMemoryManager.writeBytes(addr, bytes, 0, bytes.length);
+      StoredObject storedObject = mock(StoredObject.class);
+      when(storedObject.hasRefCount()).thenReturn(true);
+      when(storedObject.getDataSize()).thenReturn(bytes.length);
+      when(storedObject.getAddressForReadingData(0, bytes.length)).thenReturn(addr);
+      Part part = new Part();
+      part.setPartState(storedObject, true);
+
+      assertThat(part.getDirectBuffer()).isNull();
+      ByteBuffer heap = ByteBuffer.allocate(bytes.length);
+      part.writeTo(heap);
+      assertThat(heap.array()).isEqualTo(bytes);
+      ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+      part.writeTo(direct);
+      direct.flip();
+      byte[] written = new byte[direct.remaining()];
+      direct.get(written);
+      assertThat(written).isEqualTo(bytes);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ByteBuffer outBuffer = ByteBuffer.allocate(16);
+      part.writeTo(out, outBuffer);
+      HeapDataOutputStream.flushStream(out, outBuffer);
+      assertThat(out.toByteArray()).isEqualTo(bytes);
+    } finally {
+      AddressableMemoryManager.free(addr);
+    }
+  }
+
+  @Test
+  public void pooledObjectPartIsCopiedOffHeap() throws Exception {
+    createOffHeapMemory(1024);
+    try {
+      PartBufferPool pool = new PartBufferPool(1, 4);
+      byte[] bytes = BlobHelper.serializeToBlob("value");
+      PooledPartBuffer pooled = pooledBuffer(pool, bytes);
+      Part part = new Part();
+      part.init(pooled, (byte) 1);
+
+      StoredObject copy = part.copyToOffHeap();
+
+      assertThat(copy.getRefCount()).isEqualTo(1);
+      assertThat(copy.isSerialized()).isTrue();
+      assertThat(copy.isCompressed()).isFalse();
+      assertThat(copy.checkDataEquals(bytes)).isTrue();
+      assertThat(copy.getValueAsDeserializedHeapObject()).isEqualTo("value");
+      assertThat(part.isPooled()).isTrue();
+      assertThat(pooled.getRefCount()).isEqualTo(1);
+
+      part.clear();
+      assertThat(pooled.getRefCount()).isZero();
+      assertThat(copy.getValueAsDeserializedHeapObject()).isEqualTo("value");
+      copy.release();
+    } finally {
+      MemoryAllocatorImpl.freeOffHeapMemory();
+    }
+  }
+
+  @Test
+  public void pooledBytesPartIsCopiedOffHeapUnserialized() throws Exception {
+    createOffHeapMemory(1024);
+    try {
+      PartBufferPool pool = new PartBufferPool(1, 4);
+      byte[] bytes = {1, 2, 3};
+      Part part = new Part();
+      part.init(pooledBuffer(pool, bytes), (byte) 0);
+
+      StoredObject copy = part.copyToOffHeap();
+
+      assertThat(copy.isSerialized()).isFalse();
+      assertThat(copy.checkDataEquals(bytes)).isTrue();
+      copy.release();
+      part.clear();
+    } finally {
+      MemoryAllocatorImpl.freeOffHeapMemory();
+    }
+  }
+
+  @Test
+  public void pooledBufferStaysWithPartWhenOffHeapMemoryIsExhausted() throws Exception {
+    createOffHeapMemory(1024);
+    try {
+      PartBufferPool pool = new PartBufferPool(1, 4);
+      PooledPartBuffer pooled = pooledBuffer(pool, new byte[2048]);
+      Part part = new Part();
+      part.init(pooled, (byte) 0);
+
+      assertThatThrownBy(part::copyToOffHeap).isInstanceOf(OutOfOffHeapMemoryException.class);
+
+      assertThat(pooled.getRefCount()).isEqualTo(1);
+      part.clear();
+      assertThat(pooled.getRefCount()).isZero();
+      assertThat(pool.getIdleBufferCount(2048)).isEqualTo(1);
+    } finally {
+      MemoryAllocatorImpl.freeOffHeapMemory();
+    }
+  }
+
+  @Test
+  public void heapPartCannotBeCopiedOffHeap() {
+    Part part = new Part();
+    part.setPartState(new byte[] {1, 2, 3}, false);
+
+    assertThatThrownBy(part::copyToOffHeap).isInstanceOf(IllegalStateException.class);
+  }
+
+  private static void createOffHeapMemory(int size) {
+    MemoryAllocatorImpl.createForUnitTest(mock(OutOfOffHeapMemoryListener.class),
+        mock(OffHeapMemoryStats.class), new SlabImpl[] {new SlabImpl(size)});
+  }
+
+  private static PooledPartBuffer pooledBuffer(PartBufferPool pool, byte[] bytes) {
+    PooledPartBuffer pooled = pool.acquire(bytes.length);
+    pooled.getBuffer().put(bytes);
+    return pooled;
+  }
 }
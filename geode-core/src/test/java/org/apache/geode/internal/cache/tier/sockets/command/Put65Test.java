@@ -20,6 +20,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -42,6 +43,7 @@ import org.apache.geode.internal.cache.tier.sockets.CacheServerStats;
 import org.apache.geode.internal.cache.tier.sockets.Message;
 import org.apache.geode.internal.cache.tier.sockets.Part;
 import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
+import org.apache.geode.internal.offheap.StoredObject;
 import org.apache.geode.internal.security.AuthorizeRequest;
 import org.apache.geode.internal.security.SecurityService;
 import org.apache.geode.security.NotAuthorizedException;
@@ -229,4 +231,52 @@ public class Put65Test {
     verify(this.errorResponseMessage).send(this.serverConnection);
   }
 
+  @Test
+  public void pooledValueIsCopiedOffHeapAndCopyIsReleasedAfterPut() throws Exception {
+    StoredObject offHeapValue = mockPooledValue();
+    when(this.serverConnection.getAuthzRequest()).thenReturn(null);
+    when(this.localRegion.basicBridgePut(eq(KEY), eq(offHeapValue), eq(null), eq(true),
+        eq(CALLBACK_ARG), any(), eq(true), any())).thenReturn(true);
+
+    this.put65.cmdExecute(this.message, this.serverConnection, this.securityService, 0);
+
+    verify(this.valuePart, never()).getSerializedForm();
+    verify(this.localRegion).basicBridgePut(eq(KEY), eq(offHeapValue), eq(null), eq(true),
+        eq(CALLBACK_ARG), any(), eq(true), any());
+    verify(offHeapValue).release();
+    verify(this.replyMessage).send(this.serverConnection);
+  }
+
+  @Test
+  public void offHeapCopyOfPooledValueIsReleasedWhenPutFails() throws Exception {
+    StoredObject offHeapValue = mockPooledValue();
+    when(this.serverConnection.getAuthzRequest()).thenReturn(null);
+    when(this.localRegion.basicBridgePut(eq(KEY), eq(offHeapValue), eq(null), eq(true),
+        eq(CALLBACK_ARG), any(), eq(true), any())).thenThrow(new IllegalStateException());
+
+    this.put65.cmdExecute(this.message, this.serverConnection, this.securityService, 0);
+
+    verify(offHeapValue).release();
+    verify(this.errorResponseMessage).send(this.serverConnection);
+  }
+
+  @Test
+  public void pooledValueIsNotCopiedOffHeapWhenPutIsAuthorized() throws Exception {
+    mockPooledValue();
+
+    this.put65.cmdExecute(this.message, this.serverConnection, this.securityService, 0);
+
+    verify(this.valuePart, never()).copyToOffHeap();
+    verify(this.authzRequest).putAuthorize(eq(REGION_NAME), eq(KEY), eq(VALUE), eq(true),
+        eq(CALLBACK_ARG));
+    verify(this.replyMessage).send(this.serverConnection);
+  }
+
+  private StoredObject mockPooledValue() {
+    StoredObject offHeapValue = mock(StoredObject.class);
+    when(this.valuePart.isPooled()).thenReturn(true);
+    when(this.valuePart.copyToOffHeap()).thenReturn(offHeapValue);
+    when(this.localRegion.getOffHeap()).thenReturn(true);
+    return offHeapValue;
+  }
 }
@@ -20,6 +20,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -106,6 +107,24 @@ public class FreeListManagerTest {
     assertThat(c.getSize()).isEqualTo(computeExpectedSize(dataSize));
   }
 
+  @Test
+  public void samplerHistogramsFollowAllocateAndFree() {
+    setUpSingleSlabManager();
+    OffHeapMemorySampler sampler = this.freeListManager.getSampler();
+
+    OffHeapStoredObject c = this.freeListManager.allocate(10);
+    assertThat(sampler.getAllocatedChunks(0)).isEqualTo(1);
+    assertThat(sampler.getAllocatedBytes(0)).isEqualTo(c.getSize());
+
+    OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+    assertThat(sampler.getAllocatedChunks(0)).isZero();
+    OffHeapMemorySampler.Histogram free = sampler.getFreeHistogram();
+    assertThat(free.getChunks(0)).isEqualTo(1);
+    assertThat(free.getBytes(0)).isEqualTo(c.getSize());
+    assertThat(free.getBytes(OffHeapMemorySampler.getSizeClass(DEFAULT_SLAB_SIZE - c.getSize())))
+        .isEqualTo(DEFAULT_SLAB_SIZE - c.getSize());
+  }
+
   @Test
   public void allocateTinyChunkFromFreeListHasCorrectSize() {
     setUpSingleSlabManager();
@@ -204,6 +223,165 @@ public class FreeListManagerTest {
         .isEqualTo(computeExpectedSize(dataSize) + computeExpectedSize(dataSize2));
   }
 
+  @Test
+  public void freedTinyChunkIsReusedFromTinyCache() {
+    FreeListManager manager = createCachingFreeListManager(DEFAULT_SLAB_SIZE);
+    try {
+      int dataSize = 10;
+
+      OffHeapStoredObject c = manager.allocate(dataSize);
+      OffHeapStoredObject.release(c.getAddress(), manager);
+
+      assertThat(manager.getFreeTinyMemory()).isEqualTo(computeExpectedSize(dataSize));
+      assertThat(manager.allocate(dataSize).getAddress()).isEqualTo(c.getAddress());
+      verify(stats).incTinyCacheHits();
+    } finally {
+      manager.freeSlabs();
+    }
+  }
+
+  @Test
+  public void fullTinyCacheMagazineIsFlushedAndRefilledInBatches() {
+    FreeListManager manager = createCachingFreeListManager(DEFAULT_SLAB_SIZE);
+    try {
+      int count = FreeListManager.TINY_CACHE_MAGAZINE_SIZE + 1;
+      List<OffHeapStoredObject> chunks = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        chunks.add(manager.allocate(10));
+      }
+      for (OffHeapStoredObject c : chunks) {
+        OffHeapStoredObject.release(c.getAddress(), manager);
+      }
+
+      verify(stats, times(1)).incTinyCacheFlushes();
+
+      for (int i = 0; i < count; i++) {
+        manager.allocate(10);
+      }
+
+      verify(stats, times(1)).incTinyCacheRefills();
+      verify(stats, times(count - 1)).incTinyCacheHits();
+    } finally {
+      manager.freeSlabs();
+    }
+  }
+
+  @Test
+  public void defragmentTakesBackChunksOfTinyCache() {
+    int chunkSize = 64;
+    int chunkCount = 10;
+    FreeListManager manager = createCachingFreeListManager(chunkSize * chunkCount);
+    try {
+      List<OffHeapStoredObject> chunks = new ArrayList<>();
+      for (int i = 0; i < chunkCount; i++) {
+        chunks.add(manager.allocate(chunkSize - OffHeapStoredObject.HEADER_SIZE));
+      }
+      for (OffHeapStoredObject c : chunks) {
+        OffHeapStoredObject.release(c.getAddress(), manager);
+      }
+
+      OffHeapStoredObject c =
+          manager.allocate(chunkSize * chunkCount - OffHeapStoredObject.HEADER_SIZE);
+
+      assertThat(c.getSize()).isEqualTo(chunkSize * chunkCount);
+    } finally {
+      manager.freeSlabs();
+    }
+  }
+
+  @Test
+  public void defragmentIncrementallyTurnsAdjacentFreeChunksIntoFragment() {
+    int chunkSize = 64;
+    FreeListManager manager = new FreeListManager(ma, new Slab[] {new SlabImpl(chunkSize * 10)}, 0);
+    try {
+      List<OffHeapStoredObject> chunks = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        chunks.add(manager.allocate(chunkSize - OffHeapStoredObject.HEADER_SIZE));
+      }
+      for (int i : new int[] {0, 1, 2, 5}) {
+        OffHeapStoredObject.release(chunks.get(i).getAddress(), manager);
+      }
+
+      assertThat(manager.defragmentIncrementally(100)).isEqualTo(chunkSize * 3);
+
+      Fragment fragment = manager.getFragmentList().get(manager.getFragmentList().size() - 1);
+      assertThat(fragment.getAddress()).isEqualTo(chunks.get(0).getAddress());
+      assertThat(fragment.getSize()).isEqualTo(chunkSize * 3);
+      assertThat(manager.getFreeTinyMemory()).isEqualTo(chunkSize);
+      verify(stats).endIncrementalDefragmentation(0, chunkSize * 3);
+      OffHeapStoredObject c = manager.allocate(chunkSize * 3 - OffHeapStoredObject.HEADER_SIZE);
+      assertThat(c.getAddress()).isEqualTo(chunks.get(0).getAddress());
+    } finally {
+      manager.freeSlabs();
+    }
+  }
+
+  @Test
+  public void defragmentIncrementallyTakesAtMostMaxChunks() {
+    int chunkSize = 64;
+    FreeListManager manager = new FreeListManager(ma, new Slab[] {new SlabImpl(chunkSize * 4)}, 0);
+    try {
+      List<OffHeapStoredObject> chunks = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        chunks.add(manager.allocate(chunkSize - OffHeapStoredObject.HEADER_SIZE));
+      }
+      for (OffHeapStoredObject c : chunks) {
+        OffHeapStoredObject.release(c.getAddress(), manager);
+      }
+
+      assertThat(manager.defragmentIncrementally(2)).isEqualTo(chunkSize * 2);
+      assertThat(manager.getFreeTinyMemory()).isEqualTo(chunkSize * 2);
+    } finally {
+      manager.freeSlabs();
+    }
+  }
+
+  @Test
+  public void defragmentIncrementallyPrunesExhaustedFragments() {
+    int chunkSize = 64;
+    FreeListManager manager = new FreeListManager(ma, new Slab[] {new SlabImpl(chunkSize * 4)}, 0);
+    try {
+      List<OffHeapStoredObject> chunks = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        chunks.add(manager.allocate(chunkSize - OffHeapStoredObject.HEADER_SIZE));
+      }
+      OffHeapStoredObject.release(chunks.get(0).getAddress(), manager);
+      OffHeapStoredObject.release(chunks.get(1).getAddress(), manager);
+
+      manager.defragmentIncrementally(100);
+
+      assertThat(manager.getFragmentList()).hasSize(1);
+      assertThat(manager.getFragmentList().get(0).getAddress())
+          .isEqualTo(chunks.get(0).getAddress());
+    } finally {
+      manager.freeSlabs();
+    }
+  }
+
+  @Test
+  public void defragmentIncrementallyTakesBackChunksOfTinyCache() {
+    int chunkSize = 64;
+    int chunkCount = 10;
+    FreeListManager manager = createCachingFreeListManager(chunkSize * chunkCount);
+    try {
+      List<OffHeapStoredObject> chunks = new ArrayList<>();
+      for (int i = 0; i < chunkCount; i++) {
+        chunks.add(manager.allocate(chunkSize - OffHeapStoredObject.HEADER_SIZE));
+      }
+      for (OffHeapStoredObject c : chunks) {
+        OffHeapStoredObject.release(c.getAddress(), manager);
+      }
+
+      assertThat(manager.defragmentIncrementally(100)).isEqualTo(chunkSize * chunkCount);
+    } finally {
+      manager.freeSlabs();
+    }
+  }
+
+  private FreeListManager createCachingFreeListManager(int slabSize) {
+    return new FreeListManager(ma, new Slab[] {new SlabImpl(slabSize)}, 4);
+  }
+
   @Test
   public void freeHugeMemoryDefault() {
     setUpSingleSlabManager();
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+public class IncrementalDefragmenterTest {
+
+  private final FreeListManager freeList = mock(FreeListManager.class);
+
+  private final MemoryInspector inspector = mock(MemoryInspector.class);
+
+  @Test
+  public void stepIsSkippedBelowThreshold() {
+    IncrementalDefragmenter defragmenter =
+        new IncrementalDefragmenter(freeList, inspector, 50, 100, 1000);
+    when(inspector.getFreeChunkPercentage()).thenReturn(49);
+
+    assertThat(defragmenter.defragmentIfFragmented()).isZero();
+    verify(freeList, never()).defragmentIncrementally(anyInt());
+  }
+
+  @Test
+  public void stepIsBoundedByMaxChunks() {
+    IncrementalDefragmenter defragmenter =
+        new IncrementalDefragmenter(freeList, inspector, 50, 100, 1000);
+    when(inspector.getFreeChunkPercentage()).thenReturn(50);
+    when(freeList.defragmentIncrementally(1000)).thenReturn(4096L);
+
+    assertThat(defragmenter.defragmentIfFragmented()).isEqualTo(4096);
+  }
+
+  @Test
+  public void zeroThresholdDisables() {
+    IncrementalDefragmenter defragmenter =
+        new IncrementalDefragmenter(freeList, inspector, 0, 100, 1000);
+
+    assertThat(defragmenter.isEnabled()).isFalse();
+  }
+
+  @Test
+  public void maxChunksMustAllowCoalescing() {
+    assertThatThrownBy(() -> new IncrementalDefragmenter(freeList, inspector, 50, 100, 1))
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedSlabFactoryTest {
+
+  private static final int PAGE_SIZE = 4096;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void slabIsReadableAndWritable() throws Exception {
+    MappedSlabFactory factory =
+        new MappedSlabFactory(new File[] {temporaryFolder.getRoot()}, PAGE_SIZE, true);
+
+    Slab slab = factory.create(10000);
+    try {
+      assertThat(slab.getSize()).isEqualTo(10000);
+      AddressableMemoryManager.writeLong(slab.getMemoryAddress() + 9992, 42L);
+      assertThat(AddressableMemoryManager.readLong(slab.getMemoryAddress() + 9992))
+          .isEqualTo(42L);
+      assertThat(AddressableMemoryManager.readLong(slab.getMemoryAddress())).isZero();
+    } finally {
+      slab.free();
+    }
+  }
+
+  @Test
+  public void backingFileIsDeletedOnceMapped() throws Exception {
+    MappedSlabFactory factory =
+        new MappedSlabFactory(new File[] {temporaryFolder.getRoot()}, PAGE_SIZE, false);
+
+    Slab slab = factory.create(PAGE_SIZE);
+
+    assertThat(temporaryFolder.getRoot().list()).isEmpty();
+    slab.free();
+    assertThat(((MappedSlabFactory.MappedSlab) slab).isFreed()).isTrue();
+  }
+
+  @Test
+  public void slabsAreCreatedRoundRobinInDirectories() throws Exception {
+    File first = temporaryFolder.newFolder("node0");
+    File second = temporaryFolder.newFolder("node1");
+    MappedSlabFactory factory =
+        new MappedSlabFactory(new File[] {first, second}, PAGE_SIZE, false);
+    second.delete();
+
+    factory.create(PAGE_SIZE).free();
+
+    assertThatThrownBy(() -> factory.create(PAGE_SIZE)).isInstanceOf(OutOfMemoryError.class)
+        .hasMessageContaining(second.toString());
+    factory.create(PAGE_SIZE).free();
+  }
+
+  @Test
+  public void slabSizeIsAlignedToPages() {
+    MappedSlabFactory factory =
+        new MappedSlabFactory(new File[] {temporaryFolder.getRoot()}, 2 * 1024 * 1024, false);
+
+    assertThat(factory.alignSlabSize(Long.MAX_VALUE))
+        .isEqualTo(Integer.MAX_VALUE + 1L - factory.getPageSize());
+    assertThat(factory.alignSlabSize(5 * 1024 * 1024)).isEqualTo(4 * 1024 * 1024);
+    assertThat(factory.alignSlabSize(1024)).isEqualTo(1024);
+  }
+
+  @Test
+  public void pageSizeMustBePowerOfTwo() {
+    assertThatThrownBy(
+        () -> new MappedSlabFactory(new File[] {temporaryFolder.getRoot()}, 3000, false))
+            .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void directoryMustExist() {
+    File missing = new File(temporaryFolder.getRoot(), "missing");
+
+    assertThatThrownBy(() -> new MappedSlabFactory(new File[] {missing}, PAGE_SIZE, false))
+        .isInstanceOf(IllegalArgumentException.class).hasMessageContaining(missing.toString());
+  }
+}
@@ -14,6 +14,7 @@
  */
 package org.apache.geode.internal.offheap;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -139,4 +140,19 @@ public class MemoryInspectorImplJUnitTest {
     createSnapshot(memoryBlocks);
     return memoryBlocks;
   }
+
+  @Test
+  public void getFreeChunkPercentageIsFreeMemoryOutsideFragments() {
+    when(freeList.getFreeMemory()).thenReturn(1000L);
+    when(freeList.getFreeFragmentMemory()).thenReturn(250L);
+
+    assertEquals(75, inspector.getFreeChunkPercentage());
+  }
+
+  @Test
+  public void getFreeChunkPercentageWithoutFreeMemoryIsZero() {
+    when(freeList.getFreeMemory()).thenReturn(0L);
+
+    assertEquals(0, inspector.getFreeChunkPercentage());
+  }
 }
@@ -103,6 +103,56 @@ public class NullOffHeapMemoryStats implements OffHeapMemoryStats {
     return 0;
   }
 
+  @Override
+  public long startIncrementalDefragmentation() {
+    return 0;
+  }
+
+  @Override
+  public void endIncrementalDefragmentation(long start, long coalescedBytes) {}
+
+  @Override
+  public int getIncrementalDefragmentations() {
+    return 0;
+  }
+
+  @Override
+  public long getIncrementalDefragmentationTime() {
+    return 0;
+  }
+
+  @Override
+  public long getCoalescedMemory() {
+    return 0;
+  }
+
+  @Override
+  public void incTinyCacheHits() {}
+
+  @Override
+  public void incTinyCacheRefills() {}
+
+  @Override
+  public void incTinyCacheFlushes() {}
+
+  @Override
+  public void setSampler(OffHeapMemorySampler sampler) {}
+
+  @Override
+  public long getTinyCacheHits() {
+    return 0;
+  }
+
+  @Override
+  public long getTinyCacheRefills() {
+    return 0;
+  }
+
+  @Override
+  public long getTinyCacheFlushes() {
+    return 0;
+  }
+
   @Override
   public Statistics getStats() {
     return null;
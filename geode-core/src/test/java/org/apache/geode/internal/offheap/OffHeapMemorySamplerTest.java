@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class OffHeapMemorySamplerTest {
+
+  private final FreeListManager freeList = mock(FreeListManager.class);
+
+  @Test
+  public void sizeClassesGrowByFactorOfFour() {
+    assertThat(OffHeapMemorySampler.getSizeClass(8)).isEqualTo(0);
+    assertThat(OffHeapMemorySampler.getSizeClass(64)).isEqualTo(0);
+    assertThat(OffHeapMemorySampler.getSizeClass(65)).isEqualTo(1);
+    assertThat(OffHeapMemorySampler.getSizeClass(256)).isEqualTo(1);
+    assertThat(OffHeapMemorySampler.getSizeClass(257)).isEqualTo(2);
+    assertThat(OffHeapMemorySampler.getSizeClass(16 << 20)).isEqualTo(9);
+    assertThat(OffHeapMemorySampler.getSizeClass((16 << 20) + 1)).isEqualTo(10);
+    assertThat(OffHeapMemorySampler.getSizeClass(Integer.MAX_VALUE)).isEqualTo(10);
+  }
+
+  @Test
+  public void sizeClassNamesShowLimits() {
+    assertThat(OffHeapMemorySampler.getSizeClassName(0)).isEqualTo("0-64B");
+    assertThat(OffHeapMemorySampler.getSizeClassName(2)).isEqualTo("256B-1KB");
+    assertThat(OffHeapMemorySampler.getSizeClassName(10)).isEqualTo(">16MB");
+  }
+
+  @Test
+  public void allocatedHistogramCountsLiveChunks() {
+    OffHeapMemorySampler sampler = new OffHeapMemorySampler(freeList, 0, 16, 0);
+
+    sampler.allocated(1024, 40);
+    sampler.allocated(2048, 48);
+    sampler.allocated(4096, 1000);
+    sampler.freed(2048, 48);
+
+    OffHeapMemorySampler.Histogram histogram = sampler.getAllocatedHistogram();
+    assertThat(histogram.getChunks(0)).isEqualTo(1);
+    assertThat(histogram.getBytes(0)).isEqualTo(40);
+    assertThat(histogram.getChunks(2)).isEqualTo(1);
+    assertThat(histogram.getBytes(2)).isEqualTo(1000);
+  }
+
+  @Test
+  public void zeroIntervalDisablesSampling() {
+    OffHeapMemorySampler sampler = new OffHeapMemorySampler(freeList, 0, 16, 0);
+
+    sampler.allocated(1024, 40);
+
+    assertThat(sampler.getSampledAllocations()).isZero();
+    assertThat(sampler.getSampledChunks()).isZero();
+  }
+
+  @Test
+  public void sampledChunksAreTrackedUntilFreed() {
+    OffHeapMemorySampler sampler = new OffHeapMemorySampler(freeList, 1, 16, 0);
+
+    sampler.allocated(1024, 40);
+    sampler.allocated(2048, 48);
+    assertThat(sampler.getSampledAllocations()).isEqualTo(2);
+    assertThat(sampler.getSampledChunks()).isEqualTo(2);
+    assertThat(sampler.getLongLivedSampledChunks()).isEqualTo(2);
+
+    List<OffHeapMemorySampler.AllocationSite> sites = sampler.getLongLivedSites(0);
+    assertThat(sites).hasSize(1);
+    assertThat(sites.get(0).getChunks()).isEqualTo(2);
+    assertThat(sites.get(0).getBytes()).isEqualTo(88);
+    assertThat(sites.get(0).getSite()).isNotEmpty();
+
+    sampler.freed(1024, 40);
+    sampler.freed(2048, 48);
+    assertThat(sampler.getSampledChunks()).isZero();
+    assertThat(sampler.getLongLivedSites(0)).isEmpty();
+  }
+
+  @Test
+  public void youngChunksAreNotLongLived() {
+    OffHeapMemorySampler sampler = new OffHeapMemorySampler(freeList, 1, 16, 60000);
+
+    sampler.allocated(1024, 40);
+
+    assertThat(sampler.getLongLivedSampledChunks()).isZero();
+    assertThat(sampler.getLongLivedSites(60000)).isEmpty();
+  }
+
+  @Test
+  public void trackedSamplesAreBounded() {
+    OffHeapMemorySampler sampler = new OffHeapMemorySampler(freeList, 1, 2, 0);
+
+    sampler.allocated(1024, 40);
+    sampler.allocated(2048, 40);
+    sampler.allocated(4096, 40);
+
+    assertThat(sampler.getSampledAllocations()).isEqualTo(3);
+    assertThat(sampler.getSampledChunks()).isEqualTo(2);
+  }
+
+  @Test
+  public void freeHistogramWalksFreeLists() {
+    OffHeapMemorySampler sampler = new OffHeapMemorySampler(freeList, 0, 16, 0);
+
+    sampler.getFreeHistogram();
+
+    verify(freeList).addFreeMemoryTo(any(OffHeapMemorySampler.Histogram.class));
+  }
+
+  @Test
+  public void negativeIntervalIsRejected() {
+    assertThatThrownBy(() -> new OffHeapMemorySampler(freeList, -1, 16, 0))
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
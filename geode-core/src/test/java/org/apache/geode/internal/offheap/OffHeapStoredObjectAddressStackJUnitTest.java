@@ -129,6 +129,33 @@ public class OffHeapStoredObjectAddressStackJUnitTest {
     }
   }
 
+  @Test
+  public void batchOfferAndPollKeepStackOrder() {
+    SlabImpl slab = new SlabImpl(1024);
+    try {
+      MemoryAllocatorImpl ma =
+          MemoryAllocatorImpl.createForUnitTest(new NullOutOfOffHeapMemoryListener(),
+              new NullOffHeapMemoryStats(), new SlabImpl[] {slab});
+      long[] addrs = new long[3];
+      for (int i = 0; i < addrs.length; i++) {
+        addrs[i] = ((OffHeapStoredObject) ma.allocate(100)).getAddress();
+      }
+
+      OffHeapStoredObjectAddressStack stack = new OffHeapStoredObjectAddressStack();
+      stack.offer(addrs, 0, addrs.length);
+      assertEquals(addrs[2], stack.getTopAddress());
+
+      long[] polled = new long[4];
+      assertEquals(2, stack.poll(polled, 1, 2));
+      assertEquals(addrs[2], polled[1]);
+      assertEquals(addrs[1], polled[2]);
+      assertEquals(addrs[0], stack.poll());
+      assertEquals(true, stack.isEmpty());
+    } finally {
+      MemoryAllocatorImpl.freeOffHeapMemory();
+    }
+  }
+
   @Test
   public void addressZeroOfferCausesFailedAssertion() {
     OffHeapStoredObjectAddressStack stack = new OffHeapStoredObjectAddressStack(0L);
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.size;
+
+import static org.apache.geode.internal.size.SizeTestUtil.OBJECT_SIZE;
+import static org.apache.geode.internal.size.SizeTestUtil.REFERENCE_SIZE;
+import static org.apache.geode.internal.size.SizeTestUtil.roundup;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.apache.geode.internal.size.ObjectGraphSizer.ObjectFilter;
+
+public class LayoutPlanSizerTest {
+
+  private static final ObjectFilter ACCEPT_ALL = (parent, object) -> true;
+
+  @Test
+  public void sizesFlatObjects() throws Exception {
+    assertThat(LayoutPlanSizer.size(null, ACCEPT_ALL)).isZero();
+    assertThat(LayoutPlanSizer.size(new Object(), ACCEPT_ALL)).isEqualTo(roundup(OBJECT_SIZE));
+    assertThat(LayoutPlanSizer.size(new Leaf(), ACCEPT_ALL)).isEqualTo(roundup(OBJECT_SIZE + 4));
+  }
+
+  @Test
+  public void sizesEachReachableObjectOnce() throws Exception {
+    Node node = new Node();
+    node.array = new Leaf[4];
+    node.array[3] = new Leaf();
+    node.array[2] = node.array[3];
+    node.self = node;
+
+    assertThat(LayoutPlanSizer.size(node, ACCEPT_ALL))
+        .isEqualTo(roundup(OBJECT_SIZE + REFERENCE_SIZE * 3)
+            + roundup(OBJECT_SIZE + REFERENCE_SIZE * 4 + 4) + roundup(OBJECT_SIZE + 4));
+  }
+
+  @Test
+  public void sizesAreTheSameAsThoseOfReflectiveTraversal() throws Exception {
+    Map<String, List<Object>> map = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      List<Object> list = new ArrayList<>();
+      list.add("value" + i);
+      list.add(new int[i]);
+      list.add(new Leaf());
+      map.put("key" + i, list);
+    }
+
+    assertThat(LayoutPlanSizer.size(map, ACCEPT_ALL))
+        .isEqualTo(ObjectGraphSizer.traverse(map, ACCEPT_ALL, false));
+  }
+
+  @Test
+  public void doesNotFollowWeakReferences() throws Exception {
+    Leaf referent = new Leaf();
+    WeakReference<Leaf> reference = new WeakReference<>(referent);
+
+    assertThat(LayoutPlanSizer.size(reference, ACCEPT_ALL))
+        .isEqualTo(ObjectGraphSizer.SIZE_OF_UTIL.sizeof(reference))
+        .isEqualTo(ObjectGraphSizer.traverse(reference, ACCEPT_ALL, false));
+  }
+
+  @Test
+  public void doesNotFollowSoftOrPhantomReferences() throws Exception {
+    Leaf referent = new Leaf();
+    SoftReference<Leaf> soft = new SoftReference<>(referent);
+    PhantomReference<Leaf> phantom = new PhantomReference<>(referent, new ReferenceQueue<>());
+
+    assertThat(LayoutPlanSizer.size(soft, ACCEPT_ALL))
+        .isEqualTo(ObjectGraphSizer.SIZE_OF_UTIL.sizeof(soft))
+        .isEqualTo(ObjectGraphSizer.traverse(soft, ACCEPT_ALL, false));
+    assertThat(LayoutPlanSizer.size(phantom, ACCEPT_ALL))
+        .isEqualTo(ObjectGraphSizer.SIZE_OF_UTIL.sizeof(phantom))
+        .isEqualTo(ObjectGraphSizer.traverse(phantom, ACCEPT_ALL, false));
+  }
+
+  @Test
+  public void sizesReferencesHeldByOtherObjectsLikeReflectiveTraversal() throws Exception {
+    Node node = new Node();
+    node.reference = new LeafReference(new Leaf(), new Leaf());
+
+    assertThat(LayoutPlanSizer.size(node, ACCEPT_ALL))
+        .isEqualTo(ObjectGraphSizer.traverse(node, ACCEPT_ALL, false))
+        .isEqualTo(roundup(OBJECT_SIZE + REFERENCE_SIZE * 3)
+            + ObjectGraphSizer.SIZE_OF_UTIL.sizeof(node.reference));
+  }
+
+  @Test
+  public void rejectedObjectsAndTheirChildrenAreNotSized() throws Exception {
+    Node node = new Node();
+    node.array = new Leaf[] {new Leaf()};
+    ObjectFilter rejectArrays = (parent, object) -> !object.getClass().isArray();
+
+    assertThat(LayoutPlanSizer.size(node, rejectArrays))
+        .isEqualTo(roundup(OBJECT_SIZE + REFERENCE_SIZE * 3))
+        .isEqualTo(ObjectGraphSizer.traverse(node, rejectArrays, false));
+  }
+
+  @Test
+  public void filterCanSizeObjectsItself() throws Exception {
+    Node node = new Node();
+    node.array = new Leaf[] {new Leaf()};
+    long[] nestedSize = new long[1];
+    ObjectFilter sizingFilter = (parent, object) -> {
+      if (object instanceof Leaf) {
+        try {
+          nestedSize[0] = LayoutPlanSizer.size(object, ACCEPT_ALL);
+        } catch (IllegalAccessException e) {
+          throw new AssertionError(e);
+        }
+      }
+      return true;
+    };
+
+    assertThat(LayoutPlanSizer.size(node, sizingFilter))
+        .isEqualTo(ObjectGraphSizer.traverse(node, ACCEPT_ALL, false));
+    assertThat(nestedSize[0]).isEqualTo(roundup(OBJECT_SIZE + 4));
+  }
+
+  @Test
+  public void largeGraphsAreSized() throws Exception {
+    Object[] array = new Object[100000];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = new Leaf();
+    }
+
+    assertThat(LayoutPlanSizer.size(array, ACCEPT_ALL))
+        .isEqualTo(ObjectGraphSizer.traverse(array, ACCEPT_ALL, false));
+    assertThat(LayoutPlanSizer.size(new Leaf(), ACCEPT_ALL)).isEqualTo(roundup(OBJECT_SIZE + 4));
+  }
+
+  private static class Leaf {
+    int value;
+  }
+
+  private static class Node {
+    Leaf[] array;
+    Node self;
+    LeafReference reference;
+  }
+
+  /**
+   * A weak reference that also holds a strong reference, like the entries of a WeakHashMap.
+   */
+  private static class LeafReference extends WeakReference<Leaf> {
+    final Leaf value;
+
+    LeafReference(Leaf referent, Leaf value) {
+      super(referent);
+      this.value = value;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.io.EOFException;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -110,6 +111,24 @@ public class BlobHelperTest {
     assertThatThrownBy(() -> deserializeBlob(null)).isExactlyInstanceOf(NullPointerException.class);
   }
 
+  @Test
+  public void deserializeBlobOfMapInDirectBufferReturnsCopyOfMap() throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(this.bytesOfMap.length + 2);
+    buffer.put((byte) 0).put(this.bytesOfMap).put((byte) 0);
+    buffer.position(1).limit(1 + this.bytesOfMap.length);
+
+    final Object object = deserializeBlob(buffer, null);
+
+    assertThat(object).isEqualTo(this.mapWithTwoEntries);
+    assertThat(buffer.position()).isEqualTo(1);
+    assertThat(buffer.remaining()).isEqualTo(this.bytesOfMap.length);
+  }
+
+  @Test
+  public void deserializeBlobOfNullInBufferReturnsNull() throws Exception {
+    assertThat(deserializeBlob(ByteBuffer.wrap(this.bytesOfNull), Version.CURRENT)).isNull();
+  }
+
   @Test
   public void serializeMapToStreamWritesMapAsBytes() throws Exception {
     HeapDataOutputStream hdos = createHeapDataOutputStream();
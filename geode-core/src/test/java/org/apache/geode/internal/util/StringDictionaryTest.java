@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import org.apache.geode.internal.tcp.ByteBufferInputStream.ByteSource;
+import org.apache.geode.internal.tcp.ByteBufferInputStream.ByteSourceFactory;
+
+public class StringDictionaryTest {
+
+  private final StringDictionary dictionary = new StringDictionary(1024, 16);
+
+  @Test
+  public void stringIsHeldOnceItMissedTwice() {
+    String first = new String("ACTIVE");
+    String second = new String("ACTIVE");
+    String third = new String("ACTIVE");
+
+    assertThat(dictionary.intern(first)).isSameAs(first);
+    assertThat(dictionary.intern(second)).isSameAs(second);
+    assertThat(dictionary.intern(third)).isSameAs(second);
+  }
+
+  @Test
+  public void longStringsAreNotHeld() {
+    String longString = "a string longer than sixteen chars";
+
+    dictionary.intern(longString);
+    dictionary.intern(longString);
+
+    assertThat(dictionary.intern(new String(longString))).isNotSameAs(longString);
+    assertThat(dictionary.intern(null)).isNull();
+  }
+
+  @Test
+  public void heldStringIsFoundByItsBytes() {
+    String status = new String("SHIPPED");
+    dictionary.intern(status);
+    dictionary.intern(status);
+    ByteSource source = ByteSourceFactory.wrap("xxSHIPPEDxx".getBytes(StandardCharsets.US_ASCII));
+
+    assertThat(dictionary.lookup(source, 2, 7)).isSameAs(status);
+    assertThat(dictionary.lookup(source, 2, 6)).isNull();
+    assertThat(dictionary.lookup(source, 1, 7)).isNull();
+  }
+
+  @Test
+  public void sizeIsRoundedUpToPowerOfTwo() {
+    StringDictionary small = new StringDictionary(3, 16);
+    String[] strings = new String[] {"a", "b", "c", "d"};
+    for (String string : strings) {
+      small.intern(string);
+      small.intern(string);
+    }
+
+    int held = 0;
+    for (String string : strings) {
+      if (small.intern(new String(string)) == string) {
+        held++;
+      }
+    }
+    assertThat(held).isEqualTo(4);
+  }
+}
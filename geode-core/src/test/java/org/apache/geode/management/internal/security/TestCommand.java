@@ -213,6 +213,7 @@ public class TestCommand {
 
     // DescribeMemberCommand, ListMembersCommand
     createTestCommand("describe member --name=server1", ResourcePermissions.CLUSTER_READ);
+    createTestCommand("describe off-heap-memory", ResourcePermissions.CLUSTER_READ);
     createTestCommand("list members", ResourcePermissions.CLUSTER_READ);
 
     // Misc Commands